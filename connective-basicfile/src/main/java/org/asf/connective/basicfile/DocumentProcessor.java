@@ -5,7 +5,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Date;
 import java.util.stream.Stream;
 
 import javax.activation.FileTypeMap;
@@ -25,6 +26,11 @@ import org.asf.connective.basicfile.providers.extensions.IContextRootProviderExt
 import org.asf.connective.basicfile.providers.extensions.IProcessorProviderExtension;
 import org.asf.connective.basicfile.providers.extensions.IRemoteClientProviderExtension;
 import org.asf.connective.basicfile.providers.extensions.IServerProviderExtension;
+import org.asf.connective.basicfile.util.CompressedVariantStore;
+import org.asf.connective.basicfile.util.FileValidators;
+import org.asf.connective.basicfile.util.StaticFileCache;
+import org.asf.connective.headers.Preconditions;
+import org.asf.connective.io.ResponseCompression;
 import org.asf.connective.objects.HttpRequest;
 import org.asf.connective.objects.HttpResponse;
 
@@ -193,6 +199,14 @@ public class DocumentProcessor {
 
 		// Find file
 		File sourceFile = new File(context.getWebrootFolderPath(), path);
+
+		// Serve cached files without checking the file system
+		StaticFileCache cache = context.getFileCache();
+		if (cache != null && (request.getRequestMethod().equals("GET") || request.getRequestMethod().equals("HEAD"))) {
+			StaticFileCache.CachedFile cached = cache.get(sourceFile);
+			if (cached != null)
+				return serveFile(path, sourceFile, cached, request, response, client, server);
+		}
 		if (!sourceFile.exists() && !request.getRequestMethod().equals("POST")
 				&& !request.getRequestMethod().equals("PUT")) {
 			// File not found
@@ -297,33 +311,145 @@ public class DocumentProcessor {
 			return true;
 		}
 
-		// Open file stream
-		FileInputStream strm = new FileInputStream(sourceFile);
-
-		// Set content
-		response.setContent(MainFileMap.getInstance().getContentType(sourceFile), strm, sourceFile.length());
+		return serveFile(path, sourceFile, null, request, response, client, server);
+	}
 
-		// Find file extensions
+	private boolean serveFile(String path, File sourceFile, StaticFileCache.CachedFile cached, HttpRequest request,
+			HttpResponse response, RemoteClient client, ConnectiveHttpServer server) throws IOException {
+		// Find file extension
+		String contentType = cached != null ? cached.getContentType() : getContentType(sourceFile);
+		IFileExtensionProvider extension = null;
 		for (IFileExtensionProvider prov : context.getFileExtensions()) {
-			// Check file
 			if (sourceFile.getName().endsWith(prov.fileExtension())) {
-				// Instantiate
-				prov = prov.createInstance();
-
-				// Provide info
-				provideDataTo(prov, client, server);
-
-				// Apply extension preprocessor
-				response = prov.rewrite(path, response.getBodyStream(), response, request).getRewrittenResponse();
+				extension = prov;
 				break;
 			}
 		}
 
+		// Files that are not rewritten support validators and compressed variants
+		if (extension == null && !hasPostProcessors(path, request, contentType, client, server)) {
+			serveStaticFile(path, sourceFile, cached, contentType, request, response, client, server);
+			return true;
+		}
+
+		// Set content, sent as file region so that the transport can avoid copying it
+		if (cached != null && cached.getContent() != null)
+			response.setContent(contentType, cached.getContent());
+		else
+			response.setContent(contentType, sourceFile.toPath());
+		if (extension != null) {
+			// Instantiate
+			extension = extension.createInstance();
+
+			// Provide info
+			provideDataTo(extension, client, server);
+
+			// Apply extension preprocessor
+			response = extension.rewrite(path, response.getBodyStream(), response, request).getRewrittenResponse();
+		}
+
 		// Success
 		postProcessRequest(path, request, response, client, server);
 		return true;
 	}
 
+	private void serveStaticFile(String path, File file, StaticFileCache.CachedFile cached, String contentType,
+			HttpRequest request, HttpResponse response, RemoteClient client, ConnectiveHttpServer server)
+			throws IOException {
+		long modified = cached != null ? cached.getLastModified() : file.lastModified();
+		long length = cached != null ? cached.getLength() : file.length();
+
+		// Select a pre-compressed variant
+		File body = file;
+		String encoding = null;
+		CompressedVariantStore variants = context.getCompressedVariants();
+		if (variants != null) {
+			CompressedVariantStore.Variants available = variants.getVariants(file, modified, length);
+			if (available != null) {
+				ResponseCompression.addVary(response);
+				encoding = available.selectEncoding(request.getHeaderValue("Accept-Encoding"));
+				if (encoding != null)
+					body = available.getFile(encoding);
+			}
+		}
+
+		// Caching policy
+		String cacheControl = context.getCacheControl(path);
+		if (cacheControl != null)
+			response.addHeader("Cache-Control", cacheControl);
+
+		// Evaluate conditional requests without opening the file
+		FileValidators validators = context.getValidators();
+		if (validators != null) {
+			String etag = validators.getEntityTag(file, modified, length, encoding);
+			response.addHeader("ETag", etag);
+			response.setLastModified(new Date(modified));
+			int status = Preconditions.evaluate(request, etag, modified);
+			if (status != Preconditions.PROCEED) {
+				if (status == 304)
+					response.setResponseStatus(304, "Not Modified");
+				else
+					response.setResponseStatus(412, "Precondition Failed");
+				postProcessRequest(path, request, response, client, server);
+				return;
+			}
+		}
+
+		// Set content from memory if cached, range requests are answered from file
+		// regions
+		StaticFileCache cache = context.getFileCache();
+		StaticFileCache.CachedFile content = encoding == null ? cached : (cache != null ? cache.get(body) : null);
+		if (content != null && content.getContent() != null && !request.hasHeader("Range"))
+			response.setContent(contentType, content.getContent());
+		else {
+			// Set content, sent as file region so that the transport can avoid copying it
+			try {
+				response.setContent(contentType, body.toPath());
+			} catch (NoSuchFileException e) {
+				if (encoding == null)
+					throw e;
+
+				// Variant was removed, send the file itself
+				encoding = null;
+				response.setContent(contentType, file.toPath());
+				if (validators != null)
+					response.addHeader("ETag", validators.getEntityTag(file, modified, length, null));
+			}
+		}
+		if (encoding != null) {
+			response.addHeader("Content-Encoding", encoding);
+			response.setCompressible(false);
+		}
+		postProcessRequest(path, request, response, client, server);
+	}
+
+	private boolean hasPostProcessors(String path, HttpRequest request, String contentType, RemoteClient client,
+			ConnectiveHttpServer server) {
+		for (IDocumentPostProcessorProvider processor : context.getPostProcessors()) {
+			// Create instance
+			processor = processor.createInstance();
+
+			// Provide information
+			provideDataTo(processor, client, server);
+
+			// Verify
+			if (processor.match(request, path)
+					&& ((contentType != null && contentType.equalsIgnoreCase("text/html")) || processor.acceptNonHTML()))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieves the content type of a file
+	 * 
+	 * @param file File to retrieve the content type of
+	 * @return Content type string
+	 */
+	public static String getContentType(File file) {
+		return MainFileMap.getInstance().getContentType(file);
+	}
+
 	private static class MainFileMap extends MimetypesFileTypeMap {
 		private static MainFileMap instance;
 
@@ -369,7 +495,7 @@ public class DocumentProcessor {
 
 	@SuppressWarnings("deprecation")
 	private void postProcessRequest(String path, HttpRequest request, HttpResponse response, RemoteClient client,
-			ConnectiveHttpServer server) {
+			ConnectiveHttpServer server) throws IOException {
 		// Set error if needed
 		if (!response.isSuccessResponseCode() && !response.hasResponseBody())
 			response.setContent("text/html", server.getErrorPageGenerator().apply(response, request));
@@ -400,6 +526,13 @@ public class DocumentProcessor {
 				}
 			}
 		}
+
+		// Compress with the settings of the context, these replace the server settings
+		ResponseCompression compression = context.getResponseCompression();
+		if (compression != null) {
+			compression.apply(request, response);
+			response.setCompressible(false);
+		}
 	}
 
 	private boolean handleRequestProcessors(String path, HttpRequest request, HttpResponse response,
@@ -10,9 +10,13 @@ import org.asf.connective.basicfile.providers.IDocumentPostProcessorProvider;
 import org.asf.connective.basicfile.providers.IFileRestrictionProvider;
 import org.asf.connective.basicfile.providers.IVirtualFileProvider;
 import org.asf.connective.basicfile.providers.IndexPageProvider;
+import org.asf.connective.basicfile.util.CompressedVariantStore;
+import org.asf.connective.basicfile.util.FileValidators;
+import org.asf.connective.basicfile.util.StaticFileCache;
 import org.asf.connective.handlers.HttpHandlerSet;
 import org.asf.connective.HandlerSetContentSource;
 import org.asf.connective.ContentSource;
+import org.asf.connective.io.ResponseCompression;
 
 /**
  * 
@@ -34,6 +38,11 @@ public class FileProviderContext {
 	protected ContentSource source = new HandlerSetContentSource(processors);
 	protected IndexPageProvider defaultIndexPage = null;
 	protected String fileSourceFolder;
+	protected ResponseCompression compression;
+	protected CompressedVariantStore variants;
+	protected FileValidators validators;
+	protected StaticFileCache fileCache;
+	protected HashMap<String, String> cacheControl = new HashMap<String, String>();
 
 	/**
 	 * Retrieves the path of the webroot folder
@@ -44,6 +53,61 @@ public class FileProviderContext {
 		return fileSourceFolder;
 	}
 
+	/**
+	 * Retrieves the response compression settings of this context
+	 * 
+	 * @return ResponseCompression instance or null to use the server settings
+	 */
+	public ResponseCompression getResponseCompression() {
+		return compression;
+	}
+
+	/**
+	 * Retrieves the store of pre-compressed file variants
+	 * 
+	 * @return CompressedVariantStore instance or null if variants are not served
+	 */
+	public CompressedVariantStore getCompressedVariants() {
+		return variants;
+	}
+
+	/**
+	 * Retrieves the validator generator used for conditional requests
+	 * 
+	 * @return FileValidators instance or null if validators are not sent
+	 */
+	public FileValidators getValidators() {
+		return validators;
+	}
+
+	/**
+	 * Retrieves the static file cache
+	 * 
+	 * @return StaticFileCache instance or null if files are not cached
+	 */
+	public StaticFileCache getFileCache() {
+		return fileCache;
+	}
+
+	/**
+	 * Retrieves the Cache-Control policy for the given path
+	 * 
+	 * @param path Path to retrieve the policy for
+	 * @return Cache-Control header value or null
+	 */
+	public String getCacheControl(String path) {
+		path = sanitizePath(path);
+
+		// Find the most specific policy for this path
+		for (String pth : cacheControl.keySet().stream().sorted((t1, t2) -> {
+			return -Integer.compare(t1.split("/").length, t2.split("/").length);
+		}).toArray(t -> new String[t])) {
+			if (pth.equals("/") || pth.equalsIgnoreCase(path) || path.toLowerCase().startsWith(pth.toLowerCase() + "/"))
+				return cacheControl.get(pth);
+		}
+		return null;
+	}
+
 	/**
 	 * Retrieves the HTTP request processor set
 	 * 
@@ -126,16 +190,7 @@ public class FileProviderContext {
 	 */
 	public IndexPageProvider getIndexPage(String path) {
 		// Clean path
-		while (path.startsWith("/"))
-			path = path.substring(1);
-		while (path.endsWith("/"))
-			path = path.substring(0, path.length() - 1);
-		while (path.contains("//"))
-			path = path.replace("//", "/");
-		if (path.contains("\\"))
-			path = path.replace("\\", "/");
-		if (!path.startsWith("/"))
-			path = "/" + path;
+		path = sanitizePath(path);
 
 		// Find best index page for this page
 		for (String pth : indexPages.keySet().stream().sorted((t1, t2) -> {
@@ -154,4 +209,18 @@ public class FileProviderContext {
 		return defaultIndexPage;
 	}
 
+	private static String sanitizePath(String path) {
+		while (path.startsWith("/"))
+			path = path.substring(1);
+		while (path.endsWith("/"))
+			path = path.substring(0, path.length() - 1);
+		while (path.contains("//"))
+			path = path.replace("//", "/");
+		if (path.contains("\\"))
+			path = path.replace("\\", "/");
+		if (!path.startsWith("/"))
+			path = "/" + path;
+		return path;
+	}
+
 }
@@ -13,11 +13,15 @@ import org.asf.connective.basicfile.providers.IFileExtensionProvider;
 import org.asf.connective.basicfile.providers.IFileRestrictionProvider;
 import org.asf.connective.basicfile.providers.IVirtualFileProvider;
 import org.asf.connective.basicfile.providers.IndexPageProvider;
+import org.asf.connective.basicfile.util.CompressedVariantStore;
+import org.asf.connective.basicfile.util.FileValidators;
+import org.asf.connective.basicfile.util.StaticFileCache;
 import org.asf.connective.handlers.DynamicHttpPushHandler;
 import org.asf.connective.handlers.DynamicHttpRequestHandler;
 import org.asf.connective.handlers.HttpHandlerSet;
 import org.asf.connective.handlers.HttpPushHandler;
 import org.asf.connective.handlers.HttpRequestHandler;
+import org.asf.connective.io.ResponseCompression;
 
 /**
  * 
@@ -39,6 +43,14 @@ public class FileProviderContextFactory {
 	protected ContentSource source = new HandlerSetContentSource(processors);
 	protected IndexPageProvider defaultIndexPage = new DefaultIndexPage();
 	protected String fileSourceFolder = "root";
+	protected ResponseCompression compression;
+	protected boolean compressedVariants;
+	protected boolean precompression;
+	protected int precompressionThreads = Runtime.getRuntime().availableProcessors();
+	protected boolean validators = true;
+	protected boolean contentHashValidators;
+	protected HashMap<String, String> cacheControl = new HashMap<String, String>();
+	protected StaticFileCache fileCache;
 
 	/**
 	 * Assigns the source folder used to retrieve files for the HTTP server, this is
@@ -184,6 +196,101 @@ public class FileProviderContextFactory {
 		virtualFiles.add(virtualFile);
 	}
 
+	/**
+	 * Assigns the response compression settings of the context, overrides the
+	 * settings of the server for files served by the context
+	 * 
+	 * @param compression ResponseCompression instance, null to use the server
+	 *                    settings
+	 */
+	public void setResponseCompression(ResponseCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Assigns if pre-compressed variants of files (file.gz and file.br) are
+	 * served to clients that accept them
+	 * 
+	 * @param enabled True to serve compressed variants, false otherwise
+	 */
+	public void setCompressedVariantsEnabled(boolean enabled) {
+		compressedVariants = enabled;
+	}
+
+	/**
+	 * Assigns if gzip variants of files are generated in the background, files
+	 * are compressed when the context is built and once they change, enables
+	 * serving compressed variants
+	 * 
+	 * @param enabled True to generate gzip variants, false otherwise
+	 */
+	public void setPrecompressionEnabled(boolean enabled) {
+		precompression = enabled;
+	}
+
+	/**
+	 * Assigns the amount of threads used to generate gzip variants
+	 * 
+	 * @param threads Amount of compression threads
+	 */
+	public void setPrecompressionThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid thread count: " + threads);
+		precompressionThreads = threads;
+	}
+
+	/**
+	 * Assigns if ETag and Last-Modified validators are sent with files and if
+	 * conditional requests are answered, enabled by default
+	 * 
+	 * @param enabled True to send validators, false otherwise
+	 */
+	public void setValidatorsEnabled(boolean enabled) {
+		validators = enabled;
+	}
+
+	/**
+	 * Assigns if entity tags are derived from a hash of the file contents instead
+	 * of the size and modification time, hashes are cached until the file changes
+	 * 
+	 * @param enabled True to hash file contents, false otherwise
+	 */
+	public void setContentHashValidators(boolean enabled) {
+		contentHashValidators = enabled;
+	}
+
+	/**
+	 * Registers a Cache-Control policy, the most specific path wins
+	 * 
+	 * @param path   Folder or file path
+	 * @param policy Cache-Control header value
+	 */
+	public void registerCacheControl(String path, String policy) {
+		// Clean path
+		while (path.startsWith("/"))
+			path = path.substring(1);
+		while (path.endsWith("/"))
+			path = path.substring(0, path.length() - 1);
+		while (path.contains("//"))
+			path = path.replace("//", "/");
+		if (path.contains("\\"))
+			path = path.replace("\\", "/");
+		if (!path.startsWith("/"))
+			path = "/" + path;
+
+		// Add policy
+		cacheControl.put(path, policy);
+	}
+
+	/**
+	 * Assigns the static file cache of the context
+	 * 
+	 * @param cache StaticFileCache instance, null to read files on every request
+	 */
+	public void setFileCache(StaticFileCache cache) {
+		fileCache = cache;
+	}
+
 	/**
 	 * Builds the FileProviderContext instance
 	 * 
@@ -193,6 +300,16 @@ public class FileProviderContextFactory {
 		FileProviderContext ctx = new FileProviderContext();
 		ctx.fileSourceFolder = fileSourceFolder;
 		ctx.defaultIndexPage = defaultIndexPage;
+		ctx.compression = compression;
+		if (validators)
+			ctx.validators = new FileValidators(contentHashValidators);
+		ctx.cacheControl.putAll(cacheControl);
+		ctx.fileCache = fileCache;
+		if (compressedVariants || precompression) {
+			ctx.variants = new CompressedVariantStore(fileSourceFolder, compression, precompression,
+					precompressionThreads);
+			ctx.variants.precompressAll();
+		}
 		ctx.source = source;
 		ctx.processors = processors;
 		ctx.uploadHandlers.addAll(uploadHandlers);
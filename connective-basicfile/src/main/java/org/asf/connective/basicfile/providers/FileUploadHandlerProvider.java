@@ -126,9 +126,9 @@ public abstract class FileUploadHandlerProvider {
 	}
 
 	/**
-	 * Retrieves the request body length
+	 * Retrieves the request body length, -1 if the body is chunked
 	 * 
-	 * @return Request body length
+	 * @return Request body length or -1
 	 */
 	protected long getRequestBodyLength() {
 		return getRequest().getBodyLength();
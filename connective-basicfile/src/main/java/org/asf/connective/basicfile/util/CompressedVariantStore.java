@@ -0,0 +1,325 @@
+package org.asf.connective.basicfile.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.asf.connective.basicfile.DocumentProcessor;
+import org.asf.connective.io.CompressingInputStream;
+import org.asf.connective.io.IoUtil;
+import org.asf.connective.io.ResponseCompression;
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.logger.ConnectiveLogger;
+import org.asf.connective.logger.ConnectiveLoggerManager;
+
+/**
+ *
+ * Compressed variant store - locates pre-compressed siblings of webroot files
+ * (file.gz and file.br) and optionally generates gzip siblings in the
+ * background, variants are indexed by the modification time and size of their
+ * source file, the oldest index entries are dropped once the index is full
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class CompressedVariantStore {
+	private static AtomicInteger threadNumber = new AtomicInteger();
+
+	private File webroot;
+	private ResponseCompression settings;
+	private boolean precompress;
+	private ThreadPoolExecutor executor;
+	private ConnectiveLogger logger = ConnectiveLoggerManager.getInstance().getLogger("basicfile");
+
+	private ConcurrentHashMap<String, Variants> index = new ConcurrentHashMap<String, Variants>();
+	private ConcurrentLinkedQueue<String> indexOrder = new ConcurrentLinkedQueue<String>();
+	private int maxIndexSize = 16384;
+	private Set<String> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 *
+	 * Compressed variants of a source file
+	 *
+	 * @author Sky Swimmer
+	 *
+	 */
+	public static class Variants {
+		private long sourceModified;
+		private long sourceLength;
+		private File gzip;
+		private File brotli;
+
+		private Variants(long sourceModified, long sourceLength, File gzip, File brotli) {
+			this.sourceModified = sourceModified;
+			this.sourceLength = sourceLength;
+			this.gzip = gzip;
+			this.brotli = brotli;
+		}
+
+		/**
+		 * Retrieves the gzip variant
+		 *
+		 * @return Variant file or null
+		 */
+		public File getGzip() {
+			return gzip;
+		}
+
+		/**
+		 * Retrieves the brotli variant
+		 *
+		 * @return Variant file or null
+		 */
+		public File getBrotli() {
+			return brotli;
+		}
+
+		/**
+		 * Selects the content encoding to serve for an Accept-Encoding header
+		 *
+		 * @param acceptEncoding Accept-Encoding header value, may be null
+		 * @return br, gzip or null if the client accepts none of the variants
+		 */
+		public String selectEncoding(String acceptEncoding) {
+			// Prefer brotli on equal quality
+			float br = brotli == null ? 0 : ResponseCompression.getEncodingQuality(acceptEncoding, "br");
+			float gz = gzip == null ? 0 : ResponseCompression.getEncodingQuality(acceptEncoding, "gzip");
+			if (br > 0 && br >= gz)
+				return "br";
+			if (gz > 0)
+				return "gzip";
+			return null;
+		}
+
+		/**
+		 * Retrieves the variant file of a content encoding
+		 *
+		 * @param encoding Content encoding (br or gzip)
+		 * @return Variant file or null
+		 */
+		public File getFile(String encoding) {
+			if (encoding.equals("br"))
+				return brotli;
+			if (encoding.equals("gzip"))
+				return gzip;
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a compressed variant store
+	 *
+	 * @param webroot     Webroot folder path
+	 * @param settings    Compression settings used to decide which files are
+	 *                    pre-compressed, null for the defaults
+	 * @param precompress True to generate gzip variants in the background, false
+	 *                    to only serve existing variants
+	 * @param threads     Amount of compression threads
+	 */
+	public CompressedVariantStore(String webroot, ResponseCompression settings, boolean precompress, int threads) {
+		this.webroot = new File(webroot);
+		this.settings = settings != null ? settings : new ResponseCompression();
+		this.precompress = precompress;
+		if (precompress) {
+			executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), r -> {
+						Thread th = new Thread(r, "Precompression thread " + threadNumber.incrementAndGet());
+						th.setDaemon(true);
+						th.setPriority(Thread.MIN_PRIORITY);
+						return th;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/**
+	 * Checks if gzip variants are generated in the background
+	 *
+	 * @return True if enabled, false otherwise
+	 */
+	public boolean isPrecompressionEnabled() {
+		return precompress;
+	}
+
+	/**
+	 * Assigns the maximum amount of indexed files, the files that were indexed
+	 * first are dropped when the index grows beyond it
+	 *
+	 * @param size Maximum index size
+	 */
+	public void setMaxIndexSize(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("Invalid index size: " + size);
+		maxIndexSize = size;
+	}
+
+	/**
+	 * Retrieves the maximum amount of indexed files
+	 *
+	 * @return Maximum index size
+	 */
+	public int getMaxIndexSize() {
+		return maxIndexSize;
+	}
+
+	/**
+	 * Retrieves the compressed variants of a file, files that changed since they
+	 * were last indexed are re-indexed and queued for compression
+	 *
+	 * @param source Source file
+	 * @return Variants instance or null if there are no usable variants
+	 */
+	public Variants getVariants(File source) {
+		return getVariants(source, source.lastModified(), source.length());
+	}
+
+	/**
+	 * Retrieves the compressed variants of a file of which the size and
+	 * modification time are known
+	 *
+	 * @param source   Source file
+	 * @param modified Modification time of the source file
+	 * @param length   Length of the source file
+	 * @return Variants instance or null if there are no usable variants
+	 */
+	public Variants getVariants(File source, long modified, long length) {
+		String key = source.getAbsolutePath();
+
+		// Re-index changed files
+		Variants variants = index.get(key);
+		if (variants == null || variants.sourceModified != modified || variants.sourceLength != length) {
+			variants = new Variants(modified, length, findVariant(source, ".gz", modified),
+					findVariant(source, ".br", modified));
+			store(key, variants);
+			if (precompress && variants.gzip == null && isEligible(source, length))
+				schedule(source);
+		}
+		if (variants.gzip == null && variants.brotli == null)
+			return null;
+		return variants;
+	}
+
+	/**
+	 * Indexes the webroot in the background, queueing all eligible files that
+	 * have no up-to-date gzip variant for compression
+	 */
+	public void precompressAll() {
+		if (!precompress)
+			return;
+		executor.execute(() -> {
+			try (Stream<java.nio.file.Path> files = Files.walk(webroot.toPath())) {
+				files.filter(t -> Files.isRegularFile(t)).forEach(t -> getVariants(t.toFile()));
+			} catch (IOException | RuntimeException e) {
+				logger.error(new ConnectiveLogMessage("basicfile",
+						"Failed to index webroot " + webroot.getPath() + " for precompression", e, null));
+			}
+		});
+	}
+
+	/**
+	 * Stops the compression threads, compressions that are in progress finish
+	 * first
+	 */
+	public void shutdown() {
+		if (executor != null)
+			executor.shutdown();
+	}
+
+	private boolean isEligible(File source, long length) {
+		String name = source.getName();
+		if (name.endsWith(".gz") || name.endsWith(".br") || name.endsWith(".tmp"))
+			return false;
+		return length >= settings.getMinimumSize()
+				&& settings.isCompressible(DocumentProcessor.getContentType(source));
+	}
+
+	private static File findVariant(File source, String extension, long sourceModified) {
+		// Variants older than their source are stale
+		File variant = new File(source.getPath() + extension);
+		if (variant.isFile() && variant.lastModified() >= sourceModified)
+			return variant;
+		return null;
+	}
+
+	private void schedule(File source) {
+		String key = source.getAbsolutePath();
+		if (!pending.add(key))
+			return;
+		try {
+			executor.execute(() -> {
+				try {
+					compress(source, source.lastModified(), source.length());
+				} catch (IOException e) {
+					logger.error(new ConnectiveLogMessage("basicfile",
+							"Failed to precompress " + source.getPath(), e, null));
+				} finally {
+					pending.remove(key);
+				}
+			});
+		} catch (RuntimeException e) {
+			// Shut down
+			pending.remove(key);
+		}
+	}
+
+	void compress(File source, long modified, long length) throws IOException {
+		File target = new File(source.getPath() + ".gz");
+		File temp = new File(source.getParentFile(), "." + source.getName() + ".gz.tmp");
+
+		// Compress into a temporary file
+		try (InputStream input = new CompressingInputStream(new FileInputStream(source), true,
+				Deflater.BEST_COMPRESSION); OutputStream output = new FileOutputStream(temp)) {
+			IoUtil.transfer(input, output);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+
+		// Discard if the source changed meanwhile or if compression did not help
+		if (source.lastModified() != modified || source.length() != length || temp.length() >= length) {
+			temp.delete();
+			return;
+		}
+
+		// Publish
+		temp.setLastModified(modified);
+		try {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		store(source.getAbsolutePath(), new Variants(modified, length, target, findVariant(source, ".br", modified)));
+	}
+
+	private void store(String key, Variants variants) {
+		if (index.put(key, variants) != null)
+			return;
+
+		// Drop the oldest entries if the index is full, files that are requested
+		// again are re-indexed
+		indexOrder.add(key);
+		while (index.size() > maxIndexSize) {
+			String oldest = indexOrder.poll();
+			if (oldest == null)
+				break;
+			index.remove(oldest);
+		}
+	}
+
+}
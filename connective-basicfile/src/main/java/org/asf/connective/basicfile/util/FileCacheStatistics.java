@@ -0,0 +1,104 @@
+package org.asf.connective.basicfile.util;
+
+/**
+ *
+ * Snapshot of the static file cache statistics
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class FileCacheStatistics {
+
+	private int entries;
+	private long size;
+	private long maxSize;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	public FileCacheStatistics(int entries, long size, long maxSize, long hits, long misses, long evictions,
+			long invalidations) {
+		this.entries = entries;
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.invalidations = invalidations;
+	}
+
+	/**
+	 * Retrieves the amount of cached files
+	 *
+	 * @return Entry count
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Retrieves the amount of memory used by cached files
+	 *
+	 * @return Cache size in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the maximum amount of memory used by cached files
+	 *
+	 * @return Maximum cache size in bytes
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Retrieves the amount of lookups that were answered from the cache
+	 *
+	 * @return Hit count
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Retrieves the amount of lookups that had to load the file
+	 *
+	 * @return Miss count
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Retrieves the fraction of lookups that were answered from the cache
+	 *
+	 * @return Hit rate from 0 to 1
+	 */
+	public double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 1 : (double) hits / total;
+	}
+
+	/**
+	 * Retrieves the amount of files removed to stay within the size limit
+	 *
+	 * @return Eviction count
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Retrieves the amount of files removed because they changed
+	 *
+	 * @return Invalidation count
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.asf.connective.basicfile.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * File validators - generates entity tags for webroot files, either from the
+ * size and modification time or from a hash of the file contents, hashes are
+ * cached until the size or modification time of the file changes
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class FileValidators {
+	private boolean contentHash;
+	private ConcurrentHashMap<String, HashEntry> hashes = new ConcurrentHashMap<String, HashEntry>();
+
+	private static class HashEntry {
+		private long modified;
+		private long length;
+		private String hash;
+
+		public HashEntry(long modified, long length, String hash) {
+			this.modified = modified;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * Creates a file validator generator
+	 *
+	 * @param contentHash True to derive entity tags from the file contents, false
+	 *                    to derive them from the size and modification time
+	 */
+	public FileValidators(boolean contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	/**
+	 * Checks if entity tags are derived from the file contents
+	 *
+	 * @return True if content hashes are used, false otherwise
+	 */
+	public boolean usesContentHash() {
+		return contentHash;
+	}
+
+	/**
+	 * Retrieves the entity tag of a file
+	 *
+	 * @param file     File to retrieve the entity tag of
+	 * @param encoding Content encoding of the variant that is sent, null for the
+	 *                 file itself
+	 * @return Strong entity tag including quotes
+	 * @throws IOException If hashing the file fails
+	 */
+	public String getEntityTag(File file, String encoding) throws IOException {
+		return getEntityTag(file, file.lastModified(), file.length(), encoding);
+	}
+
+	/**
+	 * Retrieves the entity tag of a file of which the size and modification time
+	 * are known
+	 *
+	 * @param file     File to retrieve the entity tag of
+	 * @param modified Modification time of the file
+	 * @param length   Length of the file
+	 * @param encoding Content encoding of the variant that is sent, null for the
+	 *                 file itself
+	 * @return Strong entity tag including quotes
+	 * @throws IOException If hashing the file fails
+	 */
+	public String getEntityTag(File file, long modified, long length, String encoding) throws IOException {
+		String tag;
+		if (contentHash) {
+			// Hash files once per modification
+			String key = file.getAbsolutePath();
+			HashEntry entry = hashes.get(key);
+			if (entry == null || entry.modified != modified || entry.length != length) {
+				entry = new HashEntry(modified, length, hash(file));
+				hashes.put(key, entry);
+			}
+			tag = entry.hash;
+		} else
+			tag = Long.toHexString(modified) + "-" + Long.toHexString(length);
+
+		// Each encoding is a separate representation
+		if (encoding != null)
+			tag += "-" + encoding;
+		return "\"" + tag + "\"";
+	}
+
+	private static String hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		try (InputStream strm = new FileInputStream(file)) {
+			byte[] buffer = new byte[16384];
+			while (true) {
+				int read = strm.read(buffer);
+				if (read == -1)
+					break;
+				digest.update(buffer, 0, read);
+			}
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+	}
+
+}
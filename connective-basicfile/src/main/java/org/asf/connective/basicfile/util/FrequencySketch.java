@@ -0,0 +1,104 @@
+package org.asf.connective.basicfile.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Count-min sketch with 4-bit counters estimating how often keys were
+ * accessed, counters are halved periodically so that old popularity fades.
+ * Counters are updated with compare-and-set so that accesses can be recorded
+ * without locking.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class FrequencySketch {
+	private static final long[] SEEDS = new long[] { 0xc3a5c85c97cb3127l, 0xb492b66fbe98f273l, 0x9ae16a3b2f90404fl,
+			0xcbf29ce484222325l };
+	private static final long RESET_MASK = 0x7777777777777777l;
+
+	private AtomicLongArray table;
+	private int tableMask;
+	private int sampleSize;
+	private AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Creates a frequency sketch
+	 *
+	 * @param expectedEntries Expected amount of distinct hot keys
+	 */
+	public FrequencySketch(int expectedEntries) {
+		int length = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+		table = new AtomicLongArray(length);
+		tableMask = length - 1;
+		sampleSize = length * 10;
+	}
+
+	/**
+	 * Estimates the access frequency of a key
+	 *
+	 * @param hash Key hash code
+	 * @return Frequency from 0 to 15
+	 */
+	public int frequency(int hash) {
+		int frequency = 15;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int shift = counterShift(hash, i);
+			frequency = Math.min(frequency, (int) ((table.get(index) >>> shift) & 0xf));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Records an access to a key
+	 *
+	 * @param hash Key hash code
+	 */
+	public void increment(int hash) {
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			if (incrementAt(indexOf(hash, i), counterShift(hash, i)))
+				added = true;
+		}
+
+		// Only the thread reaching the sample size resets
+		if (added && size.incrementAndGet() == sampleSize)
+			reset();
+	}
+
+	private boolean incrementAt(int index, int shift) {
+		while (true) {
+			long value = table.get(index);
+			if (((value >>> shift) & 0xf) == 0xf)
+				return false;
+			if (table.compareAndSet(index, value, value + (1l << shift)))
+				return true;
+		}
+	}
+
+	private void reset() {
+		// Halve all counters, increments that race with the reset are kept
+		for (int i = 0; i < table.length(); i++) {
+			while (true) {
+				long value = table.get(i);
+				if (table.compareAndSet(i, value, (value >>> 1) & RESET_MASK))
+					break;
+			}
+		}
+		size.addAndGet(-sampleSize / 2);
+	}
+
+	private int indexOf(int hash, int row) {
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+		h += h >>> 32;
+		return (int) h & tableMask;
+	}
+
+	private int counterShift(int hash, int row) {
+		// Each long holds 16 counters, each row uses its own quarter
+		return (((hash >>> (row * 8)) & 3) + row * 4) << 2;
+	}
+
+}
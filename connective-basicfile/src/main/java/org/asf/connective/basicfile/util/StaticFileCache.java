@@ -0,0 +1,400 @@
+package org.asf.connective.basicfile.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.asf.connective.basicfile.DocumentProcessor;
+
+/**
+ *
+ * Size-bounded cache of static webroot files, keeps the contents of small
+ * files in memory and the metadata of larger files, admission and eviction use
+ * the W-TinyLFU policy (a small LRU window in front of a segmented LRU main
+ * area guarded by a frequency sketch)
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class StaticFileCache {
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private long maxSize;
+	private long maxEntrySize = 256 * 1024;
+	private long revalidateInterval = TimeUnit.SECONDS.toNanos(1);
+
+	private ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<String, Node>();
+	private ReentrantLock policyLock = new ReentrantLock();
+	private FrequencySketch sketch;
+
+	private AccessQueue[] queues = new AccessQueue[] { new AccessQueue(), new AccessQueue(), new AccessQueue() };
+	private long windowMax;
+	private long protectedMax;
+
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+	private LongAdder evictions = new LongAdder();
+	private LongAdder invalidations = new LongAdder();
+
+	/**
+	 *
+	 * Cached file, contents are only present for files up to the maximum entry
+	 * size
+	 *
+	 * @author Sky Swimmer
+	 *
+	 */
+	public static class CachedFile {
+		private long modified;
+		private long length;
+		private String contentType;
+		private byte[] content;
+		private volatile long checked;
+
+		private CachedFile(long modified, long length, String contentType, byte[] content, long checked) {
+			this.modified = modified;
+			this.length = length;
+			this.contentType = contentType;
+			this.content = content;
+			this.checked = checked;
+		}
+
+		/**
+		 * Retrieves the modification time of the file
+		 *
+		 * @return Modification time in milliseconds
+		 */
+		public long getLastModified() {
+			return modified;
+		}
+
+		/**
+		 * Retrieves the length of the file
+		 *
+		 * @return File length
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Retrieves the content type of the file
+		 *
+		 * @return Content type string
+		 */
+		public String getContentType() {
+			return contentType;
+		}
+
+		/**
+		 * Retrieves the file contents, the array must not be modified
+		 *
+		 * @return File contents or null if the file is too large to keep in memory
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+	}
+
+	private static class AccessQueue {
+		private LinkedHashMap<String, Node> nodes = new LinkedHashMap<String, Node>();
+		private long weight;
+
+		public Node head() {
+			return nodes.values().iterator().next();
+		}
+	}
+
+	private static class Node {
+		private String key;
+		private CachedFile file;
+		private long weight;
+		private int queue;
+
+		public Node(String key, CachedFile file) {
+			this.key = key;
+			this.file = file;
+			weight = ENTRY_OVERHEAD + (file.content != null ? file.content.length : 0);
+		}
+	}
+
+	/**
+	 * Creates a static file cache
+	 *
+	 * @param maxSize Maximum amount of memory used by cached files in bytes
+	 */
+	public StaticFileCache(long maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+		this.maxSize = maxSize;
+		windowMax = Math.max(1, maxSize / 100);
+		protectedMax = (maxSize - windowMax) * 80 / 100;
+		sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maxSize / 4096)));
+	}
+
+	/**
+	 * Assigns the maximum size of files kept in memory, larger files only have
+	 * their metadata cached
+	 *
+	 * @param size Maximum file size in bytes
+	 * @return Self
+	 */
+	public StaticFileCache setMaxEntrySize(long size) {
+		maxEntrySize = size;
+		return this;
+	}
+
+	/**
+	 * Retrieves the maximum size of files kept in memory
+	 *
+	 * @return Maximum file size in bytes
+	 */
+	public long getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	/**
+	 * Assigns how often cached files are checked for modifications
+	 *
+	 * @param interval Interval in milliseconds, 0 to check on every access
+	 * @return Self
+	 */
+	public StaticFileCache setRevalidateInterval(long interval) {
+		revalidateInterval = TimeUnit.MILLISECONDS.toNanos(interval);
+		return this;
+	}
+
+	/**
+	 * Retrieves how often cached files are checked for modifications
+	 *
+	 * @return Interval in milliseconds
+	 */
+	public long getRevalidateInterval() {
+		return TimeUnit.NANOSECONDS.toMillis(revalidateInterval);
+	}
+
+	/**
+	 * Retrieves the maximum amount of memory used by cached files
+	 *
+	 * @return Maximum cache size in bytes
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Retrieves a file from the cache, loading it on a miss
+	 *
+	 * @param file File to retrieve
+	 * @return CachedFile instance or null if the file is not a regular file
+	 * @throws IOException If reading the file fails
+	 */
+	public CachedFile get(File file) throws IOException {
+		String key = file.getAbsolutePath();
+		long now = System.nanoTime();
+
+		// Look up
+		Node node = data.get(key);
+		if (node != null) {
+			CachedFile cached = node.file;
+			if (now - cached.checked < revalidateInterval) {
+				hits.increment();
+				recordAccess(node);
+				return cached;
+			}
+
+			// Revalidate
+			if (file.isFile() && file.lastModified() == cached.modified && file.length() == cached.length) {
+				cached.checked = now;
+				hits.increment();
+				recordAccess(node);
+				return cached;
+			}
+			invalidations.increment();
+			remove(node);
+		}
+
+		// Load
+		misses.increment();
+		if (!file.isFile())
+			return null;
+		long modified = file.lastModified();
+		long length = file.length();
+		byte[] content = null;
+		if (length <= maxEntrySize) {
+			content = Files.readAllBytes(file.toPath());
+
+			// Discard if the file changed while reading
+			if (content.length != length || file.lastModified() != modified)
+				return null;
+		}
+		CachedFile cached = new CachedFile(modified, length, DocumentProcessor.getContentType(file), content, now);
+		insert(new Node(key, cached));
+		return cached;
+	}
+
+	/**
+	 * Removes a file from the cache
+	 *
+	 * @param file File to remove
+	 */
+	public void invalidate(File file) {
+		Node node = data.get(file.getAbsolutePath());
+		if (node != null) {
+			invalidations.increment();
+			remove(node);
+		}
+	}
+
+	/**
+	 * Removes all files from the cache
+	 */
+	public void clear() {
+		policyLock.lock();
+		try {
+			data.clear();
+			for (AccessQueue queue : queues) {
+				queue.nodes.clear();
+				queue.weight = 0;
+			}
+		} finally {
+			policyLock.unlock();
+		}
+	}
+
+	/**
+	 * Retrieves cache statistics
+	 *
+	 * @return FileCacheStatistics instance
+	 */
+	public FileCacheStatistics getStatistics() {
+		long weight;
+		policyLock.lock();
+		try {
+			weight = getWeight();
+		} finally {
+			policyLock.unlock();
+		}
+		return new FileCacheStatistics(data.size(), weight, maxSize, hits.sum(), misses.sum(), evictions.sum(),
+				invalidations.sum());
+	}
+
+	private void recordAccess(Node node) {
+		// Frequencies are always recorded, only reordering is skipped under contention
+		sketch.increment(node.key.hashCode());
+		if (!policyLock.tryLock())
+			return;
+		try {
+			if (data.get(node.key) != node)
+				return;
+			switch (node.queue) {
+
+			case WINDOW: {
+				moveToTail(node, WINDOW);
+				break;
+			}
+			case PROBATION: {
+				// Promote
+				moveToTail(node, PROTECTED);
+				while (queues[PROTECTED].weight > protectedMax) {
+					Node demoted = queues[PROTECTED].head();
+					moveToTail(demoted, PROBATION);
+				}
+				break;
+			}
+			case PROTECTED: {
+				moveToTail(node, PROTECTED);
+				break;
+			}
+
+			}
+		} finally {
+			policyLock.unlock();
+		}
+	}
+
+	private void insert(Node node) {
+		policyLock.lock();
+		try {
+			Node old = data.put(node.key, node);
+			if (old != null)
+				unlink(old);
+			sketch.increment(node.key.hashCode());
+			node.queue = WINDOW;
+			queues[WINDOW].nodes.put(node.key, node);
+			queues[WINDOW].weight += node.weight;
+			evict();
+		} finally {
+			policyLock.unlock();
+		}
+	}
+
+	private void remove(Node node) {
+		policyLock.lock();
+		try {
+			if (data.remove(node.key, node))
+				unlink(node);
+		} finally {
+			policyLock.unlock();
+		}
+	}
+
+	private void evict() {
+		// Move the window overflow into the probation area as admission candidates
+		while (queues[WINDOW].weight > windowMax && queues[WINDOW].nodes.size() > 1) {
+			Node candidate = queues[WINDOW].head();
+			moveToTail(candidate, PROBATION);
+
+			// Candidates only stay if they are used more often than the least recently
+			// used probation entry
+			while (getWeight() > maxSize) {
+				Node victim = queues[PROBATION].head();
+				if (victim == candidate
+						|| sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+					evict(candidate);
+					break;
+				}
+				evict(victim);
+			}
+		}
+
+		// Shrink further if needed
+		while (getWeight() > maxSize) {
+			int queue = !queues[PROBATION].nodes.isEmpty() ? PROBATION
+					: (!queues[PROTECTED].nodes.isEmpty() ? PROTECTED : WINDOW);
+			evict(queues[queue].head());
+		}
+	}
+
+	private void evict(Node node) {
+		data.remove(node.key, node);
+		unlink(node);
+		evictions.increment();
+	}
+
+	private long getWeight() {
+		return queues[WINDOW].weight + queues[PROBATION].weight + queues[PROTECTED].weight;
+	}
+
+	private void moveToTail(Node node, int queue) {
+		unlink(node);
+		node.queue = queue;
+		queues[queue].nodes.put(node.key, node);
+		queues[queue].weight += node.weight;
+	}
+
+	private void unlink(Node node) {
+		if (queues[node.queue].nodes.remove(node.key, node))
+			queues[node.queue].weight -= node.weight;
+	}
+
+}
@@ -0,0 +1,192 @@
+package org.asf.connective.basicfile.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.asf.connective.basicfile.util.CompressedVariantStore.Variants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompressedVariantStoreTest {
+
+	private static final long TIME = 1600000000000l;
+
+	private File dir;
+
+	@BeforeEach
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("connective-variants").toFile();
+	}
+
+	@AfterEach
+	public void deleteDirectory() {
+		for (File file : dir.listFiles())
+			file.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void testStaleVariants() throws IOException {
+		CompressedVariantStore store = new CompressedVariantStore(dir.getPath(), null, false, 1);
+		File source = file("index.html", "<html></html>", TIME);
+		File gzip = file("index.html.gz", "gzip", TIME - 5000);
+		assertTrue(store.getVariants(source) == null);
+
+		// A sibling at least as new as its source is used once the source is
+		// re-indexed
+		gzip.setLastModified(TIME + 5000);
+		source.setLastModified(TIME + 1000);
+		Variants variants = store.getVariants(source);
+		assertTrue(variants != null);
+		assertTrue(variants.getGzip().equals(gzip));
+		assertTrue(variants.getBrotli() == null);
+
+		// Newer source
+		File brotli = file("index.html.br", "br", TIME + 6000);
+		source.setLastModified(TIME + 5500);
+		variants = store.getVariants(source);
+		assertTrue(variants.getGzip() == null);
+		assertTrue(variants.getBrotli().equals(brotli));
+	}
+
+	@Test
+	public void testEncodingSelection() throws IOException {
+		CompressedVariantStore store = new CompressedVariantStore(dir.getPath(), null, false, 1);
+		File source = file("style.css", "body {}", TIME);
+		file("style.css.gz", "gzip", TIME);
+		file("style.css.br", "br", TIME);
+		Variants variants = store.getVariants(source);
+		assertTrue(variants.selectEncoding("gzip, br").equals("br"));
+		assertTrue(variants.selectEncoding("br;q=0.5, gzip").equals("gzip"));
+		assertTrue(variants.selectEncoding("br;q=0, gzip;q=0.1").equals("gzip"));
+		assertTrue(variants.selectEncoding("*;q=0.5, gzip").equals("gzip"));
+		assertTrue(variants.selectEncoding("*").equals("br"));
+		assertTrue(variants.selectEncoding("identity") == null);
+		assertTrue(variants.selectEncoding(null) == null);
+		assertTrue(variants.getFile("br").getName().equals("style.css.br"));
+
+		// Only gzip
+		File script = file("script.js", "let a = 1;", TIME);
+		file("script.js.gz", "gzip", TIME);
+		variants = store.getVariants(script);
+		assertTrue(variants.selectEncoding("br") == null);
+		assertTrue(variants.selectEncoding("br, gzip;q=0.2").equals("gzip"));
+	}
+
+	@Test
+	public void testCompress() throws IOException {
+		CompressedVariantStore store = new CompressedVariantStore(dir.getPath(), null, false, 1);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++)
+			text.append("Compressible line ").append(i % 10).append("\n");
+
+		// Published with the modification time of the source
+		File source = file("page.html", text.toString(), TIME);
+		store.compress(source, source.lastModified(), source.length());
+		File gzip = new File(dir, "page.html.gz");
+		assertTrue(gzip.isFile());
+		assertTrue(gzip.lastModified() == TIME);
+		assertArrayEquals(Files.readAllBytes(source.toPath()), gunzip(gzip));
+		assertTrue(store.getVariants(source).getGzip().equals(gzip));
+
+		// Source changed during compression
+		File changed = file("changed.html", text.toString(), TIME);
+		store.compress(changed, TIME - 1000, changed.length());
+		store.compress(changed, TIME, changed.length() - 1);
+		assertTrue(!new File(dir, "changed.html.gz").exists());
+
+		// Output not smaller than the source
+		byte[] random = new byte[4096];
+		new Random(1).nextBytes(random);
+		File binary = new File(dir, "random.txt");
+		Files.write(binary.toPath(), random);
+		store.compress(binary, binary.lastModified(), binary.length());
+		assertTrue(!new File(dir, "random.txt.gz").exists());
+
+		// No temporary files are left behind
+		for (File file : dir.listFiles())
+			assertTrue(!file.getName().endsWith(".tmp"), file.getName());
+		assertTrue(dir.listFiles().length == 4);
+	}
+
+	@Test
+	public void testPrecompression() throws IOException, InterruptedException {
+		CompressedVariantStore store = new CompressedVariantStore(dir.getPath(), null, true, 1);
+		try {
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 1000; i++)
+				text.append("Compressible line ").append(i % 10).append("\n");
+			File source = file("page.txt", text.toString(), TIME);
+			assertTrue(store.getVariants(source) == null);
+
+			// Generated in the background
+			File gzip = new File(dir, "page.txt.gz");
+			long start = System.currentTimeMillis();
+			while (store.getVariants(source) == null && System.currentTimeMillis() - start < 5000)
+				Thread.sleep(10);
+			assertTrue(store.getVariants(source).getGzip().equals(gzip));
+			assertArrayEquals(Files.readAllBytes(source.toPath()), gunzip(gzip));
+		} finally {
+			store.shutdown();
+		}
+	}
+
+	@Test
+	public void testIndexBound() throws IOException {
+		CompressedVariantStore store = new CompressedVariantStore(dir.getPath(), null, false, 1);
+		store.setMaxIndexSize(2);
+		assertThrows(IllegalArgumentException.class, () -> store.setMaxIndexSize(0));
+		File[] sources = new File[3];
+		File[] variants = new File[3];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = file("file" + i + ".html", "source " + i, TIME);
+			variants[i] = file("file" + i + ".html.gz", "gzip " + i, TIME);
+		}
+
+		// Indexed entries are served without checking the variant again
+		assertTrue(store.getVariants(sources[0]) != null);
+		variants[0].delete();
+		assertTrue(store.getVariants(sources[0]) != null);
+
+		// The oldest entry is dropped once the index is full
+		assertTrue(store.getVariants(sources[1]) != null);
+		assertTrue(store.getVariants(sources[2]) != null);
+		variants[1].delete();
+		assertTrue(store.getVariants(sources[1]) != null);
+		assertTrue(store.getVariants(sources[0]) == null);
+	}
+
+	private File file(String name, String content, long modified) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(modified);
+		return file;
+	}
+
+	private static byte[] gunzip(File file) throws IOException {
+		try (InputStream input = new GZIPInputStream(new FileInputStream(file))) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			while (true) {
+				int read = input.read(buffer);
+				if (read == -1)
+					break;
+				output.write(buffer, 0, read);
+			}
+			return output.toByteArray();
+		}
+	}
+
+}
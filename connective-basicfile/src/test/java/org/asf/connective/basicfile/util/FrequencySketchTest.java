@@ -0,0 +1,41 @@
+package org.asf.connective.basicfile.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void testCounting() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		assertTrue(sketch.frequency("a".hashCode()) == 0);
+		for (int i = 0; i < 5; i++)
+			sketch.increment("a".hashCode());
+		sketch.increment("b".hashCode());
+		assertTrue(sketch.frequency("a".hashCode()) == 5);
+		assertTrue(sketch.frequency("b".hashCode()) == 1);
+
+		// Counters saturate
+		for (int i = 0; i < 100; i++)
+			sketch.increment("a".hashCode());
+		assertTrue(sketch.frequency("a".hashCode()) == 15);
+	}
+
+	@Test
+	public void testAging() {
+		// 16 counters per row, counters are halved after 160 additions
+		FrequencySketch sketch = new FrequencySketch(16);
+		for (int i = 0; i < 15; i++)
+			sketch.increment("hot".hashCode());
+		assertTrue(sketch.frequency("hot".hashCode()) == 15);
+
+		// Other keys eventually trigger a reset
+		int added = 0;
+		while (sketch.frequency("hot".hashCode()) == 15 && added < 1000)
+			sketch.increment(("cold" + added++).hashCode());
+		assertTrue(added < 160);
+		assertTrue(sketch.frequency("hot".hashCode()) == 7);
+	}
+
+}
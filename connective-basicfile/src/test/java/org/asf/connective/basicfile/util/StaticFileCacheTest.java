@@ -0,0 +1,145 @@
+package org.asf.connective.basicfile.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StaticFileCacheTest {
+
+	// Empty files weigh the entry overhead only (256 bytes)
+	private static final int ENTRY = 256;
+
+	private File dir;
+
+	@BeforeEach
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("connective-cache").toFile();
+	}
+
+	@AfterEach
+	public void deleteDirectory() {
+		for (File file : dir.listFiles())
+			file.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void testScanResistance() throws IOException {
+		// Room for ten entries, the window holds one of them
+		StaticFileCache cache = new StaticFileCache(ENTRY * 10).setRevalidateInterval(60000);
+		File[] hot = new File[9];
+		for (int i = 0; i < hot.length; i++) {
+			hot[i] = file("hot" + i, "");
+			for (int j = 0; j < 5; j++)
+				cache.get(hot[i]);
+		}
+		assertTrue(cache.getStatistics().getEvictions() == 0);
+
+		// A scan of files used once loses against the hotter probation entries
+		for (int i = 0; i < 20; i++)
+			cache.get(file("cold" + i, ""));
+		assertTrue(cache.getStatistics().getEvictions() == 19);
+		long misses = cache.getStatistics().getMisses();
+		for (File file : hot)
+			cache.get(file);
+		assertTrue(cache.getStatistics().getMisses() == misses);
+	}
+
+	@Test
+	public void testProtectedOverflow() throws IOException {
+		// Room for ten entries, the protected area holds seven
+		StaticFileCache cache = new StaticFileCache(ENTRY * 10).setRevalidateInterval(60000);
+		File[] files = new File[10];
+		for (int i = 0; i < files.length; i++) {
+			files[i] = file("file" + i, "");
+			cache.get(files[i]);
+		}
+
+		// Promoting all of them demotes the oldest protected entries instead of
+		// evicting anything
+		for (int i = 0; i < files.length; i++)
+			cache.get(files[i]);
+		FileCacheStatistics stats = cache.getStatistics();
+		assertTrue(stats.getEvictions() == 0);
+		assertTrue(stats.getEntries() == 10);
+		assertTrue(stats.getSize() == ENTRY * 10);
+
+		// The oldest demoted entry is the first victim for a hotter candidate from
+		// the window
+		for (int i = 0; i < 3; i++)
+			cache.get(files[9]);
+		cache.get(file("next", ""));
+		assertTrue(cache.getStatistics().getEvictions() == 1);
+		long misses = cache.getStatistics().getMisses();
+		for (int i = 1; i < files.length; i++)
+			cache.get(files[i]);
+		assertTrue(cache.getStatistics().getMisses() == misses);
+		cache.get(files[0]);
+		assertTrue(cache.getStatistics().getMisses() == misses + 1);
+	}
+
+	@Test
+	public void testInvalidation() throws IOException {
+		StaticFileCache cache = new StaticFileCache(1024 * 1024).setRevalidateInterval(0);
+		File file = file("page.html", "first");
+		assertTrue(new String(cache.get(file).getContent(), StandardCharsets.UTF_8).equals("first"));
+		assertTrue(cache.get(file).getContent() != null);
+		assertTrue(cache.getStatistics().getHits() == 1);
+
+		// Size change
+		Files.write(file.toPath(), "second".getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(1000000000000l);
+		assertTrue(new String(cache.get(file).getContent(), StandardCharsets.UTF_8).equals("second"));
+		assertTrue(cache.getStatistics().getInvalidations() == 1);
+
+		// Modification time change with the same size
+		Files.write(file.toPath(), "thirds".getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(1000000005000l);
+		assertTrue(new String(cache.get(file).getContent(), StandardCharsets.UTF_8).equals("thirds"));
+		assertTrue(cache.getStatistics().getInvalidations() == 2);
+
+		// Deleted
+		file.delete();
+		assertTrue(cache.get(file) == null);
+		assertTrue(cache.getStatistics().getInvalidations() == 3);
+		assertTrue(cache.getStatistics().getEntries() == 0);
+	}
+
+	@Test
+	public void testWeightBound() throws IOException {
+		long maxSize = 64 * 1024;
+		StaticFileCache cache = new StaticFileCache(maxSize).setRevalidateInterval(60000).setMaxEntrySize(16 * 1024);
+		Random rnd = new Random(3);
+		File[] files = new File[100];
+		for (int i = 0; i < files.length; i++) {
+			byte[] content = new byte[rnd.nextInt(24 * 1024)];
+			files[i] = new File(dir, "file" + i);
+			Files.write(files[i].toPath(), content);
+		}
+
+		// Skewed access pattern
+		for (int i = 0; i < 5000; i++) {
+			int index = (int) Math.min(files.length - 1, Math.abs(rnd.nextGaussian()) * 20);
+			cache.get(files[index]);
+			FileCacheStatistics stats = cache.getStatistics();
+			assertTrue(stats.getSize() <= maxSize);
+		}
+		assertTrue(cache.getStatistics().getEvictions() > 0);
+		assertTrue(cache.getStatistics().getHits() > 0);
+	}
+
+	private File file(String name, String content) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+}
@@ -339,6 +339,10 @@ public class ConnectiveStandaloneMain {
 				logger.info("Setting server name to " + host.serverName + "...");
 				server.setServerName(host.serverName);
 			}
+			if (host.compression != null) {
+				logger.info("Configuring response compression...");
+				server.setResponseCompression(host.compression);
+			}
 			logger.info("Setting default headers...");
 			for (HttpHeader header : host.defaultHeaders.getHeaders()) {
 				boolean first = true;
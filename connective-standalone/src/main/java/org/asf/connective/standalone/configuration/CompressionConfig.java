@@ -0,0 +1,61 @@
+package org.asf.connective.standalone.configuration;
+
+import org.asf.connective.io.ResponseCompression;
+
+import groovy.lang.Closure;
+
+public class CompressionConfig {
+	public ResponseCompression compression = new ResponseCompression();
+
+	/**
+	 * Assigns if responses are compressed
+	 *
+	 * @param enabled True to compress responses, false otherwise
+	 */
+	public void Enabled(boolean enabled) {
+		compression.setEnabled(enabled);
+	}
+
+	/**
+	 * Assigns the minimum body length for compression
+	 *
+	 * @param size Minimum body length in bytes
+	 */
+	public void MinimumSize(long size) {
+		compression.setMinimumSize(size);
+	}
+
+	/**
+	 * Assigns the compression level
+	 *
+	 * @param level Compression level, 1 (fastest) to 9 (smallest)
+	 */
+	public void Level(int level) {
+		compression.setLevel(level);
+	}
+
+	/**
+	 * Replaces the content types that are compressed
+	 *
+	 * @param types Content types, entries such as text/* match all subtypes
+	 */
+	public void MimeTypes(String... types) {
+		compression.setMimeTypes(types);
+	}
+
+	/**
+	 * Adds content types that are compressed
+	 *
+	 * @param type Content type, entries such as text/* match all subtypes
+	 */
+	public void MimeType(String type) {
+		compression.addMimeType(type);
+	}
+
+	public static CompressionConfig fromClosure(Closure<?> closure) {
+		CompressionConfig conf = new CompressionConfig();
+		closure.setDelegate(conf);
+		closure.call();
+		return conf;
+	}
+}
@@ -23,6 +23,7 @@ import org.asf.connective.basicfile.providers.IFileAliasProvider;
 import org.asf.connective.basicfile.providers.IFileRestrictionProvider;
 import org.asf.connective.basicfile.util.BasicfileContentSource;
 import org.asf.connective.handlers.HttpRequestHandler;
+import org.asf.connective.io.ResponseCompression;
 import org.asf.connective.objects.HttpRequest;
 import org.asf.connective.objects.HttpResponse;
 import org.asf.connective.headers.HeaderCollection;
@@ -46,6 +47,7 @@ public class HostEntry {
 	public ArrayList<HttpRequestHandler> handlers = new ArrayList<HttpRequestHandler>();
 	public HeaderCollection defaultHeaders = new HeaderCollection();
 	public String serverName;
+	public ResponseCompression compression;
 
 	// Error pages
 	public BiFunction<HttpResponse, HttpRequest, String> errorGenerator = new BiFunction<HttpResponse, HttpRequest, String>() {
@@ -124,6 +126,15 @@ public class HostEntry {
 		DefaultHeaderConfig.addFromClosure(defaultHeadersConfigClosure, defaultHeaders);
 	}
 
+	/**
+	 * Configures response compression
+	 * 
+	 * @param compressionConfigClosure Compression configuration closure
+	 */
+	public void Compression(Closure<?> compressionConfigClosure) {
+		compression = CompressionConfig.fromClosure(compressionConfigClosure).compression;
+	}
+
 	/**
 	 * Assigns the server content source
 	 * 
@@ -239,6 +250,26 @@ public class HostEntry {
 			logger.info("Registered restriction: " + restriction.getClass().getTypeName());
 			fac.registerRestriction(restriction);
 		}
+		if (contextConfig.compression != null) {
+			logger.info("Configured response compression");
+			fac.setResponseCompression(contextConfig.compression);
+		}
+		if (contextConfig.compressedVariants || contextConfig.precompression) {
+			logger.info("Configured compressed file variants"
+					+ (contextConfig.precompression ? " with background precompression" : ""));
+			fac.setCompressedVariantsEnabled(true);
+			fac.setPrecompressionEnabled(contextConfig.precompression);
+		}
+		fac.setValidatorsEnabled(contextConfig.validators);
+		fac.setContentHashValidators(contextConfig.contentHashValidators);
+		for (String path : contextConfig.cacheControl.keySet()) {
+			logger.info("Registered Cache-Control policy for " + path + ": " + contextConfig.cacheControl.get(path));
+			fac.registerCacheControl(path, contextConfig.cacheControl.get(path));
+		}
+		if (contextConfig.fileCache != null) {
+			logger.info("Configured static file cache of " + contextConfig.fileCache.maxSize + " bytes");
+			fac.setFileCache(contextConfig.fileCache.createCache());
+		}
 		// TODO
 
 		// Let modules register data
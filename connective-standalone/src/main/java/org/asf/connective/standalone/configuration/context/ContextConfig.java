@@ -1,10 +1,13 @@
 package org.asf.connective.standalone.configuration.context;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
+import org.asf.connective.standalone.configuration.CompressionConfig;
 import org.asf.connective.standalone.configuration.HandlerConfig;
 import org.asf.connective.basicfile.providers.*;
 import org.asf.connective.handlers.HttpRequestHandler;
+import org.asf.connective.io.ResponseCompression;
 
 import groovy.lang.Closure;
 
@@ -16,6 +19,13 @@ public class ContextConfig {
 	public ArrayList<FileUploadHandlerProvider> uploadHandlers = new ArrayList<FileUploadHandlerProvider>();
 	public ArrayList<IDocumentPostProcessorProvider> postProcessors = new ArrayList<IDocumentPostProcessorProvider>();
 	public ArrayList<IFileRestrictionProvider> restrictions = new ArrayList<IFileRestrictionProvider>();
+	public ResponseCompression compression;
+	public boolean compressedVariants;
+	public boolean precompression;
+	public boolean validators = true;
+	public boolean contentHashValidators;
+	public LinkedHashMap<String, String> cacheControl = new LinkedHashMap<String, String>();
+	public FileCacheConfig fileCache;
 
 	/**
 	 * Assigns the virtual root for the context
@@ -116,6 +126,75 @@ public class ContextConfig {
 		restrictions.addAll(restrictionConfig.restrictions);
 	}
 
+	/**
+	 * Configures response compression, replaces the host settings for files
+	 * served by this context
+	 * 
+	 * @param compressionConfigClosure Compression configuration closure
+	 */
+	public void Compression(Closure<?> compressionConfigClosure) {
+		compression = CompressionConfig.fromClosure(compressionConfigClosure).compression;
+	}
+
+	/**
+	 * Assigns if pre-compressed variants of files (file.gz and file.br) are
+	 * served to clients that accept them
+	 * 
+	 * @param enabled True to serve compressed variants, false otherwise
+	 */
+	public void CompressedVariants(boolean enabled) {
+		compressedVariants = enabled;
+	}
+
+	/**
+	 * Assigns if gzip variants of files are generated in the background, enables
+	 * serving compressed variants
+	 * 
+	 * @param enabled True to generate gzip variants, false otherwise
+	 */
+	public void Precompression(boolean enabled) {
+		precompression = enabled;
+	}
+
+	/**
+	 * Assigns if ETag and Last-Modified validators are sent with files and if
+	 * conditional requests are answered
+	 * 
+	 * @param enabled True to send validators, false otherwise
+	 */
+	public void Validators(boolean enabled) {
+		validators = enabled;
+	}
+
+	/**
+	 * Assigns if entity tags are derived from a hash of the file contents instead
+	 * of the size and modification time
+	 * 
+	 * @param enabled True to hash file contents, false otherwise
+	 */
+	public void ContentHashValidators(boolean enabled) {
+		contentHashValidators = enabled;
+	}
+
+	/**
+	 * Assigns the Cache-Control policy of a path, the most specific path wins
+	 * 
+	 * @param path   Folder or file path relative to the virtual root
+	 * @param policy Cache-Control header value
+	 */
+	public void CacheControl(String path, String policy) {
+		cacheControl.put(path, policy);
+	}
+
+	/**
+	 * Configures the in-memory cache of static files
+	 * 
+	 * @param fileCacheConfigClosure File cache configuration closure
+	 */
+	public void FileCache(Closure<?> fileCacheConfigClosure) {
+		fileCache = FileCacheConfig.fromClosure(fileCacheConfigClosure);
+	}
+
 	public static ContextConfig fromClosure(Closure<?> closure) {
 		ContextConfig conf = new ContextConfig();
 		closure.setDelegate(conf);
@@ -0,0 +1,55 @@
+package org.asf.connective.standalone.configuration.context;
+
+import org.asf.connective.basicfile.util.StaticFileCache;
+
+import groovy.lang.Closure;
+
+public class FileCacheConfig {
+	public long maxSize = 64 * 1024 * 1024;
+	public long maxEntrySize = 256 * 1024;
+	public long revalidateInterval = 1000;
+
+	/**
+	 * Assigns the maximum amount of memory used by cached files
+	 *
+	 * @param size Maximum cache size in bytes
+	 */
+	public void MaxSize(long size) {
+		maxSize = size;
+	}
+
+	/**
+	 * Assigns the maximum size of files kept in memory, larger files only have
+	 * their metadata cached
+	 *
+	 * @param size Maximum file size in bytes
+	 */
+	public void MaxEntrySize(long size) {
+		maxEntrySize = size;
+	}
+
+	/**
+	 * Assigns how often cached files are checked for modifications
+	 *
+	 * @param interval Interval in milliseconds, 0 to check on every access
+	 */
+	public void RevalidateInterval(long interval) {
+		revalidateInterval = interval;
+	}
+
+	/**
+	 * Creates the static file cache
+	 *
+	 * @return StaticFileCache instance
+	 */
+	public StaticFileCache createCache() {
+		return new StaticFileCache(maxSize).setMaxEntrySize(maxEntrySize).setRevalidateInterval(revalidateInterval);
+	}
+
+	public static FileCacheConfig fromClosure(Closure<?> closure) {
+		FileCacheConfig conf = new FileCacheConfig();
+		closure.setDelegate(conf);
+		closure.call();
+		return conf;
+	}
+}
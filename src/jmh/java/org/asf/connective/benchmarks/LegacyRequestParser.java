@@ -0,0 +1,126 @@
+package org.asf.connective.benchmarks;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.io.PrependedBufferStream;
+
+/**
+ * 
+ * Copy of the line-based request parser used before RequestHeadParser, kept as
+ * a benchmark baseline
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class LegacyRequestParser {
+
+	public String method;
+	public String path;
+	public String version;
+	public HeaderCollection headers;
+
+	public boolean readRequest(PrependedBufferStream in) throws IOException {
+		// Read first request line
+		String firstLine = readStreamLine(in);
+		if (firstLine == null || firstLine.isEmpty())
+			return false;
+
+		// Verify line validity
+		if (!firstLine.substring(0, 1).matches("[A-Za-z0-9]") || firstLine.split(" ").length != 3) {
+			return false;
+		}
+
+		try {
+			// Decode first line
+			path = firstLine.substring(firstLine.indexOf(" ") + 1, firstLine.lastIndexOf(" "));
+			method = firstLine.substring(0, firstLine.indexOf(" ")).toUpperCase();
+			version = firstLine.substring(firstLine.lastIndexOf(" ") + 1);
+
+			// Parse headers
+			headers = new HeaderCollection();
+			while (true) {
+				// Read header
+				String line = readStreamLine(in);
+				if (line.equals(""))
+					break; // Done with headers
+
+				// Parse header
+				String key = line.substring(0, line.indexOf(": "));
+				String value = line.substring(line.indexOf(": ") + 2);
+
+				// Prevent injection by checking if its already present
+				if (!headers.hasHeader(key))
+					headers.addHeader(key, value); // Set header
+			}
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private String readStreamLine(PrependedBufferStream strm) throws IOException {
+		// Read a number of bytes
+		byte[] content = new byte[20480];
+		int read = strm.read(content, 0, content.length);
+		if (read <= -1) {
+			// Failed
+			return null;
+		} else {
+			// Trim array
+			content = Arrays.copyOfRange(content, 0, read);
+
+			// Find newline
+			String newData = new String(content, "UTF-8");
+			if (newData.contains("\n")) {
+				// Found newline
+				String line = newData.substring(0, newData.indexOf("\n"));
+				int offset = line.length() + 1;
+				int returnLength = content.length - offset;
+				if (returnLength > 0) {
+					// Return
+					strm.returnToBuffer(Arrays.copyOfRange(content, offset, content.length));
+				}
+				return line.replace("\r", "");
+			} else {
+				// Read more
+				while (true) {
+					byte[] addition = new byte[20480];
+					read = strm.read(addition, 0, addition.length);
+					if (read <= -1) {
+						// Failed
+						strm.returnToBuffer(content);
+						return null;
+					}
+
+					// Trim
+					addition = Arrays.copyOfRange(addition, 0, read);
+
+					// Append
+					byte[] newContent = new byte[content.length + addition.length];
+					for (int i = 0; i < content.length; i++)
+						newContent[i] = content[i];
+					for (int i = content.length; i < newContent.length; i++)
+						newContent[i] = addition[i - content.length];
+					content = newContent;
+
+					// Find newline
+					newData = new String(content, "UTF-8");
+					if (newData.contains("\n")) {
+						// Found newline
+						String line = newData.substring(0, newData.indexOf("\n"));
+						int offset = line.length() + 1;
+						int returnLength = content.length - offset;
+						if (returnLength > 0) {
+							// Return
+							strm.returnToBuffer(Arrays.copyOfRange(content, offset, content.length));
+						}
+						return line.replace("\r", "");
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.asf.connective.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.asf.connective.impl.http_1_1.RequestHeadParser;
+import org.asf.connective.io.PrependedBufferStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 
+ * Compares the request head parser against the previous line-based parser,
+ * run with gradle jmh
+ * 
+ * @author Sky Swimmer
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParserBenchmark {
+
+	private byte[] request;
+	private RequestHeadParser parser;
+
+	@Setup
+	public void setup() {
+		request = ("GET /assets/scripts/main.js?v=1234 HTTP/1.1\r\n" + "Host: www.example.com\r\n"
+				+ "Connection: keep-alive\r\n"
+				+ "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36\r\n"
+				+ "Accept: */*\r\n" + "Accept-Encoding: gzip, deflate, br\r\n"
+				+ "Accept-Language: en-US,en;q=0.9\r\n" + "Referer: https://www.example.com/index.html\r\n"
+				+ "Cookie: session=0123456789abcdef; theme=dark; consent=yes\r\n"
+				+ "If-None-Match: \"5f2a-1234567890\"\r\n" + "Sec-Fetch-Site: same-origin\r\n"
+				+ "Sec-Fetch-Mode: no-cors\r\n" + "Sec-Fetch-Dest: script\r\n" + "\r\n")
+				.getBytes(StandardCharsets.UTF_8);
+		parser = new RequestHeadParser(64 * 1024);
+	}
+
+	@Benchmark
+	public void legacyParser(Blackhole bh) throws IOException {
+		LegacyRequestParser legacy = new LegacyRequestParser();
+		legacy.readRequest(new PrependedBufferStream(new ByteArrayInputStream(request)));
+		bh.consume(legacy.headers.getHeaderValue("Host"));
+		bh.consume(legacy.headers.getHeaderValue("Connection"));
+	}
+
+	@Benchmark
+	public void headParser(Blackhole bh) throws IOException {
+		parser.reset();
+		parser.readFrom(new ByteArrayInputStream(request));
+		int end = parser.findHeadEnd();
+		parser.parse(end);
+		bh.consume(parser.getHeaders().getHeaderValue("Host"));
+		bh.consume(parser.getHeaders().getHeaderValue("Connection"));
+	}
+
+}
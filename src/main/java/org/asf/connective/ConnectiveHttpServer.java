@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -22,8 +21,12 @@ import org.asf.connective.impl.DelegateRequestHandler;
 import org.asf.connective.impl.DynamicDelegatePushHandler;
 import org.asf.connective.impl.DynamicDelegateRequestHandler;
 import org.asf.connective.impl.http_1_1.Http_1_1_Adapter;
+import org.asf.connective.impl.http_1_1_nio.Http_1_1_Nio_Adapter;
+import org.asf.connective.impl.http_2.Http_2_Adapter;
 import org.asf.connective.impl.https_1_1.Https_1_1_Adapter;
+import org.asf.connective.io.AddressPrefixSet;
 import org.asf.connective.io.IoUtil;
+import org.asf.connective.io.ResponseCompression;
 import org.asf.connective.lambda.DynamicLambdaPushHandler;
 import org.asf.connective.lambda.DynamicLambdaRequestHandler;
 import org.asf.connective.lambda.LambdaPushHandler;
@@ -56,11 +59,14 @@ public abstract class ConnectiveHttpServer {
 
 	private ConnectiveLogger logger;
 	private HeaderCollection defaultHeaders = new HeaderCollection();
+	private ResponseCompression compression;
+	private boolean rangeRequests = true;
 
-	protected ArrayList<String> allowedProxySourceAddresses = new ArrayList<String>();
+	protected AddressPrefixSet allowedProxySourceAddresses = new AddressPrefixSet();
 
 	private static ArrayList<IServerAdapterDefinition> adapters = new ArrayList<IServerAdapterDefinition>(
-			Arrays.asList(new IServerAdapterDefinition[] { new Http_1_1_Adapter(), new Https_1_1_Adapter() }));
+			Arrays.asList(new IServerAdapterDefinition[] { new Http_1_1_Adapter(), new Https_1_1_Adapter(),
+					new Http_1_1_Nio_Adapter(), new Http_2_Adapter() }));
 
 	private HttpHandlerSet handlerSet = new HttpHandlerSet();
 
@@ -91,12 +97,7 @@ public abstract class ConnectiveHttpServer {
 	 * @return Array of allowed proxy source addresses
 	 */
 	public String[] getAllowedProxySourceAddresses() {
-		while (true) {
-			try {
-				return allowedProxySourceAddresses.toArray(new String[0]);
-			} catch (ConcurrentModificationException e) {
-			}
-		}
+		return allowedProxySourceAddresses.getEntries();
 	}
 
 	/**
@@ -135,23 +136,18 @@ public abstract class ConnectiveHttpServer {
 	 * @return True if allowed, false otherwise
 	 */
 	public boolean isAllowedProxySource(String address) {
-		while (true) {
-			try {
-				return allowedProxySourceAddresses.stream().anyMatch(t -> t.toLowerCase().equals(address));
-			} catch (ConcurrentModificationException e) {
-			}
-		}
+		return allowedProxySourceAddresses.contains(address);
 	}
 
 	/**
-	 * Adds allowed proxy source addresses
+	 * Adds allowed proxy source addresses, accepts CIDR prefixes such as
+	 * 10.0.0.0/8 and fd00::/8
 	 * 
-	 * @param address The address of the proxy server to whitelist
+	 * @param address The address or prefix of the proxy server to whitelist
+	 * @throws IllegalArgumentException If the prefix is malformed
 	 */
-	public void addAllowedProxySources(String address) {
-		synchronized (allowedProxySourceAddresses) {
-			allowedProxySourceAddresses.add(address);
-		}
+	public void addAllowedProxySources(String address) throws IllegalArgumentException {
+		allowedProxySourceAddresses.add(address);
 	}
 
 	/**
@@ -160,18 +156,14 @@ public abstract class ConnectiveHttpServer {
 	 * @param address The address of the proxy server to remove from the whitelist
 	 */
 	public void removeAllowedProxySources(String address) {
-		synchronized (allowedProxySourceAddresses) {
-			allowedProxySourceAddresses.remove(address);
-		}
+		allowedProxySourceAddresses.remove(address);
 	}
 
 	/**
 	 * Clears all allowed proxy source addresses
 	 */
 	public void clearAllowedProxySources() {
-		synchronized (allowedProxySourceAddresses) {
-			allowedProxySourceAddresses.clear();
-		}
+		allowedProxySourceAddresses.clear();
 	}
 
 	private BiFunction<HttpResponse, HttpRequest, String> errorGenerator = new BiFunction<HttpResponse, HttpRequest, String>() {
@@ -201,6 +193,45 @@ public abstract class ConnectiveHttpServer {
 
 	};
 
+	/**
+	 * Retrieves the response compression settings
+	 * 
+	 * @return ResponseCompression instance or null if responses are not compressed
+	 */
+	public ResponseCompression getResponseCompression() {
+		return compression;
+	}
+
+	/**
+	 * Assigns the response compression settings
+	 * 
+	 * @param compression ResponseCompression instance, null to disable
+	 *                    compression
+	 */
+	public void setResponseCompression(ResponseCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Checks if byte range requests are answered for file responses
+	 * 
+	 * @return True if enabled, false otherwise
+	 */
+	public boolean isRangeRequestsEnabled() {
+		return rangeRequests;
+	}
+
+	/**
+	 * Assigns if byte range requests are answered for file responses, enabled by
+	 * default
+	 * 
+	 * @param enabled True to answer range requests, false to always send the
+	 *                complete file
+	 */
+	public void setRangeRequestsEnabled(boolean enabled) {
+		rangeRequests = enabled;
+	}
+
 	/**
 	 * Retrieves the current ContentSource instance
 	 * 
@@ -3,11 +3,9 @@ package org.asf.connective;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 
+import org.asf.connective.io.ByteRanges;
+import org.asf.connective.io.ResponseCompression;
 import org.asf.connective.logger.ConnectiveLogMessage;
 import org.asf.connective.logger.ConnectiveLogger;
 import org.asf.connective.objects.HttpRequest;
@@ -88,82 +86,126 @@ public abstract class RemoteClient {
 		// Prepare response
 		HttpResponse resp = createResponse(request);
 		try {
-			// Go through handler layers
-			boolean run = true;
-			ConnectiveHttpServer.LayerInfo layer = server.layer;
-			while (layer != null) {
-				if (!layer.proc.handle(request.getRequestPath(), request, resp, this, server)) {
-					// Cancel handling
-					run = false;
-					break;
-				}
-				layer = layer.parent;
+			completeResponse(request, resp, runHandlers(request, resp));
+		} finally {
+			// If needed, we should close the response stream if its present to prevent
+			// resource leakage
+			closeResponseBody(resp);
+		}
+	}
+
+	/**
+	 * Runs the handler layers and content source for a request, this does not
+	 * write to the connection and may run concurrently for pipelined requests
+	 * 
+	 * @param request HTTP request to process
+	 * @param resp    Response object to fill
+	 * @return True if the response should be logged once sent, false if it was
+	 *         already logged
+	 * @throws IOException If processing fails
+	 */
+	protected boolean runHandlers(HttpRequest request, HttpResponse resp) throws IOException {
+		// Go through handler layers
+		boolean run = true;
+		ConnectiveHttpServer.LayerInfo layer = server.layer;
+		while (layer != null) {
+			if (!layer.proc.handle(request.getRequestPath(), request, resp, this, server)) {
+				// Cancel handling
+				run = false;
+				break;
 			}
+			layer = layer.parent;
+		}
 
-			// Process if allowed
-			boolean log = false;
-			if (!run || !server.getContentSource().process(request.getRequestPath(), request, resp, this, server)) {
-				if (!request.getRequestMethod().equals("GET") && !request.getRequestMethod().equals("PUT")
-						&& !request.getRequestMethod().equals("DELETE") && !request.getRequestMethod().equals("PATCH")
-						&& !request.getRequestMethod().equals("POST") && !request.getRequestMethod().equals("HEAD")) {
-					resp.setResponseStatus(405, "Unsupported request");
-					logger.error(new ConnectiveLogMessage("handler",
-							resp.getHttpVersion() + " " + request.getRequestMethod() + " "
-									+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
-									+ resp.getResponseMessage(),
-							null, this));
-				} else {
-					resp.setResponseStatus(404, "Not found");
-					logger.error(new ConnectiveLogMessage("handler",
-							resp.getHttpVersion() + " " + request.getRequestMethod() + " "
-									+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
-									+ resp.getResponseMessage(),
-							null, this));
-				}
+		// Process if allowed
+		boolean log = false;
+		if (!run && resp.wasStatusAssigned() && !resp.isSuccessResponseCode()) {
+			// Layer rejected the request with its own status
+			logger.error(new ConnectiveLogMessage("handler",
+					resp.getHttpVersion() + " " + request.getRequestMethod() + " " + request.getRawRequestResource()
+							+ " : " + resp.getResponseCode() + " " + resp.getResponseMessage(),
+					null, this));
+		} else if (!run
+				|| !server.getContentSource().process(request.getRequestPath(), request, resp, this, server)) {
+			if (!request.getRequestMethod().equals("GET") && !request.getRequestMethod().equals("PUT")
+					&& !request.getRequestMethod().equals("DELETE") && !request.getRequestMethod().equals("PATCH")
+					&& !request.getRequestMethod().equals("POST") && !request.getRequestMethod().equals("HEAD")) {
+				resp.setResponseStatus(405, "Unsupported request");
+				logger.error(new ConnectiveLogMessage("handler",
+						resp.getHttpVersion() + " " + request.getRequestMethod() + " "
+								+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
+								+ resp.getResponseMessage(),
+						null, this));
 			} else {
-				log = true;
+				resp.setResponseStatus(404, "Not found");
+				logger.error(new ConnectiveLogMessage("handler",
+						resp.getHttpVersion() + " " + request.getRequestMethod() + " "
+								+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
+								+ resp.getResponseMessage(),
+						null, this));
 			}
+		} else {
+			log = true;
+		}
 
-			// Set body if missing
-			if (!resp.hasResponseBody()) {
-				if (!resp.isSuccessResponseCode()) {
-					// Set error
-					resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, request));
-				}
+		// Set body if missing
+		if (!resp.hasResponseBody()) {
+			if (!resp.isSuccessResponseCode()) {
+				// Set error
+				resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, request));
 			}
+		}
 
-			// Send response
-			SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
-			dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-			resp.addHeader("Date", dateFormat.format(new Date()));
-			postProcessResponse(resp, request);
-			if (!resp.wasStatusAssigned() && !resp.hasResponseBody() && resp.isSuccessResponseCode()) {
-				// Set 204
-				resp.setResponseStatus(204, "No Content");
-			}
-			if (log) {
-				if (!resp.isSuccessResponseCode())
-					logger.error(new ConnectiveLogMessage("handler",
-							resp.getHttpVersion() + " " + request.getRequestMethod() + " "
-									+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
-									+ resp.getResponseMessage(),
-							null, this));
-				else
-					logger.info(new ConnectiveLogMessage("handler",
-							resp.getHttpVersion() + " " + request.getRequestMethod() + " "
-									+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
-									+ resp.getResponseMessage(),
-							null, this));
-			}
-			sendResponse(resp, request);
-		} finally {
-			// If needed, we should close the response stream if its present to prevent
-			// resource leakage
-			if (resp.getBodyStream() != null) {
-				try {
-					resp.getBodyStream().close();
-				} catch (IOException e) {
-				}
+		return log;
+	}
+
+	/**
+	 * Post-processes, logs and sends a response prepared by runHandlers
+	 * 
+	 * @param request HTTP request that was processed
+	 * @param resp    Response object
+	 * @param log     True to log the response, false otherwise
+	 * @throws IOException If sending the response fails
+	 */
+	protected void completeResponse(HttpRequest request, HttpResponse resp, boolean log) throws IOException {
+		// Send response
+		postProcessResponse(resp, request);
+		if (server.isRangeRequestsEnabled())
+			ByteRanges.apply(request, resp);
+		ResponseCompression compression = server.getResponseCompression();
+		if (compression != null)
+			compression.apply(request, resp);
+		if (!resp.wasStatusAssigned() && !resp.hasResponseBody() && resp.isSuccessResponseCode()) {
+			// Set 204
+			resp.setResponseStatus(204, "No Content");
+		}
+		if (log) {
+			if (!resp.isSuccessResponseCode())
+				logger.error(new ConnectiveLogMessage("handler",
+						resp.getHttpVersion() + " " + request.getRequestMethod() + " "
+								+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
+								+ resp.getResponseMessage(),
+						null, this));
+			else
+				logger.info(new ConnectiveLogMessage("handler",
+						resp.getHttpVersion() + " " + request.getRequestMethod() + " "
+								+ request.getRawRequestResource() + " : " + resp.getResponseCode() + " "
+								+ resp.getResponseMessage(),
+						null, this));
+		}
+		sendResponse(resp, request);
+	}
+
+	/**
+	 * Closes the body stream of a response if present
+	 * 
+	 * @param resp Response object
+	 */
+	protected void closeResponseBody(HttpResponse resp) {
+		if (resp.getBodyStream() != null) {
+			try {
+				resp.getBodyStream().close();
+			} catch (IOException e) {
 			}
 		}
 	}
@@ -182,12 +224,7 @@ public abstract class RemoteClient {
 	 * @return New HttpResponse instance
 	 */
 	protected HttpResponse createResponse(HttpRequest request) {
-		HttpResponse resp = createResponseInternal();
-		resp.addHeader("Server", server.getServerName());
-		for (String name : server.getDefaultHeaders().getHeaderNames())
-			if (!resp.hasHeader(name))
-				resp.addHeader(name, server.getDefaultHeaders().getHeaderValue(name));
-		return resp;
+		return createResponseInternal();
 	}
 
 	/**
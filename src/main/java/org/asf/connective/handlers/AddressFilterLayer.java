@@ -0,0 +1,90 @@
+package org.asf.connective.handlers;
+
+import java.io.IOException;
+
+import org.asf.connective.ConnectiveHttpServer;
+import org.asf.connective.IHttpHandlerLayer;
+import org.asf.connective.RemoteClient;
+import org.asf.connective.io.AddressPrefixSet;
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+
+/**
+ *
+ * Handler layer that allows or denies requests by client address, entries can
+ * be addresses or CIDR prefixes such as 10.0.0.0/8 and fd00::/8. Denied
+ * entries take priority, if any allowed entries are present, clients must
+ * match one of them. Rejected requests receive 403 Forbidden.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class AddressFilterLayer implements IHttpHandlerLayer {
+
+	protected AddressPrefixSet allowed = new AddressPrefixSet();
+	protected AddressPrefixSet denied = new AddressPrefixSet();
+
+	/**
+	 * Adds allowed addresses
+	 *
+	 * @param address Address or prefix to allow
+	 * @return Self
+	 * @throws IllegalArgumentException If the prefix is malformed
+	 */
+	public AddressFilterLayer allow(String address) throws IllegalArgumentException {
+		allowed.add(address);
+		return this;
+	}
+
+	/**
+	 * Adds denied addresses
+	 *
+	 * @param address Address or prefix to deny
+	 * @return Self
+	 * @throws IllegalArgumentException If the prefix is malformed
+	 */
+	public AddressFilterLayer deny(String address) throws IllegalArgumentException {
+		denied.add(address);
+		return this;
+	}
+
+	/**
+	 * Retrieves the allowed address set
+	 *
+	 * @return AddressPrefixSet instance
+	 */
+	public AddressPrefixSet getAllowedAddresses() {
+		return allowed;
+	}
+
+	/**
+	 * Retrieves the denied address set
+	 *
+	 * @return AddressPrefixSet instance
+	 */
+	public AddressPrefixSet getDeniedAddresses() {
+		return denied;
+	}
+
+	/**
+	 * Checks if a client address is permitted
+	 *
+	 * @param address Client address
+	 * @return True if permitted, false otherwise
+	 */
+	public boolean isPermitted(String address) {
+		if (denied.contains(address))
+			return false;
+		return allowed.isEmpty() || allowed.contains(address);
+	}
+
+	@Override
+	public boolean handle(String path, HttpRequest request, HttpResponse response, RemoteClient client,
+			ConnectiveHttpServer server) throws IOException {
+		if (isPermitted(client.getRemoteAddress()))
+			return true;
+		response.setResponseStatus(403, "Forbidden");
+		return false;
+	}
+
+}
@@ -12,6 +12,7 @@ import java.util.LinkedHashMap;
  */
 public class HeaderCollection {
 	private HashMap<String, HttpHeader> headers = new LinkedHashMap<String, HttpHeader>();
+	private int modCount;
 
 	/**
 	 * Creates a new empty header collection
@@ -46,6 +47,7 @@ public class HeaderCollection {
 		if (!hasHeader(name)) {
 			HttpHeader header = HttpHeader.create(name, value);
 			headers.put(name.toLowerCase(), header);
+			modCount++;
 			return header;
 		}
 		HttpHeader old = getHeader(name);
@@ -55,6 +57,19 @@ public class HeaderCollection {
 		return old;
 	}
 
+	/**
+	 * Adds a HTTP header object (if a header is already present, it is
+	 * overwritten)
+	 * 
+	 * @param header Header to add
+	 * @return HttpHeader instance
+	 */
+	public HttpHeader addHeader(HttpHeader header) {
+		modCount++;
+		headers.put(header.getName().toLowerCase(), header);
+		return header;
+	}
+
 	/**
 	 * Retrieves the amount of headers that are present in the set
 	 * 
@@ -117,6 +132,7 @@ public class HeaderCollection {
 	 * @return Header that was removed or null
 	 */
 	public HttpHeader removeHeader(String header) {
+		modCount++;
 		return headers.remove(header.toLowerCase());
 	}
 
@@ -138,10 +154,21 @@ public class HeaderCollection {
 		return headers.values().toArray(new HttpHeader[0]);
 	}
 
+	/**
+	 * Retrieves the amount of times headers were added to or removed from this
+	 * collection, changes to header values are tracked by the headers themselves
+	 * 
+	 * @return Modification count
+	 */
+	public int getModificationCount() {
+		return modCount;
+	}
+
 	/**
 	 * Clears the header collection
 	 */
 	public void clearHeaders() {
+		modCount++;
 		headers.clear();
 	}
 
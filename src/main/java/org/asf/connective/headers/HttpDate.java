@@ -0,0 +1,97 @@
+package org.asf.connective.headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 
+ * HTTP date formatting utility, keeps a cached value of the current date that
+ * is refreshed at most once per second
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class HttpDate {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter
+			.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+	private static volatile CachedDate current = new CachedDate(System.currentTimeMillis() / 1000l);
+
+	/**
+	 * Formats a date for use in HTTP headers
+	 * 
+	 * @param date Date to format
+	 * @return Formatted date string
+	 */
+	public static String format(Date date) {
+		return FORMATTER.format(date.toInstant());
+	}
+
+	/**
+	 * Parses a date from a HTTP header
+	 * 
+	 * @param value Header value
+	 * @return Date instance or null if the value is not a valid date
+	 */
+	public static Date parse(String value) {
+		if (value == null)
+			return null;
+		try {
+			return Date.from(Instant.from(FORMATTER.parse(value.trim())));
+		} catch (DateTimeException e) {
+		}
+		try {
+			return Date.from(Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim())));
+		} catch (DateTimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Retrieves the current date formatted for use in HTTP headers
+	 * 
+	 * @return Formatted date string
+	 */
+	public static String now() {
+		return currentDate().value;
+	}
+
+	/**
+	 * Retrieves the encoded Date header line for the current date, including the
+	 * line terminator
+	 * 
+	 * @return Header line bytes, must not be modified
+	 */
+	public static byte[] nowHeaderLine() {
+		return currentDate().headerLine;
+	}
+
+	private static CachedDate currentDate() {
+		CachedDate date = current;
+		long second = System.currentTimeMillis() / 1000l;
+		if (date.second != second) {
+			date = new CachedDate(second);
+			current = date;
+		}
+		return date;
+	}
+
+	private static class CachedDate {
+		private final long second;
+		private final String value;
+		private final byte[] headerLine;
+
+		public CachedDate(long second) {
+			this.second = second;
+			value = FORMATTER.format(Instant.ofEpochSecond(second));
+			headerLine = ("Date: " + value + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.asf.connective.headers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -15,6 +16,12 @@ public class HttpHeader {
 	private String name;
 	private ArrayList<String> values = new ArrayList<String>();
 
+	private int modCount;
+
+	private byte[] rawValue;
+	private int rawOffset;
+	private int rawLength;
+
 	/**
 	 * Creates a new header container
 	 * 
@@ -35,6 +42,22 @@ public class HttpHeader {
 		this.name = name;
 	}
 
+	/**
+	 * Creates a new header container with a value that is decoded on first access
+	 * 
+	 * @param name   Header name
+	 * @param data   Buffer containing the UTF-8 encoded value, must not be modified
+	 *               afterwards
+	 * @param offset Value offset
+	 * @param length Value length
+	 */
+	public HttpHeader(String name, byte[] data, int offset, int length) {
+		this.name = name;
+		this.rawValue = data;
+		this.rawOffset = offset;
+		this.rawLength = length;
+	}
+
 	/**
 	 * Creates a new HTTP header container
 	 * 
@@ -71,6 +94,7 @@ public class HttpHeader {
 	 * @return Value string or null
 	 */
 	public String getValue() {
+		decode();
 		if (isEmpty())
 			return null;
 		return values.get(0);
@@ -82,6 +106,7 @@ public class HttpHeader {
 	 * @return Array of header value strings
 	 */
 	public String[] getValues() {
+		decode();
 		return values.toArray(new String[0]);
 	}
 
@@ -89,6 +114,8 @@ public class HttpHeader {
 	 * Clears all values from the header
 	 */
 	public void clearValues() {
+		decode();
+		modCount++;
 		values.clear();
 	}
 
@@ -99,6 +126,8 @@ public class HttpHeader {
 	 * @return True if successful, false otherwise
 	 */
 	public boolean removeValue(String value) {
+		decode();
+		modCount++;
 		return values.remove(value);
 	}
 
@@ -109,6 +138,7 @@ public class HttpHeader {
 	 * @return True if present, false otherwise
 	 */
 	public boolean containsValue(String value) {
+		decode();
 		return values.contains(value);
 	}
 
@@ -118,6 +148,7 @@ public class HttpHeader {
 	 * @return Amount of values stored in this header
 	 */
 	public int getValueCount() {
+		decode();
 		return values.size();
 	}
 
@@ -128,6 +159,7 @@ public class HttpHeader {
 	 * @return Value string
 	 */
 	public String getValue(int index) {
+		decode();
 		if (index < 0 || index > values.size())
 			throw new IndexOutOfBoundsException(
 					"Index out of bounds: " + index + ", size of collection: " + values.size());
@@ -141,6 +173,8 @@ public class HttpHeader {
 	 * @return Value index
 	 */
 	public int addValue(String value) {
+		decode();
+		modCount++;
 		values.add(value);
 		return values.lastIndexOf(value);
 	}
@@ -151,6 +185,8 @@ public class HttpHeader {
 	 * @param values Values to add
 	 */
 	public void addValues(Collection<? extends String> values) {
+		decode();
+		modCount++;
 		this.values.addAll(values);
 	}
 
@@ -160,6 +196,7 @@ public class HttpHeader {
 	 * @return True if empty, false otherwise
 	 */
 	public boolean isEmpty() {
+		decode();
 		return values.isEmpty();
 	}
 
@@ -172,8 +209,25 @@ public class HttpHeader {
 		return !isEmpty();
 	}
 
+	/**
+	 * Retrieves the amount of times the values of this header were changed
+	 * 
+	 * @return Modification count
+	 */
+	public int getModificationCount() {
+		return modCount;
+	}
+
+	private void decode() {
+		if (rawValue == null)
+			return;
+		values.add(new String(rawValue, rawOffset, rawLength, StandardCharsets.UTF_8));
+		rawValue = null;
+	}
+
 	@Override
 	public String toString() {
+		decode();
 		String res = name;
 		if (isEmpty())
 			res += ": [EMPTY HEADER]";
@@ -0,0 +1,90 @@
+package org.asf.connective.headers;
+
+import java.util.Date;
+
+import org.asf.connective.objects.HttpRequest;
+
+/**
+ * 
+ * Conditional request evaluation (If-Match, If-None-Match, If-Modified-Since
+ * and If-Unmodified-Since)
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class Preconditions {
+
+	/**
+	 * Status returned if the request should be processed normally
+	 */
+	public static final int PROCEED = 0;
+
+	/**
+	 * Evaluates the preconditions of a request against the validators of the
+	 * current representation
+	 * 
+	 * @param request      Request to evaluate
+	 * @param etag         Entity tag of the representation, may be null
+	 * @param lastModified Modification time of the representation in
+	 *                     milliseconds, -1 if unknown
+	 * @return {@link #PROCEED}, 304 (Not Modified) or 412 (Precondition Failed)
+	 */
+	public static int evaluate(HttpRequest request, String etag, long lastModified) {
+		boolean safe = request.getRequestMethod().equalsIgnoreCase("GET")
+				|| request.getRequestMethod().equalsIgnoreCase("HEAD");
+		long modifiedSecond = lastModified < 0 ? -1 : lastModified / 1000l;
+
+		// If-Match, or If-Unmodified-Since when absent
+		String ifMatch = request.getHeaderValue("If-Match");
+		if (ifMatch != null) {
+			if (!matches(ifMatch, etag, true))
+				return 412;
+		} else if (modifiedSecond != -1) {
+			Date date = HttpDate.parse(request.getHeaderValue("If-Unmodified-Since"));
+			if (date != null && modifiedSecond > date.getTime() / 1000l)
+				return 412;
+		}
+
+		// If-None-Match, or If-Modified-Since when absent
+		String ifNoneMatch = request.getHeaderValue("If-None-Match");
+		if (ifNoneMatch != null) {
+			if (matches(ifNoneMatch, etag, false))
+				return safe ? 304 : 412;
+		} else if (safe && modifiedSecond != -1) {
+			Date date = HttpDate.parse(request.getHeaderValue("If-Modified-Since"));
+			if (date != null && modifiedSecond <= date.getTime() / 1000l)
+				return 304;
+		}
+		return PROCEED;
+	}
+
+	/**
+	 * Checks if an entity tag list matches an entity tag
+	 * 
+	 * @param list   Entity tag list (If-Match or If-None-Match header value)
+	 * @param etag   Entity tag to find, may be null
+	 * @param strong True to use strong comparison, false to use weak comparison
+	 * @return True if the list matches, false otherwise
+	 */
+	public static boolean matches(String list, String etag, boolean strong) {
+		if (list.trim().equals("*"))
+			return true;
+		if (etag == null)
+			return false;
+		if (strong && etag.startsWith("W/"))
+			return false;
+		String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+		for (String entry : list.split(",")) {
+			entry = entry.trim();
+			if (entry.startsWith("W/")) {
+				if (strong)
+					continue;
+				entry = entry.substring(2);
+			}
+			if (entry.equals(opaque))
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,227 @@
+package org.asf.connective.impl.http_1_1;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Concurrent registry of the connections of a server, tracks what each
+ * connection is doing and admits new connections up to a limit
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ConnectionRegistry {
+
+	/**
+	 * Connection is reading a request head
+	 */
+	public static final int STATE_READING = 0;
+
+	/**
+	 * Connection is running request handlers
+	 */
+	public static final int STATE_PROCESSING = 1;
+
+	/**
+	 * Connection is sending a response
+	 */
+	public static final int STATE_WRITING = 2;
+
+	/**
+	 * Connection is kept alive and waiting for the next request
+	 */
+	public static final int STATE_IDLE = 3;
+
+	private static final int REMOVED = -1;
+
+	private ConcurrentHashMap<RemoteClientHttp_1_1, AtomicInteger> clients = new ConcurrentHashMap<RemoteClientHttp_1_1, AtomicInteger>();
+	private LongAdder[] stateCounts = new LongAdder[] { new LongAdder(), new LongAdder(), new LongAdder(),
+			new LongAdder() };
+	private LongAdder rejected = new LongAdder();
+
+	// Registered connections plus reservations that were not yet registered
+	private AtomicInteger count = new AtomicInteger();
+
+	private volatile boolean closed;
+	private volatile CountDownLatch emptyLatch = new CountDownLatch(0);
+
+	/**
+	 * Reserves a slot for a new connection
+	 *
+	 * @param maxConnections Maximum amount of connections, -1 for no limit
+	 * @return True if a slot was reserved, false if the server is full or closed
+	 */
+	public boolean tryReserve(int maxConnections) {
+		while (true) {
+			int current = count.get();
+			if (closed || (maxConnections >= 0 && current >= maxConnections)) {
+				rejected.increment();
+				return false;
+			}
+			if (count.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	/**
+	 * Releases a reserved slot that was not used
+	 */
+	public void cancelReservation() {
+		release();
+	}
+
+	/**
+	 * Registers a connection, takes up a reserved slot
+	 *
+	 * @param client Client to register
+	 * @return True if registered, false if the registry was closed
+	 */
+	public boolean add(RemoteClientHttp_1_1 client) {
+		if (closed) {
+			release();
+			return false;
+		}
+		stateCounts[STATE_READING].increment();
+		clients.put(client, new AtomicInteger(STATE_READING));
+		if (closed) {
+			// Closed while adding
+			remove(client);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a connection
+	 *
+	 * @param client Client to remove
+	 * @return True if removed, false if the client was not registered
+	 */
+	public boolean remove(RemoteClientHttp_1_1 client) {
+		AtomicInteger state = clients.remove(client);
+		if (state == null)
+			return false;
+		stateCounts[state.getAndSet(REMOVED)].decrement();
+		release();
+		return true;
+	}
+
+	private void release() {
+		if (count.decrementAndGet() == 0 && closed)
+			emptyLatch.countDown();
+	}
+
+	/**
+	 * Updates the state of a connection
+	 *
+	 * @param client Client to update
+	 * @param state  New connection state
+	 */
+	public void setState(RemoteClientHttp_1_1 client, int state) {
+		AtomicInteger current = clients.get(client);
+		if (current == null)
+			return;
+		while (true) {
+			int last = current.get();
+			if (last == state || last == REMOVED)
+				return;
+			if (current.compareAndSet(last, state)) {
+				stateCounts[last].decrement();
+				stateCounts[state].increment();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the state of a connection
+	 *
+	 * @param client Client to check
+	 * @return Connection state or -1 if the client is not registered
+	 */
+	public int getState(RemoteClientHttp_1_1 client) {
+		AtomicInteger current = clients.get(client);
+		if (current == null)
+			return REMOVED;
+		return current.get();
+	}
+
+	/**
+	 * Retrieves the amount of registered connections
+	 *
+	 * @return Connection count
+	 */
+	public int size() {
+		return clients.size();
+	}
+
+	/**
+	 * Retrieves the amount of connections in a state
+	 *
+	 * @param state Connection state
+	 * @return Connection count
+	 */
+	public long getCount(int state) {
+		return stateCounts[state].sum();
+	}
+
+	/**
+	 * Retrieves the amount of connections that were rejected
+	 *
+	 * @return Rejected connection count
+	 */
+	public long getRejectedConnections() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Retrieves all registered connections
+	 *
+	 * @return Array of RemoteClientHttp_1_1 instances
+	 */
+	public RemoteClientHttp_1_1[] toArray() {
+		return clients.keySet().toArray(new RemoteClientHttp_1_1[0]);
+	}
+
+	/**
+	 * Starts admitting connections
+	 */
+	public void open() {
+		emptyLatch = new CountDownLatch(1);
+		closed = false;
+	}
+
+	/**
+	 * Stops admitting connections
+	 */
+	public void close() {
+		closed = true;
+		if (count.get() == 0)
+			emptyLatch.countDown();
+	}
+
+	/**
+	 * Waits for all connections to be removed after the registry was closed
+	 */
+	public void awaitEmpty() {
+		while (true) {
+			try {
+				emptyLatch.await();
+				return;
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	/**
+	 * Removes all connections
+	 */
+	public void clear() {
+		for (RemoteClientHttp_1_1 client : toArray())
+			remove(client);
+	}
+
+}
@@ -3,18 +3,65 @@ package org.asf.connective.impl.http_1_1;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLSocket;
 
 import org.asf.connective.ConnectiveHttpServer;
 import org.asf.connective.NetworkedConnectiveHttpServer;
+import org.asf.connective.TlsSecuredHttpServer;
+import org.asf.connective.io.HostnameResolution;
+import org.asf.connective.io.HostnameResolver;
 import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.tasks.AsyncTask;
+import org.asf.connective.tasks.AsyncTaskManager;
 
 public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 
+	/**
+	 * Response sent to connections that are rejected because the server is full
+	 */
+	protected static final byte[] SERVICE_UNAVAILABLE_RESPONSE = ("HTTP/1.1 503 Service Unavailable\r\n"
+			+ "Content-Length: 0\r\nConnection: close\r\nRetry-After: 1\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	private static SocketOption<Boolean> reusePortOption;
+	private static Method setServerSocketOption;
+	private static boolean concurrentChannelSockets;
+
+	static {
+		// SO_REUSEPORT is only present on Java 9+
+		try {
+			@SuppressWarnings("unchecked")
+			SocketOption<Boolean> option = (SocketOption<Boolean>) StandardSocketOptions.class
+					.getField("SO_REUSEPORT").get(null);
+			setServerSocketOption = ServerSocket.class.getMethod("setOption", SocketOption.class, Object.class);
+			reusePortOption = option;
+		} catch (Exception e) {
+		}
+
+		// Channel socket streams share one blocking lock for reads and writes before
+		// Java 13
+		String version = System.getProperty("java.specification.version", "1.8");
+		try {
+			concurrentChannelSockets = Integer
+					.parseInt(version.startsWith("1.") ? version.substring(2) : version) >= 13;
+		} catch (NumberFormatException e) {
+		}
+	}
+
 	protected String serverName = "ASF Connective";
 	protected String serverVersion = ConnectiveHttpServer.CONNECTIVE_VERSION;
 	protected InetAddress address;
@@ -22,8 +69,27 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 
 	protected boolean connected = false;
 	protected ServerSocket socket = null;
-
-	protected ArrayList<RemoteClientHttp_1_1> clients = new ArrayList<RemoteClientHttp_1_1>();
+	protected ServerSocket[] sockets = null;
+	protected int acceptorCount = 1;
+	protected boolean reusePort = false;
+	protected boolean channelSockets = concurrentChannelSockets;
+	private volatile boolean portShared;
+
+	protected ConnectionRegistry clients = new ConnectionRegistry();
+	protected int maxConnections = -1;
+	protected boolean rejectWithResponse = true;
+	protected boolean proxyProtocol = false;
+	protected HostnameResolution hostnameResolution = HostnameResolution.LAZY;
+	protected HostnameResolver hostnameResolver = HostnameResolver.getDefault();
+	protected boolean virtualThreads = AsyncTaskManager.usesVirtualThreads();
+
+	protected int headerReadTimeout = 30;
+	protected int bodyReadTimeout = 30;
+	protected boolean parallelPipelining = false;
+	protected long maxChunkSize = 16 * 1024 * 1024;
+	protected long maxChunkedBodySize = -1;
+	private LongAdder timedOutConnections = new LongAdder();
+	private volatile DefaultHeaderBlock defaultHeaderBlock;
 
 	public ConnectiveHttpServer_1_1() {
 		try {
@@ -57,6 +123,22 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 		return serverName;
 	}
 
+	/**
+	 * Retrieves the pre-encoded Server and default header lines, rebuilt when
+	 * either changes
+	 *
+	 * @return DefaultHeaderBlock instance
+	 */
+	DefaultHeaderBlock getDefaultHeaderBlock() {
+		DefaultHeaderBlock block = defaultHeaderBlock;
+		String name = getServerName();
+		if (block == null || !block.isValid(name, getDefaultHeaders())) {
+			block = new DefaultHeaderBlock(name, getDefaultHeaders());
+			defaultHeaderBlock = block;
+		}
+		return block;
+	}
+
 	@Override
 	public String getServerVersion() {
 		return serverVersion;
@@ -68,6 +150,394 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 	}
 
 	protected Thread serverThread;
+	protected Thread[] acceptorThreads;
+
+	/**
+	 * Assigns the amount of threads accepting connections
+	 * 
+	 * @param count Acceptor count
+	 */
+	public void setAcceptorCount(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("Acceptor count must be at least 1");
+		acceptorCount = count;
+	}
+
+	/**
+	 * Retrieves the amount of threads accepting connections
+	 * 
+	 * @return Acceptor count
+	 */
+	public int getAcceptorCount() {
+		return acceptorCount;
+	}
+
+	/**
+	 * Assigns if every acceptor should get its own listening socket through
+	 * SO_REUSEPORT (Java 9+, acceptors share one socket if the platform does not
+	 * support it)
+	 * 
+	 * @param reuse True to bind a socket per acceptor, false to share one socket
+	 */
+	public void setReusePort(boolean reuse) {
+		reusePort = reuse;
+	}
+
+	/**
+	 * Checks if every acceptor should get its own listening socket through
+	 * SO_REUSEPORT
+	 * 
+	 * @return True if a socket is bound per acceptor, false otherwise
+	 */
+	public boolean usesReusePort() {
+		return reusePort;
+	}
+
+	/**
+	 * Checks if this Java version supports SO_REUSEPORT, the operating system may
+	 * still reject it
+	 * 
+	 * @return True if SO_REUSEPORT is supported, false otherwise
+	 */
+	public static boolean isReusePortSupported() {
+		return reusePortOption != null;
+	}
+
+	/**
+	 * Assigns if the listening socket is created through a channel so that file
+	 * regions can be sent with FileChannel.transferTo, enabled by default on Java
+	 * 13+ (older runtimes block writes to channel sockets while a read is pending,
+	 * which stalls connections that read and write at the same time)
+	 * 
+	 * @param enabled True to use channel sockets, false to use plain sockets
+	 */
+	public void setChannelSocketsEnabled(boolean enabled) {
+		channelSockets = enabled;
+	}
+
+	/**
+	 * Checks if the listening socket is created through a channel
+	 * 
+	 * @return True if channel sockets are used, false otherwise
+	 */
+	public boolean usesChannelSockets() {
+		return channelSockets;
+	}
+
+	/**
+	 * Checks if this Java version can read from and write to channel sockets at
+	 * the same time
+	 * 
+	 * @return True if reads and writes of channel sockets are independent, false
+	 *         otherwise
+	 */
+	public static boolean isChannelSocketIoConcurrent() {
+		return concurrentChannelSockets;
+	}
+
+	/**
+	 * Assigns if connections and requests should run on virtual threads (Java 21+,
+	 * falls back to the thread pool on older runtimes)
+	 * 
+	 * @param virtual True to use virtual threads, false to use the thread pool
+	 */
+	public void setUseVirtualThreads(boolean virtual) {
+		virtualThreads = virtual;
+	}
+
+	/**
+	 * Checks if connections and requests run on virtual threads
+	 * 
+	 * @return True if virtual threads are used, false otherwise
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads && AsyncTaskManager.isVirtualThreadSupported();
+	}
+
+	/**
+	 * Retrieves the registry of the connections of this server
+	 * 
+	 * @return ConnectionRegistry instance
+	 */
+	public ConnectionRegistry getConnectionRegistry() {
+		return clients;
+	}
+
+	/**
+	 * Assigns the maximum amount of concurrent connections, further connections
+	 * are rejected
+	 * 
+	 * @param max Maximum connection count, -1 for no limit
+	 */
+	public void setMaxConnections(int max) {
+		maxConnections = max;
+	}
+
+	/**
+	 * Retrieves the maximum amount of concurrent connections
+	 * 
+	 * @return Maximum connection count, -1 for no limit
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Assigns how connections are rejected when the server is full
+	 * 
+	 * @param respond True to send a 503 response, false to reset the connection
+	 */
+	public void setRejectWithResponse(boolean respond) {
+		rejectWithResponse = respond;
+	}
+
+	/**
+	 * Checks how connections are rejected when the server is full
+	 * 
+	 * @return True if a 503 response is sent, false if the connection is reset
+	 */
+	public boolean rejectsWithResponse() {
+		return rejectWithResponse;
+	}
+
+	/**
+	 * Assigns if connections from allowed proxy sources start with a PROXY
+	 * protocol header, the header is read before any HTTP data and replaces the
+	 * client address with the one sent by the proxy
+	 * 
+	 * @param enabled True to read PROXY protocol headers, false otherwise
+	 */
+	public void setProxyProtocolEnabled(boolean enabled) {
+		proxyProtocol = enabled;
+	}
+
+	/**
+	 * Checks if connections from allowed proxy sources start with a PROXY protocol
+	 * header
+	 * 
+	 * @return True if PROXY protocol headers are read, false otherwise
+	 */
+	public boolean isProxyProtocolEnabled() {
+		return proxyProtocol;
+	}
+
+	/**
+	 * Checks if a connection is expected to start with a PROXY protocol header
+	 * 
+	 * @param address Address of the connecting peer
+	 * @return True if a header is expected, false otherwise
+	 */
+	public boolean expectsProxyProtocolHeader(String address) {
+		return proxyProtocol && isAllowedProxySource(address);
+	}
+
+	/**
+	 * Assigns when the hostnames of clients are looked up
+	 * 
+	 * @param resolution Hostname resolution mode
+	 */
+	public void setHostnameResolution(HostnameResolution resolution) {
+		hostnameResolution = resolution;
+	}
+
+	/**
+	 * Retrieves when the hostnames of clients are looked up
+	 * 
+	 * @return Hostname resolution mode
+	 */
+	public HostnameResolution getHostnameResolution() {
+		return hostnameResolution;
+	}
+
+	/**
+	 * Assigns the resolver used to look up the hostnames of clients
+	 * 
+	 * @param resolver HostnameResolver instance
+	 */
+	public void setHostnameResolver(HostnameResolver resolver) {
+		hostnameResolver = resolver;
+	}
+
+	/**
+	 * Retrieves the resolver used to look up the hostnames of clients
+	 * 
+	 * @return HostnameResolver instance
+	 */
+	public HostnameResolver getHostnameResolver() {
+		return hostnameResolver;
+	}
+
+	/**
+	 * Starts looking up the hostname of a client address if hostnames are
+	 * resolved asynchronously
+	 * 
+	 * @param address Client address
+	 */
+	void prefetchHostname(String address) {
+		if (hostnameResolution == HostnameResolution.ASYNC)
+			hostnameResolver.resolveAsync(address);
+	}
+
+	/**
+	 * Retrieves the hostname of a client address using the configured resolution
+	 * mode
+	 * 
+	 * @param address Client address
+	 * @return Hostname, the address itself if it has none or lookups are off, or
+	 *         null if an asynchronous lookup is still running
+	 */
+	String resolveHostname(String address) {
+		switch (hostnameResolution) {
+		case LAZY:
+			return hostnameResolver.resolve(address);
+		case ASYNC: {
+			String host = hostnameResolver.getCached(address);
+			if (host == null)
+				hostnameResolver.resolveAsync(address);
+			return host;
+		}
+		default:
+			return address;
+		}
+	}
+
+	/**
+	 * Assigns the time clients have to send a request head on new connections
+	 * 
+	 * @param seconds Timeout in seconds
+	 */
+	public void setHeaderReadTimeout(int seconds) {
+		headerReadTimeout = seconds;
+	}
+
+	/**
+	 * Retrieves the time clients have to send a request head on new connections
+	 * 
+	 * @return Timeout in seconds
+	 */
+	public int getHeaderReadTimeout() {
+		return headerReadTimeout;
+	}
+
+	/**
+	 * Assigns the time a request body may stall before the connection is closed
+	 * 
+	 * @param seconds Timeout in seconds
+	 */
+	public void setBodyReadTimeout(int seconds) {
+		bodyReadTimeout = seconds;
+	}
+
+	/**
+	 * Retrieves the time a request body may stall before the connection is closed
+	 * 
+	 * @return Timeout in seconds
+	 */
+	public int getBodyReadTimeout() {
+		return bodyReadTimeout;
+	}
+
+	/**
+	 * Assigns if pipelined GET and HEAD requests may be handled in parallel,
+	 * responses are always sent in request order
+	 * 
+	 * @param parallel True to handle pipelined requests in parallel, false to
+	 *                 handle them one by one
+	 */
+	public void setParallelPipelining(boolean parallel) {
+		parallelPipelining = parallel;
+	}
+
+	/**
+	 * Checks if pipelined GET and HEAD requests may be handled in parallel
+	 * 
+	 * @return True if pipelined requests are handled in parallel, false otherwise
+	 */
+	public boolean usesParallelPipelining() {
+		return parallelPipelining;
+	}
+
+	/**
+	 * Assigns the maximum size of a single chunk of chunked request bodies
+	 * 
+	 * @param size Maximum chunk size in bytes, -1 for no limit
+	 */
+	public void setMaxChunkSize(long size) {
+		maxChunkSize = size;
+	}
+
+	/**
+	 * Retrieves the maximum size of a single chunk of chunked request bodies
+	 * 
+	 * @return Maximum chunk size in bytes, -1 for no limit
+	 */
+	public long getMaxChunkSize() {
+		return maxChunkSize;
+	}
+
+	/**
+	 * Assigns the maximum total size of chunked request bodies
+	 * 
+	 * @param size Maximum body size in bytes, -1 for no limit
+	 */
+	public void setMaxChunkedBodySize(long size) {
+		maxChunkedBodySize = size;
+	}
+
+	/**
+	 * Retrieves the maximum total size of chunked request bodies
+	 * 
+	 * @return Maximum body size in bytes, -1 for no limit
+	 */
+	public long getMaxChunkedBodySize() {
+		return maxChunkedBodySize;
+	}
+
+	/**
+	 * Retrieves the amount of connections that were closed because of a timeout
+	 * 
+	 * @return Timed out connection count
+	 */
+	public long getTimedOutConnections() {
+		return timedOutConnections.sum();
+	}
+
+	void connectionTimedOut() {
+		timedOutConnections.increment();
+	}
+
+	/**
+	 * Runs a request task using the executor configured for this server, the
+	 * rejection policy of the task pool applies if it is full
+	 * 
+	 * @param action Task to run
+	 * @return AsyncTask instance
+	 */
+	public AsyncTask runAsync(Runnable action) {
+		return AsyncTaskManager.runAsync(action, virtualThreads);
+	}
+
+	/**
+	 * Runs a request task using the executor configured for this server, the task
+	 * is never run on the calling thread
+	 * 
+	 * @param action Task to run
+	 * @return AsyncTask instance or null if the task pool is full
+	 */
+	public AsyncTask tryRunAsync(Runnable action) {
+		return AsyncTaskManager.tryRunAsync(action, virtualThreads);
+	}
+
+	/**
+	 * Runs a task that lasts for the lifetime of a connection, connection tasks
+	 * are not limited by the task pool
+	 * 
+	 * @param action Task to run
+	 * @return AsyncTask instance or null if no thread could be started
+	 */
+	public AsyncTask runConnection(Runnable action) {
+		return AsyncTaskManager.runConnection(action, virtualThreads);
+	}
 
 	/**
 	 * Retrieves the client output stream (override only)
@@ -83,6 +553,81 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 		return client.getInputStream();
 	}
 
+	/**
+	 * Prepares an accepted socket after the PROXY protocol header was read, used
+	 * to layer TLS on plain sockets (override only)
+	 */
+	protected Socket prepareSocket(Socket client) throws IOException {
+		return client;
+	}
+
+	/**
+	 * Creates the client instance for an accepted connection (override only)
+	 */
+	protected RemoteClientHttp_1_1 createClient(Socket client, InputStream in, OutputStream out) {
+		return new RemoteClientHttp_1_1(client, this, in, out);
+	}
+
+	/**
+	 * Enables SO_REUSEPORT on an unbound server channel if configured, call from
+	 * getServerSocket() before binding
+	 * 
+	 * @param channel Unbound server channel
+	 * @return True if SO_REUSEPORT was enabled, false otherwise
+	 */
+	protected boolean applyReusePort(NetworkChannel channel) throws IOException {
+		if (!reusePort || reusePortOption == null || !channel.supportedOptions().contains(reusePortOption))
+			return false;
+		channel.setOption(reusePortOption, true);
+		portShared = true;
+		return true;
+	}
+
+	/**
+	 * Enables SO_REUSEPORT on an unbound server socket if configured, call from
+	 * getServerSocket() before binding
+	 * 
+	 * @param socket Unbound server socket
+	 * @return True if SO_REUSEPORT was enabled, false otherwise
+	 */
+	protected boolean applyReusePort(ServerSocket socket) throws IOException {
+		if (!reusePort || reusePortOption == null)
+			return false;
+		try {
+			setServerSocketOption.invoke(socket, reusePortOption, true);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			return false;
+		} catch (IllegalAccessException e) {
+			return false;
+		}
+		portShared = true;
+		return true;
+	}
+
+	/**
+	 * Rejects a connection because the server is full, sends the 503 response or
+	 * resets the connection (potential override)
+	 * 
+	 * @param client Client socket
+	 */
+	protected void rejectConnection(Socket client) {
+		try {
+			// TLS sockets would need a handshake first
+			if (rejectWithResponse && !(client instanceof SSLSocket) && !(this instanceof TlsSecuredHttpServer)) {
+				client.getOutputStream().write(SERVICE_UNAVAILABLE_RESPONSE);
+				client.shutdownOutput();
+			} else
+				client.setSoLinger(true, 0);
+		} catch (IOException e) {
+		}
+		try {
+			client.close();
+		} catch (IOException e) {
+		}
+	}
+
 	/**
 	 * Called on client connect, potential override
 	 */
@@ -90,10 +635,108 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 	}
 
 	/**
-	 * Called to construct a new server socket (override only)
+	 * Called to construct a new server socket (override only), the socket is
+	 * created through a channel if channel sockets are enabled so that file bodies
+	 * can be sent with FileChannel.transferTo
 	 */
 	protected ServerSocket getServerSocket(int port, InetAddress ip) throws IOException {
-		return new ServerSocket(port, 0, ip);
+		if (!channelSockets) {
+			ServerSocket socket = new ServerSocket();
+			try {
+				applyReusePort(socket);
+				socket.bind(new InetSocketAddress(ip, port));
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+			return socket;
+		}
+		ServerSocketChannel channel = ServerSocketChannel.open();
+		try {
+			applyReusePort(channel);
+			channel.bind(new InetSocketAddress(ip, port));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel.socket();
+	}
+
+	/**
+	 * Checks if file regions can be written directly to the socket channel of a
+	 * client, override and return false if getClientOutput() wraps the socket
+	 * stream
+	 *
+	 * @param client Client socket
+	 * @return True if file regions can be transferred directly, false otherwise
+	 */
+	protected boolean supportsFileRegionTransfer(Socket client) {
+		// TLS sockets and sockets layered over a channel socket must be written
+		// through their own streams
+		if (client instanceof SSLSocket)
+			return false;
+		SocketChannel channel = client.getChannel();
+		return channel != null && channel.socket() == client;
+	}
+
+	/**
+	 * Opens the listening sockets, one per acceptor if SO_REUSEPORT is enabled,
+	 * otherwise all acceptors share the first socket
+	 */
+	protected void openServerSockets() throws IOException {
+		portShared = false;
+		socket = getServerSocket(port, address);
+		sockets = new ServerSocket[acceptorCount];
+		sockets[0] = socket;
+		if (acceptorCount > 1 && reusePort && !portShared)
+			getLogger().warn(new ConnectiveLogMessage("startup",
+					"SO_REUSEPORT is not supported on this platform, acceptors will share one socket", null, null));
+		for (int i = 1; i < sockets.length; i++) {
+			if (!portShared) {
+				sockets[i] = socket;
+				continue;
+			}
+			try {
+				// Bind to the same port if an ephemeral port was requested
+				sockets[i] = getServerSocket(socket.getLocalPort(), address);
+			} catch (IOException e) {
+				closeServerSockets();
+				socket = null;
+				sockets = null;
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Closes all listening sockets
+	 */
+	protected void closeServerSockets() {
+		ServerSocket[] lst = sockets != null ? sockets : new ServerSocket[] { socket };
+		for (ServerSocket sock : lst) {
+			if (sock == null)
+				continue;
+			try {
+				sock.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Called after the server socket has been closed, waits for the accept
+	 * threads to release the sockets so the port can be bound again right away
+	 */
+	protected void awaitSocketRelease() {
+		Thread[] threads = acceptorThreads != null ? acceptorThreads : new Thread[] { serverThread };
+		for (Thread thread : threads) {
+			if (thread == null || thread == Thread.currentThread())
+				continue;
+			try {
+				thread.join(5000);
+			} catch (InterruptedException e) {
+			}
+		}
 	}
 
 	@Override
@@ -105,45 +748,103 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 		// Start server
 		getLogger().debug(new ConnectiveLogMessage("startup",
 				"Starting server on " + address.getHostAddress() + ", port " + port + "...", null, null));
+		if (virtualThreads && !AsyncTaskManager.isVirtualThreadSupported())
+			getLogger().warn(new ConnectiveLogMessage("startup",
+					"Virtual threads are not supported by this Java version, using the thread pool instead", null,
+					null));
 		connected = true;
-		socket = getServerSocket(port, address);
-		serverThread = new Thread(() -> {
-			// Server loop
-			while (connected) {
-				try {
-					Socket client = socket.accept();
-
-					acceptConnection(client);
-					InputStream in = getClientInput(client);
-					OutputStream out = getClientOutput(client);
-
-					RemoteClientHttp_1_1 cl = new RemoteClientHttp_1_1(client, this, in, out);
+		clients.open();
+		try {
+			openServerSockets();
+		} catch (IOException e) {
+			connected = false;
+			clients.close();
+			throw e;
+		}
+		acceptorThreads = new Thread[sockets.length];
+		for (int i = 0; i < acceptorThreads.length; i++) {
+			ServerSocket listener = sockets[i];
+			acceptorThreads[i] = new Thread(() -> {
+				// Server loop
+				while (connected) {
 					try {
-						synchronized (clients) {
-							clients.add(cl);
+						Socket client = listener.accept();
+						if (!clients.tryReserve(maxConnections)) {
+							rejectConnection(client);
+							continue;
+						}
+
+						// Set up the client off the accept thread as it resolves the remote host
+						if (runConnection(() -> setupClient(client)) == null) {
+							clients.cancelReservation();
+							rejectConnection(client);
 						}
-						cl.beginReceive();
 					} catch (IOException ex) {
 						if (!connected)
 							break;
 
-						cl.getLogger().error(new ConnectiveLogMessage("client",
-								"An error occurred while handling messages", ex, cl));
+						getLogger().error(new ConnectiveLogMessage("server",
+								"An error occurred running the server thread", ex, null));
 					}
-				} catch (IOException ex) {
-					if (!connected)
-						break;
-
-					getLogger().error(new ConnectiveLogMessage("server", "An error occurred running the server thread",
-							ex, null));
 				}
-			}
-		}, "Connective server thread");
-		serverThread.setDaemon(true);
-		serverThread.start();
+			}, i == 0 ? "Connective server thread" : "Connective server thread " + (i + 1));
+			acceptorThreads[i].setDaemon(true);
+		}
+		serverThread = acceptorThreads[0];
+		for (Thread thread : acceptorThreads)
+			thread.start();
 		getLogger().debug(new ConnectiveLogMessage("startup", "Server online, waiting for requests...", null, null));
 	}
 
+	private void setupClient(Socket client) {
+		// Create client, takes up the slot reserved by the acceptor
+		RemoteClientHttp_1_1 cl;
+		try {
+			acceptConnection(client);
+			ProxyProtocolHeader proxyHeader = null;
+			if (expectsProxyProtocolHeader(client.getInetAddress().getHostAddress())) {
+				// Read the PROXY protocol header ahead of anything else, including TLS
+				client.setSoTimeout(headerReadTimeout * 1000);
+				proxyHeader = ProxyProtocolHeader.read(client.getInputStream());
+				client.setSoTimeout(0);
+			}
+			client = prepareSocket(client);
+			InputStream in = getClientInput(client);
+			OutputStream out = getClientOutput(client);
+			cl = createClient(client, in, out);
+			if (proxyHeader != null)
+				cl.applyProxyHeader(proxyHeader);
+		} catch (Exception ex) {
+			clients.cancelReservation();
+			try {
+				client.close();
+			} catch (IOException e) {
+			}
+			if (connected)
+				getLogger().error(
+						new ConnectiveLogMessage("server", "An error occurred accepting a connection", ex, null));
+			return;
+		}
+		if (!clients.add(cl)) {
+			// Server stopped
+			try {
+				client.close();
+			} catch (IOException e) {
+			}
+			return;
+		}
+
+		// Start receiving
+		try {
+			cl.beginReceive();
+		} catch (IOException ex) {
+			cl.closeConnection();
+			if (connected)
+				cl.getLogger().error(
+						new ConnectiveLogMessage("client", "An error occurred while handling messages", ex, cl));
+		}
+	}
+
 	@Override
 	public void stop() throws IOException {
 		// Check state
@@ -153,28 +854,23 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 		// Close server
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "Stopping server...", null, null));
 		connected = false;
-		try {
-			socket.close();
-		} catch (IOException e) {
+		clients.close();
+		closeServerSockets();
+		awaitSocketRelease();
+
+		// Close idle connections
+		for (RemoteClientHttp_1_1 client : clients.toArray()) {
+			if (client.isIdle())
+				client.closeConnection();
 		}
 
 		// Wait for clients to disconnect
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "Waiting for clients to disconnect...", null, null));
-		while (true) {
-			int c;
-			synchronized (clients) {
-				c = clients.size();
-			}
-			if (c == 0)
-				break;
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-			}
-		}
+		clients.awaitEmpty();
 
 		// Unset server
 		socket = null;
+		sockets = null;
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "HTTP server closed!", null, null));
 	}
 
@@ -187,18 +883,13 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 		// Disconnect
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "Stopping server...", null, null));
 		connected = false;
-		try {
-			socket.close();
-		} catch (IOException e) {
-		}
+		clients.close();
+		closeServerSockets();
+		awaitSocketRelease();
 
 		// Disconnect clients
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "Disconnecting clients...", null, null));
-		RemoteClientHttp_1_1[] clientLst;
-		synchronized (clients) {
-			clientLst = clients.toArray(new RemoteClientHttp_1_1[0]);
-		}
-		for (RemoteClientHttp_1_1 client : clientLst) {
+		for (RemoteClientHttp_1_1 client : clients.toArray()) {
 			try {
 				client.closeConnection();
 			} catch (Exception e) {
@@ -208,6 +899,7 @@ public class ConnectiveHttpServer_1_1 extends NetworkedConnectiveHttpServer {
 
 		// Unset server
 		socket = null;
+		sockets = null;
 		getLogger().debug(new ConnectiveLogMessage("shutdown", "HTTP server closed!", null, null));
 	}
 
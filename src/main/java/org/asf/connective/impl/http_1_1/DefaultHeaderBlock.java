@@ -0,0 +1,112 @@
+package org.asf.connective.impl.http_1_1;
+
+import java.io.ByteArrayOutputStream;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.headers.HttpHeader;
+
+/**
+ *
+ * Pre-encoded Server and default header lines of a server, rebuilt when the
+ * server name or default headers change
+ *
+ * @author Sky Swimmer
+ *
+ */
+class DefaultHeaderBlock {
+
+	private final String serverName;
+	private final HeaderCollection source;
+	private final int sourceModCount;
+	private final HttpHeader[] headers;
+	private final int[] headerModCounts;
+
+	private final String[] names;
+	private final byte[][] lines;
+	private final byte[] block;
+
+	public DefaultHeaderBlock(String serverName, HeaderCollection defaultHeaders) {
+		this.serverName = serverName;
+		this.source = defaultHeaders;
+		this.sourceModCount = defaultHeaders.getModificationCount();
+		this.headers = defaultHeaders.getHeaders();
+		this.headerModCounts = new int[headers.length];
+		for (int i = 0; i < headers.length; i++)
+			headerModCounts[i] = headers[i].getModificationCount();
+
+		// Encode lines, the server line always comes first
+		int count = 1;
+		for (HttpHeader header : headers) {
+			if (!header.getName().equalsIgnoreCase("Server"))
+				count++;
+		}
+		names = new String[count];
+		lines = new byte[count][];
+		names[0] = "Server";
+		lines[0] = ResponseHeadEncoder.encodeHeader("Server", serverName);
+		int i = 1;
+		for (HttpHeader header : headers) {
+			if (header.getName().equalsIgnoreCase("Server"))
+				continue;
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			for (String value : header.getValues()) {
+				byte[] encoded = ResponseHeadEncoder.encodeHeader(header.getName(), value);
+				line.write(encoded, 0, encoded.length);
+			}
+			names[i] = header.getName();
+			lines[i++] = line.toByteArray();
+		}
+
+		// Build block
+		ByteArrayOutputStream blockData = new ByteArrayOutputStream();
+		for (byte[] line : lines)
+			blockData.write(line, 0, line.length);
+		block = blockData.toByteArray();
+	}
+
+	/**
+	 * Checks if the block still matches the server state
+	 *
+	 * @param serverName     Current server name
+	 * @param defaultHeaders Current default headers
+	 * @return True if valid, false if it needs to be rebuilt
+	 */
+	public boolean isValid(String serverName, HeaderCollection defaultHeaders) {
+		if (defaultHeaders != source || defaultHeaders.getModificationCount() != sourceModCount
+				|| !this.serverName.equals(serverName))
+			return false;
+		for (int i = 0; i < headers.length; i++) {
+			if (headers[i].getModificationCount() != headerModCounts[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the lines of all headers not present in the response headers
+	 *
+	 * @param encoder         Target encoder
+	 * @param responseHeaders Response headers
+	 */
+	public void writeTo(ResponseHeadEncoder encoder, HeaderCollection responseHeaders) {
+		// Check for overridden headers
+		boolean overridden = false;
+		for (String name : names) {
+			if (responseHeaders.hasHeader(name)) {
+				overridden = true;
+				break;
+			}
+		}
+		if (!overridden) {
+			encoder.raw(block);
+			return;
+		}
+
+		// Write individual lines
+		for (int i = 0; i < names.length; i++) {
+			if (!responseHeaders.hasHeader(names[i]))
+				encoder.raw(lines[i]);
+		}
+	}
+
+}
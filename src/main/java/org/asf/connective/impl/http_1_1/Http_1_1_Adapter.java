@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.asf.connective.ConnectiveHttpServer;
 import org.asf.connective.IServerAdapterDefinition;
+import org.asf.connective.io.HostnameResolution;
 
 public class Http_1_1_Adapter implements IServerAdapterDefinition {
 
@@ -16,6 +17,19 @@ public class Http_1_1_Adapter implements IServerAdapterDefinition {
 	@Override
 	public ConnectiveHttpServer createServer(Map<String, String> configuration) throws IllegalArgumentException {
 		ConnectiveHttpServer_1_1 server = new ConnectiveHttpServer_1_1();
+		configureServer(server, configuration);
+		return server;
+	}
+
+	/**
+	 * Applies the configuration fields shared by the HTTP/1.1 adapters
+	 * 
+	 * @param server        Server to configure
+	 * @param configuration Adapter configuration
+	 * @throws IllegalArgumentException If the configuration is invalid
+	 */
+	public static void configureServer(ConnectiveHttpServer_1_1 server, Map<String, String> configuration)
+			throws IllegalArgumentException {
 		if (configuration.containsKey("address"))
 			try {
 				server.setListenAddress(InetAddress.getByName(configuration.get("address")));
@@ -40,7 +54,214 @@ public class Http_1_1_Adapter implements IServerAdapterDefinition {
 			} catch (Exception e) {
 				throw new IllegalArgumentException("Malformed port: " + configuration.get("Port"));
 			}
-		return server;
+		if (configuration.containsKey("acceptors"))
+			try {
+				server.setAcceptorCount(Integer.parseInt(configuration.get("acceptors")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed acceptor count: " + configuration.get("acceptors"));
+			}
+		if (configuration.containsKey("Acceptors"))
+			try {
+				server.setAcceptorCount(Integer.parseInt(configuration.get("Acceptors")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed acceptor count: " + configuration.get("Acceptors"));
+			}
+		if (configuration.containsKey("reuse-port")) {
+			String reusePort = configuration.get("reuse-port");
+			if (reusePort.equalsIgnoreCase("true"))
+				server.setReusePort(true);
+			else if (reusePort.equalsIgnoreCase("false"))
+				server.setReusePort(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed reuse-port option: " + reusePort + ", expected true or false");
+		}
+		if (configuration.containsKey("Reuse-Port")) {
+			String reusePort = configuration.get("Reuse-Port");
+			if (reusePort.equalsIgnoreCase("true"))
+				server.setReusePort(true);
+			else if (reusePort.equalsIgnoreCase("false"))
+				server.setReusePort(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed reuse-port option: " + reusePort + ", expected true or false");
+		}
+		if (configuration.containsKey("channel-sockets")) {
+			String channelSockets = configuration.get("channel-sockets");
+			if (channelSockets.equalsIgnoreCase("true"))
+				server.setChannelSocketsEnabled(true);
+			else if (channelSockets.equalsIgnoreCase("false"))
+				server.setChannelSocketsEnabled(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed channel-sockets option: " + channelSockets + ", expected true or false");
+		}
+		if (configuration.containsKey("Channel-Sockets")) {
+			String channelSockets = configuration.get("Channel-Sockets");
+			if (channelSockets.equalsIgnoreCase("true"))
+				server.setChannelSocketsEnabled(true);
+			else if (channelSockets.equalsIgnoreCase("false"))
+				server.setChannelSocketsEnabled(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed channel-sockets option: " + channelSockets + ", expected true or false");
+		}
+		if (configuration.containsKey("max-connections"))
+			try {
+				server.setMaxConnections(Integer.parseInt(configuration.get("max-connections")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed connection count: " + configuration.get("max-connections"));
+			}
+		if (configuration.containsKey("Max-Connections"))
+			try {
+				server.setMaxConnections(Integer.parseInt(configuration.get("Max-Connections")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed connection count: " + configuration.get("Max-Connections"));
+			}
+		if (configuration.containsKey("reject")) {
+			String reject = configuration.get("reject");
+			if (reject.equals("503"))
+				server.setRejectWithResponse(true);
+			else if (reject.equalsIgnoreCase("reset"))
+				server.setRejectWithResponse(false);
+			else
+				throw new IllegalArgumentException("Unsupported reject mode: " + reject + ", expected 503 or reset");
+		}
+		if (configuration.containsKey("Reject")) {
+			String reject = configuration.get("Reject");
+			if (reject.equals("503"))
+				server.setRejectWithResponse(true);
+			else if (reject.equalsIgnoreCase("reset"))
+				server.setRejectWithResponse(false);
+			else
+				throw new IllegalArgumentException("Unsupported reject mode: " + reject + ", expected 503 or reset");
+		}
+		if (configuration.containsKey("proxy-protocol")) {
+			String proxyProtocol = configuration.get("proxy-protocol");
+			if (proxyProtocol.equalsIgnoreCase("true"))
+				server.setProxyProtocolEnabled(true);
+			else if (proxyProtocol.equalsIgnoreCase("false"))
+				server.setProxyProtocolEnabled(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed proxy-protocol option: " + proxyProtocol + ", expected true or false");
+		}
+		if (configuration.containsKey("Proxy-Protocol")) {
+			String proxyProtocol = configuration.get("Proxy-Protocol");
+			if (proxyProtocol.equalsIgnoreCase("true"))
+				server.setProxyProtocolEnabled(true);
+			else if (proxyProtocol.equalsIgnoreCase("false"))
+				server.setProxyProtocolEnabled(false);
+			else
+				throw new IllegalArgumentException(
+						"Malformed proxy-protocol option: " + proxyProtocol + ", expected true or false");
+		}
+		if (configuration.containsKey("hostname-resolution")) {
+			String resolution = configuration.get("hostname-resolution");
+			try {
+				server.setHostnameResolution(HostnameResolution.valueOf(resolution.toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+						"Unsupported hostname resolution: " + resolution + ", expected off, lazy or async");
+			}
+		}
+		if (configuration.containsKey("Hostname-Resolution")) {
+			String resolution = configuration.get("Hostname-Resolution");
+			try {
+				server.setHostnameResolution(HostnameResolution.valueOf(resolution.toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+						"Unsupported hostname resolution: " + resolution + ", expected off, lazy or async");
+			}
+		}
+		if (configuration.containsKey("executor")) {
+			String executor = configuration.get("executor");
+			if (executor.equalsIgnoreCase("virtual"))
+				server.setUseVirtualThreads(true);
+			else if (executor.equalsIgnoreCase("platform"))
+				server.setUseVirtualThreads(false);
+			else
+				throw new IllegalArgumentException(
+						"Unsupported executor: " + executor + ", expected virtual or platform");
+		}
+		if (configuration.containsKey("Executor")) {
+			String executor = configuration.get("Executor");
+			if (executor.equalsIgnoreCase("virtual"))
+				server.setUseVirtualThreads(true);
+			else if (executor.equalsIgnoreCase("platform"))
+				server.setUseVirtualThreads(false);
+			else
+				throw new IllegalArgumentException(
+						"Unsupported executor: " + executor + ", expected virtual or platform");
+		}
+		if (configuration.containsKey("header-timeout"))
+			try {
+				server.setHeaderReadTimeout(Integer.parseInt(configuration.get("header-timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("header-timeout"));
+			}
+		if (configuration.containsKey("Header-Timeout"))
+			try {
+				server.setHeaderReadTimeout(Integer.parseInt(configuration.get("Header-Timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("Header-Timeout"));
+			}
+		if (configuration.containsKey("body-timeout"))
+			try {
+				server.setBodyReadTimeout(Integer.parseInt(configuration.get("body-timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("body-timeout"));
+			}
+		if (configuration.containsKey("Body-Timeout"))
+			try {
+				server.setBodyReadTimeout(Integer.parseInt(configuration.get("Body-Timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("Body-Timeout"));
+			}
+		if (configuration.containsKey("max-chunk-size"))
+			try {
+				server.setMaxChunkSize(Long.parseLong(configuration.get("max-chunk-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("max-chunk-size"));
+			}
+		if (configuration.containsKey("Max-Chunk-Size"))
+			try {
+				server.setMaxChunkSize(Long.parseLong(configuration.get("Max-Chunk-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Max-Chunk-Size"));
+			}
+		if (configuration.containsKey("max-chunked-body-size"))
+			try {
+				server.setMaxChunkedBodySize(Long.parseLong(configuration.get("max-chunked-body-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("max-chunked-body-size"));
+			}
+		if (configuration.containsKey("Max-Chunked-Body-Size"))
+			try {
+				server.setMaxChunkedBodySize(Long.parseLong(configuration.get("Max-Chunked-Body-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Max-Chunked-Body-Size"));
+			}
+		if (configuration.containsKey("pipelining")) {
+			String pipelining = configuration.get("pipelining");
+			if (pipelining.equalsIgnoreCase("parallel"))
+				server.setParallelPipelining(true);
+			else if (pipelining.equalsIgnoreCase("sequential"))
+				server.setParallelPipelining(false);
+			else
+				throw new IllegalArgumentException(
+						"Unsupported pipelining mode: " + pipelining + ", expected parallel or sequential");
+		}
+		if (configuration.containsKey("Pipelining")) {
+			String pipelining = configuration.get("Pipelining");
+			if (pipelining.equalsIgnoreCase("parallel"))
+				server.setParallelPipelining(true);
+			else if (pipelining.equalsIgnoreCase("sequential"))
+				server.setParallelPipelining(false);
+			else
+				throw new IllegalArgumentException(
+						"Unsupported pipelining mode: " + pipelining + ", expected parallel or sequential");
+		}
 	}
 
 }
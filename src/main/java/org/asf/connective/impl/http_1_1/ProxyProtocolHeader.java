@@ -0,0 +1,253 @@
+package org.asf.connective.impl.http_1_1;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.asf.connective.io.HostnameResolver;
+
+/**
+ *
+ * PROXY protocol header sent by layer 4 load balancers ahead of the client
+ * data, supports the version 1 text format and the version 2 binary format
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ProxyProtocolHeader {
+
+	private static final byte[] V1_SIGNATURE = "PROXY ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] V2_SIGNATURE = new byte[] { 0x0d, 0x0a, 0x0d, 0x0a, 0x00, 0x0d, 0x0a, 0x51, 0x55,
+			0x49, 0x54, 0x0a };
+	private static final int V1_MAX_LENGTH = 107;
+	private static final int V2_HEAD_LENGTH = 16;
+
+	private int version;
+	private int length;
+	private String sourceAddress;
+	private int sourcePort = -1;
+	private String destinationAddress;
+	private int destinationPort = -1;
+
+	private ProxyProtocolHeader(int version, int length) {
+		this.version = version;
+		this.length = length;
+	}
+
+	/**
+	 * Retrieves the protocol version
+	 *
+	 * @return PROXY protocol version, 1 or 2
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Retrieves the length of the header
+	 *
+	 * @return Header length in bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Checks if the header carries the address of a client, headers sent for
+	 * health checks (LOCAL or UNKNOWN) do not
+	 *
+	 * @return True if client details are present, false otherwise
+	 */
+	public boolean hasSourceAddress() {
+		return sourceAddress != null;
+	}
+
+	/**
+	 * Retrieves the address of the client
+	 *
+	 * @return Client address or null
+	 */
+	public String getSourceAddress() {
+		return sourceAddress;
+	}
+
+	/**
+	 * Retrieves the port of the client
+	 *
+	 * @return Client port or -1
+	 */
+	public int getSourcePort() {
+		return sourcePort;
+	}
+
+	/**
+	 * Retrieves the address the client connected to
+	 *
+	 * @return Destination address or null
+	 */
+	public String getDestinationAddress() {
+		return destinationAddress;
+	}
+
+	/**
+	 * Retrieves the port the client connected to
+	 *
+	 * @return Destination port or -1
+	 */
+	public int getDestinationPort() {
+		return destinationPort;
+	}
+
+	/**
+	 * Reads a header from a stream, only the header bytes are consumed
+	 *
+	 * @param input Stream to read from
+	 * @return ProxyProtocolHeader instance
+	 * @throws IOException If reading fails or the header is missing or malformed
+	 */
+	public static ProxyProtocolHeader read(InputStream input) throws IOException {
+		// Read enough to tell the versions apart
+		byte[] data = new byte[V2_HEAD_LENGTH];
+		readFully(input, data, 0, 8);
+		int length = 8;
+		if (startsWith(data, length, V1_SIGNATURE)) {
+			// Read the line
+			data = Arrays.copyOf(data, V1_MAX_LENGTH);
+			while (data[length - 1] != '\n') {
+				if (length == V1_MAX_LENGTH)
+					throw new IOException("PROXY protocol header too long");
+				readFully(input, data, length++, 1);
+			}
+		} else if (startsWith(data, length, V2_SIGNATURE)) {
+			// Read the fixed part, then the addresses
+			readFully(input, data, length, V2_HEAD_LENGTH - length);
+			length = V2_HEAD_LENGTH + (((data[14] & 0xff) << 8) | (data[15] & 0xff));
+			data = Arrays.copyOf(data, length);
+			readFully(input, data, V2_HEAD_LENGTH, length - V2_HEAD_LENGTH);
+		}
+		ProxyProtocolHeader header = decode(data, length);
+		if (header == null)
+			throw new EOFException("Incomplete PROXY protocol header");
+		return header;
+	}
+
+	/**
+	 * Decodes a header from the start of a buffer
+	 *
+	 * @param data   Buffer holding the received data
+	 * @param length Amount of received bytes
+	 * @return ProxyProtocolHeader instance or null if more data is needed
+	 * @throws IOException If the header is missing or malformed
+	 */
+	public static ProxyProtocolHeader decode(byte[] data, int length) throws IOException {
+		if (startsWith(data, length, V1_SIGNATURE))
+			return length < V1_SIGNATURE.length ? null : decodeV1(data, length);
+		if (startsWith(data, length, V2_SIGNATURE))
+			return length < V2_HEAD_LENGTH ? null : decodeV2(data, length);
+		throw new IOException("Missing PROXY protocol header");
+	}
+
+	private static ProxyProtocolHeader decodeV1(byte[] data, int length) throws IOException {
+		// Find the end of the line
+		int end = -1;
+		for (int i = 0; i < Math.min(length, V1_MAX_LENGTH); i++) {
+			if (data[i] == '\n') {
+				end = i;
+				break;
+			}
+		}
+		if (end == -1) {
+			if (length >= V1_MAX_LENGTH)
+				throw new IOException("PROXY protocol header too long");
+			return null;
+		}
+		if (end == 0 || data[end - 1] != '\r')
+			throw new IOException("Malformed PROXY protocol header");
+
+		// Parse fields
+		ProxyProtocolHeader header = new ProxyProtocolHeader(1, end + 1);
+		String[] fields = new String(data, 0, end - 1, StandardCharsets.US_ASCII).split(" ");
+		if (fields.length >= 2 && fields[1].equals("UNKNOWN"))
+			return header; // Health check or unsupported transport
+		if (fields.length != 6 || (!fields[1].equals("TCP4") && !fields[1].equals("TCP6")))
+			throw new IOException("Malformed PROXY protocol header");
+		header.sourceAddress = parseAddress(fields[2], fields[1].equals("TCP4") ? 4 : 16);
+		header.destinationAddress = parseAddress(fields[3], fields[1].equals("TCP4") ? 4 : 16);
+		header.sourcePort = parsePort(fields[4]);
+		header.destinationPort = parsePort(fields[5]);
+		return header;
+	}
+
+	private static ProxyProtocolHeader decodeV2(byte[] data, int length) throws IOException {
+		int addressLength = ((data[14] & 0xff) << 8) | (data[15] & 0xff);
+		if (length < V2_HEAD_LENGTH + addressLength)
+			return null;
+		if ((data[12] & 0xf0) != 0x20)
+			throw new IOException("Unsupported PROXY protocol version");
+
+		// Check command
+		ProxyProtocolHeader header = new ProxyProtocolHeader(2, V2_HEAD_LENGTH + addressLength);
+		int command = data[12] & 0x0f;
+		if (command == 0)
+			return header; // LOCAL, sent by the balancer itself
+		if (command != 1)
+			throw new IOException("Unsupported PROXY protocol command");
+
+		// Read addresses, other families and any TLVs are ignored
+		int family = (data[13] & 0xf0) >> 4;
+		int size = family == 1 ? 4 : family == 2 ? 16 : -1;
+		if (size == -1)
+			return header;
+		if (addressLength < size * 2 + 4)
+			throw new IOException("Malformed PROXY protocol header");
+		int offset = V2_HEAD_LENGTH;
+		header.sourceAddress = InetAddress.getByAddress(Arrays.copyOfRange(data, offset, offset + size))
+				.getHostAddress();
+		header.destinationAddress = InetAddress
+				.getByAddress(Arrays.copyOfRange(data, offset + size, offset + size * 2)).getHostAddress();
+		offset += size * 2;
+		header.sourcePort = ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+		header.destinationPort = ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+		return header;
+	}
+
+	private static String parseAddress(String address, int size) throws IOException {
+		// Literals are parsed without a DNS lookup
+		byte[] bytes = HostnameResolver.parseAddressLiteral(address);
+		if (bytes == null || bytes.length != size)
+			throw new IOException("Malformed PROXY protocol address: " + address);
+		return InetAddress.getByAddress(bytes).getHostAddress();
+	}
+
+	private static int parsePort(String port) throws IOException {
+		try {
+			int value = Integer.parseInt(port);
+			if (value >= 0 && value <= 65535 && port.charAt(0) != '+')
+				return value;
+		} catch (NumberFormatException e) {
+		}
+		throw new IOException("Malformed PROXY protocol port: " + port);
+	}
+
+	private static boolean startsWith(byte[] data, int length, byte[] signature) {
+		for (int i = 0; i < Math.min(length, signature.length); i++) {
+			if (data[i] != signature[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static void readFully(InputStream input, byte[] data, int offset, int length) throws IOException {
+		while (length > 0) {
+			int read = input.read(data, offset, length);
+			if (read == -1)
+				throw new EOFException("Connection closed while reading the PROXY protocol header");
+			offset += read;
+			length -= read;
+		}
+	}
+
+}
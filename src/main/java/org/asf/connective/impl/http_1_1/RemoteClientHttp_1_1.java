@@ -3,17 +3,15 @@ package org.asf.connective.impl.http_1_1;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
-import java.text.SimpleDateFormat;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
-import java.util.Locale;
-import java.util.Random;
-import java.util.TimeZone;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -22,22 +20,28 @@ import javax.net.ssl.SSLException;
 import org.asf.connective.RemoteClient;
 import org.asf.connective.objects.HttpRequest;
 import org.asf.connective.objects.HttpResponse;
-import org.asf.connective.io.IoUtil;
-import org.asf.connective.io.LengthTrackingStream;
-import org.asf.connective.io.PrependedBufferStream;
+import org.asf.connective.io.BodyInputStream;
+import org.asf.connective.io.BufferPool;
+import org.asf.connective.io.ChunkedInputStream;
+import org.asf.connective.io.ConnectionInputStream;
+import org.asf.connective.io.ConnectionOutputStream;
+import org.asf.connective.io.FileRegion;
+import org.asf.connective.io.PooledBuffer;
 import org.asf.connective.logger.ConnectiveLogMessage;
 import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.headers.HttpDate;
 import org.asf.connective.headers.HttpHeader;
-import org.asf.connective.tasks.AsyncTaskManager;
+import org.asf.connective.tasks.ActivityTimeout;
+import org.asf.connective.tasks.HashedWheelTimer;
 
 public class RemoteClientHttp_1_1 extends RemoteClient {
 
 	private ConnectiveHttpServer_1_1 server;
 	private Socket socket;
-	private PrependedBufferStream in;
-	private OutputStream out;
+	private ConnectionInputStream in;
+	private ConnectionOutputStream out;
 
-	private String host;
+	private volatile String host;
 	private String addr;
 
 	protected int timeout = 5;
@@ -47,28 +51,41 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 	private Consumer<RemoteClient> protocolSwitcher;
 
 	protected boolean receiving = false;
-	private static Random rnd = new Random();
-	private int rndT = 0;
-	private long tsT = 0;
 
-	private String originalHost;
+	protected static final int MAX_HEAD_LENGTH = 64 * 1024;
+	protected static final int MAX_PIPELINE_DEPTH = 16;
+	private static final byte[] CRLF = new byte[] { '\r', '\n' };
+	private static final byte[] LAST_CHUNK = new byte[] { '0', '\r', '\n', '\r', '\n' };
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	protected RequestHeadParser parser = new RequestHeadParser(MAX_HEAD_LENGTH);
+	protected ResponseHeadEncoder headEncoder = new ResponseHeadEncoder();
+
+	private HashedWheelTimer.Timeout deadline;
+	private ActivityTimeout bodyDeadline;
+	private InputStream currentBody;
+	private boolean deferFlush;
+
 	private String originalAddress = null;
 	private String proxiedAddress = null;
 	private ArrayList<String> proxies = new ArrayList<String>();
+	private String connectionProxy = null;
+	private String connectionProxiedAddress = null;
 
 	protected RemoteClientHttp_1_1(Socket socket, ConnectiveHttpServer_1_1 server, InputStream in, OutputStream out) {
 		super(server);
 		this.server = server;
 		this.socket = socket;
-		this.in = new PrependedBufferStream(in);
-		this.out = out;
+		this.in = new ConnectionInputStream(in);
+		this.out = out instanceof ConnectionOutputStream ? (ConnectionOutputStream) out
+				: new ConnectionOutputStream(out);
 
 		// Retrieve address and port
 		InetSocketAddress addr = (InetSocketAddress) socket.getRemoteSocketAddress();
 		this.addr = addr.getAddress().getHostAddress();
-		this.host = addr.getAddress().getCanonicalHostName();
-		originalHost = this.host;
 		originalAddress = this.addr;
+
+		// Hostnames are looked up when first requested
+		server.prefetchHostname(this.addr);
 	}
 
 	public Socket getSocket() {
@@ -83,33 +100,73 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 	public void beginReceive() throws IOException {
 		requestNumber = 0;
 		receiving = false;
-		AsyncTaskManager.runAsync(() -> {
-			receive();
-		});
+		scheduleDeadline(server.getHeaderReadTimeout() * 1000l);
+		if (server.runConnection(() -> receive()) == null) {
+			cancelDeadline();
+			throw new IOException("Failed to start the connection thread");
+		}
 	}
 
-	protected void keepAlive() {
-		int rndTc = rndT;
-		long tsTc = tsT;
+	/**
+	 * Schedules the connection to be closed if the deadline is not cancelled in
+	 * time, replaces the previous deadline
+	 * 
+	 * @param millis Deadline in milliseconds
+	 */
+	protected void scheduleDeadline(long millis) {
+		cancelDeadline();
+		deadline = HashedWheelTimer.getDefault().schedule(() -> timeoutConnection(), millis);
+	}
 
-		long start = System.currentTimeMillis();
-		while (!receiving && tsTc == tsT && rndTc == rndT) {
-			if (receiving || tsTc != tsT || rndTc != rndT || socket == null)
-				return;
-			if ((System.currentTimeMillis() - start) >= (timeout * 1000) || !server.isRunning()) {
-				closeConnection();
-				break;
-			}
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				break;
-			}
-		}
+	/**
+	 * Cancels the current deadline
+	 */
+	protected void cancelDeadline() {
+		HashedWheelTimer.Timeout current = deadline;
+		deadline = null;
+		if (current != null)
+			current.cancel();
+	}
+
+	private void stopBodyDeadline() {
+		ActivityTimeout current = bodyDeadline;
+		bodyDeadline = null;
+		if (current != null)
+			current.stop();
+	}
+
+	private void timeoutConnection() {
+		if (!isConnected())
+			return;
+		server.connectionTimedOut();
+		closeConnection();
+	}
+
+	/**
+	 * Updates the state of this connection in the connection registry
+	 * 
+	 * @param state Connection state, one of the ConnectionRegistry.STATE_*
+	 *              constants
+	 */
+	protected void setConnectionState(int state) {
+		server.clients.setState(this, state);
+	}
+
+	/**
+	 * Checks if the connection is waiting for a request
+	 * 
+	 * @return True if idle, false if a request is being processed
+	 */
+	protected boolean isIdle() {
+		return !receiving;
 	}
 
 	@Override
 	public void closeConnection() {
+		// Stop timeouts
+		cancelDeadline();
+		stopBodyDeadline();
+
 		// Close
 		try {
 			if (socket != null)
@@ -118,120 +175,362 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 		}
 
 		// Remove client
-		synchronized (server.clients) {
-			server.clients.remove(this);
-		}
+		server.clients.remove(this);
 
 		// Unset socket
 		socket = null;
 	}
 
 	protected void receive() {
-		HttpRequest msg = null;
-		InputStream bodyStrm = null;
 		while (true) {
 			receiving = false;
-			try {
-				// Handle previous
-				try {
-					if (bodyStrm != null && bodyStrm instanceof LengthTrackingStream) {
-						LengthTrackingStream strm = (LengthTrackingStream) bodyStrm;
-						long read = strm.getBytesRead();
-						long len = msg.getBodyLength();
-						if (read < len) {
-							long remaining = len - read;
-							while (remaining != 0) {
-								if (remaining < 100000)
-									IoUtil.readNBytes(strm, (int) remaining);
-								else {
-									remaining -= 100000;
-									IoUtil.readNBytes(strm, 100000);
-								}
-							}
-						}
-					}
-				} catch (IllegalStateException e) {
-				}
 
-				// Read request
+			// Read request
+			HttpRequest msg;
+			try {
 				msg = readRequest();
-
-				// Verify parse result
-				if (msg == null) {
-					// Malformed
-					// Send Bad Request response
-					HttpResponse resp = new HttpResponse("HTTP/1.1", (ctx, protocolSwitcherInst) -> {
-					});
-					resp.setResponseStatus(400, "Bad request");
-					sendResponse(resp, null);
-					closeConnection();
+				cancelDeadline();
+			} catch (Exception ex) {
+				if (!handleException(ex, null))
 					return;
-				}
+				continue;
+			}
 
-				// Get stream
-				if (msg.hasHeader("Content-Length")) {
-					if (Long.parseLong(msg.getHeaderValue("Content-Length")) > 0)
-						bodyStrm = new LengthTrackingStream(in);
-				}
+			// Handle request
+			if (!handleRequest(msg))
+				return;
 
-				// Verify HTTP version
-				if (!msg.getHttpVersion().equals("HTTP/1.1")) {
-					// Send 505 response
-					HttpResponse resp = new HttpResponse(msg.getHttpVersion(), (ctx, protocolSwitcherInst) -> {
-					});
-					resp.setResponseStatus(505, "HTTP Version Not Supported");
-					sendResponse(resp, null);
-					closeConnection();
-					return;
-				}
+			// Check state
+			if (!server.isRunning())
+				break; // Server close
 
-				// Process the request
-				processRequests(msg);
-			} catch (Exception ex) {
-				if (!server.connected || ex instanceof SSLException || ex instanceof SocketException) {
-					// Remove client
-					synchronized (server.clients) {
-						server.clients.remove(this);
+			// End if needed
+			if (requestNumber == 0)
+				break;
+		}
+	}
+
+	/**
+	 * Handles a request that was read from the client
+	 * 
+	 * @param msg Request to handle, null if the request was malformed
+	 * @return True if the connection may be used for further requests, false
+	 *         otherwise
+	 */
+	protected boolean handleRequest(HttpRequest msg) {
+		try {
+			// Verify request
+			if (rejectInvalidRequest(msg))
+				return false;
+
+			// Pick up requests that were pipelined behind this one
+			ArrayList<HttpRequest> pipeline = readPipelinedRequests(msg);
+			if (pipeline.size() > 1)
+				return handlePipeline(pipeline);
+
+			// Process the request
+			processRequests(msg);
+			if (protocolSwitcher != null)
+				return false; // Connection was handed over
+
+			// Skip what remains of the request body
+			if (isConnected() && !skipRequestBody(msg))
+				return false;
+			return true;
+		} catch (Exception ex) {
+			return handleException(ex, msg);
+		}
+	}
+
+	private boolean rejectInvalidRequest(HttpRequest msg) throws IOException {
+		// Verify parse result
+		if (msg == null) {
+			// Malformed
+			// Send Bad Request response
+			HttpResponse resp = new HttpResponse("HTTP/1.1", (ctx, protocolSwitcherInst) -> {
+			});
+			resp.setResponseStatus(400, "Bad request");
+			sendResponse(resp, null);
+			closeConnection();
+			return true;
+		}
+
+		// Verify HTTP version
+		if (!msg.getHttpVersion().equals("HTTP/1.1")) {
+			// Send 505 response
+			HttpResponse resp = new HttpResponse(msg.getHttpVersion(), (ctx, protocolSwitcherInst) -> {
+			});
+			resp.setResponseStatus(505, "HTTP Version Not Supported");
+			sendResponse(resp, null);
+			closeConnection();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the requests that are pipelined behind a request and already fully
+	 * buffered, stops at requests with a body or protocol upgrade as those consume
+	 * whatever follows them
+	 * 
+	 * @param first Request that was just read
+	 * @return List of requests in the order they were received, starting with the
+	 *         first request, malformed requests are added as null
+	 * @throws IOException If reading fails
+	 */
+	protected ArrayList<HttpRequest> readPipelinedRequests(HttpRequest first) throws IOException {
+		ArrayList<HttpRequest> pipeline = new ArrayList<HttpRequest>();
+		pipeline.add(first);
+		HttpRequest last = first;
+		while (pipeline.size() < MAX_PIPELINE_DEPTH && last != null && !last.hasRequestBody()
+				&& !last.hasHeader("Transfer-Encoding") && !last.hasHeader("Upgrade")
+				&& last.getHttpVersion().equals("HTTP/1.1") && hasBufferedRequest()) {
+			last = readRequest();
+			pipeline.add(last);
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Checks if a complete request head can be read without blocking, moves data
+	 * that is already available into the parser
+	 * 
+	 * @return True if a request head is buffered, false otherwise
+	 * @throws IOException If reading fails
+	 */
+	protected boolean hasBufferedRequest() throws IOException {
+		while (parser.findHeadEnd() == -1) {
+			if (parser.getLength() > MAX_HEAD_LENGTH || in.available() <= 0)
+				return false;
+			if (parser.readFrom(in) <= 0)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean handlePipeline(ArrayList<HttpRequest> pipeline) {
+		// Start handlers for the requests that can be processed in parallel
+		PipelinedRequest[] requests = new PipelinedRequest[pipeline.size()];
+		for (int i = 0; i < requests.length; i++)
+			requests[i] = new PipelinedRequest(pipeline.get(i));
+		if (server.usesParallelPipelining())
+			startParallelHandlers(requests);
+
+		// Send responses in request order
+		try {
+			for (int i = 0; i < requests.length; i++) {
+				PipelinedRequest req = requests[i];
+				HttpRequest msg = req.request;
+				deferFlush = i + 1 < requests.length;
+				try {
+					// Verify request
+					cancelDeadline();
+					if (rejectInvalidRequest(msg))
+						return false;
+
+					// Process
+					if (bodyDeadline != null && msg.hasRequestBody())
+						bodyDeadline.touch(); // Body was waiting behind the previous requests
+					if (req.response != null) {
+						// Complete the response of a parallel request
+						receiving = true;
+						req.complete(true);
+						if (req.error != null)
+							throw req.error;
+						completeResponse(msg, req.response, req.log);
+					} else {
+						processRequests(msg);
+						if (protocolSwitcher != null)
+							return false; // Connection was handed over
 					}
-					return;
+
+					// Skip what remains of the request body
+					if (!isConnected() || !skipRequestBody(msg))
+						return false;
+				} catch (Exception ex) {
+					deferFlush = false;
+					if (!handleException(ex, msg))
+						return false;
 				}
 
-				getLogger().error(new ConnectiveLogMessage("handler", "Failed to process request due to an exception!",
-						ex, this));
-				if (msg != null) {
-					HttpResponse resp = createResponse(msg);
-					resp.setResponseStatus(500, "Internal server error");
-					resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, msg));
-					try {
-						sendResponse(resp, msg);
-					} catch (IOException e) {
-					}
-					closeConnection();
-					return;
+				// Check state
+				if (!server.isRunning() || requestNumber == 0)
+					break;
+			}
+			return true;
+		} finally {
+			// Send deferred responses
+			deferFlush = false;
+			if (isConnected()) {
+				try {
+					out.flush();
+				} catch (IOException e) {
 				}
 			}
 
-			// Check state
-			if (!server.isRunning())
-				break; // Server close
+			// Release responses that were not sent
+			for (PipelinedRequest req : requests) {
+				if (req.response != null) {
+					req.complete(false);
+					closeResponseBody(req.response);
+				}
+			}
+		}
+	}
 
-			// End if needed
-			if (requestNumber == 0)
+	private void startParallelHandlers(PipelinedRequest[] requests) {
+		// Find the leading run of requests that are safe to handle out of order and
+		// share the proxy details of the first
+		HttpRequest first = requests[0].request;
+		int count = 0;
+		while (count < requests.length) {
+			HttpRequest msg = requests[count].request;
+			if (msg == null || !msg.getHttpVersion().equals("HTTP/1.1")
+					|| (!msg.getRequestMethod().equals("GET") && !msg.getRequestMethod().equals("HEAD"))
+					|| msg.hasRequestBody() || msg.hasHeader("Transfer-Encoding") || msg.hasHeader("Upgrade")
+					|| msg.hasHeader("Expect") || !sameProxyHeaders(first, msg))
 				break;
+			count++;
+		}
+		if (count < 2)
+			return;
+
+		// Resolve proxy details before any handler runs
+		receiving = true;
+		setConnectionState(ConnectionRegistry.STATE_PROCESSING);
+		for (int i = 0; i < count; i++)
+			resolveProxy(requests[i].request);
+
+		// Start handlers, requests not picked up by a worker in time are handled by
+		// the connection thread when their turn comes
+		for (int i = 0; i < count; i++) {
+			PipelinedRequest req = requests[i];
+			req.response = createResponse(req.request);
+			if (i != 0)
+				server.tryRunAsync(() -> req.tryRun());
 		}
 	}
 
-	private void processRequests(HttpRequest msg) throws IOException {
+	private static boolean sameProxyHeaders(HttpRequest first, HttpRequest msg) {
+		for (String header : new String[] { "X-Forwarded-For", "X-Forwarded-Host", "Forwarded" }) {
+			if (!Objects.equals(first.getHeaderValue(header), msg.getHeaderValue(header)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Handles exceptions raised while processing requests
+	 * 
+	 * @param ex  Exception that was raised
+	 * @param msg Request that was being processed, null if none
+	 * @return True if the connection may be used for further requests, false
+	 *         otherwise
+	 */
+	protected boolean handleException(Exception ex, HttpRequest msg) {
+		if (!server.connected || ex instanceof SSLException || ex instanceof SocketException) {
+			// Remove client
+			server.clients.remove(this);
+			return false;
+		}
+
+		if (msg != null && currentBody instanceof ChunkedInputStream
+				&& ((ChunkedInputStream) currentBody).isLimitExceeded()) {
+			// Chunked body too large, respond with payload too large
+			HttpResponse resp = createResponse(msg);
+			resp.setResponseStatus(413, "Payload Too Large");
+			resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, msg));
+			try {
+				sendResponse(resp, msg);
+			} catch (IOException e) {
+			}
+			closeConnection();
+			return false;
+		}
+		getLogger().error(
+				new ConnectiveLogMessage("handler", "Failed to process request due to an exception!", ex, this));
+		if (msg != null) {
+			HttpResponse resp = createResponse(msg);
+			resp.setResponseStatus(500, "Internal server error");
+			resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, msg));
+			try {
+				sendResponse(resp, msg);
+			} catch (IOException e) {
+			}
+			closeConnection();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean skipRequestBody(HttpRequest msg) {
+		if (currentBody == null || !msg.hasRequestBody())
+			return true;
+		InputStream strm = currentBody;
+		currentBody = null;
+		try {
+			// Read what the handlers left behind so the next request starts at the right
+			// position
+			if (strm instanceof ChunkedInputStream)
+				((ChunkedInputStream) strm).skipRemaining();
+			else
+				((BodyInputStream) strm).skipRemaining();
+			return true;
+		} catch (IOException e) {
+			// The response was already sent, the connection cannot be reused
+			closeConnection();
+			return false;
+		} finally {
+			stopBodyDeadline();
+		}
+	}
+
+	protected void processRequests(HttpRequest msg) throws IOException {
 		// Mark as receiving
 		receiving = true;
+		setConnectionState(ConnectionRegistry.STATE_PROCESSING);
+
+		// Handle request
+		resolveProxy(msg);
+		processRequest(msg);
+	}
+
+	/**
+	 * Applies a PROXY protocol header to the client address details, the address
+	 * sent by the proxy becomes the connection address
+	 * 
+	 * @param header PROXY protocol header received from an allowed proxy source
+	 */
+	protected void applyProxyHeader(ProxyProtocolHeader header) {
+		if (!header.hasSourceAddress())
+			return; // Health check by the proxy itself
+		connectionProxy = originalAddress;
+		connectionProxiedAddress = header.getSourceAddress();
+		originalAddress = connectionProxiedAddress;
+		resetProxyDetails();
+		server.prefetchHostname(addr);
+	}
 
+	private void resetProxyDetails() {
+		// Restore the details of the connection itself
+		proxiedAddress = connectionProxiedAddress;
+		addr = originalAddress;
+		host = null;
+		proxies = new ArrayList<String>();
+		if (connectionProxy != null)
+			proxies.add(connectionProxy);
+	}
+
+	/**
+	 * Applies the proxy headers of a request to the client address details
+	 * 
+	 * @param msg Request to read the proxy headers from
+	 */
+	protected void resolveProxy(HttpRequest msg) {
 		// Proxy support
 		if (msg.hasHeader("X-Forwarded-For")) {
 			// Clear proxied addresses
-			proxiedAddress = null;
-			addr = originalAddress;
-			host = originalHost;
-			proxies = new ArrayList<String>();
+			resetProxyDetails();
 
 			// Go through list
 			ArrayList<String> addresses = new ArrayList<String>();
@@ -258,11 +557,7 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 				if (getServer().isAllowedProxySource(originalAddress)) {
 					// Authoritive
 					addr = proxiedAddress;
-					host = proxiedAddress;
-					try {
-						host = InetAddress.getByName(addr).getCanonicalHostName();
-					} catch (Exception e) {
-					}
+					server.prefetchHostname(addr);
 
 					// Set host header
 					if (msg.hasHeader("X-Forwarded-Host")) {
@@ -275,10 +570,7 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 		}
 		if (msg.hasHeader("Forwarded")) {
 			// Clear proxied addresses
-			proxiedAddress = null;
-			addr = originalAddress;
-			host = originalHost;
-			proxies = new ArrayList<String>();
+			resetProxyDetails();
 			String proxiedHost = null;
 
 			// Go through list
@@ -333,11 +625,7 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 				if (getServer().isAllowedProxySource(originalAddress)) {
 					// Authoritive
 					addr = proxiedAddress;
-					host = proxiedAddress;
-					try {
-						host = InetAddress.getByName(addr).getCanonicalHostName();
-					} catch (Exception e) {
-					}
+					server.prefetchHostname(addr);
 
 					// Set host header
 					if (proxiedHost != null) {
@@ -348,136 +636,104 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 				}
 			}
 		}
-
-		// Handle request
-		processRequest(msg);
 	}
 
-	private HttpRequest readRequest() throws IOException {
-		// Read first request line
-		String firstLine = readStreamLine(in);
-		if (firstLine == null || firstLine.isEmpty())
-			return null;
-
-		// Verify line validity
-		if (!firstLine.substring(0, 1).matches("[A-Za-z0-9]") || firstLine.split(" ").length != 3) {
-			return null;
-		}
-
-		try {
-			// Decode first line
-			String path = firstLine.substring(firstLine.indexOf(" ") + 1, firstLine.lastIndexOf(" "));
-			String method = firstLine.substring(0, firstLine.indexOf(" ")).toUpperCase();
-			String version = firstLine.substring(firstLine.lastIndexOf(" ") + 1);
-
-			// Parse headers
-			HeaderCollection headers = new HeaderCollection();
-			while (true) {
-				// Read header
-				String line = readStreamLine(in);
-				if (line.equals(""))
-					break; // Done with headers
-
-				// Parse header
-				String key = line.substring(0, line.indexOf(": "));
-				String value = line.substring(line.indexOf(": ") + 2);
-
-				// Prevent injection by checking if its already present
-				if (!headers.hasHeader(key))
-					headers.addHeader(key, value); // Set header
+	protected HttpRequest readRequest() throws IOException {
+		// Read until the head is complete
+		int end;
+		while ((end = parser.findHeadEnd()) == -1) {
+			if (parser.getLength() > MAX_HEAD_LENGTH) {
+				parser.reset();
+				return null;
 			}
-
-			// Load body if needed
-			InputStream body = null;
-			long contentLength = -1;
-			if (headers.hasHeader("Content-Length")) {
-				contentLength = Long.parseLong(headers.getHeaderValue("Content-Length"));
-				if (contentLength > 0)
-					body = new LengthTrackingStream(in);
+			if (parser.readFrom(in) == -1) {
+				parser.reset();
+				return null;
 			}
+			setConnectionState(ConnectionRegistry.STATE_READING);
+		}
+
+		// Return what follows the head to the stream
+		HttpRequest req = parseRequest(end);
+		byte[] remainder = parser.takeRemainder(end);
+		in.unread(remainder);
+		return req;
+	}
 
-			// Create request object
-			return new HttpRequest(body, contentLength, headers, version, method, path);
+	/**
+	 * Parses the request head held by the parser
+	 * 
+	 * @param end Head end index
+	 * @return HttpRequest instance or null if the request is malformed
+	 */
+	protected HttpRequest parseRequest(int end) {
+		if (!parser.parse(end))
+			return null;
+		try {
+			return createRequest(parser.getMethod(), parser.getPath(), parser.getVersion(), parser.getHeaders());
 		} catch (Exception e) {
 			return null;
 		}
 	}
 
-	protected String readStreamLine(PrependedBufferStream strm) throws IOException {
-		// Read a number of bytes
-		byte[] content = new byte[20480];
-		int read = strm.read(content, 0, content.length);
-		if (read <= -1) {
-			// Failed
-			return null;
-		} else {
-			// Trim array
-			content = Arrays.copyOfRange(content, 0, read);
-
-			// Find newline
-			String newData = new String(content, "UTF-8");
-			if (newData.contains("\n")) {
-				// Found newline
-				String line = newData.substring(0, newData.indexOf("\n"));
-				int offset = line.length() + 1;
-				int returnLength = content.length - offset;
-				if (returnLength > 0) {
-					// Return
-					strm.returnToBuffer(Arrays.copyOfRange(content, offset, content.length));
-				}
-				return line.replace("\r", "");
-			} else {
-				// Read more
-				while (true) {
-					byte[] addition = new byte[20480];
-					read = strm.read(addition, 0, addition.length);
-					if (read <= -1) {
-						// Failed
-						strm.returnToBuffer(content);
-						return null;
-					}
-
-					// Trim
-					addition = Arrays.copyOfRange(addition, 0, read);
-
-					// Append
-					byte[] newContent = new byte[content.length + addition.length];
-					for (int i = 0; i < content.length; i++)
-						newContent[i] = content[i];
-					for (int i = content.length; i < newContent.length; i++)
-						newContent[i] = addition[i - content.length];
-					content = newContent;
-
-					// Find newline
-					newData = new String(content, "UTF-8");
-					if (newData.contains("\n")) {
-						// Found newline
-						String line = newData.substring(0, newData.indexOf("\n"));
-						int offset = line.length() + 1;
-						int returnLength = content.length - offset;
-						if (returnLength > 0) {
-							// Return
-							strm.returnToBuffer(Arrays.copyOfRange(content, offset, content.length));
-						}
-						return line.replace("\r", "");
-					}
-				}
+	/**
+	 * Creates the request object for a parsed request head, attaching the body
+	 * stream if needed
+	 * 
+	 * @param method  Request method
+	 * @param path    Request resource
+	 * @param version HTTP version
+	 * @param headers Request headers
+	 * @return HttpRequest instance
+	 * @throws IllegalArgumentException If the request is not valid
+	 */
+	protected HttpRequest createRequest(String method, String path, String version, HeaderCollection headers)
+			throws IllegalArgumentException {
+		// Load body if needed
+		InputStream body = null;
+		long contentLength = -1;
+		currentBody = null;
+		if (headers.hasHeader("Transfer-Encoding")) {
+			// Chunked body, takes precedence over the content length
+			String[] codings = headers.getHeaderValue("Transfer-Encoding").split(",");
+			if (!codings[codings.length - 1].trim().equalsIgnoreCase("chunked"))
+				throw new IllegalArgumentException("Unsupported transfer encoding");
+			ChunkedInputStream strm = new ChunkedInputStream(in, server.getMaxChunkSize(),
+					server.getMaxChunkedBodySize(), false);
+			strm.setReadListener(startBodyDeadline());
+			currentBody = strm;
+			body = strm;
+		} else if (headers.hasHeader("Content-Length")) {
+			contentLength = Long.parseLong(headers.getHeaderValue("Content-Length"));
+			if (contentLength > 0) {
+				BodyInputStream strm = new BodyInputStream(in, contentLength, false);
+				strm.setReadListener(startBodyDeadline());
+				currentBody = strm;
+				body = strm;
 			}
 		}
+
+		// Create request object
+		return new HttpRequest(body, contentLength, headers, version, method, path);
+	}
+
+	private Runnable startBodyDeadline() {
+		// Close the connection if the client stops sending the body
+		ActivityTimeout bodyTimeout = new ActivityTimeout(HashedWheelTimer.getDefault(),
+				server.getBodyReadTimeout() * 1000l, () -> timeoutConnection());
+		stopBodyDeadline();
+		bodyDeadline = bodyTimeout;
+		bodyTimeout.start();
+		return () -> bodyTimeout.touch();
 	}
 
 	@Override
 	protected void sendResponse(HttpResponse response, HttpRequest sourceRequest) throws IOException {
+		setConnectionState(ConnectionRegistry.STATE_WRITING);
+
 		// Add headers
-		SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
-		dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
 		if (response.getBodyStream() != null && !response.hasHeader("Content-Length") && response.getBodyLength() >= 0)
 			response.addHeader("Content-Length", Long.toString(response.getBodyLength()));
-		response.addHeader("Server", server.getServerName());
-		response.addHeader("Date", dateFormat.format(new Date()));
-		for (String name : server.getDefaultHeaders().getHeaderNames())
-			if (!response.hasHeader(name))
-				response.addHeader(name, server.getDefaultHeaders().getHeaderValue(name));
 		if (response.getBodyLength() < 0 && (response.getBodyStream() != null
 				&& (sourceRequest != null && !sourceRequest.getRequestMethod().equalsIgnoreCase("HEAD"))
 				&& response.getResponseCode() != 204))
@@ -522,12 +778,6 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 		else if (response.getResponseCode() == 101)
 			response.addHeader("Connection", "Upgrade");
 
-		// Build top line
-		StringBuilder resp = new StringBuilder();
-		resp.append(response.getHttpVersion()).append(" ");
-		resp.append(response.getResponseCode()).append(" ");
-		resp.append(response.getResponseMessage());
-
 		// Remove headers if needed
 		if ((sourceRequest != null && sourceRequest.getRequestMethod().equals("HEAD"))
 				|| response.getResponseCode() == 204 || response.getResponseCode() == 201) {
@@ -539,114 +789,176 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 				response.removeHeader("Content-Type");
 		}
 
+		// Encode status line, server and default headers and date
+		headEncoder.reset();
+		headEncoder.statusLine(response.getHttpVersion(), response.getResponseCode(), response.getResponseMessage());
+		server.getDefaultHeaderBlock().writeTo(headEncoder, response.getHeaders());
+		if (!response.hasHeader("Date"))
+			headEncoder.raw(HttpDate.nowHeaderLine());
+
 		// Add all headers
 		for (HttpHeader header : response.getHeaders().getHeaders()) {
 			if (header.getName().equalsIgnoreCase("connection") || !header.getValue().equalsIgnoreCase("closed")) {
-				for (String val : header.getValues()) {
-					// Write newline for the header
-					resp.append("\r\n");
-
-					// Write key and value
-					resp.append(header.getName()).append(": ");
-					resp.append(val);
-				}
+				for (String val : header.getValues())
+					headEncoder.header(header.getName(), val);
 			}
 		}
-
-		// Add padding
-		resp.append("\r\n");
-		resp.append("\r\n");
+		headEncoder.end();
 
 		// Write body if needed
 		if (response.getBodyStream() != null
 				&& (sourceRequest != null && !sourceRequest.getRequestMethod().equalsIgnoreCase("HEAD"))
 				&& response.getResponseCode() != 204) {
 			// Write headers
-			out.write(resp.toString().getBytes("UTF-8"));
+			out.write(headEncoder.getBuffer(), 0, headEncoder.getLength());
 
 			// Transfer body
+			FileRegion region = response.getFileRegion();
+			if (region == null || region.getLength() != response.getBodyLength() || !transferFileRegion(region))
+				transferBody(response);
+			response.getBodyStream().close();
+		} else {
+			// Write headers only
+			out.write(headEncoder.getBuffer(), 0, headEncoder.getLength());
+		}
+
+		// Flush unless more pipelined responses follow on the same connection
+		boolean keepAlive = protocolSwitcher == null && response.getHeaders().hasHeader("Connection")
+				&& Stream.of(response.getHeaders().getHeaderValues("Connection"))
+						.anyMatch(t -> Stream.of(t.replace(", ", ",").split(","))
+								.anyMatch(t2 -> t2.equalsIgnoreCase("Keep-Alive")))
+				&& (maxRequests == 0 || requestNumber < maxRequests);
+		if (!deferFlush || !keepAlive)
+			out.flush();
+
+		// Handle upgrade
+		if (protocolSwitcher != null) {
+			// Return so that the connection can be picked up by the upgrade implementation
+			out.setBuffered(false);
+			cancelDeadline();
+			stopBodyDeadline();
+			prepareProtocolSwitch();
+			protocolSwitcher.accept(this);
+
+			// Remove client
+			server.clients.remove(this);
+			return;
+		}
+
+		// Handle keepalive
+		if (!keepAlive)
+			closeConnection();
+		else {
+			if (maxRequests != 0)
+				requestNumber++;
+			else
+				requestNumber = 1;
+			beginKeepAlive();
+			response.addHeader("Connection", "Keep-Alive");
+		}
+	}
+
+	private void transferBody(HttpResponse response) throws IOException {
+		PooledBuffer pooled = BufferPool.getDefault().acquire(BufferPool.TRANSFER_BUFFER_SIZE);
+		try {
+			byte[] buffer = pooled.array();
 			if (response.getBodyLength() >= 0) {
 				long length = response.getBodyLength();
 				long tr = 0;
 				for (long i = 0; i < length; i += tr) {
-					// Prepare buffer
-					int bufLen = 20480;
-					if (bufLen > (length - i))
-						bufLen = (int) (length - i);
-
 					// Read
-					byte[] buffer = new byte[bufLen];
-					int readNum = response.getBodyStream().read(buffer, 0, buffer.length);
+					int readNum = response.getBodyStream().read(buffer, 0, (int) Math.min(buffer.length, length - i));
 					if (readNum == -1)
 						throw new IOException("Unexpected End of File");
 
 					// Write
 					out.write(buffer, 0, readNum);
 					tr = readNum;
+					flushIfStalled(response);
 				}
 			} else {
 				// Write in chunks
 				while (true) {
 					try {
-						// Read 1mb
-						byte[] buffer = new byte[1024 * 1024];
+						// Read chunk
 						int chunkSize = response.getBodyStream().read(buffer, 0, buffer.length);
 						if (chunkSize == -1) {
 							// End of stream
-							out.write("0\r\n".toString().getBytes("UTF-8"));
-							out.write("\r\n".toString().getBytes("UTF-8"));
+							out.write(LAST_CHUNK);
 							break;
 						}
 
-						// Write chunk size
-						out.write((Integer.toString(chunkSize, 16) + "\r\n").toString().getBytes("UTF-8"));
-
-						// Write chunk payload
+						// Write chunk, framing is buffered together with the payload
+						writeChunkSize(chunkSize);
 						out.write(buffer, 0, chunkSize);
-
-						// Write chunk end
-						out.write("\r\n".toString().getBytes("UTF-8"));
+						out.write(CRLF);
+						flushIfStalled(response);
 					} catch (IOException e) {
 						break;
 					}
 				}
 			}
-			response.getBodyStream().close();
-		} else {
-			// Write headers only
-			out.write(resp.toString().getBytes("UTF-8"));
+		} finally {
+			pooled.release();
 		}
+	}
 
-		// Handle upgrade
-		if (protocolSwitcher != null) {
-			// Return so that the connection can be picked up by the upgrade implementation
-			protocolSwitcher.accept(this);
+	private void flushIfStalled(HttpResponse response) throws IOException {
+		// Send what is buffered if the next read may block
+		if (out.getBufferedLength() != 0 && response.getBodyStream().available() <= 0)
+			out.flushBuffer();
+	}
 
-			// Remove client
-			synchronized (server.clients) {
-				server.clients.remove(this);
-			}
-			return;
-		}
+	private void writeChunkSize(int size) throws IOException {
+		int shift = 28;
+		while (shift > 0 && (size >>> shift) == 0)
+			shift -= 4;
+		for (; shift >= 0; shift -= 4)
+			out.write(HEX_DIGITS[(size >>> shift) & 0xf]);
+		out.write(CRLF);
+	}
 
-		// Handle keepalive
-		if ((!response.getHeaders().hasHeader("Connection")
-				|| !Stream.of(response.getHeaders().getHeaderValues("Connection"))
-						.anyMatch(t -> Stream.of(t.replace(", ", ",").split(","))
-								.anyMatch(t2 -> t2.equalsIgnoreCase("Keep-Alive"))))
-				|| (maxRequests != 0 && requestNumber >= maxRequests))
-			closeConnection();
-		else {
-			if (maxRequests != 0)
-				requestNumber++;
-			else
-				requestNumber = 1;
-			rndT = rnd.nextInt();
-			tsT = System.currentTimeMillis();
-			receiving = false;
-			AsyncTaskManager.runAsync(() -> keepAlive());
-			response.addHeader("Connection", "Keep-Alive");
-		}
+	/**
+	 * Sends a file region body without copying it through user-space buffers
+	 *
+	 * @param region File region to send
+	 * @return True if the region was sent, false if the transport cannot send
+	 *         file regions directly
+	 * @throws IOException If sending fails
+	 */
+	protected boolean transferFileRegion(FileRegion region) throws IOException {
+		SocketChannel channel = socket.getChannel();
+		if (channel == null || !channel.isBlocking() || !server.supportsFileRegionTransfer(socket))
+			return false;
+		out.flush();
+		region.transferAll(channel);
+		return true;
+	}
+
+	/**
+	 * Called after a response was sent over a connection that is kept alive, starts
+	 * the idle timeout
+	 */
+	protected void beginKeepAlive() {
+		receiving = false;
+		setConnectionState(ConnectionRegistry.STATE_IDLE);
+		scheduleDeadline(timeout * 1000l);
+	}
+
+	/**
+	 * Called right before the connection is handed over to a protocol switcher
+	 */
+	protected void prepareProtocolSwitch() throws IOException {
+	}
+
+	/**
+	 * Removes and returns the data that was read ahead by the connection input
+	 * stream
+	 * 
+	 * @return Buffered bytes
+	 */
+	protected byte[] takeBufferedInput() {
+		return in.takeBuffered();
 	}
 
 	@Override
@@ -708,7 +1020,18 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 
 	@Override
 	public String getRemoteHost() {
-		return host;
+		String current = host;
+		if (current != null)
+			return current;
+
+		// Resolve, the address is reported while an asynchronous lookup runs
+		String address = addr;
+		current = server.resolveHostname(address);
+		if (current == null)
+			return address;
+		if (address == addr)
+			host = current;
+		return current;
 	}
 
 	@Override
@@ -730,4 +1053,44 @@ public class RemoteClientHttp_1_1 extends RemoteClient {
 	protected HttpResponse createResponseInternal() {
 		return new HttpResponse("HTTP/1.1", (ctx, protocolSwitcherInst) -> protocolSwitcher = protocolSwitcherInst);
 	}
+
+	private class PipelinedRequest {
+		private final HttpRequest request;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private HttpResponse response;
+		private boolean log;
+		private Exception error;
+
+		public PipelinedRequest(HttpRequest request) {
+			this.request = request;
+		}
+
+		public void tryRun() {
+			if (!claimed.compareAndSet(false, true))
+				return;
+			try {
+				log = runHandlers(request, response);
+			} catch (Exception e) {
+				error = e;
+			} finally {
+				done.countDown();
+			}
+		}
+
+		public void complete(boolean run) {
+			// Run on the calling thread if no worker picked the request up yet, or
+			// cancel the request if it is no longer needed
+			if (run)
+				tryRun();
+			else if (claimed.compareAndSet(false, true))
+				done.countDown();
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
 }
@@ -0,0 +1,362 @@
+package org.asf.connective.impl.http_1_1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.headers.HttpHeader;
+
+/**
+ *
+ * HTTP/1.1 request head parser, works on a reusable per-connection byte buffer
+ * and only creates strings for the request line and unknown header names,
+ * header values are decoded when first accessed
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class RequestHeadParser {
+
+	private static final String[] KNOWN_METHODS = new String[] { "GET", "POST", "PUT", "HEAD", "DELETE", "OPTIONS",
+			"PATCH", "CONNECT", "TRACE" };
+	private static final String[] KNOWN_VERSIONS = new String[] { "HTTP/1.1", "HTTP/1.0", "HTTP/2.0" };
+	private static final String[] KNOWN_HEADERS = new String[] { "Host", "Connection", "Content-Length",
+			"Content-Type", "Accept", "Accept-Encoding", "Accept-Language", "Accept-Charset", "User-Agent", "Cookie",
+			"Referer", "Origin", "Upgrade", "Keep-Alive", "Transfer-Encoding", "Authorization", "Cache-Control",
+			"Pragma", "If-None-Match", "If-Match", "If-Modified-Since", "If-Unmodified-Since", "If-Range", "Range",
+			"Expect", "TE", "Forwarded", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Proto", "X-Real-IP",
+			"X-Requested-With", "DNT", "Sec-Fetch-Site", "Sec-Fetch-Mode", "Sec-Fetch-Dest", "Sec-Fetch-User",
+			"Sec-WebSocket-Key", "Sec-WebSocket-Version", "Sec-WebSocket-Extensions", "Sec-WebSocket-Protocol",
+			"Upgrade-Insecure-Requests", "Content-Encoding", "HTTP2-Settings", "Priority" };
+
+	private static final byte[][] KNOWN_METHOD_BYTES = toBytes(KNOWN_METHODS);
+	private static final byte[][] KNOWN_VERSION_BYTES = toBytes(KNOWN_VERSIONS);
+	private static final byte[][] KNOWN_HEADER_BYTES = toBytes(KNOWN_HEADERS);
+
+	private byte[] buffer;
+	private int length;
+	private int scanPosition;
+	private int maxHeadLength;
+
+	private String method;
+	private String path;
+	private String version;
+	private HeaderCollection headers;
+
+	/**
+	 * Creates a new parser
+	 *
+	 * @param maxHeadLength Maximum request head length
+	 */
+	public RequestHeadParser(int maxHeadLength) {
+		this.maxHeadLength = maxHeadLength;
+		buffer = new byte[Math.min(4096, maxHeadLength + 4)];
+	}
+
+	private static byte[][] toBytes(String[] strings) {
+		byte[][] res = new byte[strings.length][];
+		for (int i = 0; i < strings.length; i++)
+			res[i] = strings[i].getBytes(StandardCharsets.US_ASCII);
+		return res;
+	}
+
+	/**
+	 * Retrieves the parser buffer
+	 *
+	 * @return Buffer array
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Retrieves the amount of buffered bytes
+	 *
+	 * @return Buffered byte count
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Checks if the buffer holds more than the maximum head length without
+	 * containing a complete head
+	 *
+	 * @return True if the head is too large, false otherwise
+	 */
+	public boolean isOverflowing() {
+		return length > maxHeadLength && findHeadEnd() == -1;
+	}
+
+	private void ensureCapacity(int amount) {
+		if (length + amount > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + amount));
+	}
+
+	/**
+	 * Appends data to the buffer
+	 *
+	 * @param data Buffer to read from
+	 */
+	public void append(ByteBuffer data) {
+		int len = data.remaining();
+		ensureCapacity(len);
+		data.get(buffer, length, len);
+		length += len;
+	}
+
+	/**
+	 * Appends data to the buffer
+	 *
+	 * @param data   Data array
+	 * @param offset Data offset
+	 * @param len    Data length
+	 */
+	public void append(byte[] data, int offset, int len) {
+		ensureCapacity(len);
+		System.arraycopy(data, offset, buffer, length, len);
+		length += len;
+	}
+
+	/**
+	 * Reads from a stream directly into the buffer
+	 *
+	 * @param input Stream to read from
+	 * @return Amount of bytes read or -1 if the stream ended
+	 * @throws IOException If reading fails
+	 */
+	public int readFrom(InputStream input) throws IOException {
+		if (buffer.length - length < 1024)
+			ensureCapacity(buffer.length);
+		int read = input.read(buffer, length, buffer.length - length);
+		if (read > 0)
+			length += read;
+		return read;
+	}
+
+	/**
+	 * Finds the end of the request head, scanning only bytes that were not
+	 * scanned before
+	 *
+	 * @return Index following the empty line ending the head or -1 if incomplete
+	 */
+	public int findHeadEnd() {
+		for (int i = scanPosition; i < length; i++) {
+			if (buffer[i] != '\n')
+				continue;
+			if (i + 1 < length && buffer[i + 1] == '\n')
+				return i + 2;
+			if (i + 2 < length && buffer[i + 1] == '\r' && buffer[i + 2] == '\n')
+				return i + 3;
+			if (i + 1 >= length || (i + 2 >= length && buffer[i + 1] == '\r')) {
+				// Need more data to decide
+				scanPosition = i;
+				return -1;
+			}
+		}
+		scanPosition = length;
+		return -1;
+	}
+
+	/**
+	 * Removes the head from the buffer and returns the bytes following it
+	 *
+	 * @param end Head end index
+	 * @return Remaining bytes
+	 */
+	public byte[] takeRemainder(int end) {
+		byte[] remainder = Arrays.copyOfRange(buffer, end, length);
+		length = 0;
+		scanPosition = 0;
+		return remainder;
+	}
+
+	/**
+	 * Removes bytes from the start of the buffer
+	 *
+	 * @param amount Amount of bytes to remove
+	 */
+	public void discard(int amount) {
+		System.arraycopy(buffer, amount, buffer, 0, length - amount);
+		length -= amount;
+		scanPosition = 0;
+	}
+
+	/**
+	 * Clears the buffer and parse results
+	 */
+	public void reset() {
+		length = 0;
+		scanPosition = 0;
+		method = null;
+		path = null;
+		version = null;
+		headers = null;
+	}
+
+	/**
+	 * Parses the request head
+	 *
+	 * @param end Head end index as returned by findHeadEnd()
+	 * @return True if successful, false if the head is malformed
+	 */
+	public boolean parse(int end) {
+		method = null;
+		path = null;
+		version = null;
+		headers = null;
+
+		// Header values are decoded lazily so they need their own copy of the head
+		byte[] head = Arrays.copyOf(buffer, end);
+
+		// Request line
+		int lineEnd = lineEnd(head, 0, end);
+		int lineLength = trimCarriageReturn(head, 0, lineEnd);
+		if (lineLength == 0 || !isAlphanumeric(head[0]))
+			return false;
+		int firstSpace = -1;
+		int lastSpace = -1;
+		for (int i = 0; i < lineLength; i++) {
+			if (head[i] == ' ') {
+				if (firstSpace == -1)
+					firstSpace = i;
+				else if (lastSpace == -1)
+					lastSpace = i;
+				else
+					return false;
+			}
+		}
+		if (lastSpace == -1 || lastSpace == firstSpace + 1 || lastSpace == lineLength - 1)
+			return false;
+		String method = match(head, 0, firstSpace, KNOWN_METHODS, KNOWN_METHOD_BYTES);
+		if (method == null)
+			method = new String(head, 0, firstSpace, StandardCharsets.UTF_8).toUpperCase();
+		String path = new String(head, firstSpace + 1, lastSpace - firstSpace - 1, StandardCharsets.UTF_8);
+		String version = match(head, lastSpace + 1, lineLength - lastSpace - 1, KNOWN_VERSIONS,
+				KNOWN_VERSION_BYTES);
+		if (version == null)
+			version = new String(head, lastSpace + 1, lineLength - lastSpace - 1, StandardCharsets.UTF_8);
+
+		// Headers
+		HeaderCollection headers = new HeaderCollection();
+		int pos = lineEnd + 1;
+		while (pos < end) {
+			lineEnd = lineEnd(head, pos, end);
+			lineLength = trimCarriageReturn(head, pos, lineEnd) - pos;
+			if (lineLength == 0)
+				break; // Done with headers
+			if (head[pos] == ' ' || head[pos] == '\t')
+				return false; // Folded lines are not supported
+
+			// Find separator
+			int colon = -1;
+			for (int i = pos; i < pos + lineLength; i++) {
+				if (head[i] == ':') {
+					colon = i;
+					break;
+				}
+			}
+			if (colon <= pos)
+				return false;
+
+			// Trim value
+			int valueStart = colon + 1;
+			int valueEnd = pos + lineLength;
+			while (valueStart < valueEnd && (head[valueStart] == ' ' || head[valueStart] == '\t'))
+				valueStart++;
+			while (valueEnd > valueStart && (head[valueEnd - 1] == ' ' || head[valueEnd - 1] == '\t'))
+				valueEnd--;
+
+			// Add header, prevent injection by ignoring duplicates
+			String name = match(head, pos, colon - pos, KNOWN_HEADERS, KNOWN_HEADER_BYTES);
+			if (name == null)
+				name = new String(head, pos, colon - pos, StandardCharsets.UTF_8);
+			if (!headers.hasHeader(name))
+				headers.addHeader(new HttpHeader(name, head, valueStart, valueEnd - valueStart));
+			pos = lineEnd + 1;
+		}
+
+		// Done
+		this.method = method;
+		this.path = path;
+		this.version = version;
+		this.headers = headers;
+		return true;
+	}
+
+	private static int lineEnd(byte[] data, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (data[i] == '\n')
+				return i;
+		}
+		return end;
+	}
+
+	private static int trimCarriageReturn(byte[] data, int start, int end) {
+		if (end > start && data[end - 1] == '\r')
+			return end - 1;
+		return end;
+	}
+
+	private static boolean isAlphanumeric(byte b) {
+		return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9');
+	}
+
+	private static String match(byte[] data, int offset, int length, String[] strings, byte[][] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			byte[] candidate = bytes[i];
+			if (candidate.length != length || candidate[0] != data[offset])
+				continue;
+			boolean matches = true;
+			for (int j = 1; j < length; j++) {
+				if (candidate[j] != data[offset + j]) {
+					matches = false;
+					break;
+				}
+			}
+			if (matches)
+				return strings[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Retrieves the parsed request method
+	 *
+	 * @return Request method
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * Retrieves the parsed request path
+	 *
+	 * @return Request path
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Retrieves the parsed HTTP version
+	 *
+	 * @return HTTP version
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * Retrieves the parsed headers
+	 *
+	 * @return HeaderCollection instance
+	 */
+	public HeaderCollection getHeaders() {
+		return headers;
+	}
+
+}
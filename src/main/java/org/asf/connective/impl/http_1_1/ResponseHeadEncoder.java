@@ -0,0 +1,165 @@
+package org.asf.connective.impl.http_1_1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * HTTP/1.1 response head encoder, writes the status line and headers into a
+ * reusable per-connection byte buffer. Common status lines are pre-encoded.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ResponseHeadEncoder {
+
+	private static final byte[] CRLF = new byte[] { '\r', '\n' };
+	private static final byte[] SPACE = new byte[] { ' ' };
+	private static final byte[] SEPARATOR = new byte[] { ':', ' ' };
+
+	private static final int[] COMMON_CODES = new int[] { 100, 101, 200, 201, 202, 204, 206, 301, 302, 303, 304,
+			307, 308, 400, 401, 403, 404, 405, 406, 408, 409, 410, 411, 412, 413, 414, 415, 416, 417, 426, 429, 431,
+			500, 501, 502, 503, 504, 505 };
+	private static final String[] COMMON_MESSAGES = new String[] { "Continue", "Switching Protocols", "OK",
+			"Created", "Accepted", "No Content", "Partial Content", "Moved Permanently", "Found", "See Other",
+			"Not Modified", "Temporary Redirect", "Permanent Redirect", "Bad Request", "Unauthorized", "Forbidden",
+			"Not Found", "Method Not Allowed", "Not Acceptable", "Request Timeout", "Conflict", "Gone",
+			"Length Required", "Precondition Failed", "Payload Too Large", "URI Too Long", "Unsupported Media Type",
+			"Range Not Satisfiable", "Expectation Failed", "Upgrade Required", "Too Many Requests",
+			"Request Header Fields Too Large", "Internal Server Error", "Not Implemented", "Bad Gateway",
+			"Service Unavailable", "Gateway Timeout", "HTTP Version Not Supported" };
+	private static final byte[][] COMMON_STATUS_LINES = new byte[600][];
+
+	static {
+		for (int i = 0; i < COMMON_CODES.length; i++)
+			COMMON_STATUS_LINES[COMMON_CODES[i]] = ("HTTP/1.1 " + COMMON_CODES[i] + " " + COMMON_MESSAGES[i] + "\r\n")
+					.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private byte[] buffer = new byte[1024];
+	private int length;
+
+	/**
+	 * Retrieves the encoded head
+	 *
+	 * @return Buffer array
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Retrieves the encoded head length
+	 *
+	 * @return Head length
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Clears the buffer
+	 */
+	public void reset() {
+		length = 0;
+	}
+
+	/**
+	 * Writes the status line
+	 *
+	 * @param version HTTP version
+	 * @param code    Status code
+	 * @param message Status message
+	 */
+	public void statusLine(String version, int code, String message) {
+		// Check for a pre-encoded line
+		if (code >= 0 && code < COMMON_STATUS_LINES.length && COMMON_STATUS_LINES[code] != null
+				&& version.equals("HTTP/1.1")) {
+			byte[] line = COMMON_STATUS_LINES[code];
+			int messageStart = 13; // "HTTP/1.1 XXX "
+			if (line.length - messageStart - 2 == message.length() && matches(line, messageStart, message)) {
+				raw(line);
+				return;
+			}
+		}
+
+		// Encode
+		text(version);
+		raw(SPACE);
+		text(Integer.toString(code));
+		raw(SPACE);
+		text(message);
+		raw(CRLF);
+	}
+
+	/**
+	 * Writes a header line
+	 *
+	 * @param name  Header name
+	 * @param value Header value
+	 */
+	public void header(String name, String value) {
+		text(name);
+		raw(SEPARATOR);
+		text(value);
+		raw(CRLF);
+	}
+
+	/**
+	 * Writes pre-encoded bytes
+	 *
+	 * @param data Data to write
+	 */
+	public void raw(byte[] data) {
+		ensureCapacity(data.length);
+		System.arraycopy(data, 0, buffer, length, data.length);
+		length += data.length;
+	}
+
+	/**
+	 * Ends the head with an empty line
+	 */
+	public void end() {
+		raw(CRLF);
+	}
+
+	/**
+	 * Encodes a header line
+	 *
+	 * @param name  Header name
+	 * @param value Header value
+	 * @return Header line bytes
+	 */
+	public static byte[] encodeHeader(String name, String value) {
+		return (name + ": " + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void text(String str) {
+		int len = str.length();
+		ensureCapacity(len);
+		for (int i = 0; i < len; i++) {
+			char ch = str.charAt(i);
+			if (ch >= 0x80) {
+				// Fall back to UTF-8 for the remainder
+				byte[] rest = str.substring(i).getBytes(StandardCharsets.UTF_8);
+				raw(rest);
+				return;
+			}
+			buffer[length++] = (byte) ch;
+		}
+	}
+
+	private static boolean matches(byte[] data, int offset, String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if (data[offset + i] != str.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private void ensureCapacity(int amount) {
+		if (length + amount > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + amount));
+	}
+
+}
@@ -0,0 +1,193 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asf.connective.impl.http_1_1.ConnectiveHttpServer_1_1;
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.logger.ConnectiveLogger;
+import org.asf.connective.tasks.AsyncTask;
+import org.asf.connective.tasks.AsyncTaskManager;
+
+/**
+ *
+ * Selector-based HTTP/1.1 server, connections are owned by a small number of
+ * event loops and only occupy a worker thread while a request is processed
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ConnectiveHttpServer_1_1_Nio extends ConnectiveHttpServer_1_1 {
+
+	protected int eventLoopCount = Math.min(4, Runtime.getRuntime().availableProcessors());
+	protected NioEventLoop[] loops;
+	protected ServerSocketChannel serverChannel;
+
+	private AtomicInteger nextLoop = new AtomicInteger();
+
+	/**
+	 * Assigns the amount of event loops
+	 *
+	 * @param count Event loop count
+	 */
+	public void setEventLoopCount(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("Event loop count must be at least 1");
+		eventLoopCount = count;
+	}
+
+	/**
+	 * Retrieves the amount of event loops
+	 *
+	 * @return Event loop count
+	 */
+	public int getEventLoopCount() {
+		return eventLoopCount;
+	}
+
+	ConnectiveLogger logger() {
+		return getLogger();
+	}
+
+	@Override
+	public void start() throws IOException {
+		// Check state
+		if (socket != null)
+			throw new IllegalStateException("Server already running!");
+
+		// Start server
+		getLogger().debug(new ConnectiveLogMessage("startup",
+				"Starting server on " + address.getHostAddress() + ", port " + port + "...", null, null));
+		if (virtualThreads && !AsyncTaskManager.isVirtualThreadSupported())
+			getLogger().warn(new ConnectiveLogMessage("startup",
+					"Virtual threads are not supported by this Java version, using the thread pool instead", null,
+					null));
+		connected = true;
+		clients.open();
+		try {
+			openServerSockets();
+		} catch (IOException e) {
+			connected = false;
+			clients.close();
+			throw e;
+		}
+		serverChannel = socket.getChannel();
+
+		// Start loops, acceptors are spread over the first loops
+		loops = new NioEventLoop[eventLoopCount];
+		for (int i = 0; i < loops.length; i++)
+			loops[i] = new NioEventLoop(this, i);
+		for (NioEventLoop loop : loops)
+			loop.start();
+		for (int i = 0; i < sockets.length; i++)
+			loops[i % loops.length].registerAcceptor(sockets[i].getChannel());
+		serverThread = loops[0].getThread();
+		getLogger().debug(new ConnectiveLogMessage("startup", "Server online, waiting for requests...", null, null));
+	}
+
+	@Override
+	protected ServerSocket getServerSocket(int port, InetAddress ip) throws IOException {
+		ServerSocketChannel channel = ServerSocketChannel.open();
+		try {
+			applyReusePort(channel);
+			channel.bind(new InetSocketAddress(ip, port));
+			channel.configureBlocking(false);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel.socket();
+	}
+
+	/**
+	 * Called by the event loops to accept connections
+	 *
+	 * @param client Client channel
+	 */
+	void acceptChannel(SocketChannel client) throws IOException {
+		// Reject while the channel is still blocking
+		if (!clients.tryReserve(maxConnections)) {
+			rejectConnection(client.socket());
+			return;
+		}
+		NioEventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+
+		// Create the client off the loop as it resolves the remote host
+		AsyncTask setup = tryRunAsync(() -> {
+			RemoteClientHttp_1_1_Nio cl;
+			try {
+				client.configureBlocking(false);
+				acceptConnection(client.socket());
+				cl = RemoteClientHttp_1_1_Nio.create(client, this, loop);
+			} catch (Exception ex) {
+				clients.cancelReservation();
+				try {
+					client.close();
+				} catch (IOException e) {
+				}
+				if (connected)
+					getLogger().error(new ConnectiveLogMessage("server", "An error occurred accepting a connection",
+							ex, null));
+				return;
+			}
+			if (!clients.add(cl)) {
+				// Server stopped
+				try {
+					client.close();
+				} catch (IOException e) {
+				}
+				return;
+			}
+			try {
+				cl.beginReceive();
+			} catch (IOException ex) {
+				cl.closeConnection();
+				if (connected)
+					getLogger().error(new ConnectiveLogMessage("server", "An error occurred accepting a connection",
+							ex, null));
+			}
+		});
+		if (setup == null) {
+			// Task pool is full
+			clients.cancelReservation();
+			rejectConnection(client.socket());
+		}
+	}
+
+	@Override
+	protected void awaitSocketRelease() {
+		// The channels are only closed once their keys are flushed from the selectors
+		for (int i = 0; i < Math.min(sockets.length, loops.length); i++) {
+			NioEventLoop loop = loops[i];
+			loop.executeAndWait(() -> loop.flushCancelledKeys());
+		}
+	}
+
+	@Override
+	public void stop() throws IOException {
+		if (!connected)
+			return;
+		super.stop();
+		shutdownLoops();
+	}
+
+	@Override
+	public void stopForced() throws IOException {
+		if (!connected)
+			return;
+		super.stopForced();
+		shutdownLoops();
+	}
+
+	private void shutdownLoops() {
+		for (NioEventLoop loop : loops)
+			loop.shutdown();
+		serverChannel = null;
+	}
+
+}
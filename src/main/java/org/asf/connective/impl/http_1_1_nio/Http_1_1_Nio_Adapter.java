@@ -0,0 +1,35 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.util.Map;
+
+import org.asf.connective.ConnectiveHttpServer;
+import org.asf.connective.IServerAdapterDefinition;
+import org.asf.connective.impl.http_1_1.Http_1_1_Adapter;
+
+public class Http_1_1_Nio_Adapter implements IServerAdapterDefinition {
+
+	@Override
+	public String getName() {
+		return "HTTP/1.1-NIO";
+	}
+
+	@Override
+	public ConnectiveHttpServer createServer(Map<String, String> configuration) throws IllegalArgumentException {
+		ConnectiveHttpServer_1_1_Nio server = new ConnectiveHttpServer_1_1_Nio();
+		Http_1_1_Adapter.configureServer(server, configuration);
+		if (configuration.containsKey("event-loops"))
+			try {
+				server.setEventLoopCount(Integer.parseInt(configuration.get("event-loops")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed event loop count: " + configuration.get("event-loops"));
+			}
+		if (configuration.containsKey("Event-Loops"))
+			try {
+				server.setEventLoopCount(Integer.parseInt(configuration.get("Event-Loops")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed event loop count: " + configuration.get("Event-Loops"));
+			}
+		return server;
+	}
+
+}
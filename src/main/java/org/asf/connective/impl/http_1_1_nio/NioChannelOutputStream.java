@@ -0,0 +1,103 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.asf.connective.io.ConnectionOutputStream;
+
+/**
+ *
+ * Buffered output stream writing to a socket channel, waits on the event loop
+ * for the channel to become writable when the socket buffer is full
+ *
+ * @author Sky Swimmer
+ *
+ */
+class NioChannelOutputStream extends ConnectionOutputStream {
+
+	private SocketChannel channel;
+	private RemoteClientHttp_1_1_Nio client;
+
+	private Object writeLock = new Object();
+	private boolean writable;
+	private boolean closed;
+
+	public NioChannelOutputStream(SocketChannel channel) {
+		super(null);
+		this.channel = channel;
+	}
+
+	void attach(RemoteClientHttp_1_1_Nio client) {
+		this.client = client;
+	}
+
+	@Override
+	protected void writeOut(byte[] data, int offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+		while (buffer.hasRemaining()) {
+			if (channel.write(buffer) == 0)
+				awaitWritable();
+		}
+	}
+
+	@Override
+	protected void writeOut(byte[] head, int headLength, byte[] data, int offset, int length) throws IOException {
+		// Gathering write of the buffered data and the array
+		ByteBuffer[] buffers = new ByteBuffer[] { ByteBuffer.wrap(head, 0, headLength),
+				ByteBuffer.wrap(data, offset, length) };
+		while (buffers[1].hasRemaining()) {
+			if (channel.write(buffers) == 0)
+				awaitWritable();
+		}
+	}
+
+	@Override
+	protected void flushOut() throws IOException {
+	}
+
+	/**
+	 * Waits for the channel to become writable
+	 *
+	 * @throws IOException If the connection is closed while waiting
+	 */
+	void awaitWritable() throws IOException {
+		synchronized (writeLock) {
+			if (closed)
+				throw new IOException("Connection closed");
+			writable = false;
+			client.requestWriteInterest();
+			while (!writable && !closed) {
+				try {
+					writeLock.wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+			if (closed)
+				throw new IOException("Connection closed");
+		}
+	}
+
+	void signalWritable() {
+		synchronized (writeLock) {
+			writable = true;
+			writeLock.notifyAll();
+		}
+	}
+
+	void markClosed() {
+		synchronized (writeLock) {
+			closed = true;
+			writeLock.notifyAll();
+		}
+	}
+
+	@Override
+	protected void closeOut() throws IOException {
+		markClosed();
+		client.closeConnection();
+	}
+
+}
@@ -0,0 +1,215 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.asf.connective.io.BufferPool;
+import org.asf.connective.io.PooledBuffer;
+import org.asf.connective.logger.ConnectiveLogMessage;
+
+/**
+ *
+ * Selector event loop, owns a set of connections and reads from them until a
+ * request head is complete
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class NioEventLoop implements Runnable {
+
+	private ConnectiveHttpServer_1_1_Nio server;
+	private Selector selector;
+	private Thread thread;
+	private volatile boolean running;
+
+	private ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+	private HashSet<RemoteClientHttp_1_1_Nio> connections = new HashSet<RemoteClientHttp_1_1_Nio>();
+	private PooledBuffer readBuffer = BufferPool.getDirect().acquire(64 * 1024);
+
+	NioEventLoop(ConnectiveHttpServer_1_1_Nio server, int index) throws IOException {
+		this.server = server;
+		selector = Selector.open();
+		thread = new Thread(this, "Connective NIO event loop " + index);
+		thread.setDaemon(true);
+	}
+
+	/**
+	 * Retrieves the loop thread
+	 *
+	 * @return Thread instance
+	 */
+	public Thread getThread() {
+		return thread;
+	}
+
+	/**
+	 * Checks if the current thread is the loop thread
+	 *
+	 * @return True if called from the loop thread, false otherwise
+	 */
+	public boolean inLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Retrieves the amount of connections owned by this loop
+	 *
+	 * @return Connection count
+	 */
+	public int getConnectionCount() {
+		return connections.size();
+	}
+
+	void start() {
+		running = true;
+		thread.start();
+	}
+
+	void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Schedules a task to run on the loop thread
+	 *
+	 * @param task Task to run
+	 */
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (!inLoop())
+			selector.wakeup();
+	}
+
+	/**
+	 * Runs a task on the loop thread and waits for it to complete
+	 *
+	 * @param task Task to run
+	 */
+	public void executeAndWait(Runnable task) {
+		if (inLoop() || !running) {
+			task.run();
+			return;
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		execute(() -> {
+			try {
+				task.run();
+			} finally {
+				latch.countDown();
+			}
+		});
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+		}
+	}
+
+	void register(RemoteClientHttp_1_1_Nio client) {
+		execute(() -> {
+			try {
+				if (!client.isConnected())
+					return;
+				client.registerWith(selector);
+				connections.add(client);
+			} catch (IOException e) {
+				client.closeConnection();
+			}
+		});
+	}
+
+	void unregister(RemoteClientHttp_1_1_Nio client) {
+		execute(() -> connections.remove(client));
+	}
+
+	void registerAcceptor(ServerSocketChannel channel) {
+		execute(() -> {
+			try {
+				channel.register(selector, SelectionKey.OP_ACCEPT, channel);
+			} catch (IOException e) {
+				server.logger().error(
+						new ConnectiveLogMessage("server", "Failed to register the server channel", e, null));
+			}
+		});
+	}
+
+	/**
+	 * Flushes cancelled keys from the selector, loop thread only
+	 */
+	void flushCancelledKeys() {
+		try {
+			selector.selectNow();
+		} catch (IOException e) {
+		}
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				selector.select();
+
+				// Run tasks
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					try {
+						task.run();
+					} catch (Exception e) {
+						server.logger().error(new ConnectiveLogMessage("server",
+								"An error occurred running an event loop task", e, null));
+					}
+				}
+
+				// Handle keys
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid())
+						continue;
+					try {
+						if (key.attachment() instanceof ServerSocketChannel) {
+							// Accept connections
+							ServerSocketChannel ch = (ServerSocketChannel) key.attachment();
+							SocketChannel client;
+							while ((client = ch.accept()) != null)
+								server.acceptChannel(client);
+						} else
+							((RemoteClientHttp_1_1_Nio) key.attachment()).handleReady(key, readBuffer.buffer());
+					} catch (CancelledKeyException e) {
+					} catch (IOException e) {
+						if (key.attachment() instanceof RemoteClientHttp_1_1_Nio)
+							((RemoteClientHttp_1_1_Nio) key.attachment()).closeConnection();
+						else if (server.isRunning())
+							server.logger().error(new ConnectiveLogMessage("server",
+									"An error occurred running the server thread", e, null));
+					}
+				}
+			} catch (Exception e) {
+				if (running)
+					server.logger().error(
+							new ConnectiveLogMessage("server", "An error occurred running the event loop", e, null));
+			}
+		}
+
+		// Close
+		for (RemoteClientHttp_1_1_Nio client : new ArrayList<RemoteClientHttp_1_1_Nio>(connections))
+			client.closeConnection();
+		connections.clear();
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+		readBuffer.release();
+	}
+
+}
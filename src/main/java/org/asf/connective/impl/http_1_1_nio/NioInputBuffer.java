@@ -0,0 +1,184 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ *
+ * Input stream fed by the event loop, used by worker threads to read request
+ * bodies (and by protocol switchers once the connection is detached from the
+ * loop)
+ *
+ * @author Sky Swimmer
+ *
+ */
+class NioInputBuffer extends InputStream {
+
+	private static final int HIGH_WATER = 256 * 1024;
+	private static final int LOW_WATER = 64 * 1024;
+
+	private SocketChannel channel;
+	private RemoteClientHttp_1_1_Nio client;
+
+	private ArrayDeque<byte[]> chunks = new ArrayDeque<byte[]>();
+	private int chunkOffset;
+	private int available;
+
+	private boolean endOfStream;
+	private boolean closed;
+	private boolean detached;
+	private boolean paused;
+
+	public NioInputBuffer(SocketChannel channel) {
+		this.channel = channel;
+	}
+
+	void attach(RemoteClientHttp_1_1_Nio client) {
+		this.client = client;
+	}
+
+	/**
+	 * Adds data to the buffer (loop thread)
+	 *
+	 * @param data Data to add
+	 * @return True if the loop should stop reading until the buffer is consumed
+	 */
+	synchronized boolean feed(ByteBuffer data) {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		return feed(chunk);
+	}
+
+	/**
+	 * Adds data to the buffer (loop thread)
+	 *
+	 * @param chunk Data to add
+	 * @return True if the loop should stop reading until the buffer is consumed
+	 */
+	synchronized boolean feed(byte[] chunk) {
+		if (chunk.length == 0)
+			return paused;
+		chunks.add(chunk);
+		available += chunk.length;
+		notifyAll();
+		if (available >= HIGH_WATER)
+			paused = true;
+		return paused;
+	}
+
+	/**
+	 * Removes and returns all buffered data (loop thread)
+	 *
+	 * @return Buffered bytes
+	 */
+	synchronized byte[] drain() {
+		byte[] res = new byte[available];
+		int i = 0;
+		while (!chunks.isEmpty()) {
+			byte[] chunk = chunks.poll();
+			System.arraycopy(chunk, chunkOffset, res, i, chunk.length - chunkOffset);
+			i += chunk.length - chunkOffset;
+			chunkOffset = 0;
+		}
+		available = 0;
+		paused = false;
+		return res;
+	}
+
+	synchronized boolean hasReachedEndOfStream() {
+		return endOfStream;
+	}
+
+	synchronized void markEndOfStream() {
+		endOfStream = true;
+		notifyAll();
+	}
+
+	synchronized void markClosed() {
+		closed = true;
+		notifyAll();
+	}
+
+	/**
+	 * Switches to reading directly from the channel once buffered data runs out,
+	 * the channel must be in blocking mode
+	 */
+	synchronized void detach() {
+		detached = true;
+		notifyAll();
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int r = read(b, 0, 1);
+		if (r <= 0)
+			return -1;
+		return b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] buffer, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > buffer.length - off)
+			throw new IndexOutOfBoundsException();
+		if (len == 0)
+			return 0;
+
+		boolean resume = false;
+		int read = 0;
+		synchronized (this) {
+			while (available == 0 && !endOfStream && !closed && !detached) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+			if (available == 0) {
+				if (!detached || closed)
+					return -1;
+			} else {
+				// Copy buffered data
+				while (read < len && !chunks.isEmpty()) {
+					byte[] chunk = chunks.peek();
+					int count = Math.min(len - read, chunk.length - chunkOffset);
+					System.arraycopy(chunk, chunkOffset, buffer, off + read, count);
+					read += count;
+					chunkOffset += count;
+					if (chunkOffset == chunk.length) {
+						chunks.poll();
+						chunkOffset = 0;
+					}
+				}
+				available -= read;
+				if (paused && available < LOW_WATER) {
+					paused = false;
+					resume = true;
+				}
+			}
+		}
+		if (resume)
+			client.resumeReading();
+		if (read != 0)
+			return read;
+
+		// Detached, read from the channel directly
+		return channel.read(ByteBuffer.wrap(buffer, off, len));
+	}
+
+	@Override
+	public synchronized int available() {
+		return available;
+	}
+
+	@Override
+	public void close() throws IOException {
+		markClosed();
+		client.closeConnection();
+	}
+
+}
@@ -0,0 +1,260 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import org.asf.connective.impl.http_1_1.ConnectionRegistry;
+import org.asf.connective.impl.http_1_1.ProxyProtocolHeader;
+import org.asf.connective.impl.http_1_1.RemoteClientHttp_1_1;
+import org.asf.connective.io.FileRegion;
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.tasks.AsyncTask;
+
+/**
+ *
+ * NIO HTTP/1.1 client, request heads are read by the event loop, requests are
+ * processed on worker threads
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class RemoteClientHttp_1_1_Nio extends RemoteClientHttp_1_1 {
+
+	private static final int STATE_READING_HEAD = 0;
+	private static final int STATE_PROCESSING = 1;
+	private static final int STATE_DETACHED = 2;
+
+	private ConnectiveHttpServer_1_1_Nio server;
+	private NioEventLoop loop;
+	private SocketChannel channel;
+	private SelectionKey key;
+
+	private NioInputBuffer input;
+	private NioChannelOutputStream output;
+
+	private volatile int state = STATE_READING_HEAD;
+	private boolean awaitingProxyHeader;
+
+	private RemoteClientHttp_1_1_Nio(SocketChannel channel, ConnectiveHttpServer_1_1_Nio server, NioEventLoop loop,
+			NioInputBuffer input, NioChannelOutputStream output) {
+		super(channel.socket(), server, input, output);
+		this.server = server;
+		this.loop = loop;
+		this.channel = channel;
+		this.input = input;
+		this.output = output;
+		input.attach(this);
+		output.attach(this);
+		awaitingProxyHeader = server.expectsProxyProtocolHeader(getRemoteAddress());
+	}
+
+	/**
+	 * Creates a client for a non-blocking channel
+	 *
+	 * @param channel Client channel
+	 * @param server  Server instance
+	 * @param loop    Event loop that will own the connection
+	 * @return RemoteClientHttp_1_1_Nio instance
+	 */
+	static RemoteClientHttp_1_1_Nio create(SocketChannel channel, ConnectiveHttpServer_1_1_Nio server,
+			NioEventLoop loop) {
+		return new RemoteClientHttp_1_1_Nio(channel, server, loop, new NioInputBuffer(channel),
+				new NioChannelOutputStream(channel));
+	}
+
+	/**
+	 * Retrieves the event loop owning this connection
+	 *
+	 * @return NioEventLoop instance
+	 */
+	public NioEventLoop getEventLoop() {
+		return loop;
+	}
+
+	@Override
+	public void beginReceive() throws IOException {
+		requestNumber = 0;
+		receiving = false;
+		scheduleDeadline(server.getHeaderReadTimeout() * 1000l);
+		loop.register(this);
+	}
+
+	void registerWith(Selector selector) throws IOException {
+		key = channel.register(selector, SelectionKey.OP_READ, this);
+	}
+
+	void handleReady(SelectionKey key, ByteBuffer readBuffer) throws IOException {
+		// Wake up writers
+		if (key.isWritable()) {
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+			output.signalWritable();
+		}
+		if (!key.isValid() || !key.isReadable())
+			return;
+
+		// Read
+		readBuffer.clear();
+		int read = channel.read(readBuffer);
+		if (read == 0)
+			return;
+		if (read == -1) {
+			// End of stream
+			if (state == STATE_READING_HEAD)
+				closeConnection();
+			else {
+				input.markEndOfStream();
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+			}
+			return;
+		}
+		readBuffer.flip();
+
+		if (state == STATE_READING_HEAD) {
+			// Append to the request head
+			setConnectionState(ConnectionRegistry.STATE_READING);
+			parser.append(readBuffer);
+			parseHead();
+		} else if (input.feed(readBuffer)) {
+			// Body buffer is full, pause reading until the worker catches up
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		}
+	}
+
+	private boolean readProxyHeader() {
+		// Decode the PROXY protocol header ahead of the first request
+		ProxyProtocolHeader header;
+		try {
+			header = ProxyProtocolHeader.decode(parser.getBuffer(), parser.getLength());
+		} catch (IOException e) {
+			getLogger().error(new ConnectiveLogMessage("client", "Received an invalid PROXY protocol header", e, this));
+			closeConnection();
+			return false;
+		}
+		if (header == null)
+			return false;
+		awaitingProxyHeader = false;
+		parser.discard(header.getLength());
+		applyProxyHeader(header);
+		return true;
+	}
+
+	private void parseHead() {
+		if (awaitingProxyHeader && !readProxyHeader())
+			return;
+
+		// Find the end of the head
+		int end = parser.findHeadEnd();
+		if (end == -1) {
+			if (parser.isOverflowing()) {
+				// Head too large, respond with bad request
+				state = STATE_PROCESSING;
+				parser.reset();
+				dispatch(null);
+			}
+			return;
+		}
+
+		// Parse
+		state = STATE_PROCESSING;
+		HttpRequest msg = parseRequest(end);
+
+		// Move whatever follows the head into the body buffer
+		if (input.feed(parser.takeRemainder(end)))
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		dispatch(msg);
+	}
+
+	private void dispatch(HttpRequest msg) {
+		receiving = true;
+		cancelDeadline();
+		AsyncTask task = server.tryRunAsync(() -> {
+			if (!handleRequest(msg)) {
+				if (state != STATE_DETACHED && isConnected())
+					closeConnection();
+				return;
+			}
+
+			// Hand back to the event loop
+			if (isConnected() && server.isRunning() && requestNumber != 0)
+				loop.execute(() -> resumeHeadReading());
+			else if (isConnected())
+				closeConnection();
+		});
+		if (task == null) {
+			// Task pool is full, handlers never run on the event loop
+			closeConnection();
+		}
+	}
+
+	private void resumeHeadReading() {
+		if (!isConnected() || key == null || !key.isValid())
+			return;
+
+		// Pick up pipelined data, starting with what the connection stream read ahead
+		byte[] readAhead = takeBufferedInput();
+		parser.append(readAhead, 0, readAhead.length);
+		byte[] pipelined = input.drain();
+		parser.append(pipelined, 0, pipelined.length);
+		state = STATE_READING_HEAD;
+		if (input.hasReachedEndOfStream()) {
+			parseHead();
+			if (state == STATE_READING_HEAD)
+				closeConnection();
+			return;
+		}
+		key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+		parseHead();
+	}
+
+	void resumeReading() {
+		loop.execute(() -> {
+			if (key != null && key.isValid() && state == STATE_PROCESSING && !input.hasReachedEndOfStream())
+				key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+		});
+	}
+
+	void requestWriteInterest() {
+		loop.execute(() -> {
+			if (key != null && key.isValid())
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			else
+				output.signalWritable();
+		});
+	}
+
+	@Override
+	protected boolean transferFileRegion(FileRegion region) throws IOException {
+		output.flushBuffer();
+		while (region.getRemaining() > 0) {
+			if (region.transferTo(channel) == 0)
+				output.awaitWritable();
+		}
+		return true;
+	}
+
+	@Override
+	protected void prepareProtocolSwitch() throws IOException {
+		// Take the channel off the event loop and switch to blocking mode
+		state = STATE_DETACHED;
+		loop.executeAndWait(() -> {
+			if (key != null)
+				key.cancel();
+			loop.flushCancelledKeys();
+		});
+		channel.configureBlocking(true);
+		input.detach();
+	}
+
+	@Override
+	public void closeConnection() {
+		super.closeConnection();
+		input.markClosed();
+		output.markClosed();
+		loop.unregister(this);
+	}
+
+}
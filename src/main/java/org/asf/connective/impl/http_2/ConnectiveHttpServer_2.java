@@ -0,0 +1,41 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import org.asf.connective.impl.http_1_1.ConnectiveHttpServer_1_1;
+import org.asf.connective.impl.http_1_1.RemoteClientHttp_1_1;
+
+/**
+ *
+ * HTTP/2 server, accepts HTTP/2 with prior knowledge and h2c upgrades while
+ * serving HTTP/1.1 to clients that do neither
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ConnectiveHttpServer_2 extends ConnectiveHttpServer_1_1 {
+
+	protected Http2Configuration http2Configuration = new Http2Configuration();
+
+	/**
+	 * Retrieves the HTTP/2 settings of this server
+	 *
+	 * @return Http2Configuration instance
+	 */
+	public Http2Configuration getHttp2Configuration() {
+		return http2Configuration;
+	}
+
+	@Override
+	protected RemoteClientHttp_1_1 createClient(Socket client, InputStream in, OutputStream out) {
+		return new RemoteClientHttp_1_1_H2(client, this, in, out);
+	}
+
+	@Override
+	public String getProtocolName() {
+		return "HTTP/2";
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.asf.connective.impl.http_2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * HPACK header block decoder (RFC 7541), one instance per connection as the
+ * dynamic table is shared by all header blocks received on it
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class HpackDecoder {
+
+	private static final int DEFAULT_TABLE_SIZE = 4096;
+
+	private HpackTable table = new HpackTable(DEFAULT_TABLE_SIZE);
+	private int maxTableSize;
+
+	/**
+	 * Creates a decoder, the table starts at the protocol default size until the
+	 * encoder sends a size update
+	 *
+	 * @param maxTableSize Maximum dynamic table size the encoder may use, the
+	 *                     value of SETTINGS_HEADER_TABLE_SIZE we advertised
+	 */
+	public HpackDecoder(int maxTableSize) {
+		this.maxTableSize = maxTableSize;
+	}
+
+	/**
+	 * Retrieves the current dynamic table size
+	 *
+	 * @return Table size in octets
+	 */
+	public int getTableSize() {
+		return table.getSize();
+	}
+
+	/**
+	 * Decodes a header block
+	 *
+	 * @param block  Header block data
+	 * @param offset Block offset
+	 * @param length Block length
+	 * @return List of name and value arrays in the order they were received
+	 * @throws Http2Exception If the block is not valid
+	 */
+	public List<String[]> decode(byte[] block, int offset, int length) throws Http2Exception {
+		ArrayList<String[]> headers = new ArrayList<String[]>();
+		int[] pos = new int[] { offset };
+		int end = offset + length;
+		boolean headerSeen = false;
+		while (pos[0] < end) {
+			int b = block[pos[0]] & 0xff;
+			if ((b & 0x80) != 0) {
+				// Indexed header field
+				String[] entry = table.get(readInteger(block, pos, end, 7));
+				headers.add(new String[] { entry[0], entry[1] });
+				headerSeen = true;
+			} else if ((b & 0xc0) == 0x40) {
+				// Literal with incremental indexing
+				String[] entry = readLiteral(block, pos, end, 6);
+				table.add(entry[0], entry[1]);
+				headers.add(entry);
+				headerSeen = true;
+			} else if ((b & 0xe0) == 0x20) {
+				// Dynamic table size update, only valid at the start of a block
+				if (headerSeen)
+					throw new Http2Exception(Http2Exception.COMPRESSION_ERROR,
+							"Table size update after header field");
+				int size = readInteger(block, pos, end, 5);
+				if (size > maxTableSize)
+					throw new Http2Exception(Http2Exception.COMPRESSION_ERROR,
+							"Table size update exceeds the advertised limit");
+				table.setMaxSize(size);
+			} else {
+				// Literal without indexing or never indexed
+				headers.add(readLiteral(block, pos, end, 4));
+				headerSeen = true;
+			}
+		}
+		return headers;
+	}
+
+	private String[] readLiteral(byte[] block, int[] pos, int end, int prefix) throws Http2Exception {
+		int index = readInteger(block, pos, end, prefix);
+		String name;
+		if (index == 0)
+			name = readString(block, pos, end);
+		else
+			name = table.get(index)[0];
+		return new String[] { name, readString(block, pos, end) };
+	}
+
+	private String readString(byte[] block, int[] pos, int end) throws Http2Exception {
+		if (pos[0] >= end)
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Truncated header block");
+		boolean huffman = (block[pos[0]] & 0x80) != 0;
+		int length = readInteger(block, pos, end, 7);
+		if (length > end - pos[0])
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Truncated header block");
+		int start = pos[0];
+		pos[0] += length;
+		if (huffman)
+			return new String(HpackHuffman.decode(block, start, length), StandardCharsets.UTF_8);
+		return new String(block, start, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads a prefixed integer
+	 *
+	 * @param block  Block data
+	 * @param pos    Position holder, advanced past the integer
+	 * @param end    End of the block
+	 * @param prefix Prefix size in bits
+	 * @return Integer value
+	 * @throws Http2Exception If the integer is truncated or too large
+	 */
+	static int readInteger(byte[] block, int[] pos, int end, int prefix) throws Http2Exception {
+		if (pos[0] >= end)
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Truncated header block");
+		int max = (1 << prefix) - 1;
+		int value = block[pos[0]++] & max;
+		if (value < max)
+			return value;
+		int shift = 0;
+		while (true) {
+			if (pos[0] >= end)
+				throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Truncated header block");
+			int b = block[pos[0]++] & 0xff;
+			if (shift > 28)
+				throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Header integer overflow");
+			long result = value + ((long) (b & 0x7f) << shift);
+			if (result > Integer.MAX_VALUE)
+				throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Header integer overflow");
+			value = (int) result;
+			shift += 7;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * HPACK header block encoder (RFC 7541), one instance per connection, callers
+ * must serialize access as blocks have to be sent in the order they were
+ * encoded
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class HpackEncoder {
+
+	private static final int DEFAULT_TABLE_SIZE = 4096;
+
+	private HpackTable table = new HpackTable(DEFAULT_TABLE_SIZE);
+	private int minSizeUpdate = -1;
+	private int pendingSizeUpdate = -1;
+
+	/**
+	 * Applies the SETTINGS_HEADER_TABLE_SIZE value sent by the peer, the table
+	 * never grows beyond the default size
+	 *
+	 * @param size Maximum table size allowed by the peer
+	 */
+	public void setMaxTableSize(int size) {
+		size = Math.min(size, DEFAULT_TABLE_SIZE);
+		if (size == table.getMaxSize() && pendingSizeUpdate == -1)
+			return;
+
+		// Signal the smallest size first if it was reduced and raised again
+		if (minSizeUpdate == -1 || size < minSizeUpdate)
+			minSizeUpdate = size;
+		pendingSizeUpdate = size;
+		table.setMaxSize(size);
+	}
+
+	/**
+	 * Starts a header block, emits pending table size updates
+	 *
+	 * @param output Block output
+	 */
+	public void beginBlock(ByteArrayOutputStream output) {
+		if (pendingSizeUpdate == -1)
+			return;
+		if (minSizeUpdate < pendingSizeUpdate)
+			writeInteger(output, 0x20, 5, minSizeUpdate);
+		writeInteger(output, 0x20, 5, pendingSizeUpdate);
+		minSizeUpdate = -1;
+		pendingSizeUpdate = -1;
+	}
+
+	/**
+	 * Encodes a header field
+	 *
+	 * @param name   Header name, must be lowercase
+	 * @param value  Header value
+	 * @param output Block output
+	 */
+	public void encode(String name, String value, ByteArrayOutputStream output) {
+		int index = table.find(name, value);
+		if (index > 0) {
+			writeInteger(output, 0x80, 7, index);
+			return;
+		}
+		int nameIndex = -index;
+
+		if (isSensitive(name)) {
+			// Never indexed
+			writeInteger(output, 0x10, 4, nameIndex);
+		} else if (isVolatile(name)) {
+			// Without indexing, these rarely repeat and would only churn the table
+			writeInteger(output, 0x00, 4, nameIndex);
+		} else {
+			writeInteger(output, 0x40, 6, nameIndex);
+			table.add(name, value);
+		}
+		if (nameIndex == 0)
+			writeString(output, name);
+		writeString(output, value);
+	}
+
+	private static boolean isSensitive(String name) {
+		return name.equals("set-cookie") || name.equals("authorization") || name.equals("proxy-authorization")
+				|| name.equals("cookie");
+	}
+
+	private static boolean isVolatile(String name) {
+		return name.equals("content-length") || name.equals("etag") || name.equals("last-modified")
+				|| name.equals("content-range") || name.equals("location") || name.equals("age")
+				|| name.equals("expires");
+	}
+
+	private static void writeString(ByteArrayOutputStream output, String value) {
+		byte[] data = value.getBytes(StandardCharsets.UTF_8);
+		int huffmanLength = HpackHuffman.encodedLength(data);
+		if (huffmanLength < data.length) {
+			writeInteger(output, 0x80, 7, huffmanLength);
+			HpackHuffman.encode(data, output);
+		} else {
+			writeInteger(output, 0x00, 7, data.length);
+			output.write(data, 0, data.length);
+		}
+	}
+
+	/**
+	 * Writes a prefixed integer
+	 *
+	 * @param output Block output
+	 * @param flags  Bits above the prefix
+	 * @param prefix Prefix size in bits
+	 * @param value  Integer value
+	 */
+	static void writeInteger(ByteArrayOutputStream output, int flags, int prefix, int value) {
+		int max = (1 << prefix) - 1;
+		if (value < max) {
+			output.write(flags | value);
+			return;
+		}
+		output.write(flags | max);
+		value -= max;
+		while (value >= 0x80) {
+			output.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		output.write(value);
+	}
+
+}
@@ -0,0 +1,161 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ *
+ * HPACK Huffman code (RFC 7541 Appendix B), the code is canonical so it is
+ * rebuilt from the code lengths of each symbol
+ *
+ * @author Sky Swimmer
+ *
+ */
+class HpackHuffman {
+
+	private static final int EOS = 256;
+
+	// Symbols by code length
+	private static final int[][] CODE_LENGTHS = new int[][] { { 5, '0', '1', '2', 'a', 'c', 'e', 'i', 'o', 's', 't' },
+			{ 6, ' ', '%', '-', '.', '/', '3', '4', '5', '6', '7', '8', '9', '=', 'A', '_', 'b', 'd', 'f', 'g', 'h',
+					'l', 'm', 'n', 'p', 'r', 'u' },
+			{ 7, ':', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T',
+					'U', 'V', 'W', 'Y', 'j', 'k', 'q', 'v', 'w', 'x', 'y', 'z' },
+			{ 8, '&', '*', ',', ';', 'X', 'Z' }, { 10, '!', '"', '(', ')', '?' }, { 11, '\'', '+', '|' },
+			{ 12, '#', '>' }, { 13, 0, '$', '@', '[', ']', '~' }, { 14, '^', '}' }, { 15, '<', '`', '{' },
+			{ 19, '\\', 195, 208 }, { 20, 128, 130, 131, 162, 184, 194, 224, 226 },
+			{ 21, 153, 161, 167, 172, 176, 177, 179, 209, 216, 217, 227, 229, 230 },
+			{ 22, 129, 132, 133, 134, 136, 146, 154, 156, 160, 163, 164, 169, 170, 173, 178, 181, 185, 186, 187, 189,
+					190, 196, 198, 228, 232, 233 },
+			{ 23, 1, 135, 137, 138, 139, 140, 141, 143, 147, 149, 150, 151, 152, 155, 157, 158, 165, 166, 168, 174,
+					175, 180, 182, 183, 188, 191, 197, 231, 239 },
+			{ 24, 9, 142, 144, 145, 148, 159, 171, 206, 215, 225, 236, 237 }, { 25, 199, 207, 234, 235 },
+			{ 26, 192, 193, 200, 201, 202, 205, 210, 213, 218, 219, 238, 240, 242, 243, 255 },
+			{ 27, 203, 204, 211, 212, 214, 221, 222, 223, 241, 244, 245, 246, 247, 248, 250, 251, 252, 253, 254 },
+			{ 28, 2, 3, 4, 5, 6, 7, 8, 11, 12, 14, 15, 16, 17, 18, 19, 20, 21, 23, 24, 25, 26, 27, 28, 29, 30, 31,
+					127, 220, 249 },
+			{ 30, 10, 13, 22, EOS } };
+
+	private static final int[] CODES = new int[257];
+	private static final byte[] LENGTHS = new byte[257];
+
+	// Decoding tree, children are stored at node * 2 + bit, leaves hold -(symbol +
+	// 1)
+	private static final int[] TREE = new int[257 * 2 * 2];
+	private static int treeSize = 1;
+
+	static {
+		// Assign canonical codes
+		int code = 0;
+		int previousLength = CODE_LENGTHS[0][0];
+		int assigned = 0;
+		for (int[] group : CODE_LENGTHS) {
+			code <<= group[0] - previousLength;
+			previousLength = group[0];
+			for (int i = 1; i < group.length; i++) {
+				if (LENGTHS[group[i]] != 0)
+					throw new IllegalStateException("Duplicate Huffman symbol " + group[i]);
+				CODES[group[i]] = code++;
+				LENGTHS[group[i]] = (byte) group[0];
+				assigned++;
+			}
+		}
+		if (assigned != 257)
+			throw new IllegalStateException("Incomplete Huffman table");
+
+		// Build decoding tree
+		for (int sym = 0; sym < 257; sym++) {
+			int node = 0;
+			for (int bit = LENGTHS[sym] - 1; bit >= 0; bit--) {
+				int index = node * 2 + ((CODES[sym] >>> bit) & 1);
+				if (bit == 0) {
+					TREE[index] = -(sym + 1);
+				} else {
+					if (TREE[index] == 0)
+						TREE[index] = treeSize++;
+					node = TREE[index];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the encoded length of data
+	 *
+	 * @param data Data to encode
+	 * @return Encoded length in bytes
+	 */
+	public static int encodedLength(byte[] data) {
+		long bits = 0;
+		for (byte b : data)
+			bits += LENGTHS[b & 0xff];
+		return (int) ((bits + 7) / 8);
+	}
+
+	/**
+	 * Encodes data
+	 *
+	 * @param data   Data to encode
+	 * @param output Output stream
+	 */
+	public static void encode(byte[] data, ByteArrayOutputStream output) {
+		long current = 0;
+		int bits = 0;
+		for (byte b : data) {
+			int sym = b & 0xff;
+			current = (current << LENGTHS[sym]) | CODES[sym];
+			bits += LENGTHS[sym];
+			while (bits >= 8) {
+				bits -= 8;
+				output.write((int) (current >>> bits));
+			}
+		}
+
+		// Pad with the most significant bits of EOS
+		if (bits > 0)
+			output.write((int) ((current << (8 - bits)) | (0xff >>> bits)));
+	}
+
+	/**
+	 * Decodes data
+	 *
+	 * @param data   Data array
+	 * @param offset Data offset
+	 * @param length Data length
+	 * @return Decoded bytes
+	 * @throws Http2Exception If the data is not valid
+	 */
+	public static byte[] decode(byte[] data, int offset, int length) throws Http2Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(length * 8 / 5);
+		int node = 0;
+		int depth = 0;
+		boolean allOnes = true;
+		for (int i = offset; i < offset + length; i++) {
+			int b = data[i] & 0xff;
+			for (int bit = 7; bit >= 0; bit--) {
+				int value = (b >>> bit) & 1;
+				int next = TREE[node * 2 + value];
+				depth++;
+				allOnes &= value == 1;
+				if (next < 0) {
+					int sym = -next - 1;
+					if (sym == EOS)
+						throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Huffman EOS in string literal");
+					output.write(sym);
+					node = 0;
+					depth = 0;
+					allOnes = true;
+				} else if (next == 0) {
+					throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Invalid Huffman code");
+				} else {
+					node = next;
+				}
+			}
+		}
+
+		// Padding must be shorter than 8 bits and consist of the EOS prefix
+		if (depth > 7 || !allOnes)
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Invalid Huffman padding");
+		return output.toByteArray();
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.asf.connective.impl.http_2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ *
+ * HPACK indexing table, the static table (RFC 7541 Appendix A) followed by a
+ * size-limited dynamic table
+ *
+ * @author Sky Swimmer
+ *
+ */
+class HpackTable {
+
+	static final String[][] STATIC_TABLE = new String[][] { { ":authority", "" }, { ":method", "GET" },
+			{ ":method", "POST" }, { ":path", "/" }, { ":path", "/index.html" }, { ":scheme", "http" },
+			{ ":scheme", "https" }, { ":status", "200" }, { ":status", "204" }, { ":status", "206" },
+			{ ":status", "304" }, { ":status", "400" }, { ":status", "404" }, { ":status", "500" },
+			{ "accept-charset", "" }, { "accept-encoding", "gzip, deflate" }, { "accept-language", "" },
+			{ "accept-ranges", "" }, { "accept", "" }, { "access-control-allow-origin", "" }, { "age", "" },
+			{ "allow", "" }, { "authorization", "" }, { "cache-control", "" }, { "content-disposition", "" },
+			{ "content-encoding", "" }, { "content-language", "" }, { "content-length", "" },
+			{ "content-location", "" }, { "content-range", "" }, { "content-type", "" }, { "cookie", "" },
+			{ "date", "" }, { "etag", "" }, { "expect", "" }, { "expires", "" }, { "from", "" }, { "host", "" },
+			{ "if-match", "" }, { "if-modified-since", "" }, { "if-none-match", "" }, { "if-range", "" },
+			{ "if-unmodified-since", "" }, { "last-modified", "" }, { "link", "" }, { "location", "" },
+			{ "max-forwards", "" }, { "proxy-authenticate", "" }, { "proxy-authorization", "" }, { "range", "" },
+			{ "referer", "" }, { "refresh", "" }, { "retry-after", "" }, { "server", "" }, { "set-cookie", "" },
+			{ "strict-transport-security", "" }, { "transfer-encoding", "" }, { "user-agent", "" }, { "vary", "" },
+			{ "via", "" }, { "www-authenticate", "" } };
+
+	private static final HashMap<String, Integer> STATIC_NAMES = new HashMap<String, Integer>();
+	private static final HashMap<String, Integer> STATIC_ENTRIES = new HashMap<String, Integer>();
+
+	static {
+		for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+			STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+			STATIC_ENTRIES.put(STATIC_TABLE[i][0] + "\0" + STATIC_TABLE[i][1], i + 1);
+		}
+	}
+
+	// Oldest entry first
+	private ArrayList<String[]> entries = new ArrayList<String[]>();
+	private ArrayList<Integer> entrySizes = new ArrayList<Integer>();
+	private int size;
+	private int maxSize;
+
+	public HpackTable(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Retrieves the current dynamic table size
+	 *
+	 * @return Table size in octets
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the maximum dynamic table size
+	 *
+	 * @return Maximum table size in octets
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Retrieves the amount of dynamic entries
+	 *
+	 * @return Dynamic entry count
+	 */
+	public int getDynamicEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Changes the maximum dynamic table size, evicting entries as needed
+	 *
+	 * @param maxSize New maximum size in octets
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		evict(0);
+	}
+
+	/**
+	 * Retrieves an entry by index
+	 *
+	 * @param index Entry index, starting at 1
+	 * @return Name and value array
+	 * @throws Http2Exception If the index is not valid
+	 */
+	public String[] get(int index) throws Http2Exception {
+		if (index <= 0 || index > STATIC_TABLE.length + entries.size())
+			throw new Http2Exception(Http2Exception.COMPRESSION_ERROR, "Invalid header index " + index);
+		if (index <= STATIC_TABLE.length)
+			return STATIC_TABLE[index - 1];
+		return entries.get(entries.size() - 1 - (index - STATIC_TABLE.length - 1));
+	}
+
+	/**
+	 * Adds an entry to the dynamic table
+	 *
+	 * @param name  Header name
+	 * @param value Header value
+	 */
+	public void add(String name, String value) {
+		int entrySize = entrySize(name, value);
+		if (entrySize > maxSize) {
+			// Entries larger than the table empty it
+			entries.clear();
+			entrySizes.clear();
+			size = 0;
+			return;
+		}
+		evict(entrySize);
+		entries.add(new String[] { name, value });
+		entrySizes.add(entrySize);
+		size += entrySize;
+	}
+
+	/**
+	 * Finds an entry
+	 *
+	 * @param name  Header name
+	 * @param value Header value
+	 * @return Index of a matching entry, the negated index of an entry with a
+	 *         matching name or 0 if not found
+	 */
+	public int find(String name, String value) {
+		Integer index = STATIC_ENTRIES.get(name + "\0" + value);
+		if (index != null)
+			return index;
+		int nameIndex = 0;
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			String[] entry = entries.get(i);
+			if (entry[0].equals(name)) {
+				int dynamicIndex = STATIC_TABLE.length + entries.size() - i;
+				if (entry[1].equals(value))
+					return dynamicIndex;
+				if (nameIndex == 0)
+					nameIndex = -dynamicIndex;
+			}
+		}
+		index = STATIC_NAMES.get(name);
+		if (index != null)
+			return -index;
+		return nameIndex;
+	}
+
+	/**
+	 * Calculates the size of an entry
+	 *
+	 * @param name  Header name
+	 * @param value Header value
+	 * @return Entry size in octets
+	 */
+	public static int entrySize(String name, String value) {
+		return name.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 32;
+	}
+
+	private void evict(int required) {
+		while (size + required > maxSize && !entries.isEmpty()) {
+			entries.remove(0);
+			size -= entrySizes.remove(0);
+		}
+	}
+
+}
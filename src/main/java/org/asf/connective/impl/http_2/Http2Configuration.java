@@ -0,0 +1,178 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ *
+ * HTTP/2 connection settings advertised to clients
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class Http2Configuration {
+
+	public static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+	public static final int SETTINGS_ENABLE_PUSH = 0x2;
+	public static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+	public static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+	public static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+	public static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+	public static final int MIN_FRAME_SIZE = 16384;
+	public static final int MAX_FRAME_SIZE = 16777215;
+	public static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+	protected int headerTableSize = 4096;
+	protected int maxConcurrentStreams = 100;
+	protected int initialWindowSize = 65535;
+	protected int maxFrameSize = MIN_FRAME_SIZE;
+	protected int maxHeaderListSize = 64 * 1024;
+	protected int idleTimeout = 60;
+
+	/**
+	 * Retrieves the maximum HPACK dynamic table size clients may use
+	 *
+	 * @return Table size in octets
+	 */
+	public int getHeaderTableSize() {
+		return headerTableSize;
+	}
+
+	/**
+	 * Assigns the maximum HPACK dynamic table size clients may use
+	 *
+	 * @param size Table size in octets
+	 */
+	public void setHeaderTableSize(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("Header table size cannot be negative");
+		headerTableSize = size;
+	}
+
+	/**
+	 * Retrieves the maximum amount of streams a client may have open at once
+	 *
+	 * @return Maximum concurrent stream count
+	 */
+	public int getMaxConcurrentStreams() {
+		return maxConcurrentStreams;
+	}
+
+	/**
+	 * Assigns the maximum amount of streams a client may have open at once
+	 *
+	 * @param streams Maximum concurrent stream count
+	 */
+	public void setMaxConcurrentStreams(int streams) {
+		if (streams < 1)
+			throw new IllegalArgumentException("At least one concurrent stream is required");
+		maxConcurrentStreams = streams;
+	}
+
+	/**
+	 * Retrieves the initial receive window of new streams, this bounds the
+	 * request body data buffered per stream
+	 *
+	 * @return Window size in bytes
+	 */
+	public int getInitialWindowSize() {
+		return initialWindowSize;
+	}
+
+	/**
+	 * Assigns the initial receive window of new streams
+	 *
+	 * @param size Window size in bytes
+	 */
+	public void setInitialWindowSize(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("Window size must be positive");
+		initialWindowSize = size;
+	}
+
+	/**
+	 * Retrieves the largest frame payload clients may send
+	 *
+	 * @return Frame size in bytes
+	 */
+	public int getMaxFrameSize() {
+		return maxFrameSize;
+	}
+
+	/**
+	 * Assigns the largest frame payload clients may send
+	 *
+	 * @param size Frame size in bytes, between 16384 and 16777215
+	 */
+	public void setMaxFrameSize(int size) {
+		if (size < MIN_FRAME_SIZE || size > MAX_FRAME_SIZE)
+			throw new IllegalArgumentException("Frame size must be between " + MIN_FRAME_SIZE + " and " + MAX_FRAME_SIZE);
+		maxFrameSize = size;
+	}
+
+	/**
+	 * Retrieves the maximum size of a request header list
+	 *
+	 * @return Header list size in octets
+	 */
+	public int getMaxHeaderListSize() {
+		return maxHeaderListSize;
+	}
+
+	/**
+	 * Assigns the maximum size of a request header list
+	 *
+	 * @param size Header list size in octets
+	 */
+	public void setMaxHeaderListSize(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("Header list size must be positive");
+		maxHeaderListSize = size;
+	}
+
+	/**
+	 * Retrieves the time a connection may remain without open streams before it
+	 * is closed
+	 *
+	 * @return Timeout in seconds
+	 */
+	public int getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Assigns the time a connection may remain without open streams before it is
+	 * closed
+	 *
+	 * @param seconds Timeout in seconds
+	 */
+	public void setIdleTimeout(int seconds) {
+		idleTimeout = seconds;
+	}
+
+	/**
+	 * Encodes the SETTINGS frame payload advertising this configuration
+	 *
+	 * @return Payload bytes
+	 */
+	public byte[] encodeSettings() {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		writeSetting(payload, SETTINGS_HEADER_TABLE_SIZE, headerTableSize);
+		writeSetting(payload, SETTINGS_ENABLE_PUSH, 0);
+		writeSetting(payload, SETTINGS_MAX_CONCURRENT_STREAMS, maxConcurrentStreams);
+		writeSetting(payload, SETTINGS_INITIAL_WINDOW_SIZE, initialWindowSize);
+		writeSetting(payload, SETTINGS_MAX_FRAME_SIZE, maxFrameSize);
+		writeSetting(payload, SETTINGS_MAX_HEADER_LIST_SIZE, maxHeaderListSize);
+		return payload.toByteArray();
+	}
+
+	private static void writeSetting(ByteArrayOutputStream payload, int id, int value) {
+		payload.write(id >>> 8);
+		payload.write(id);
+		payload.write(value >>> 24);
+		payload.write(value >>> 16);
+		payload.write(value >>> 8);
+		payload.write(value);
+	}
+
+}
@@ -0,0 +1,788 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.objects.HttpRequest;
+
+/**
+ *
+ * HTTP/2 connection, reads frames on the connection thread and runs every
+ * request stream as its own task, frames of all streams are written through
+ * the same buffered connection output
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class Http2Connection {
+
+	// Frame types
+	public static final int FRAME_DATA = 0x0;
+	public static final int FRAME_HEADERS = 0x1;
+	public static final int FRAME_PRIORITY = 0x2;
+	public static final int FRAME_RST_STREAM = 0x3;
+	public static final int FRAME_SETTINGS = 0x4;
+	public static final int FRAME_PUSH_PROMISE = 0x5;
+	public static final int FRAME_PING = 0x6;
+	public static final int FRAME_GOAWAY = 0x7;
+	public static final int FRAME_WINDOW_UPDATE = 0x8;
+	public static final int FRAME_CONTINUATION = 0x9;
+
+	// Frame flags
+	public static final int FLAG_END_STREAM = 0x1;
+	public static final int FLAG_ACK = 0x1;
+	public static final int FLAG_END_HEADERS = 0x4;
+	public static final int FLAG_PADDED = 0x8;
+	public static final int FLAG_PRIORITY = 0x20;
+
+	private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final int PREFACE_HEAD_LENGTH = 18;
+	private static final int DEFAULT_WINDOW_SIZE = 65535;
+
+	private RemoteClientHttp_1_1_H2 client;
+	private ConnectiveHttpServer_2 server;
+	private Http2Configuration config;
+	private InputStream in;
+	private OutputStream out;
+
+	private HpackDecoder decoder;
+	private HpackEncoder encoder = new HpackEncoder();
+	private final Object writeLock = new Object();
+
+	// Guarded by this connection
+	private HashMap<Integer, RemoteClientHttp_2> streams = new HashMap<Integer, RemoteClientHttp_2>();
+	private long sendWindow = DEFAULT_WINDOW_SIZE;
+	private int peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+	private boolean settingsAcknowledged;
+
+	private volatile int peerMaxFrameSize = Http2Configuration.MIN_FRAME_SIZE;
+	private volatile boolean goingAway;
+	private volatile boolean closed;
+	private volatile int lastStreamId;
+
+	// Reader state, streams up to the highest ID are no longer idle even if they
+	// were refused after GOAWAY
+	private int highestStreamId;
+	private byte[] frameHeader = new byte[9];
+	private byte[] payload = new byte[Http2Configuration.MIN_FRAME_SIZE];
+	private int receiveWindow = DEFAULT_WINDOW_SIZE;
+	private int receiveWindowTarget;
+	private ByteArrayOutputStream headerBlock;
+	private int headerStreamId;
+	private boolean headerEndStream;
+
+	public Http2Connection(RemoteClientHttp_1_1_H2 client, ConnectiveHttpServer_2 server, InputStream in,
+			OutputStream out) {
+		this.client = client;
+		this.server = server;
+		this.config = server.getHttp2Configuration();
+		this.in = in;
+		this.out = out;
+		decoder = new HpackDecoder(config.getHeaderTableSize());
+		receiveWindowTarget = Math.max(DEFAULT_WINDOW_SIZE, config.getInitialWindowSize());
+	}
+
+	/**
+	 * Retrieves the connection client
+	 *
+	 * @return RemoteClientHttp_1_1_H2 instance
+	 */
+	public RemoteClientHttp_1_1_H2 getClient() {
+		return client;
+	}
+
+	/**
+	 * Retrieves the server
+	 *
+	 * @return ConnectiveHttpServer_2 instance
+	 */
+	public ConnectiveHttpServer_2 getServer() {
+		return server;
+	}
+
+	/**
+	 * Retrieves the amount of streams that are being processed
+	 *
+	 * @return Active stream count
+	 */
+	public synchronized int getActiveStreamCount() {
+		return streams.size();
+	}
+
+	/**
+	 * Checks if the connection is still open
+	 *
+	 * @return True if open, false otherwise
+	 */
+	public boolean isOpen() {
+		return !closed;
+	}
+
+	/**
+	 * Retrieves the largest frame payload the peer accepts
+	 *
+	 * @return Frame size in bytes
+	 */
+	public int getPeerMaxFrameSize() {
+		return peerMaxFrameSize;
+	}
+
+	/**
+	 * Runs the connection until it is closed
+	 *
+	 * @param prefaceHeadRead True if the first line of the connection preface was
+	 *                        already consumed by the HTTP/1.1 parser, false to
+	 *                        read the full preface
+	 * @param upgradeRequest  Request that was upgraded to HTTP/2 and becomes
+	 *                        stream 1, null if none
+	 * @param upgradeSettings Decoded HTTP2-Settings payload of the upgrade
+	 *                        request, null if none
+	 */
+	public void serve(boolean prefaceHeadRead, HttpRequest upgradeRequest, byte[] upgradeSettings) {
+		try {
+			try {
+				// Send our settings, this must be the first frame
+				client.startIdleTimeout(server.getHeaderReadTimeout() * 1000l);
+				synchronized (writeLock) {
+					byte[] settings = config.encodeSettings();
+					writeFrame(FRAME_SETTINGS, 0, 0, settings, 0, settings.length);
+					if (receiveWindowTarget > DEFAULT_WINDOW_SIZE)
+						writeWindowUpdateFrame(0, receiveWindowTarget - DEFAULT_WINDOW_SIZE);
+					out.flush();
+				}
+				receiveWindow = receiveWindowTarget;
+
+				// Apply settings sent with the upgrade request
+				if (upgradeSettings != null)
+					applySettings(upgradeSettings, upgradeSettings.length);
+
+				// Read the client preface, a SETTINGS frame must follow it
+				readPreface(prefaceHeadRead);
+				if (readFrame() != FRAME_SETTINGS || (frameHeader[4] & FLAG_ACK) != 0)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Expected SETTINGS after the preface");
+				handleFrame(FRAME_SETTINGS, frameHeader[4] & 0xff, readStreamId(frameHeader, 5), frameLength());
+
+				// Start the upgraded request
+				if (upgradeRequest != null) {
+					lastStreamId = 1;
+					highestStreamId = 1;
+					RemoteClientHttp_2 stream = new RemoteClientHttp_2(this, 1, DEFAULT_WINDOW_SIZE);
+					stream.attachRequest(upgradeRequest);
+					openStream(stream);
+				} else
+					client.startIdleTimeout(config.getIdleTimeout() * 1000l);
+
+				// Read frames
+				while (!closed) {
+					if (goingAway && getActiveStreamCount() == 0)
+						break;
+					int type = readFrame();
+					try {
+						handleFrame(type, frameHeader[4] & 0xff, readStreamId(frameHeader, 5), frameLength());
+					} catch (Http2Exception e) {
+						if (e.isConnectionError())
+							throw e;
+						resetStream(e.getStreamId(), e.getErrorCode());
+					}
+				}
+				goAway(Http2Exception.NO_ERROR, null);
+			} catch (Http2Exception e) {
+				client.getLogger().debug(new ConnectiveLogMessage("http2",
+						"Closing HTTP/2 connection due to a protocol error: " + e.getMessage(), null, client));
+				goAway(e.getErrorCode(), e.getMessage());
+			}
+		} catch (IOException e) {
+			// Connection lost
+		} finally {
+			close();
+		}
+	}
+
+	private void readPreface(boolean headRead) throws IOException {
+		int offset = headRead ? PREFACE_HEAD_LENGTH : 0;
+		byte[] preface = new byte[PREFACE.length - offset];
+		readFully(preface, preface.length);
+		for (int i = 0; i < preface.length; i++) {
+			if (preface[i] != PREFACE[offset + i])
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid connection preface");
+		}
+	}
+
+	private int readFrame() throws IOException {
+		readFully(frameHeader, 9);
+		int length = frameLength();
+		if (length > config.getMaxFrameSize())
+			throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Frame exceeds the maximum frame size");
+		if (length > payload.length)
+			payload = new byte[Math.max(length, payload.length * 2)];
+		readFully(payload, length);
+		return frameHeader[3] & 0xff;
+	}
+
+	private int frameLength() {
+		return ((frameHeader[0] & 0xff) << 16) | ((frameHeader[1] & 0xff) << 8) | (frameHeader[2] & 0xff);
+	}
+
+	private void readFully(byte[] buffer, int length) throws IOException {
+		int read = 0;
+		while (read < length) {
+			int r = in.read(buffer, read, length - read);
+			if (r == -1)
+				throw new IOException("Unexpected End of File");
+			read += r;
+		}
+	}
+
+	private void handleFrame(int type, int flags, int streamId, int length) throws IOException {
+		// Header blocks cannot be interleaved with other frames
+		if (headerBlock != null && (type != FRAME_CONTINUATION || streamId != headerStreamId))
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Expected CONTINUATION frame");
+
+		switch (type) {
+
+		case FRAME_DATA: {
+			handleData(flags, streamId, length);
+			break;
+		}
+
+		case FRAME_HEADERS: {
+			if (streamId == 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "HEADERS frame on stream 0");
+			int offset = 0;
+			int end = length;
+			if ((flags & FLAG_PADDED) != 0) {
+				if (length < 1)
+					throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Truncated HEADERS frame");
+				end -= payload[0] & 0xff;
+				offset++;
+			}
+			if ((flags & FLAG_PRIORITY) != 0)
+				offset += 5;
+			if (end < offset)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid HEADERS padding");
+			headerStreamId = streamId;
+			headerEndStream = (flags & FLAG_END_STREAM) != 0;
+			headerBlock = new ByteArrayOutputStream();
+			appendHeaderBlock(offset, end - offset);
+			if ((flags & FLAG_END_HEADERS) != 0)
+				completeHeaders();
+			break;
+		}
+
+		case FRAME_CONTINUATION: {
+			if (headerBlock == null)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+			appendHeaderBlock(0, length);
+			if ((flags & FLAG_END_HEADERS) != 0)
+				completeHeaders();
+			break;
+		}
+
+		case FRAME_PRIORITY: {
+			// Prioritization is not supported, streams are handled as they arrive
+			if (streamId == 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "PRIORITY frame on stream 0");
+			if (length != 5)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, streamId, "Invalid PRIORITY frame");
+			break;
+		}
+
+		case FRAME_RST_STREAM: {
+			if (streamId == 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "RST_STREAM frame on stream 0");
+			if (length != 4)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid RST_STREAM frame");
+			if (streamId > highestStreamId)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "RST_STREAM frame on idle stream");
+			RemoteClientHttp_2 stream = getStream(streamId);
+			if (stream != null) {
+				stream.receiveReset(readInt(payload, 0));
+				streamClosed(stream);
+			}
+			break;
+		}
+
+		case FRAME_SETTINGS: {
+			if (streamId != 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "SETTINGS frame on a stream");
+			if ((flags & FLAG_ACK) != 0) {
+				if (length != 0)
+					throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "SETTINGS acknowledgement with payload");
+				synchronized (this) {
+					settingsAcknowledged = true;
+				}
+				break;
+			}
+			if (length % 6 != 0)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid SETTINGS frame");
+			applySettings(payload, length);
+			synchronized (writeLock) {
+				writeFrame(FRAME_SETTINGS, FLAG_ACK, 0, payload, 0, 0);
+				out.flush();
+			}
+			break;
+		}
+
+		case FRAME_PING: {
+			if (streamId != 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "PING frame on a stream");
+			if (length != 8)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid PING frame");
+			if ((flags & FLAG_ACK) == 0) {
+				synchronized (writeLock) {
+					writeFrame(FRAME_PING, FLAG_ACK, 0, payload, 0, 8);
+					out.flush();
+				}
+			}
+			break;
+		}
+
+		case FRAME_GOAWAY: {
+			if (streamId != 0)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "GOAWAY frame on a stream");
+			if (length < 8)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid GOAWAY frame");
+
+			// Finish the active streams, then close
+			goingAway = true;
+			break;
+		}
+
+		case FRAME_WINDOW_UPDATE: {
+			if (length != 4)
+				throw new Http2Exception(Http2Exception.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame");
+			int increment = readInt(payload, 0) & 0x7fffffff;
+			if (streamId == 0) {
+				if (increment == 0)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Zero WINDOW_UPDATE increment");
+				synchronized (this) {
+					sendWindow += increment;
+					if (sendWindow > Http2Configuration.MAX_WINDOW_SIZE)
+						throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Connection window overflow");
+					notifyAll();
+				}
+			} else {
+				if (streamId > highestStreamId)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "WINDOW_UPDATE frame on idle stream");
+				if (increment == 0)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Zero WINDOW_UPDATE increment");
+				synchronized (this) {
+					RemoteClientHttp_2 stream = streams.get(streamId);
+					if (stream != null) {
+						stream.sendWindow += increment;
+						if (stream.sendWindow > Http2Configuration.MAX_WINDOW_SIZE)
+							throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, streamId,
+									"Stream window overflow");
+						notifyAll();
+					}
+				}
+			}
+			break;
+		}
+
+		case FRAME_PUSH_PROMISE:
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Clients cannot push streams");
+
+		default:
+			// Unknown frame types are ignored
+			break;
+
+		}
+	}
+
+	private void handleData(int flags, int streamId, int length) throws IOException {
+		if (streamId == 0)
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "DATA frame on stream 0");
+		int offset = 0;
+		int dataLength = length;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (length < 1 || (payload[0] & 0xff) >= length)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid DATA padding");
+			offset = 1;
+			dataLength = length - 1 - (payload[0] & 0xff);
+		}
+
+		// Connection flow control covers the entire frame, the window is refilled
+		// right away as the stream windows bound what is buffered
+		receiveWindow -= length;
+		if (receiveWindow < 0)
+			throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Connection window exceeded");
+		if (receiveWindow <= receiveWindowTarget / 2) {
+			writeWindowUpdate(0, receiveWindowTarget - receiveWindow);
+			receiveWindow = receiveWindowTarget;
+		}
+
+		// Find stream
+		RemoteClientHttp_2 stream = getStream(streamId);
+		if (stream == null) {
+			if (streamId > highestStreamId)
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "DATA frame on idle stream");
+			return; // Stream was reset or completed, discard
+		}
+		stream.receiveData(payload, offset, dataLength, length, (flags & FLAG_END_STREAM) != 0);
+	}
+
+	private void appendHeaderBlock(int offset, int length) throws Http2Exception {
+		if (headerBlock.size() + length > config.getMaxHeaderListSize() * 2)
+			throw new Http2Exception(Http2Exception.ENHANCE_YOUR_CALM, "Header block too large");
+		headerBlock.write(payload, offset, length);
+	}
+
+	private void completeHeaders() throws IOException {
+		// Decode, this must happen for every block to keep the table in sync
+		byte[] block = headerBlock.toByteArray();
+		headerBlock = null;
+		List<String[]> headers = decoder.decode(block, 0, block.length);
+		int streamId = headerStreamId;
+
+		// Trailers
+		RemoteClientHttp_2 stream = getStream(streamId);
+		if (stream != null) {
+			stream.receiveTrailers(headers, headerEndStream);
+			return;
+		}
+
+		// New stream
+		if ((streamId & 1) == 0)
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Clients must use odd stream identifiers");
+		if (streamId <= highestStreamId)
+			return; // Stream was reset, completed or refused, discard
+		highestStreamId = streamId;
+		if (!goingAway && !server.isRunning()) {
+			// Refuse new streams while shutting down, the client may retry them elsewhere
+			goAway(Http2Exception.NO_ERROR, null);
+		}
+		if (goingAway)
+			return; // Not accepting new streams
+		lastStreamId = streamId;
+
+		// Verify limits
+		long listSize = 0;
+		for (String[] header : headers)
+			listSize += header[0].length() + header[1].length() + 32;
+		if (listSize > config.getMaxHeaderListSize())
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Header list too large");
+		int initialWindow;
+		synchronized (this) {
+			if (streams.size() >= config.getMaxConcurrentStreams())
+				throw new Http2Exception(Http2Exception.REFUSED_STREAM, streamId, "Too many concurrent streams");
+			initialWindow = settingsAcknowledged ? config.getInitialWindowSize()
+					: Math.max(DEFAULT_WINDOW_SIZE, config.getInitialWindowSize());
+		}
+
+		// Start stream
+		stream = new RemoteClientHttp_2(this, streamId, initialWindow);
+		stream.attachRequest(stream.createRequest(headers, headerEndStream));
+		openStream(stream);
+	}
+
+	private void openStream(RemoteClientHttp_2 stream) {
+		synchronized (this) {
+			stream.sendWindow = peerInitialWindowSize;
+			streams.put(stream.getStreamId(), stream);
+			client.stopIdleTimeout();
+		}
+		if (server.tryRunAsync(() -> stream.run()) == null) {
+			// Task pool is full, the client may retry the stream
+			resetStream(stream.getStreamId(), Http2Exception.REFUSED_STREAM);
+			streamClosed(stream);
+		}
+	}
+
+	private void applySettings(byte[] data, int length) throws IOException {
+		for (int i = 0; i + 6 <= length; i += 6) {
+			int id = ((data[i] & 0xff) << 8) | (data[i + 1] & 0xff);
+			long value = readInt(data, i + 2) & 0xffffffffl;
+			switch (id) {
+
+			case Http2Configuration.SETTINGS_HEADER_TABLE_SIZE: {
+				synchronized (writeLock) {
+					encoder.setMaxTableSize((int) Math.min(value, Integer.MAX_VALUE));
+				}
+				break;
+			}
+
+			case Http2Configuration.SETTINGS_ENABLE_PUSH: {
+				if (value > 1)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH value");
+				break;
+			}
+
+			case Http2Configuration.SETTINGS_INITIAL_WINDOW_SIZE: {
+				if (value > Http2Configuration.MAX_WINDOW_SIZE)
+					throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Invalid initial window size");
+				synchronized (this) {
+					// Adjust the windows of open streams by the difference
+					int delta = (int) value - peerInitialWindowSize;
+					peerInitialWindowSize = (int) value;
+					for (RemoteClientHttp_2 stream : streams.values()) {
+						stream.sendWindow += delta;
+						if (stream.sendWindow > Http2Configuration.MAX_WINDOW_SIZE)
+							throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, "Stream window overflow");
+					}
+					notifyAll();
+				}
+				break;
+			}
+
+			case Http2Configuration.SETTINGS_MAX_FRAME_SIZE: {
+				if (value < Http2Configuration.MIN_FRAME_SIZE || value > Http2Configuration.MAX_FRAME_SIZE)
+					throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, "Invalid maximum frame size");
+				peerMaxFrameSize = (int) value;
+				break;
+			}
+
+			}
+		}
+	}
+
+	private synchronized RemoteClientHttp_2 getStream(int streamId) {
+		return streams.get(streamId);
+	}
+
+	/**
+	 * Called when a stream is done, closes the connection once the last stream
+	 * completes if the connection or server is shutting down
+	 *
+	 * @param stream Stream that completed
+	 */
+	void streamClosed(RemoteClientHttp_2 stream) {
+		boolean close = false;
+		synchronized (this) {
+			if (streams.remove(stream.getStreamId()) == null || !streams.isEmpty())
+				return;
+			if (goingAway || !server.isRunning())
+				close = true;
+			else
+				client.startIdleTimeout(config.getIdleTimeout() * 1000l);
+		}
+		if (close)
+			client.closeConnection();
+	}
+
+	/**
+	 * Takes bytes from the send windows of the connection and a stream, waits
+	 * for the peer to open the windows if needed
+	 *
+	 * @param stream Stream to send data on
+	 * @param wanted Amount of bytes to send
+	 * @return Amount of bytes that may be sent
+	 * @throws IOException If the stream or connection closed or the windows
+	 *                     stayed closed for longer than the body timeout
+	 */
+	int acquireSendWindow(RemoteClientHttp_2 stream, int wanted) throws IOException {
+		long deadline = System.currentTimeMillis() + server.getBodyReadTimeout() * 1000l;
+		synchronized (this) {
+			while (true) {
+				if (closed)
+					throw new IOException("Connection closed");
+				if (stream.isReset())
+					throw new IOException("Stream reset");
+				long available = Math.min(sendWindow, stream.sendWindow);
+				if (available > 0) {
+					int count = (int) Math.min(wanted, available);
+					sendWindow -= count;
+					stream.sendWindow -= count;
+					return count;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					throw new IOException("Flow control window stalled");
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					throw new IOException("Interrupted");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wakes threads waiting for a send window, called when a stream is reset
+	 */
+	synchronized void wakeSenders() {
+		notifyAll();
+	}
+
+	/**
+	 * Writes a header block
+	 *
+	 * @param streamId  Stream ID
+	 * @param headers   Header names and values, names must be lowercase
+	 * @param endStream True to end the stream with this block, false otherwise
+	 * @throws IOException If writing fails
+	 */
+	void writeHeaders(int streamId, List<String[]> headers, boolean endStream) throws IOException {
+		synchronized (writeLock) {
+			if (closed)
+				throw new IOException("Connection closed");
+
+			// Encode, blocks must be written in the order they were encoded
+			ByteArrayOutputStream block = new ByteArrayOutputStream();
+			encoder.beginBlock(block);
+			for (String[] header : headers)
+				encoder.encode(header[0], header[1], block);
+			byte[] data = block.toByteArray();
+
+			// Split over HEADERS and CONTINUATION frames
+			int maxFrameSize = peerMaxFrameSize;
+			int offset = 0;
+			int type = FRAME_HEADERS;
+			do {
+				int length = Math.min(maxFrameSize, data.length - offset);
+				int flags = 0;
+				if (type == FRAME_HEADERS && endStream)
+					flags |= FLAG_END_STREAM;
+				if (offset + length == data.length)
+					flags |= FLAG_END_HEADERS;
+				writeFrame(type, flags, streamId, data, offset, length);
+				offset += length;
+				type = FRAME_CONTINUATION;
+			} while (offset < data.length);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Writes a DATA frame, the length must fit the frame size and send windows
+	 *
+	 * @param streamId  Stream ID
+	 * @param data      Data array
+	 * @param offset    Data offset
+	 * @param length    Data length
+	 * @param endStream True to end the stream with this frame, false otherwise
+	 * @throws IOException If writing fails
+	 */
+	void writeData(int streamId, byte[] data, int offset, int length, boolean endStream) throws IOException {
+		synchronized (writeLock) {
+			if (closed)
+				throw new IOException("Connection closed");
+			writeFrame(FRAME_DATA, endStream ? FLAG_END_STREAM : 0, streamId, data, offset, length);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Writes a WINDOW_UPDATE frame
+	 *
+	 * @param streamId  Stream ID, 0 for the connection window
+	 * @param increment Window increment
+	 * @throws IOException If writing fails
+	 */
+	void writeWindowUpdate(int streamId, int increment) throws IOException {
+		synchronized (writeLock) {
+			if (closed)
+				return;
+			writeWindowUpdateFrame(streamId, increment);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Resets a stream
+	 *
+	 * @param streamId  Stream ID
+	 * @param errorCode Error code
+	 */
+	void resetStream(int streamId, int errorCode) {
+		RemoteClientHttp_2 stream = getStream(streamId);
+		if (stream != null)
+			stream.markReset();
+		try {
+			synchronized (writeLock) {
+				if (closed)
+					return;
+				byte[] data = new byte[4];
+				writeInt(data, 0, errorCode);
+				writeFrame(FRAME_RST_STREAM, 0, streamId, data, 0, 4);
+				out.flush();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Sends GOAWAY, streams that were already started are still completed
+	 *
+	 * @param errorCode Error code
+	 * @param debugData Debug message, null for none
+	 */
+	void goAway(int errorCode, String debugData) {
+		byte[] debug = debugData == null ? new byte[0] : debugData.getBytes(StandardCharsets.UTF_8);
+		byte[] data = new byte[8 + debug.length];
+		writeInt(data, 0, lastStreamId);
+		writeInt(data, 4, errorCode);
+		System.arraycopy(debug, 0, data, 8, debug.length);
+		try {
+			synchronized (writeLock) {
+				if (closed || goingAway && errorCode == Http2Exception.NO_ERROR)
+					return;
+				goingAway = true;
+				writeFrame(FRAME_GOAWAY, 0, 0, data, 0, data.length);
+				out.flush();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Marks the connection as closed and fails all streams
+	 */
+	void close() {
+		ArrayList<RemoteClientHttp_2> active;
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			active = new ArrayList<RemoteClientHttp_2>(streams.values());
+			streams.clear();
+			notifyAll();
+		}
+		for (RemoteClientHttp_2 stream : active)
+			stream.markReset();
+	}
+
+	private void writeWindowUpdateFrame(int streamId, int increment) throws IOException {
+		byte[] data = new byte[4];
+		writeInt(data, 0, increment);
+		writeFrame(FRAME_WINDOW_UPDATE, 0, streamId, data, 0, 4);
+	}
+
+	private void writeFrame(int type, int flags, int streamId, byte[] data, int offset, int length)
+			throws IOException {
+		byte[] header = new byte[9];
+		header[0] = (byte) (length >>> 16);
+		header[1] = (byte) (length >>> 8);
+		header[2] = (byte) length;
+		header[3] = (byte) type;
+		header[4] = (byte) flags;
+		writeInt(header, 5, streamId);
+		out.write(header);
+		if (length != 0)
+			out.write(data, offset, length);
+	}
+
+	private static int readStreamId(byte[] data, int offset) {
+		return readInt(data, offset) & 0x7fffffff;
+	}
+
+	private static int readInt(byte[] data, int offset) {
+		return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) | ((data[offset + 2] & 0xff) << 8)
+				| (data[offset + 3] & 0xff);
+	}
+
+	private static void writeInt(byte[] data, int offset, int value) {
+		data[offset] = (byte) (value >>> 24);
+		data[offset + 1] = (byte) (value >>> 16);
+		data[offset + 2] = (byte) (value >>> 8);
+		data[offset + 3] = (byte) value;
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.IOException;
+
+/**
+ *
+ * HTTP/2 protocol error, carries the error code sent to the peer and the
+ * stream it applies to (0 for connection errors)
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class Http2Exception extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int NO_ERROR = 0x0;
+	public static final int PROTOCOL_ERROR = 0x1;
+	public static final int INTERNAL_ERROR = 0x2;
+	public static final int FLOW_CONTROL_ERROR = 0x3;
+	public static final int SETTINGS_TIMEOUT = 0x4;
+	public static final int STREAM_CLOSED = 0x5;
+	public static final int FRAME_SIZE_ERROR = 0x6;
+	public static final int REFUSED_STREAM = 0x7;
+	public static final int CANCEL = 0x8;
+	public static final int COMPRESSION_ERROR = 0x9;
+	public static final int CONNECT_ERROR = 0xa;
+	public static final int ENHANCE_YOUR_CALM = 0xb;
+	public static final int INADEQUATE_SECURITY = 0xc;
+	public static final int HTTP_1_1_REQUIRED = 0xd;
+
+	private int errorCode;
+	private int streamId;
+
+	/**
+	 * Creates a connection error
+	 *
+	 * @param errorCode Error code
+	 * @param message   Error message
+	 */
+	public Http2Exception(int errorCode, String message) {
+		this(errorCode, 0, message);
+	}
+
+	/**
+	 * Creates a stream error
+	 *
+	 * @param errorCode Error code
+	 * @param streamId  Stream ID, 0 for connection errors
+	 * @param message   Error message
+	 */
+	public Http2Exception(int errorCode, int streamId, String message) {
+		super(message);
+		this.errorCode = errorCode;
+		this.streamId = streamId;
+	}
+
+	/**
+	 * Retrieves the error code
+	 *
+	 * @return HTTP/2 error code
+	 */
+	public int getErrorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * Retrieves the stream the error applies to
+	 *
+	 * @return Stream ID, 0 for connection errors
+	 */
+	public int getStreamId() {
+		return streamId;
+	}
+
+	/**
+	 * Checks if this is a connection error
+	 *
+	 * @return True if the connection must be closed, false if only the stream is
+	 *         reset
+	 */
+	public boolean isConnectionError() {
+		return streamId == 0;
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.function.IntConsumer;
+
+/**
+ *
+ * Request body of a HTTP/2 stream, filled by the connection reader with the
+ * payload of DATA frames and drained by the request handler
+ *
+ * @author Sky Swimmer
+ *
+ */
+class Http2InputStream extends InputStream {
+
+	private ArrayDeque<byte[]> chunks = new ArrayDeque<byte[]>();
+	private int chunkOffset;
+	private int buffered;
+
+	private boolean ended;
+	private boolean closed;
+	private String error;
+
+	private long timeout;
+	private IntConsumer consumeListener;
+
+	/**
+	 * Creates a body stream
+	 *
+	 * @param timeout         Time in milliseconds a read may wait for data
+	 * @param consumeListener Called with the amount of bytes the handler consumed
+	 */
+	public Http2InputStream(long timeout, IntConsumer consumeListener) {
+		this.timeout = timeout;
+		this.consumeListener = consumeListener;
+	}
+
+	/**
+	 * Adds received data
+	 *
+	 * @param data Data chunk
+	 * @return False if the stream was closed and the data was discarded, true
+	 *         otherwise
+	 */
+	public synchronized boolean receive(byte[] data) {
+		if (closed)
+			return false;
+		chunks.add(data);
+		buffered += data.length;
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Marks the end of the body
+	 */
+	public synchronized void end() {
+		ended = true;
+		notifyAll();
+	}
+
+	/**
+	 * Fails pending and future reads
+	 *
+	 * @param reason Failure message
+	 */
+	public synchronized void abort(String reason) {
+		if (ended)
+			return;
+		error = reason;
+		notifyAll();
+	}
+
+	/**
+	 * Checks if the body was fully received
+	 *
+	 * @return True if the end of the body was received, false otherwise
+	 */
+	public synchronized boolean isEnded() {
+		return ended;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		if (read(b, 0, 1) == -1)
+			return -1;
+		return b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int len) throws IOException {
+		if (offset < 0 || len < 0 || len > data.length - offset)
+			throw new IndexOutOfBoundsException();
+		if (len == 0)
+			return 0;
+		int read = 0;
+		synchronized (this) {
+			// Wait for data
+			long deadline = System.currentTimeMillis() + timeout;
+			while (chunks.isEmpty()) {
+				if (closed)
+					throw new IOException("Stream closed");
+				if (error != null)
+					throw new IOException(error);
+				if (ended)
+					return -1;
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					throw new IOException("Request body read timed out");
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					throw new IOException("Interrupted");
+				}
+			}
+
+			// Copy from the buffered chunks
+			while (read < len && !chunks.isEmpty()) {
+				byte[] chunk = chunks.peek();
+				int count = Math.min(len - read, chunk.length - chunkOffset);
+				System.arraycopy(chunk, chunkOffset, data, offset + read, count);
+				read += count;
+				chunkOffset += count;
+				if (chunkOffset == chunk.length) {
+					chunks.poll();
+					chunkOffset = 0;
+				}
+			}
+			buffered -= read;
+		}
+		consumeListener.accept(read);
+		return read;
+	}
+
+	@Override
+	public synchronized int available() throws IOException {
+		return buffered;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		chunks.clear();
+		buffered = 0;
+		notifyAll();
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.asf.connective.impl.http_2;
+
+import java.util.Map;
+
+import org.asf.connective.ConnectiveHttpServer;
+import org.asf.connective.IServerAdapterDefinition;
+import org.asf.connective.impl.http_1_1.Http_1_1_Adapter;
+
+public class Http_2_Adapter implements IServerAdapterDefinition {
+
+	@Override
+	public String getName() {
+		return "HTTP/2";
+	}
+
+	@Override
+	public ConnectiveHttpServer createServer(Map<String, String> configuration) throws IllegalArgumentException {
+		ConnectiveHttpServer_2 server = new ConnectiveHttpServer_2();
+		Http_1_1_Adapter.configureServer(server, configuration);
+		configureHttp2(server.getHttp2Configuration(), configuration);
+		return server;
+	}
+
+	/**
+	 * Applies the HTTP/2 settings fields of an adapter configuration
+	 *
+	 * @param settings      Settings to configure
+	 * @param configuration Adapter configuration
+	 * @throws IllegalArgumentException If the configuration is invalid
+	 */
+	public static void configureHttp2(Http2Configuration settings, Map<String, String> configuration)
+			throws IllegalArgumentException {
+		if (configuration.containsKey("max-concurrent-streams"))
+			try {
+				settings.setMaxConcurrentStreams(Integer.parseInt(configuration.get("max-concurrent-streams")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException(
+						"Malformed stream count: " + configuration.get("max-concurrent-streams"));
+			}
+		if (configuration.containsKey("Max-Concurrent-Streams"))
+			try {
+				settings.setMaxConcurrentStreams(Integer.parseInt(configuration.get("Max-Concurrent-Streams")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException(
+						"Malformed stream count: " + configuration.get("Max-Concurrent-Streams"));
+			}
+		if (configuration.containsKey("initial-window-size"))
+			try {
+				settings.setInitialWindowSize(Integer.parseInt(configuration.get("initial-window-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("initial-window-size"));
+			}
+		if (configuration.containsKey("Initial-Window-Size"))
+			try {
+				settings.setInitialWindowSize(Integer.parseInt(configuration.get("Initial-Window-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Initial-Window-Size"));
+			}
+		if (configuration.containsKey("max-frame-size"))
+			try {
+				settings.setMaxFrameSize(Integer.parseInt(configuration.get("max-frame-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("max-frame-size"));
+			}
+		if (configuration.containsKey("Max-Frame-Size"))
+			try {
+				settings.setMaxFrameSize(Integer.parseInt(configuration.get("Max-Frame-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Max-Frame-Size"));
+			}
+		if (configuration.containsKey("header-table-size"))
+			try {
+				settings.setHeaderTableSize(Integer.parseInt(configuration.get("header-table-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("header-table-size"));
+			}
+		if (configuration.containsKey("Header-Table-Size"))
+			try {
+				settings.setHeaderTableSize(Integer.parseInt(configuration.get("Header-Table-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Header-Table-Size"));
+			}
+		if (configuration.containsKey("max-header-list-size"))
+			try {
+				settings.setMaxHeaderListSize(Integer.parseInt(configuration.get("max-header-list-size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("max-header-list-size"));
+			}
+		if (configuration.containsKey("Max-Header-List-Size"))
+			try {
+				settings.setMaxHeaderListSize(Integer.parseInt(configuration.get("Max-Header-List-Size")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed size: " + configuration.get("Max-Header-List-Size"));
+			}
+		if (configuration.containsKey("idle-timeout"))
+			try {
+				settings.setIdleTimeout(Integer.parseInt(configuration.get("idle-timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("idle-timeout"));
+			}
+		if (configuration.containsKey("Idle-Timeout"))
+			try {
+				settings.setIdleTimeout(Integer.parseInt(configuration.get("Idle-Timeout")));
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Malformed timeout: " + configuration.get("Idle-Timeout"));
+			}
+	}
+
+}
@@ -0,0 +1,194 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.net.ssl.SSLSocket;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.headers.HttpHeader;
+import org.asf.connective.impl.http_1_1.RemoteClientHttp_1_1;
+import org.asf.connective.objects.HttpRequest;
+
+/**
+ *
+ * HTTP/1.1 client that switches to HTTP/2 when the client sends the HTTP/2
+ * connection preface or asks for an h2c upgrade, or on TLS connections when h2
+ * was negotiated through ALPN
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class RemoteClientHttp_1_1_H2 extends RemoteClientHttp_1_1 {
+
+	private static final byte[] SWITCHING_PROTOCOLS = "HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n"
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final String[] UPGRADE_HEADERS = new String[] { "Connection", "Upgrade", "HTTP2-Settings",
+			"Keep-Alive", "Proxy-Connection", "TE" };
+
+	private static Method getApplicationProtocol;
+
+	static {
+		// ALPN is only present on Java 9+ (and late Java 8 updates)
+		try {
+			getApplicationProtocol = SSLSocket.class.getMethod("getApplicationProtocol");
+		} catch (NoSuchMethodException e) {
+		}
+	}
+
+	private ConnectiveHttpServer_2 server;
+	private volatile Http2Connection connection;
+
+	protected RemoteClientHttp_1_1_H2(Socket socket, ConnectiveHttpServer_2 server, InputStream in,
+			OutputStream out) {
+		super(socket, server, in, out);
+		this.server = server;
+	}
+
+	/**
+	 * Retrieves the HTTP/2 connection
+	 *
+	 * @return Http2Connection instance or null if the client did not switch to
+	 *         HTTP/2
+	 */
+	public Http2Connection getHttp2Connection() {
+		return connection;
+	}
+
+	@Override
+	protected void receive() {
+		// TLS clients pick the protocol through ALPN during the handshake
+		Socket socket = getSocket();
+		if (socket instanceof SSLSocket && getApplicationProtocol != null) {
+			try {
+				((SSLSocket) socket).startHandshake();
+				if ("h2".equals(getApplicationProtocol.invoke(socket))) {
+					serveHttp2(false, null, null);
+					return;
+				}
+			} catch (Exception e) {
+				closeConnection();
+				return;
+			}
+		}
+		super.receive();
+	}
+
+	@Override
+	protected boolean handleRequest(HttpRequest msg) {
+		// Cleartext negotiation is not used on TLS connections
+		if (getSocket() instanceof SSLSocket)
+			return super.handleRequest(msg);
+
+		// Prior knowledge, the parser read up to the end of the preface request line
+		if (msg != null && msg.getRequestMethod().equals("PRI") && msg.getHttpVersion().equals("HTTP/2.0")) {
+			serveHttp2(true, null, null);
+			return false;
+		}
+
+		// Upgrade
+		if (msg != null && isUpgradeRequest(msg)) {
+			byte[] settings;
+			try {
+				settings = Base64.getUrlDecoder().decode(msg.getHeaderValue("HTTP2-Settings").trim());
+			} catch (IllegalArgumentException e) {
+				settings = null;
+			}
+			if (settings != null && settings.length % 6 == 0) {
+				try {
+					getOutputStream().write(SWITCHING_PROTOCOLS);
+					getOutputStream().flush();
+				} catch (IOException e) {
+					closeConnection();
+					return false;
+				}
+				serveHttp2(false, createUpgradedRequest(msg), settings);
+				return false;
+			}
+		}
+
+		// Regular HTTP/1.1 request, upgrades that cannot be honored are ignored
+		return super.handleRequest(msg);
+	}
+
+	private static boolean isUpgradeRequest(HttpRequest msg) {
+		if (!msg.getHttpVersion().equals("HTTP/1.1") || !msg.hasHeader("Upgrade") || !msg.hasHeader("HTTP2-Settings")
+				|| msg.hasRequestBody() || msg.hasHeader("Transfer-Encoding"))
+			return false;
+		for (String protocol : msg.getHeaderValue("Upgrade").split(",")) {
+			if (protocol.trim().equalsIgnoreCase("h2c"))
+				return true;
+		}
+		return false;
+	}
+
+	private static HttpRequest createUpgradedRequest(HttpRequest msg) {
+		// The upgraded request becomes stream 1 without the upgrade headers
+		HeaderCollection headers = new HeaderCollection();
+		for (HttpHeader header : msg.getHeaders().getHeaders()) {
+			boolean upgradeHeader = false;
+			for (String name : UPGRADE_HEADERS) {
+				if (header.getName().equalsIgnoreCase(name))
+					upgradeHeader = true;
+			}
+			if (!upgradeHeader) {
+				for (String value : header.getValues())
+					headers.addHeader(header.getName().toLowerCase(), value, true);
+			}
+		}
+		return new HttpRequest(null, -1, headers, "HTTP/2", msg.getRequestMethod(), msg.getRawRequestResource());
+	}
+
+	/**
+	 * Runs the HTTP/2 connection on the connection thread, closes the connection
+	 * once done
+	 *
+	 * @param prefaceHeadRead True if the preface request line was already read,
+	 *                        false otherwise
+	 * @param upgradeRequest  Upgraded request, null if none
+	 * @param settings        HTTP2-Settings payload, null if none
+	 */
+	protected void serveHttp2(boolean prefaceHeadRead, HttpRequest upgradeRequest, byte[] settings) {
+		receiving = true;
+		Http2Connection conn = new Http2Connection(this, server, getInputStream(), getOutputStream());
+		connection = conn;
+		conn.serve(prefaceHeadRead, upgradeRequest, settings);
+		closeConnection();
+	}
+
+	void startIdleTimeout(long millis) {
+		if (millis > 0)
+			scheduleDeadline(millis);
+		else
+			cancelDeadline();
+	}
+
+	void stopIdleTimeout() {
+		cancelDeadline();
+	}
+
+	@Override
+	protected boolean isIdle() {
+		Http2Connection conn = connection;
+		if (conn != null)
+			return conn.getActiveStreamCount() == 0;
+		return super.isIdle();
+	}
+
+	@Override
+	public void closeConnection() {
+		// Say goodbye if no stream is writing, then close the socket
+		Http2Connection conn = connection;
+		if (conn != null && conn.getActiveStreamCount() == 0)
+			conn.goAway(Http2Exception.NO_ERROR, null);
+		super.closeConnection();
+		if (conn != null)
+			conn.close();
+	}
+
+}
@@ -0,0 +1,474 @@
+package org.asf.connective.impl.http_2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.asf.connective.RemoteClient;
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.headers.HttpDate;
+import org.asf.connective.headers.HttpHeader;
+import org.asf.connective.io.BufferPool;
+import org.asf.connective.io.PooledBuffer;
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+
+/**
+ *
+ * HTTP/2 request stream, each stream is presented to handlers as its own
+ * client sharing the connection of the HTTP/1.1 client it was negotiated on
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class RemoteClientHttp_2 extends RemoteClient {
+
+	private static final String[] CONNECTION_HEADERS = new String[] { "connection", "keep-alive",
+			"proxy-connection", "transfer-encoding", "upgrade" };
+
+	private Http2Connection connection;
+	private ConnectiveHttpServer_2 server;
+	private int streamId;
+
+	private HttpRequest request;
+	private Http2InputStream body;
+	private long expectedLength = -1;
+	private long receivedLength;
+	private volatile boolean remoteClosed;
+	private int receiveWindow;
+	private int pendingWindowUpdate;
+
+	private volatile boolean reset;
+	private boolean headersSent;
+	private Consumer<RemoteClient> protocolSwitcher;
+
+	// Guarded by the connection
+	long sendWindow;
+
+	protected RemoteClientHttp_2(Http2Connection connection, int streamId, int initialReceiveWindow) {
+		super(connection.getServer());
+		this.connection = connection;
+		this.server = connection.getServer();
+		this.streamId = streamId;
+		this.receiveWindow = initialReceiveWindow;
+	}
+
+	/**
+	 * Retrieves the stream ID
+	 *
+	 * @return HTTP/2 stream ID
+	 */
+	public int getStreamId() {
+		return streamId;
+	}
+
+	/**
+	 * Retrieves the connection this stream belongs to
+	 *
+	 * @return Http2Connection instance
+	 */
+	public Http2Connection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Checks if the stream was reset
+	 *
+	 * @return True if reset, false otherwise
+	 */
+	public boolean isReset() {
+		return reset;
+	}
+
+	/**
+	 * Creates the request object from a decoded header list
+	 *
+	 * @param headers   Header names and values
+	 * @param endStream True if the request has no body, false otherwise
+	 * @return HttpRequest instance
+	 * @throws Http2Exception If the request is malformed
+	 */
+	HttpRequest createRequest(List<String[]> headers, boolean endStream) throws Http2Exception {
+		String method = null;
+		String path = null;
+		String scheme = null;
+		String authority = null;
+		HeaderCollection requestHeaders = new HeaderCollection();
+		StringBuilder cookies = null;
+		boolean regularSeen = false;
+		for (String[] header : headers) {
+			String name = header[0];
+			String value = header[1];
+			if (name.startsWith(":")) {
+				// Pseudo headers must come first and appear once
+				if (regularSeen)
+					throw malformed("Pseudo header after regular headers");
+				switch (name) {
+
+				case ":method": {
+					if (method != null)
+						throw malformed("Duplicate :method");
+					method = value;
+					break;
+				}
+				case ":path": {
+					if (path != null)
+						throw malformed("Duplicate :path");
+					path = value;
+					break;
+				}
+				case ":scheme": {
+					if (scheme != null)
+						throw malformed("Duplicate :scheme");
+					scheme = value;
+					break;
+				}
+				case ":authority": {
+					if (authority != null)
+						throw malformed("Duplicate :authority");
+					authority = value;
+					break;
+				}
+				default:
+					throw malformed("Unknown pseudo header " + name);
+
+				}
+				continue;
+			}
+			regularSeen = true;
+
+			// Verify header
+			if (!name.equals(name.toLowerCase()))
+				throw malformed("Uppercase header name");
+			for (String connectionHeader : CONNECTION_HEADERS) {
+				if (name.equals(connectionHeader))
+					throw malformed("Connection-specific header " + name);
+			}
+			if (name.equals("te") && !value.equals("trailers"))
+				throw malformed("Invalid TE header");
+
+			// Cookies may be split into multiple fields
+			if (name.equals("cookie")) {
+				if (cookies == null)
+					cookies = new StringBuilder(value);
+				else
+					cookies.append("; ").append(value);
+				continue;
+			}
+			requestHeaders.addHeader(name, value, true);
+		}
+		if (method == null || path == null || scheme == null || path.isEmpty())
+			throw malformed("Missing pseudo headers");
+		if (cookies != null)
+			requestHeaders.addHeader("cookie", cookies.toString());
+		if (authority != null && !requestHeaders.hasHeader("host"))
+			requestHeaders.addHeader("host", authority);
+
+		// Body
+		if (requestHeaders.hasHeader("content-length")) {
+			try {
+				expectedLength = Long.parseLong(requestHeaders.getHeaderValue("content-length"));
+			} catch (NumberFormatException e) {
+				throw malformed("Invalid content length");
+			}
+			if (expectedLength < 0 || (endStream && expectedLength != 0))
+				throw malformed("Invalid content length");
+		}
+		InputStream bodyStream = null;
+		if (!endStream) {
+			body = new Http2InputStream(server.getBodyReadTimeout() * 1000l, count -> consumed(count));
+			bodyStream = body;
+		}
+		remoteClosed = endStream;
+
+		// Create request object
+		try {
+			return new HttpRequest(bodyStream, expectedLength, requestHeaders, "HTTP/2", method, path);
+		} catch (IllegalArgumentException e) {
+			throw malformed(e.getMessage());
+		}
+	}
+
+	private Http2Exception malformed(String message) {
+		return new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Malformed request: " + message);
+	}
+
+	void attachRequest(HttpRequest request) {
+		this.request = request;
+		if (!request.hasRequestBody())
+			remoteClosed = true;
+	}
+
+	void receiveData(byte[] data, int offset, int length, int frameLength, boolean endStream)
+			throws Http2Exception {
+		if (remoteClosed)
+			throw new Http2Exception(Http2Exception.STREAM_CLOSED, streamId, "DATA after end of stream");
+
+		// Verify flow control and content length
+		synchronized (this) {
+			receiveWindow -= frameLength;
+			if (receiveWindow < 0)
+				throw new Http2Exception(Http2Exception.FLOW_CONTROL_ERROR, streamId, "Stream window exceeded");
+		}
+		receivedLength += length;
+		if (expectedLength != -1
+				&& (receivedLength > expectedLength || (endStream && receivedLength != expectedLength)))
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Body does not match content length");
+
+		// Padding and data the handler no longer wants are credited right away
+		int credit = frameLength - length;
+		if (length != 0) {
+			byte[] chunk = new byte[length];
+			System.arraycopy(data, offset, chunk, 0, length);
+			if (!body.receive(chunk))
+				credit += length;
+		}
+		if (endStream) {
+			remoteClosed = true;
+			body.end();
+		} else if (credit != 0)
+			consumed(credit);
+	}
+
+	void receiveTrailers(List<String[]> headers, boolean endStream) throws Http2Exception {
+		if (remoteClosed)
+			throw new Http2Exception(Http2Exception.STREAM_CLOSED, streamId, "HEADERS after end of stream");
+		if (!endStream)
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Trailers must end the stream");
+		for (String[] header : headers) {
+			if (header[0].startsWith(":"))
+				throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Pseudo header in trailers");
+		}
+		if (expectedLength != -1 && receivedLength != expectedLength)
+			throw new Http2Exception(Http2Exception.PROTOCOL_ERROR, streamId, "Body does not match content length");
+
+		// Trailer fields are not exposed to handlers
+		remoteClosed = true;
+		body.end();
+	}
+
+	void receiveReset(int errorCode) {
+		markReset();
+	}
+
+	void markReset() {
+		reset = true;
+		if (body != null)
+			body.abort("Stream reset");
+		connection.wakeSenders();
+	}
+
+	private void consumed(int count) {
+		int increment = 0;
+		synchronized (this) {
+			// Open the window again once half of the advertised window was consumed
+			pendingWindowUpdate += count;
+			if (pendingWindowUpdate >= server.getHttp2Configuration().getInitialWindowSize() / 2 && !remoteClosed
+					&& !reset) {
+				increment = pendingWindowUpdate;
+				receiveWindow += increment;
+				pendingWindowUpdate = 0;
+			}
+		}
+		if (increment != 0) {
+			try {
+				connection.writeWindowUpdate(streamId, increment);
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Runs the request handlers and sends the response
+	 */
+	void run() {
+		try {
+			processRequest(request);
+		} catch (Exception ex) {
+			if (!reset && connection.isOpen()) {
+				getLogger().error(new ConnectiveLogMessage("handler",
+						"Failed to process request due to an exception!", ex, this));
+				if (!headersSent) {
+					HttpResponse resp = createResponse(request);
+					resp.setResponseStatus(500, "Internal server error");
+					resp.setContent("text/html", server.getErrorPageGenerator().apply(resp, request));
+					try {
+						sendResponse(resp, request);
+					} catch (IOException e) {
+						connection.resetStream(streamId, Http2Exception.INTERNAL_ERROR);
+					}
+				} else
+					connection.resetStream(streamId, Http2Exception.INTERNAL_ERROR);
+			}
+		} finally {
+			// Stop the client from sending the rest of a body the handler did not read
+			if (!reset && body != null && !body.isEnded())
+				connection.resetStream(streamId, Http2Exception.NO_ERROR);
+			connection.streamClosed(this);
+		}
+	}
+
+	@Override
+	protected void sendResponse(HttpResponse response, HttpRequest sourceRequest) throws IOException {
+		if (protocolSwitcher != null || response.getResponseCode() == 101) {
+			// Protocol switches need a connection of their own
+			connection.resetStream(streamId, Http2Exception.HTTP_1_1_REQUIRED);
+			return;
+		}
+		int status = response.getResponseCode();
+		boolean sendBody = response.getBodyStream() != null && response.getBodyLength() != 0
+				&& (sourceRequest == null || !sourceRequest.getRequestMethod().equals("HEAD")) && status != 204
+				&& status != 304;
+
+		// Status, server and default headers and date
+		ArrayList<String[]> headers = new ArrayList<String[]>();
+		headers.add(new String[] { ":status", Integer.toString(status) });
+		if (!response.hasHeader("Server"))
+			headers.add(new String[] { "server", server.getServerName() });
+		for (HttpHeader header : server.getDefaultHeaders().getHeaders()) {
+			if (!header.getName().equalsIgnoreCase("Server") && !response.hasHeader(header.getName()))
+				addHeader(headers, header);
+		}
+		if (!response.hasHeader("Date"))
+			headers.add(new String[] { "date", HttpDate.now() });
+
+		// Response headers
+		if (response.getBodyStream() != null && !response.hasHeader("Content-Length") && response.getBodyLength() >= 0
+				&& status != 204)
+			response.addHeader("Content-Length", Long.toString(response.getBodyLength()));
+		if (status == 204 && response.hasHeader("Content-Length"))
+			response.removeHeader("Content-Length");
+		for (HttpHeader header : response.getHeaders().getHeaders())
+			addHeader(headers, header);
+
+		// Write
+		headersSent = true;
+		connection.writeHeaders(streamId, headers, !sendBody);
+		if (sendBody)
+			transferBody(response);
+	}
+
+	private static void addHeader(ArrayList<String[]> headers, HttpHeader header) {
+		String name = header.getName().toLowerCase();
+		for (String connectionHeader : CONNECTION_HEADERS) {
+			if (name.equals(connectionHeader))
+				return;
+		}
+		for (String value : header.getValues())
+			headers.add(new String[] { name, value });
+	}
+
+	private void transferBody(HttpResponse response) throws IOException {
+		InputStream strm = response.getBodyStream();
+		long length = response.getBodyLength();
+		long sent = 0;
+		PooledBuffer pooled = BufferPool.getDefault().acquire(BufferPool.TRANSFER_BUFFER_SIZE);
+		try {
+			byte[] buffer = pooled.array();
+			while (true) {
+				// Read
+				int max = buffer.length;
+				if (length >= 0)
+					max = (int) Math.min(max, length - sent);
+				int read = max == 0 ? -1 : strm.read(buffer, 0, max);
+				if (read == -1) {
+					if (length >= 0 && sent != length)
+						throw new IOException("Unexpected End of File");
+					connection.writeData(streamId, buffer, 0, 0, true);
+					break;
+				}
+				sent += read;
+				boolean end = length >= 0 && sent == length;
+
+				// Write as frames that fit the frame size and send windows
+				int offset = 0;
+				while (offset < read) {
+					int count = connection.acquireSendWindow(this,
+							Math.min(read - offset, connection.getPeerMaxFrameSize()));
+					connection.writeData(streamId, buffer, offset, count, end && offset + count == read);
+					offset += count;
+				}
+				if (end)
+					break;
+			}
+		} finally {
+			pooled.release();
+		}
+	}
+
+	@Override
+	protected void postProcessResponse(HttpResponse resp, HttpRequest request) {
+	}
+
+	@Override
+	protected HttpResponse createResponseInternal() {
+		return new HttpResponse("HTTP/2", (ctx, protocolSwitcherInst) -> protocolSwitcher = protocolSwitcherInst);
+	}
+
+	@Override
+	public String[] getProxyChain() {
+		return connection.getClient().getProxyChain();
+	}
+
+	@Override
+	public String getRemoteProxiedClientAddress() {
+		return connection.getClient().getRemoteProxiedClientAddress();
+	}
+
+	@Override
+	public String getRemoteAddress() {
+		return connection.getClient().getRemoteAddress();
+	}
+
+	@Override
+	public String getRemoteHost() {
+		return connection.getClient().getRemoteHost();
+	}
+
+	/**
+	 * Raw connection output is not available on multiplexed streams, writes fail
+	 * with an IOException
+	 */
+	@Override
+	public OutputStream getOutputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("Raw connection access is not supported on HTTP/2 streams");
+			}
+		};
+	}
+
+	/**
+	 * Retrieves the request body stream of this stream
+	 */
+	@Override
+	public InputStream getInputStream() {
+		if (body == null)
+			return new InputStream() {
+				@Override
+				public int read() throws IOException {
+					return -1;
+				}
+			};
+		return body;
+	}
+
+	@Override
+	public boolean isConnected() {
+		return !reset && connection.isOpen();
+	}
+
+	@Override
+	public void closeConnection() {
+		// Only this stream is closed, the connection stays open for other streams
+		if (!reset && connection.isOpen())
+			connection.resetStream(streamId, Http2Exception.CANCEL);
+		connection.streamClosed(this);
+	}
+
+}
@@ -3,8 +3,11 @@ package org.asf.connective.impl.https_1_1;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.net.Socket;
 import java.nio.file.Files;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
@@ -15,12 +18,28 @@ import java.security.cert.CertificateException;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
 
 import org.asf.connective.TlsSecuredHttpServer;
-import org.asf.connective.impl.http_1_1.ConnectiveHttpServer_1_1;
+import org.asf.connective.impl.http_2.ConnectiveHttpServer_2;
+import org.asf.connective.logger.ConnectiveLogMessage;
+
+public class ConnectiveHttpsServer_1_1 extends ConnectiveHttpServer_2 implements TlsSecuredHttpServer {
+	private static final String[] APPLICATION_PROTOCOLS = new String[] { "h2", "http/1.1" };
+	private static Method setApplicationProtocols;
+
+	static {
+		// ALPN is only present on Java 9+ (and late Java 8 updates)
+		try {
+			setApplicationProtocols = SSLParameters.class.getMethod("setApplicationProtocols", String[].class);
+		} catch (NoSuchMethodException e) {
+		}
+	}
 
-public class ConnectiveHttpsServer_1_1 extends ConnectiveHttpServer_1_1 implements TlsSecuredHttpServer {
 	private SSLContext context = null;
+	protected boolean http2 = true;
 
 	public ConnectiveHttpsServer_1_1() {
 		super();
@@ -32,6 +51,30 @@ public class ConnectiveHttpsServer_1_1 extends ConnectiveHttpServer_1_1 implemen
 		super.start();
 	}
 
+	/**
+	 * Assigns if HTTP/2 should be offered to clients through ALPN
+	 * 
+	 * @param enabled True to offer HTTP/2 and HTTP/1.1, false to only serve
+	 *                HTTP/1.1
+	 */
+	public void setHttp2Enabled(boolean enabled) {
+		http2 = enabled;
+	}
+
+	/**
+	 * Checks if HTTP/2 is offered to clients through ALPN
+	 * 
+	 * @return True if HTTP/2 is offered, false otherwise
+	 */
+	public boolean isHttp2Enabled() {
+		return http2;
+	}
+
+	@Override
+	public String getProtocolName() {
+		return http2 && setApplicationProtocols != null ? "HTTP/2" : "HTTP/1.1";
+	}
+
 	@Override
 	public void loadTlsContextFrom(File keystoreFile, char[] password) throws IOException {
 		try {
@@ -76,7 +119,67 @@ public class ConnectiveHttpsServer_1_1 extends ConnectiveHttpServer_1_1 implemen
 						"No keystore.jks file and no configuration provided to create a TLS-encrypted HTTP server instance");
 			}
 		}
-		return context.getServerSocketFactory().createServerSocket(port, 0, addr);
+		if (proxyProtocol) {
+			// PROXY protocol headers precede the handshake, TLS is layered on accepted sockets
+			warnIfAlpnUnavailable();
+			return super.getServerSocket(port, addr);
+		}
+		SSLServerSocket socket = (SSLServerSocket) context.getServerSocketFactory().createServerSocket();
+		try {
+			applyReusePort(socket);
+			socket.bind(new InetSocketAddress(addr, port));
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+
+		// Advertise HTTP/2, accepted sockets inherit the parameters
+		warnIfAlpnUnavailable();
+		SSLParameters params = socket.getSSLParameters();
+		if (applyApplicationProtocols(params))
+			socket.setSSLParameters(params);
+		return socket;
+	}
+
+	@Override
+	protected Socket prepareSocket(Socket client) throws IOException {
+		if (client instanceof SSLSocket)
+			return client;
+
+		// Layer TLS on a plain socket
+		SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket(client,
+				client.getInetAddress().getHostAddress(), client.getPort(), true);
+		socket.setUseClientMode(false);
+		SSLParameters params = socket.getSSLParameters();
+		if (applyApplicationProtocols(params))
+			socket.setSSLParameters(params);
+		return socket;
+	}
+
+	@Override
+	protected boolean supportsFileRegionTransfer(Socket client) {
+		// Layered TLS sockets expose the raw channel, writing to it would bypass
+		// encryption
+		return false;
+	}
+
+	private void warnIfAlpnUnavailable() {
+		if (http2 && setApplicationProtocols == null)
+			getLogger().warn(new ConnectiveLogMessage("startup",
+					"ALPN is not supported by this Java version, clients will only be offered HTTP/1.1", null, null));
+	}
+
+	private boolean applyApplicationProtocols(SSLParameters params) {
+		if (!http2 || setApplicationProtocols == null)
+			return false;
+		try {
+			setApplicationProtocols.invoke(params, (Object) APPLICATION_PROTOCOLS);
+			return true;
+		} catch (Exception e) {
+			getLogger().warn(new ConnectiveLogMessage("startup",
+					"Failed to enable ALPN, clients will only be offered HTTP/1.1", e, null));
+			return false;
+		}
 	}
 
 }
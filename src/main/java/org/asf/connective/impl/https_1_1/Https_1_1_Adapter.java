@@ -2,12 +2,13 @@ package org.asf.connective.impl.https_1_1;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.InetAddress;
 import java.nio.file.Files;
 import java.util.Map;
 
 import org.asf.connective.ConnectiveHttpServer;
 import org.asf.connective.IServerAdapterDefinition;
+import org.asf.connective.impl.http_1_1.Http_1_1_Adapter;
+import org.asf.connective.impl.http_2.Http_2_Adapter;
 
 public class Https_1_1_Adapter implements IServerAdapterDefinition {
 
@@ -19,30 +20,26 @@ public class Https_1_1_Adapter implements IServerAdapterDefinition {
 	@Override
 	public ConnectiveHttpServer createServer(Map<String, String> configuration) throws IllegalArgumentException {
 		ConnectiveHttpsServer_1_1 server = new ConnectiveHttpsServer_1_1();
-		if (configuration.containsKey("address"))
-			try {
-				server.setListenAddress(InetAddress.getByName(configuration.get("address")));
-			} catch (Exception e) {
-				throw new IllegalArgumentException("Malformed listen address: " + configuration.get("address"));
-			}
-		if (configuration.containsKey("Address"))
-			try {
-				server.setListenAddress(InetAddress.getByName(configuration.get("Address")));
-			} catch (Exception e) {
-				throw new IllegalArgumentException("Malformed listen address: " + configuration.get("Address"));
-			}
-		if (configuration.containsKey("port"))
-			try {
-				server.setListenPort(Integer.parseInt(configuration.get("port")));
-			} catch (Exception e) {
-				throw new IllegalArgumentException("Malformed port: " + configuration.get("port"));
-			}
-		if (configuration.containsKey("Port"))
-			try {
-				server.setListenPort(Integer.parseInt(configuration.get("Port")));
-			} catch (Exception e) {
-				throw new IllegalArgumentException("Malformed port: " + configuration.get("Port"));
-			}
+		Http_1_1_Adapter.configureServer(server, configuration);
+		Http_2_Adapter.configureHttp2(server.getHttp2Configuration(), configuration);
+		if (configuration.containsKey("http2")) {
+			String http2 = configuration.get("http2");
+			if (http2.equalsIgnoreCase("true"))
+				server.setHttp2Enabled(true);
+			else if (http2.equalsIgnoreCase("false"))
+				server.setHttp2Enabled(false);
+			else
+				throw new IllegalArgumentException("Malformed http2 option: " + http2 + ", expected true or false");
+		}
+		if (configuration.containsKey("Http2")) {
+			String http2 = configuration.get("Http2");
+			if (http2.equalsIgnoreCase("true"))
+				server.setHttp2Enabled(true);
+			else if (http2.equalsIgnoreCase("false"))
+				server.setHttp2Enabled(false);
+			else
+				throw new IllegalArgumentException("Malformed http2 option: " + http2 + ", expected true or false");
+		}
 		if (configuration.containsKey("Keystore"))
 			try {
 				// Find password
@@ -0,0 +1,238 @@
+package org.asf.connective.io;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ *
+ * Set of IPv4 and IPv6 address prefixes in CIDR notation, backed by binary
+ * tries. Lookups read an immutable snapshot without locking, updates rebuild
+ * the snapshot and swap it in. Entries that are not addresses (such as
+ * hostnames) are matched exactly.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class AddressPrefixSet {
+
+	private LinkedHashSet<String> entries = new LinkedHashSet<String>();
+	private volatile Snapshot snapshot = new Snapshot(null, null, Collections.emptySet());
+
+	private static class Node {
+		private Node zero;
+		private Node one;
+		private boolean terminal;
+	}
+
+	private static class Snapshot {
+		private final Node ipv4;
+		private final Node ipv6;
+		private final Set<String> names;
+
+		public Snapshot(Node ipv4, Node ipv6, Set<String> names) {
+			this.ipv4 = ipv4;
+			this.ipv6 = ipv6;
+			this.names = names;
+		}
+	}
+
+	/**
+	 * Adds an address or CIDR prefix, such as 10.0.0.0/8 or fd00::/8
+	 *
+	 * @param entry Address, prefix or hostname to add
+	 * @throws IllegalArgumentException If the prefix is malformed
+	 */
+	public synchronized void add(String entry) throws IllegalArgumentException {
+		entry = entry.trim().toLowerCase();
+		if (entry.isEmpty())
+			return;
+		parsePrefix(entry);
+		if (entries.add(entry))
+			rebuild();
+	}
+
+	/**
+	 * Removes an entry that was added before
+	 *
+	 * @param entry Entry to remove
+	 */
+	public synchronized void remove(String entry) {
+		if (entries.remove(entry.trim().toLowerCase()))
+			rebuild();
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		rebuild();
+	}
+
+	/**
+	 * Retrieves all entries
+	 *
+	 * @return Array of entries in the order they were added
+	 */
+	public synchronized String[] getEntries() {
+		return entries.toArray(new String[0]);
+	}
+
+	/**
+	 * Checks if the set has no entries
+	 *
+	 * @return True if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		Snapshot current = snapshot;
+		return current.ipv4 == null && current.ipv6 == null && current.names.isEmpty();
+	}
+
+	/**
+	 * Checks if an address is covered by any entry
+	 *
+	 * @param address Address to check
+	 * @return True if covered, false otherwise
+	 */
+	public boolean contains(String address) {
+		Snapshot current = snapshot;
+		if (address == null)
+			return false;
+		if (!HostnameResolver.isAddressLiteral(address))
+			return !current.names.isEmpty() && current.names.contains(address.toLowerCase());
+		byte[] bytes = toBytes(address);
+		if (bytes == null)
+			return false;
+		return matches(bytes.length == 4 ? current.ipv4 : current.ipv6, bytes);
+	}
+
+	/**
+	 * Checks if an address is covered by any entry
+	 *
+	 * @param address Address to check
+	 * @return True if covered, false otherwise
+	 */
+	public boolean contains(InetAddress address) {
+		Snapshot current = snapshot;
+		byte[] bytes = normalize(address.getAddress());
+		return matches(bytes.length == 4 ? current.ipv4 : current.ipv6, bytes);
+	}
+
+	private static boolean matches(Node node, byte[] address) {
+		for (int i = 0; node != null; i++) {
+			if (node.terminal)
+				return true;
+			if (i == address.length * 8)
+				return false;
+			node = ((address[i >> 3] >> (7 - (i & 7))) & 1) == 0 ? node.zero : node.one;
+		}
+		return false;
+	}
+
+	private void rebuild() {
+		Node ipv4 = null;
+		Node ipv6 = null;
+		HashSet<String> names = new HashSet<String>();
+		for (String entry : entries) {
+			Object[] prefix = parsePrefix(entry);
+			if (prefix == null) {
+				names.add(entry);
+				continue;
+			}
+			byte[] address = (byte[]) prefix[0];
+			if (address.length == 4) {
+				if (ipv4 == null)
+					ipv4 = new Node();
+				insert(ipv4, address, (int) prefix[1]);
+			} else {
+				if (ipv6 == null)
+					ipv6 = new Node();
+				insert(ipv6, address, (int) prefix[1]);
+			}
+		}
+		snapshot = new Snapshot(ipv4, ipv6, names);
+	}
+
+	private static void insert(Node node, byte[] address, int length) {
+		for (int i = 0; i < length; i++) {
+			if (node.terminal)
+				return; // Covered by a shorter prefix
+			if (((address[i >> 3] >> (7 - (i & 7))) & 1) == 0) {
+				if (node.zero == null)
+					node.zero = new Node();
+				node = node.zero;
+			} else {
+				if (node.one == null)
+					node.one = new Node();
+				node = node.one;
+			}
+		}
+
+		// Longer prefixes below this node are covered now
+		node.terminal = true;
+		node.zero = null;
+		node.one = null;
+	}
+
+	private static Object[] parsePrefix(String entry) {
+		// Split the prefix length
+		String address = entry;
+		int length = -1;
+		int slash = entry.indexOf('/');
+		if (slash != -1) {
+			address = entry.substring(0, slash);
+			try {
+				length = Integer.parseInt(entry.substring(slash + 1));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed prefix length: " + entry);
+			}
+		}
+		if (!HostnameResolver.isAddressLiteral(address)) {
+			if (slash != -1)
+				throw new IllegalArgumentException("Malformed address prefix: " + entry);
+			return null;
+		}
+
+		// Parse address
+		byte[] bytes = toBytes(address);
+		if (bytes == null)
+			throw new IllegalArgumentException("Malformed address: " + entry);
+		if (address.indexOf(':') != -1 && bytes.length == 4 && length != -1) {
+			// Mapped IPv4 address, the prefix counts the IPv6 bits
+			length -= 96;
+		}
+		if (length == -1)
+			length = bytes.length * 8;
+		if (length < 0 || length > bytes.length * 8)
+			throw new IllegalArgumentException("Prefix length out of range: " + entry);
+		return new Object[] { bytes, length };
+	}
+
+	private static byte[] toBytes(String address) {
+		// Address literals are parsed without a DNS lookup
+		byte[] bytes = HostnameResolver.parseAddressLiteral(address);
+		if (bytes == null)
+			return null;
+		return normalize(bytes);
+	}
+
+	private static byte[] normalize(byte[] address) {
+		// Match IPv4-mapped IPv6 addresses against IPv4 prefixes
+		if (address.length == 16) {
+			for (int i = 0; i < 10; i++) {
+				if (address[i] != 0)
+					return address;
+			}
+			if (address[10] == (byte) 0xff && address[11] == (byte) 0xff) {
+				byte[] ipv4 = new byte[4];
+				System.arraycopy(address, 12, ipv4, 0, 4);
+				return ipv4;
+			}
+		}
+		return address;
+	}
+
+}
@@ -0,0 +1,164 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 
+ * Length-limited body stream that keeps track of how many bytes were read
+ * 
+ * @author Sky Swimmer
+ * 
+ */
+public class BodyInputStream extends InputStream {
+
+	private InputStream delegate;
+	private long length;
+	private long read;
+	private boolean allowClose;
+	private boolean closed;
+	private Runnable readListener;
+
+	/**
+	 * Creates a body stream
+	 * 
+	 * @param delegate   Stream to read from
+	 * @param length     Body length
+	 * @param allowClose True to close the delegate when this stream is closed,
+	 *                   false otherwise
+	 */
+	public BodyInputStream(InputStream delegate, long length, boolean allowClose) {
+		this.delegate = delegate;
+		this.length = length;
+		this.allowClose = allowClose;
+	}
+
+	/**
+	 * Assigns a listener called before every read
+	 * 
+	 * @param listener Read listener
+	 */
+	public void setReadListener(Runnable listener) {
+		readListener = listener;
+	}
+
+	/**
+	 * Retrieves the amount of bytes that were read from the stream
+	 * 
+	 * @return Amount of bytes that were read
+	 */
+	public long getBytesRead() {
+		return read;
+	}
+
+	/**
+	 * Retrieves the amount of bytes that remain
+	 * 
+	 * @return Remaining byte count
+	 */
+	public long getRemaining() {
+		return length - read;
+	}
+
+	/**
+	 * Retrieves the body length
+	 * 
+	 * @return Body length
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Reads and discards the remainder of the body
+	 * 
+	 * @throws IOException If reading fails
+	 */
+	public void skipRemaining() throws IOException {
+		PooledBuffer pooled = null;
+		try {
+			while (read < length) {
+				// Try to skip
+				long skipped = delegate.skip(length - read);
+				if (skipped > 0) {
+					read += skipped;
+					continue;
+				}
+
+				// Read instead
+				if (pooled == null)
+					pooled = BufferPool.getDefault().acquire((int) Math.min(16 * 1024, length - read));
+				byte[] buffer = pooled.array();
+				int r = delegate.read(buffer, 0, (int) Math.min(buffer.length, length - read));
+				if (r <= 0)
+					break;
+				read += r;
+			}
+		} finally {
+			if (pooled != null)
+				pooled.release();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (closed)
+			throw new IOException("Stream closed");
+		if (read >= length)
+			return -1;
+		if (readListener != null)
+			readListener.run();
+		int b = delegate.read();
+		if (b == -1)
+			read = length;
+		else
+			read++;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int len) throws IOException {
+		if (closed)
+			throw new IOException("Stream closed");
+		if (offset < 0 || len < 0 || len > data.length - offset)
+			throw new IndexOutOfBoundsException();
+		if (read >= length)
+			return -1;
+		if (len == 0)
+			return 0;
+		if (readListener != null)
+			readListener.run();
+
+		// Read straight into the caller's array
+		int r = delegate.read(data, offset, (int) Math.min(len, length - read));
+		if (r == -1)
+			return -1;
+		read += r;
+		return r;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0 || read >= length)
+			return 0;
+		long skipped = delegate.skip(Math.min(n, length - read));
+		if (skipped > 0)
+			read += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (closed)
+			return 0;
+		return (int) Math.min(delegate.available(), length - read);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (allowClose)
+			delegate.close();
+		closed = true;
+	}
+
+}
@@ -0,0 +1,280 @@
+package org.asf.connective.io;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.asf.connective.logger.ConnectiveLogMessage;
+import org.asf.connective.logger.ConnectiveLoggerManager;
+
+/**
+ *
+ * Size-classed buffer pool, hands out power-of-two sized buffers between 4 KB
+ * and 1 MB and keeps a bounded amount of released buffers per size class for
+ * reuse. Larger requests are allocated without pooling.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class BufferPool {
+
+	/**
+	 * Smallest buffer size handed out by the pool
+	 */
+	public static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+	/**
+	 * Largest buffer size kept by the pool
+	 */
+	public static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Buffer size used for stream-to-stream transfers
+	 */
+	public static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+	private static final int MIN_SHIFT = 12;
+	private static final int CLASS_COUNT = 9;
+
+	private static BufferPool defaultPool;
+	private static BufferPool directPool;
+
+	private final boolean direct;
+	private final int maxRetainedBytes;
+	private final SizeClass[] classes;
+
+	private LongAdder allocated = new LongAdder();
+	private LongAdder reused = new LongAdder();
+	private LongAdder leaked = new LongAdder();
+
+	private boolean leakDetection;
+	private ReferenceQueue<PooledBuffer> leakQueue = new ReferenceQueue<PooledBuffer>();
+	private Set<LeakTracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+	private Consumer<Throwable> leakHandler = t -> ConnectiveLoggerManager.getInstance().getLogger("buffers")
+			.error(new ConnectiveLogMessage("buffers",
+					"Buffer leak detected, buffer was not released before being garbage collected",
+					t instanceof Exception ? (Exception) t : new Exception(t), null));
+
+	private static class SizeClass {
+		private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+		private final AtomicInteger retained = new AtomicInteger();
+	}
+
+	/**
+	 * Retrieves the shared heap buffer pool
+	 *
+	 * @return BufferPool instance
+	 */
+	public static synchronized BufferPool getDefault() {
+		if (defaultPool == null)
+			defaultPool = new BufferPool(false, retainedBytesProperty(),
+					Boolean.getBoolean("connectiveBufferLeakDetection"));
+		return defaultPool;
+	}
+
+	/**
+	 * Retrieves the shared direct buffer pool, buffers from this pool do not have
+	 * a backing array and are meant for channel IO
+	 *
+	 * @return BufferPool instance
+	 */
+	public static synchronized BufferPool getDirect() {
+		if (directPool == null)
+			directPool = new BufferPool(true, retainedBytesProperty(),
+					Boolean.getBoolean("connectiveBufferLeakDetection"));
+		return directPool;
+	}
+
+	private static int retainedBytesProperty() {
+		return Integer.getInteger("connectiveBufferPoolRetainedBytes", 4 * 1024 * 1024);
+	}
+
+	/**
+	 * Creates a new buffer pool
+	 *
+	 * @param direct           True to allocate direct buffers, false to allocate
+	 *                         heap buffers
+	 * @param maxRetainedBytes Maximum amount of bytes kept per size class
+	 * @param leakDetection    True to track buffers that are garbage collected
+	 *                         without being released, this records a stack trace
+	 *                         per acquired buffer and should only be used for
+	 *                         debugging
+	 */
+	public BufferPool(boolean direct, int maxRetainedBytes, boolean leakDetection) {
+		if (maxRetainedBytes < 0)
+			throw new IllegalArgumentException("Retained byte count cannot be negative");
+		this.direct = direct;
+		this.maxRetainedBytes = maxRetainedBytes;
+		this.leakDetection = leakDetection;
+		classes = new SizeClass[CLASS_COUNT];
+		for (int i = 0; i < CLASS_COUNT; i++)
+			classes[i] = new SizeClass();
+	}
+
+	/**
+	 * Checks if this pool allocates direct buffers
+	 *
+	 * @return True if direct, false otherwise
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+
+	/**
+	 * Checks if leak detection is enabled
+	 *
+	 * @return True if enabled, false otherwise
+	 */
+	public boolean isLeakDetectionEnabled() {
+		return leakDetection;
+	}
+
+	/**
+	 * Assigns the handler called with the allocation trace of leaked buffers
+	 *
+	 * @param handler Leak handler
+	 */
+	public void setLeakHandler(Consumer<Throwable> handler) {
+		leakHandler = handler;
+	}
+
+	/**
+	 * Retrieves the amount of buffers that had to be allocated
+	 *
+	 * @return Allocated buffer count
+	 */
+	public long getAllocatedBuffers() {
+		return allocated.sum();
+	}
+
+	/**
+	 * Retrieves the amount of buffers that were served from the pool
+	 *
+	 * @return Reused buffer count
+	 */
+	public long getReusedBuffers() {
+		return reused.sum();
+	}
+
+	/**
+	 * Retrieves the amount of detected buffer leaks
+	 *
+	 * @return Leaked buffer count
+	 */
+	public long getLeakedBuffers() {
+		return leaked.sum();
+	}
+
+	/**
+	 * Retrieves the amount of buffers currently held by the pool
+	 *
+	 * @return Pooled buffer count
+	 */
+	public int getPooledBuffers() {
+		int count = 0;
+		for (SizeClass cls : classes)
+			count += cls.retained.get();
+		return count;
+	}
+
+	/**
+	 * Acquires a buffer, the returned buffer is cleared and has at least the
+	 * requested capacity
+	 *
+	 * @param minCapacity Minimal buffer capacity
+	 * @return PooledBuffer instance, must be released once no longer needed
+	 */
+	public PooledBuffer acquire(int minCapacity) {
+		if (minCapacity < 0)
+			throw new IllegalArgumentException("Capacity cannot be negative");
+		if (leakDetection)
+			reportLeaks();
+
+		// Find size class
+		int cls = sizeClass(minCapacity);
+		ByteBuffer buffer = null;
+		if (cls != -1) {
+			buffer = classes[cls].buffers.poll();
+			if (buffer != null) {
+				classes[cls].retained.decrementAndGet();
+				reused.increment();
+				buffer.clear();
+			}
+		}
+
+		// Allocate if needed
+		if (buffer == null) {
+			int size = cls == -1 ? minCapacity : MIN_BUFFER_SIZE << cls;
+			buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+			allocated.increment();
+		}
+
+		// Create handle
+		PooledBuffer handle = new PooledBuffer(this, buffer);
+		if (leakDetection) {
+			LeakTracker tracker = new LeakTracker(handle, leakQueue,
+					new Exception("Buffer of " + buffer.capacity() + " bytes acquired here"));
+			trackers.add(tracker);
+			handle.tracker = tracker;
+		}
+		return handle;
+	}
+
+	void release(PooledBuffer handle, ByteBuffer buffer) {
+		if (handle.tracker != null) {
+			trackers.remove(handle.tracker);
+			handle.tracker.clear();
+			handle.tracker = null;
+		}
+
+		// Return to the pool if there is room
+		int cls = sizeClass(buffer.capacity());
+		if (cls == -1 || buffer.capacity() != MIN_BUFFER_SIZE << cls || maxRetainedBytes == 0)
+			return;
+		int limit = Math.max(1, maxRetainedBytes / buffer.capacity());
+		SizeClass sizeClass = classes[cls];
+		if (sizeClass.retained.incrementAndGet() > limit) {
+			sizeClass.retained.decrementAndGet();
+			return;
+		}
+		buffer.clear();
+		sizeClass.buffers.add(buffer);
+	}
+
+	private void reportLeaks() {
+		LeakTracker tracker;
+		while ((tracker = (LeakTracker) leakQueue.poll()) != null) {
+			if (!trackers.remove(tracker))
+				continue;
+			leaked.increment();
+			Consumer<Throwable> handler = leakHandler;
+			if (handler != null)
+				handler.accept(tracker.trace);
+		}
+	}
+
+	private static int sizeClass(int capacity) {
+		if (capacity > MAX_BUFFER_SIZE)
+			return -1;
+		if (capacity <= MIN_BUFFER_SIZE)
+			return 0;
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_SHIFT;
+	}
+
+	static class LeakTracker extends WeakReference<PooledBuffer> {
+		private final Throwable trace;
+
+		public LeakTracker(PooledBuffer referent, ReferenceQueue<PooledBuffer> queue, Throwable trace) {
+			super(referent, queue);
+			this.trace = trace;
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+package org.asf.connective.io;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+
+/**
+ *
+ * Byte range request support, answers Range requests for file region
+ * responses with single-part or multipart/byteranges partial content
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ByteRanges {
+
+	/**
+	 * Maximum amount of ranges accepted in a single request, requests with more
+	 * ranges receive the complete body
+	 */
+	public static final int MAX_RANGES = 64;
+
+	private static final SecureRandom random = new SecureRandom();
+
+	/**
+	 * Parses the value of a Range header
+	 *
+	 * @param range  Range header value
+	 * @param length Complete length of the representation
+	 * @return Array of {first, last} pairs (inclusive) sorted and with
+	 *         overlapping ranges merged, an empty array if no range can be
+	 *         satisfied or null if the header is invalid or unsupported
+	 */
+	public static long[][] parse(String range, long length) {
+		if (range == null)
+			return null;
+		range = range.trim();
+		int eq = range.indexOf('=');
+		if (eq == -1 || !range.substring(0, eq).trim().equalsIgnoreCase("bytes"))
+			return null;
+		String[] specs = range.substring(eq + 1).split(",");
+		if (specs.length > MAX_RANGES)
+			return null;
+
+		// Parse each range
+		ArrayList<long[]> ranges = new ArrayList<long[]>();
+		int parsed = 0;
+		for (String spec : specs) {
+			spec = spec.trim();
+			if (spec.isEmpty())
+				continue;
+			parsed++;
+			int dash = spec.indexOf('-');
+			if (dash == -1)
+				return null;
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			long start;
+			long end;
+			try {
+				if (first.isEmpty()) {
+					// Suffix range
+					if (last.isEmpty())
+						return null;
+					long suffix = Long.parseLong(last);
+					if (suffix < 0)
+						return null;
+					if (suffix == 0 || length == 0)
+						continue;
+					start = Math.max(0, length - suffix);
+					end = length - 1;
+				} else {
+					start = Long.parseLong(first);
+					end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+					if (start < 0 || end < start)
+						return null;
+					if (start >= length)
+						continue;
+					end = Math.min(end, length - 1);
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			ranges.add(new long[] { start, end });
+		}
+		if (parsed == 0)
+			return null;
+
+		// Merge overlapping and adjacent ranges
+		ranges.sort((t1, t2) -> Long.compare(t1[0], t2[0]));
+		ArrayList<long[]> merged = new ArrayList<long[]>();
+		for (long[] r : ranges) {
+			long[] previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (previous != null && r[0] <= previous[1] + 1)
+				previous[1] = Math.max(previous[1], r[1]);
+			else
+				merged.add(r);
+		}
+		return merged.toArray(new long[0][]);
+	}
+
+	/**
+	 * Checks if an If-Range header value matches the validators of a response
+	 *
+	 * @param ifRange  If-Range header value
+	 * @param response Response to check
+	 * @return True if the range request may be answered, false if the complete
+	 *         body should be sent
+	 */
+	public static boolean matchesIfRange(String ifRange, HttpResponse response) {
+		if (ifRange == null)
+			return true;
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			// Entity tags must match strongly
+			String etag = response.getHeaderValue("ETag");
+			return etag != null && !ifRange.startsWith("W/") && !etag.startsWith("W/") && etag.equals(ifRange);
+		}
+		String modified = response.getHeaderValue("Last-Modified");
+		return modified != null && modified.equals(ifRange);
+	}
+
+	/**
+	 * Answers a range request, advertises Accept-Ranges on eligible responses
+	 *
+	 * @param request  Request that prompted the response
+	 * @param response Response to update
+	 * @return True if the response was turned into a partial response, false
+	 *         otherwise
+	 */
+	@SuppressWarnings("deprecation")
+	public static boolean apply(HttpRequest request, HttpResponse response) {
+		// Only complete file region responses are eligible
+		FileRegion region = response.getFileRegion();
+		if (region == null || response.getResponseCode() != 200 || response.hasHeader("Content-Range")
+				|| region.getLength() != response.getBodyLength() || region instanceof MultipartFileRegion)
+			return false;
+		if (!response.hasHeader("Accept-Ranges"))
+			response.addHeader("Accept-Ranges", "bytes");
+		if (!request.getRequestMethod().equalsIgnoreCase("GET") || !request.hasHeader("Range")
+				|| !matchesIfRange(request.getHeaderValue("If-Range"), response))
+			return false;
+
+		// Parse ranges
+		long length = region.getLength();
+		long[][] ranges = parse(request.getHeaderValue("Range"), length);
+		if (ranges == null)
+			return false;
+		String type = response.getHeaderValue("Content-Type");
+		response.removeHeader("Content-Length");
+		if (ranges.length == 0) {
+			// Unsatisfiable
+			response.setResponseStatus(416, "Range Not Satisfiable");
+			response.addHeader("Content-Range", "bytes */" + length);
+			response.setContent(type, new byte[0]);
+			return true;
+		}
+
+		// Replace the body without closing the channel
+		response.body = null;
+		response.setResponseStatus(206, "Partial Content");
+		if (ranges.length == 1) {
+			long[] range = ranges[0];
+			response.addHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+			response.setContent(type, region.slice(range[0], range[1] - range[0] + 1));
+		} else {
+			long[] starts = new long[ranges.length];
+			long[] ends = new long[ranges.length];
+			for (int i = 0; i < ranges.length; i++) {
+				starts[i] = ranges[i][0];
+				ends[i] = ranges[i][1];
+			}
+			String boundary = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+			response.setContent("multipart/byteranges; boundary=" + boundary, new MultipartFileRegion(
+					region.getChannel(), region.getOffset(), length, type, boundary, starts, ends));
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,251 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.asf.connective.headers.HeaderCollection;
+
+/**
+ *
+ * Incremental decoder for chunked transfer encoding, reads the body chunk by
+ * chunk and parses the trailer section once the last chunk was received
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ChunkedInputStream extends InputStream {
+
+	private static final int MAX_LINE_LENGTH = 8 * 1024;
+	private static final int MAX_TRAILER_LENGTH = 64 * 1024;
+
+	private InputStream delegate;
+	private long maxChunkSize;
+	private long maxBodySize;
+	private boolean allowClose;
+
+	private long chunkRemaining;
+	private long read;
+	private boolean complete;
+	private boolean closed;
+	private boolean limitExceeded;
+	private String error;
+	private Runnable readListener;
+	private HeaderCollection trailers = new HeaderCollection();
+
+	/**
+	 * Creates a chunked body stream
+	 *
+	 * @param delegate     Stream to read from
+	 * @param maxChunkSize Maximum size of a single chunk, -1 for no limit
+	 * @param maxBodySize  Maximum size of the decoded body, -1 for no limit
+	 * @param allowClose   True to close the delegate when this stream is closed,
+	 *                     false otherwise
+	 */
+	public ChunkedInputStream(InputStream delegate, long maxChunkSize, long maxBodySize, boolean allowClose) {
+		this.delegate = delegate;
+		this.maxChunkSize = maxChunkSize;
+		this.maxBodySize = maxBodySize;
+		this.allowClose = allowClose;
+	}
+
+	/**
+	 * Assigns a listener called before every read
+	 *
+	 * @param listener Read listener
+	 */
+	public void setReadListener(Runnable listener) {
+		readListener = listener;
+	}
+
+	/**
+	 * Retrieves the amount of decoded bytes that were read from the stream
+	 *
+	 * @return Amount of bytes that were read
+	 */
+	public long getBytesRead() {
+		return read;
+	}
+
+	/**
+	 * Checks if the last chunk and trailers were read
+	 *
+	 * @return True if complete, false otherwise
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Checks if reading failed because a chunk or the body exceeded the configured
+	 * limits
+	 *
+	 * @return True if a limit was exceeded, false otherwise
+	 */
+	public boolean isLimitExceeded() {
+		return limitExceeded;
+	}
+
+	/**
+	 * Retrieves the trailer headers, empty until the stream is complete
+	 *
+	 * @return HeaderCollection instance
+	 */
+	public HeaderCollection getTrailers() {
+		return trailers;
+	}
+
+	/**
+	 * Reads and discards the remainder of the body
+	 *
+	 * @throws IOException If reading fails
+	 */
+	public void skipRemaining() throws IOException {
+		while (!complete) {
+			if (!nextChunk())
+				break;
+			while (chunkRemaining > 0) {
+				long skipped = delegate.skip(chunkRemaining);
+				if (skipped <= 0) {
+					if (delegate.read() == -1)
+						throw new IOException("Unexpected End of File");
+					skipped = 1;
+				}
+				chunkRemaining -= skipped;
+				read += skipped;
+			}
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		if (read(b, 0, 1) == -1)
+			return -1;
+		return b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int len) throws IOException {
+		if (closed)
+			throw new IOException("Stream closed");
+		if (offset < 0 || len < 0 || len > data.length - offset)
+			throw new IndexOutOfBoundsException();
+		if (len == 0)
+			return 0;
+		if (readListener != null)
+			readListener.run();
+		if (!nextChunk())
+			return -1;
+
+		// Read straight into the caller's array
+		int r = delegate.read(data, offset, (int) Math.min(len, chunkRemaining));
+		if (r == -1)
+			throw new IOException("Unexpected End of File");
+		chunkRemaining -= r;
+		read += r;
+		return r;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (closed || complete)
+			return 0;
+		return (int) Math.min(delegate.available(), chunkRemaining);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (allowClose)
+			delegate.close();
+		closed = true;
+	}
+
+	private boolean nextChunk() throws IOException {
+		if (complete)
+			return false;
+		if (chunkRemaining > 0)
+			return true;
+
+		// Fail permanently once the stream is corrupt
+		if (error != null)
+			throw new IOException(error);
+		try {
+			return readChunkHead();
+		} catch (IOException e) {
+			error = e.getMessage();
+			throw e;
+		}
+	}
+
+	private boolean readChunkHead() throws IOException {
+		// End the previous chunk
+		if (read != 0 && readLine(MAX_LINE_LENGTH).length() != 0)
+			throw new IOException("Malformed chunk, expected CRLF after chunk data");
+
+		// Parse chunk size, extensions are ignored
+		String line = readLine(MAX_LINE_LENGTH);
+		if (line.contains(";"))
+			line = line.substring(0, line.indexOf(";"));
+		line = line.trim();
+		if (line.isEmpty() || line.length() > 15)
+			throw new IOException("Malformed chunk size: " + line);
+		long size;
+		try {
+			size = Long.parseLong(line, 16);
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed chunk size: " + line);
+		}
+		if (size < 0)
+			throw new IOException("Malformed chunk size: " + line);
+
+		// Verify limits
+		if ((maxChunkSize != -1 && size > maxChunkSize) || (maxBodySize != -1 && read + size > maxBodySize)) {
+			limitExceeded = true;
+			throw new IOException("Chunked body exceeds the configured size limits");
+		}
+
+		// Check last chunk
+		if (size == 0) {
+			readTrailers();
+			complete = true;
+			return false;
+		}
+		chunkRemaining = size;
+		return true;
+	}
+
+	private void readTrailers() throws IOException {
+		int total = 0;
+		while (true) {
+			String line = readLine(MAX_TRAILER_LENGTH - total);
+			if (line.isEmpty())
+				break;
+			total += line.length() + 2;
+			if (!line.contains(":"))
+				throw new IOException("Malformed trailer: " + line);
+			String name = line.substring(0, line.indexOf(":")).trim();
+			String value = line.substring(line.indexOf(":") + 1).trim();
+			trailers.addHeader(name, value, true);
+		}
+	}
+
+	private String readLine(int limit) throws IOException {
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int b = delegate.read();
+			if (b == -1)
+				throw new IOException("Unexpected End of File");
+			if (b == '\n')
+				break;
+			if (b != '\r') {
+				if (line.length() >= limit) {
+					limitExceeded = true;
+					throw new IOException("Chunk line too long");
+				}
+				line.append((char) b);
+			}
+		}
+		return line.toString();
+	}
+
+}
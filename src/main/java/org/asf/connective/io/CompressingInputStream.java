@@ -0,0 +1,146 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *
+ * Stream that compresses the data of another stream as it is read, produces
+ * gzip or zlib (HTTP deflate) data
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class CompressingInputStream extends InputStream {
+
+	private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0,
+			(byte) 0xff };
+
+	private InputStream delegate;
+	private Deflater deflater;
+	private boolean gzip;
+	private CRC32 crc;
+
+	private byte[] input = new byte[8192];
+	private byte[] output = new byte[8192];
+	private int outputPosition;
+	private int outputLength;
+
+	private boolean inputEnded;
+	private boolean syncFlush;
+	private boolean trailerWritten;
+	private boolean closed;
+
+	/**
+	 * Creates a compressing stream
+	 *
+	 * @param delegate Stream to compress
+	 * @param gzip     True to produce gzip data, false to produce zlib data
+	 * @param level    Compression level, 1 to 9 or -1 for the default
+	 */
+	public CompressingInputStream(InputStream delegate, boolean gzip, int level) {
+		this.delegate = delegate;
+		this.gzip = gzip;
+		deflater = new Deflater(level, gzip);
+		if (gzip) {
+			crc = new CRC32();
+			System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+			outputLength = GZIP_HEADER.length;
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = read(b, 0, 1);
+		if (read == -1)
+			return -1;
+		return b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (closed)
+			throw new IOException("Stream closed");
+		if (len == 0)
+			return 0;
+		while (outputPosition == outputLength) {
+			if (!fill())
+				return -1;
+		}
+		int amount = Math.min(len, outputLength - outputPosition);
+		System.arraycopy(output, outputPosition, b, off, amount);
+		outputPosition += amount;
+		return amount;
+	}
+
+	@Override
+	public int available() {
+		return outputLength - outputPosition;
+	}
+
+	private boolean fill() throws IOException {
+		outputPosition = 0;
+		outputLength = 0;
+		while (true) {
+			// Compress what was given to the deflater
+			if (!deflater.finished()) {
+				int produced = deflater.deflate(output, 0, output.length,
+						syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+				if (produced < output.length)
+					syncFlush = false;
+				if (produced > 0) {
+					outputLength = produced;
+					return true;
+				}
+			}
+			if (deflater.finished()) {
+				if (!gzip || trailerWritten)
+					return false;
+
+				// Write gzip trailer
+				writeInt((int) crc.getValue(), 0);
+				writeInt((int) deflater.getBytesRead(), 4);
+				outputLength = 8;
+				trailerWritten = true;
+				return true;
+			}
+
+			// Feed more input
+			if (deflater.needsInput() && !inputEnded) {
+				int read = delegate.read(input);
+				if (read == -1) {
+					inputEnded = true;
+					deflater.finish();
+				} else if (read > 0) {
+					if (crc != null)
+						crc.update(input, 0, read);
+					deflater.setInput(input, 0, read);
+
+					// Flush when the source stalls so that streamed data is not held back
+					syncFlush = delegate.available() <= 0;
+				}
+			}
+		}
+	}
+
+	private void writeInt(int value, int offset) {
+		// Little-endian
+		output[offset] = (byte) value;
+		output[offset + 1] = (byte) (value >> 8);
+		output[offset + 2] = (byte) (value >> 16);
+		output[offset + 3] = (byte) (value >> 24);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		deflater.end();
+		delegate.close();
+	}
+
+}
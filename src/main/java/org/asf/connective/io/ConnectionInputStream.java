@@ -0,0 +1,162 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 
+ * Buffered connection reader with pushback support, bulk reads larger than the
+ * buffer go straight into the caller's array
+ * 
+ * @author Sky Swimmer
+ * 
+ */
+public class ConnectionInputStream extends InputStream {
+
+	private InputStream delegate;
+
+	private byte[] buffer;
+	private int position;
+	private int limit;
+
+	public ConnectionInputStream(InputStream delegate) {
+		this(delegate, 16 * 1024);
+	}
+
+	public ConnectionInputStream(InputStream delegate, int bufferSize) {
+		this.delegate = delegate;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Pushes data back to the stream, it will be returned before anything else
+	 * 
+	 * @param data   Data array
+	 * @param offset Data offset
+	 * @param length Data length
+	 */
+	public void unread(byte[] data, int offset, int length) {
+		if (length == 0)
+			return;
+		if (position >= length) {
+			// Fits before the buffered data
+			position -= length;
+			System.arraycopy(data, offset, buffer, position, length);
+			return;
+		}
+
+		// Move buffered data back
+		int buffered = limit - position;
+		byte[] target = buffer;
+		if (length + buffered > buffer.length)
+			target = new byte[length + buffered];
+		System.arraycopy(buffer, position, target, length, buffered);
+		System.arraycopy(data, offset, target, 0, length);
+		buffer = target;
+		position = 0;
+		limit = length + buffered;
+	}
+
+	/**
+	 * Pushes data back to the stream, it will be returned before anything else
+	 * 
+	 * @param data Data to push back
+	 */
+	public void unread(byte[] data) {
+		unread(data, 0, data.length);
+	}
+
+	/**
+	 * Retrieves the amount of buffered bytes
+	 * 
+	 * @return Buffered byte count
+	 */
+	public int getBufferedLength() {
+		return limit - position;
+	}
+
+	/**
+	 * Removes and returns the buffered data
+	 * 
+	 * @return Buffered bytes
+	 */
+	public byte[] takeBuffered() {
+		byte[] data = new byte[limit - position];
+		System.arraycopy(buffer, position, data, 0, data.length);
+		position = 0;
+		limit = 0;
+		return data;
+	}
+
+	private boolean fill() throws IOException {
+		position = 0;
+		limit = 0;
+		int read = delegate.read(buffer, 0, buffer.length);
+		if (read <= 0)
+			return false;
+		limit = read;
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position >= limit && !fill())
+			return -1;
+		return buffer[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+		if (offset < 0 || length < 0 || length > data.length - offset)
+			throw new IndexOutOfBoundsException();
+		if (length == 0)
+			return 0;
+
+		// Read buffered data first
+		int buffered = limit - position;
+		if (buffered > 0) {
+			int amount = Math.min(buffered, length);
+			System.arraycopy(buffer, position, data, offset, amount);
+			position += amount;
+			return amount;
+		}
+
+		// Bulk read
+		if (length >= buffer.length)
+			return delegate.read(data, offset, length);
+
+		// Refill
+		if (!fill())
+			return -1;
+		int amount = Math.min(limit, length);
+		System.arraycopy(buffer, 0, data, offset, amount);
+		position = amount;
+		return amount;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0)
+			return 0;
+		int buffered = limit - position;
+		if (buffered > 0) {
+			int amount = (int) Math.min(buffered, n);
+			position += amount;
+			return amount;
+		}
+		return delegate.skip(n);
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (limit - position) + delegate.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+		position = 0;
+		limit = 0;
+	}
+
+}
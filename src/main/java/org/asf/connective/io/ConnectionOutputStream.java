@@ -0,0 +1,179 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *
+ * Buffered connection writer, data is only sent on explicit flushes or when
+ * the buffer fills up so that response heads and small bodies leave in a
+ * single write
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ConnectionOutputStream extends OutputStream {
+
+	private OutputStream delegate;
+
+	private byte[] buffer;
+	private int count;
+	private boolean buffered = true;
+
+	public ConnectionOutputStream(OutputStream delegate) {
+		this(delegate, 16 * 1024);
+	}
+
+	public ConnectionOutputStream(OutputStream delegate, int bufferSize) {
+		this.delegate = delegate;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Enables or disables buffering, disabling flushes buffered data and passes
+	 * subsequent writes straight through
+	 *
+	 * @param buffered True to buffer writes, false otherwise
+	 * @throws IOException If flushing fails
+	 */
+	public void setBuffered(boolean buffered) throws IOException {
+		if (!buffered)
+			flushBuffer();
+		this.buffered = buffered;
+	}
+
+	/**
+	 * Checks if writes are buffered
+	 *
+	 * @return True if buffered, false otherwise
+	 */
+	public boolean isBuffered() {
+		return buffered;
+	}
+
+	/**
+	 * Retrieves the amount of bytes waiting to be flushed
+	 *
+	 * @return Buffered byte count
+	 */
+	public int getBufferedLength() {
+		return count;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (!buffered) {
+			writeOut(new byte[] { (byte) b }, 0, 1);
+			return;
+		}
+		if (count == buffer.length)
+			flushBuffer();
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+		if (!buffered) {
+			writeOut(data, offset, length);
+			return;
+		}
+		if (length <= buffer.length - count) {
+			// Fits
+			System.arraycopy(data, offset, buffer, count, length);
+			count += length;
+		} else if (length < buffer.length) {
+			// Fits after flushing
+			flushBuffer();
+			System.arraycopy(data, offset, buffer, 0, length);
+			count = length;
+		} else {
+			// Write buffered data and the array together
+			int buffered = count;
+			count = 0;
+			writeOut(buffer, buffered, data, offset, length);
+		}
+	}
+
+	/**
+	 * Writes buffered data to the connection without flushing the underlying
+	 * stream
+	 *
+	 * @throws IOException If writing fails
+	 */
+	public void flushBuffer() throws IOException {
+		if (count == 0)
+			return;
+		int buffered = count;
+		count = 0;
+		writeOut(buffer, 0, buffered);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		flushOut();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			closeOut();
+		}
+	}
+
+	/**
+	 * Writes data to the connection
+	 *
+	 * @param data   Data array
+	 * @param offset Data offset
+	 * @param length Data length
+	 * @throws IOException If writing fails
+	 */
+	protected void writeOut(byte[] data, int offset, int length) throws IOException {
+		delegate.write(data, offset, length);
+	}
+
+	/**
+	 * Writes the buffer contents followed by a second array to the connection,
+	 * the default implementation fills the buffer with the start of the array so
+	 * that it leaves in the same write as the buffered data
+	 *
+	 * @param head       Buffer array
+	 * @param headLength Amount of buffered bytes
+	 * @param data       Data array
+	 * @param offset     Data offset
+	 * @param length     Data length
+	 * @throws IOException If writing fails
+	 */
+	protected void writeOut(byte[] head, int headLength, byte[] data, int offset, int length) throws IOException {
+		if (headLength != 0) {
+			int fill = head.length - headLength;
+			System.arraycopy(data, offset, head, headLength, fill);
+			writeOut(head, 0, head.length);
+			offset += fill;
+			length -= fill;
+		}
+		writeOut(data, offset, length);
+	}
+
+	/**
+	 * Flushes the connection
+	 *
+	 * @throws IOException If flushing fails
+	 */
+	protected void flushOut() throws IOException {
+		delegate.flush();
+	}
+
+	/**
+	 * Closes the connection
+	 *
+	 * @throws IOException If closing fails
+	 */
+	protected void closeOut() throws IOException {
+		delegate.close();
+	}
+
+}
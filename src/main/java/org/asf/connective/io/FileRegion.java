@@ -0,0 +1,231 @@
+package org.asf.connective.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *
+ * Region of a file used as response body, allows transports to send file
+ * contents with FileChannel.transferTo instead of copying them through
+ * user-space buffers
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class FileRegion implements Closeable {
+
+	private FileChannel channel;
+	private long offset;
+	private long length;
+	private long transferred;
+	private boolean closed;
+
+	/**
+	 * Creates a file region
+	 *
+	 * @param channel File channel, closed together with the region
+	 * @param offset  Region offset
+	 * @param length  Region length
+	 */
+	public FileRegion(FileChannel channel, long offset, long length) {
+		if (offset < 0 || length < 0)
+			throw new IllegalArgumentException("Offset and length cannot be negative");
+		this.channel = channel;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Opens a region covering a whole file
+	 *
+	 * @param file File to open
+	 * @return FileRegion instance
+	 * @throws IOException If opening the file fails
+	 */
+	public static FileRegion open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new FileRegion(channel, 0, channel.size());
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a region of a file
+	 *
+	 * @param file   File to open
+	 * @param offset Region offset
+	 * @param length Region length
+	 * @return FileRegion instance
+	 * @throws IOException If opening the file fails
+	 */
+	public static FileRegion open(Path file, long offset, long length) throws IOException {
+		return new FileRegion(FileChannel.open(file, StandardOpenOption.READ), offset, length);
+	}
+
+	/**
+	 * Creates a region covering part of this region, the new region shares the
+	 * file channel, closing either region closes the channel
+	 *
+	 * @param offset Offset relative to the start of this region
+	 * @param length Slice length
+	 * @return FileRegion instance
+	 */
+	public FileRegion slice(long offset, long length) {
+		if (offset < 0 || length < 0 || offset + length > this.length)
+			throw new IllegalArgumentException("Slice outside of region");
+		return new FileRegion(channel, this.offset + offset, length);
+	}
+
+	/**
+	 * Retrieves the file channel
+	 *
+	 * @return FileChannel instance
+	 */
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Retrieves the region offset
+	 *
+	 * @return Region offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Retrieves the region length
+	 *
+	 * @return Region length
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Retrieves the amount of bytes that were transferred or read so far
+	 *
+	 * @return Transferred byte count
+	 */
+	public long getTransferred() {
+		return transferred;
+	}
+
+	/**
+	 * Retrieves the amount of bytes left to transfer
+	 *
+	 * @return Remaining byte count
+	 */
+	public long getRemaining() {
+		return length - transferred;
+	}
+
+	/**
+	 * Transfers part of the remaining region to a channel, on Linux this uses
+	 * sendfile for socket channels
+	 *
+	 * @param target Target channel
+	 * @return Amount of bytes transferred, 0 if a non-blocking target is not
+	 *         writable
+	 * @throws IOException If transferring fails or the file is shorter than the
+	 *                     region
+	 */
+	public long transferTo(WritableByteChannel target) throws IOException {
+		if (closed)
+			throw new IOException("Region closed");
+		long remaining = getRemaining();
+		if (remaining == 0)
+			return 0;
+		long res = channel.transferTo(offset + transferred, remaining, target);
+		if (res == 0 && offset + transferred >= channel.size())
+			throw new IOException("Unexpected End of File");
+		transferred += res;
+		return res;
+	}
+
+	/**
+	 * Transfers the remaining region to a blocking channel
+	 *
+	 * @param target Target channel
+	 * @throws IOException If transferring fails
+	 */
+	public void transferAll(WritableByteChannel target) throws IOException {
+		while (getRemaining() > 0) {
+			if (transferTo(target) == 0 && getRemaining() > 0)
+				Thread.yield();
+		}
+	}
+
+	/**
+	 * Creates a stream reading the remaining region, closing the stream closes the
+	 * region
+	 *
+	 * @return InputStream instance
+	 */
+	public InputStream openStream() {
+		return new RegionInputStream();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		channel.close();
+	}
+
+	private class RegionInputStream extends InputStream {
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			if (read(b, 0, 1) == -1)
+				return -1;
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (closed)
+				throw new IOException("Stream closed");
+			if (len == 0)
+				return 0;
+			long remaining = getRemaining();
+			if (remaining == 0)
+				return -1;
+			int r = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), offset + transferred);
+			if (r > 0)
+				transferred += r;
+			return r;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = Math.max(0, Math.min(n, getRemaining()));
+			transferred += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(Integer.MAX_VALUE, getRemaining());
+		}
+
+		@Override
+		public void close() throws IOException {
+			FileRegion.this.close();
+		}
+
+	}
+
+}
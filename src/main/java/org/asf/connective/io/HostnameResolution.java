@@ -0,0 +1,28 @@
+package org.asf.connective.io;
+
+/**
+ * 
+ * Defines when the hostnames of clients are looked up
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public enum HostnameResolution {
+
+	/**
+	 * Never looks up hostnames, clients report their address as hostname
+	 */
+	OFF,
+
+	/**
+	 * Looks up the hostname the first time it is requested, waits for the lookup
+	 */
+	LAZY,
+
+	/**
+	 * Looks up hostnames on a background thread as soon as a client connects,
+	 * clients report their address until the lookup completes
+	 */
+	ASYNC
+
+}
@@ -0,0 +1,324 @@
+package org.asf.connective.io;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Reverse DNS resolver with a bounded TTL cache, failed lookups are cached for
+ * a shorter time. Lookups can be run on a background thread so that callers
+ * never wait for the DNS server.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class HostnameResolver {
+
+	private static HostnameResolver defaultResolver;
+
+	private final int maxEntries;
+	private final long ttl;
+	private final long negativeTtl;
+
+	private LinkedHashMap<String, CacheEntry> cache;
+	private LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<String>(1024);
+	private Set<String> pending = ConcurrentHashMap.newKeySet();
+	private Thread resolverThread;
+
+	private LongAdder hits = new LongAdder();
+	private LongAdder lookups = new LongAdder();
+
+	private static class CacheEntry {
+		private final String host;
+		private final long expires;
+
+		public CacheEntry(String host, long expires) {
+			this.host = host;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * Retrieves the shared resolver
+	 *
+	 * @return HostnameResolver instance
+	 */
+	public static synchronized HostnameResolver getDefault() {
+		if (defaultResolver == null)
+			defaultResolver = new HostnameResolver(Integer.getInteger("connectiveDnsCacheSize", 4096),
+					Long.getLong("connectiveDnsCacheTtl", 300) * 1000l,
+					Long.getLong("connectiveDnsCacheNegativeTtl", 30) * 1000l);
+		return defaultResolver;
+	}
+
+	/**
+	 * Creates a resolver
+	 *
+	 * @param maxEntries  Maximum amount of cached hostnames
+	 * @param ttl         Time in milliseconds resolved hostnames are cached
+	 * @param negativeTtl Time in milliseconds failed lookups are cached
+	 */
+	public HostnameResolver(int maxEntries, long ttl, long negativeTtl) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Cache size must be at least 1");
+		this.maxEntries = maxEntries;
+		this.ttl = ttl;
+		this.negativeTtl = negativeTtl;
+		cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1l;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > HostnameResolver.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves the hostname of an address, looks it up if it is not cached
+	 *
+	 * @param address IP address
+	 * @return Hostname, or the address itself if it has no hostname
+	 */
+	public String resolve(String address) {
+		if (!isAddressLiteral(address))
+			return address;
+		String host = getCached(address);
+		if (host != null)
+			return host;
+		return lookupAndCache(address);
+	}
+
+	/**
+	 * Retrieves the cached hostname of an address without looking it up
+	 *
+	 * @param address IP address
+	 * @return Hostname, the address itself if it has no hostname, or null if the
+	 *         address is not cached
+	 */
+	public String getCached(String address) {
+		synchronized (cache) {
+			CacheEntry entry = cache.get(address);
+			if (entry == null)
+				return null;
+			if (entry.expires - System.nanoTime() <= 0) {
+				cache.remove(address);
+				return null;
+			}
+			hits.increment();
+			return entry.host;
+		}
+	}
+
+	/**
+	 * Queues an address to be looked up on the resolver thread, addresses that
+	 * are cached or already queued are skipped, as are addresses that do not fit
+	 * in the queue
+	 *
+	 * @param address IP address
+	 */
+	public void resolveAsync(String address) {
+		if (!isAddressLiteral(address) || getCached(address) != null || !pending.add(address))
+			return;
+		startResolverThread();
+		if (!queue.offer(address))
+			pending.remove(address);
+	}
+
+	/**
+	 * Checks if a string is an IPv4 or IPv6 address literal, other values such as
+	 * obfuscated forwarding identifiers are never looked up
+	 *
+	 * @param address String to check
+	 * @return True if the string is an address literal, false otherwise
+	 */
+	public static boolean isAddressLiteral(String address) {
+		return parseAddressLiteral(address) != null;
+	}
+
+	/**
+	 * Parses an IPv4 or IPv6 address literal without a DNS lookup, zone indexes
+	 * and shortened IPv4 forms are not accepted
+	 *
+	 * @param address String to parse
+	 * @return Address bytes (4 for IPv4, 16 for IPv6), or null if the string is
+	 *         not an address literal
+	 */
+	public static byte[] parseAddressLiteral(String address) {
+		if (address == null || address.isEmpty())
+			return null;
+		if (address.indexOf(':') == -1)
+			return parseIPv4(address);
+
+		// IPv6, a single :: may stand in for one or more zero groups
+		byte[] bytes = new byte[16];
+		int gap = address.indexOf("::");
+		if (gap == -1)
+			return parseGroups(address, bytes, true) == 16 ? bytes : null;
+		if (address.indexOf("::", gap + 1) != -1)
+			return null;
+		byte[] tail = new byte[16];
+		int headLength = parseGroups(address.substring(0, gap), bytes, false);
+		int tailLength = parseGroups(address.substring(gap + 2), tail, true);
+		if (headLength == -1 || tailLength == -1 || headLength + tailLength > 14)
+			return null;
+		System.arraycopy(tail, 0, bytes, 16 - tailLength, tailLength);
+		return bytes;
+	}
+
+	private static byte[] parseIPv4(String address) {
+		byte[] bytes = new byte[4];
+		int part = 0;
+		int value = 0;
+		int digits = 0;
+		for (int i = 0; i < address.length(); i++) {
+			char ch = address.charAt(i);
+			if (ch == '.') {
+				if (digits == 0 || part == 3)
+					return null;
+				bytes[part++] = (byte) value;
+				value = 0;
+				digits = 0;
+			} else if (ch >= '0' && ch <= '9') {
+				value = value * 10 + (ch - '0');
+				if (++digits > 3 || value > 255)
+					return null;
+			} else
+				return null;
+		}
+		if (part != 3 || digits == 0)
+			return null;
+		bytes[3] = (byte) value;
+		return bytes;
+	}
+
+	private static int parseGroups(String groups, byte[] output, boolean allowIPv4) {
+		// Parses colon-separated groups into the output, the last group may be an
+		// embedded IPv4 address
+		if (groups.isEmpty())
+			return 0;
+		int length = 0;
+		int start = 0;
+		while (true) {
+			int end = groups.indexOf(':', start);
+			String group = end == -1 ? groups.substring(start) : groups.substring(start, end);
+			if (end == -1 && allowIPv4 && group.indexOf('.') != -1) {
+				byte[] ipv4 = parseIPv4(group);
+				if (ipv4 == null || length + 4 > output.length)
+					return -1;
+				System.arraycopy(ipv4, 0, output, length, 4);
+				return length + 4;
+			}
+			if (group.isEmpty() || group.length() > 4 || length + 2 > output.length)
+				return -1;
+			int value = 0;
+			for (int i = 0; i < group.length(); i++) {
+				char ch = group.charAt(i);
+				int digit = ch >= '0' && ch <= '9' ? ch - '0'
+						: ch >= 'a' && ch <= 'f' ? ch - 'a' + 10 : ch >= 'A' && ch <= 'F' ? ch - 'A' + 10 : -1;
+				if (digit == -1)
+					return -1;
+				value = (value << 4) | digit;
+			}
+			output[length++] = (byte) (value >> 8);
+			output[length++] = (byte) value;
+			if (end == -1)
+				return length;
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Retrieves the amount of lookups answered by the cache
+	 *
+	 * @return Cache hit count
+	 */
+	public long getCacheHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Retrieves the amount of lookups sent to the DNS server
+	 *
+	 * @return Lookup count
+	 */
+	public long getLookups() {
+		return lookups.sum();
+	}
+
+	/**
+	 * Retrieves the amount of cached hostnames
+	 *
+	 * @return Cache size
+	 */
+	public int getCacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Removes all cached hostnames
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Looks up the hostname of an address (potential override)
+	 *
+	 * @param address IP address
+	 * @return Hostname, or the address itself if it has no hostname
+	 */
+	protected String lookup(String address) {
+		try {
+			return InetAddress.getByAddress(parseAddressLiteral(address)).getCanonicalHostName();
+		} catch (Exception e) {
+			return address;
+		}
+	}
+
+	private String lookupAndCache(String address) {
+		lookups.increment();
+		String host = lookup(address);
+		long expires = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(host == null || host.equals(address) ? negativeTtl : ttl);
+		if (host == null)
+			host = address;
+		synchronized (cache) {
+			cache.put(address, new CacheEntry(host, expires));
+		}
+		return host;
+	}
+
+	private synchronized void startResolverThread() {
+		if (resolverThread != null)
+			return;
+		resolverThread = new Thread(() -> {
+			while (true) {
+				String address;
+				try {
+					address = queue.take();
+				} catch (InterruptedException e) {
+					continue;
+				}
+				try {
+					lookupAndCache(address);
+				} finally {
+					pending.remove(address);
+				}
+			}
+		}, "Connective DNS resolver");
+		resolverThread.setDaemon(true);
+		resolverThread.start();
+	}
+
+}
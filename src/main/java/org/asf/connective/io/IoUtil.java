@@ -14,41 +14,46 @@ public class IoUtil {
 	 * @return Byte array
 	 */
 	public static byte[] readAllBytes(InputStream strm) throws IOException {
-		byte[] buf = new byte[20480];
-		int c = 0;
-		while (true) {
-			// Read
-			try {
-				int r = strm.read(buf, c, buf.length - c);
-				if (r == -1)
-					break;
-				c += r;
-			} catch (Exception e) {
-				int b = strm.read();
-				if (b == -1)
-					break;
-				buf[c++] = (byte) b;
-			}
-			if (c >= buf.length) {
-				// Grow buffer
-				if (c == Integer.MAX_VALUE)
-					break;
-
-				// Get new size
-				int nL;
-				if ((long) buf.length + 20480l >= Integer.MAX_VALUE) {
-					nL = Integer.MAX_VALUE;
-				} else
-					nL = buf.length + 20480;
+		PooledBuffer pooled = BufferPool.getDefault().acquire(BufferPool.TRANSFER_BUFFER_SIZE);
+		try {
+			byte[] buf = pooled.array();
+			byte[] res = null;
+			int c = 0;
+			while (true) {
+				// Read into the pooled buffer
+				int l = 0;
+				try {
+					int r = strm.read(buf, 0, buf.length);
+					if (r == -1)
+						break;
+					l = r;
+				} catch (Exception e) {
+					int b = strm.read();
+					if (b == -1)
+						break;
+					buf[l++] = (byte) b;
+				}
+				if (l == 0)
+					continue;
 
-				// Grow
-				byte[] newBuf = new byte[nL];
-				for (int i = 0; i < buf.length; i++)
-					newBuf[i] = buf[i];
-				buf = newBuf;
+				// Grow result
+				if (res == null)
+					res = new byte[Math.max(l, 20480)];
+				else if (c + l > res.length) {
+					if ((long) c + (long) l > Integer.MAX_VALUE - 8)
+						throw new IOException("Stream too large");
+					res = Arrays.copyOf(res, (int) Math.min(Integer.MAX_VALUE - 8,
+							Math.max((long) c + (long) l, (long) res.length * 2l)));
+				}
+				System.arraycopy(buf, 0, res, c, l);
+				c += l;
 			}
+			if (res == null)
+				return new byte[0];
+			return c == res.length ? res : Arrays.copyOfRange(res, 0, c);
+		} finally {
+			pooled.release();
 		}
-		return Arrays.copyOfRange(buf, 0, c);
 	}
 
 	/**
@@ -86,22 +91,27 @@ public class IoUtil {
 	 * @param output Target stream
 	 */
 	public static void transfer(InputStream input, OutputStream output) throws IOException {
-		byte[] buf = new byte[20480];
-		while (true) {
-			// Read
-			int c = 0;
-			try {
-				int r = input.read(buf, c, buf.length - c);
-				if (r == -1)
-					break;
-				c += r;
-			} catch (Exception e) {
-				int b = input.read();
-				if (b == -1)
-					break;
-				buf[c++] = (byte) b;
+		PooledBuffer pooled = BufferPool.getDefault().acquire(BufferPool.TRANSFER_BUFFER_SIZE);
+		try {
+			byte[] buf = pooled.array();
+			while (true) {
+				// Read
+				int c = 0;
+				try {
+					int r = input.read(buf, c, buf.length - c);
+					if (r == -1)
+						break;
+					c += r;
+				} catch (Exception e) {
+					int b = input.read();
+					if (b == -1)
+						break;
+					buf[c++] = (byte) b;
+				}
+				output.write(buf, 0, c);
 			}
-			output.write(buf, 0, c);
+		} finally {
+			pooled.release();
 		}
 	}
 
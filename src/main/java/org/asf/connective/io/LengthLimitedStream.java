@@ -3,6 +3,15 @@ package org.asf.connective.io;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * 
+ * Length-limited stream
+ * 
+ * @author Sky Swimmer
+ * @deprecated Use {@link BodyInputStream} instead
+ *
+ */
+@Deprecated
 public class LengthLimitedStream extends InputStream {
 
 	private InputStream delegate;
@@ -7,9 +7,12 @@ import java.io.InputStream;
  * 
  * An InputStream that keeps track of how many bytes are read
  * 
+ * @deprecated Use {@link BodyInputStream} instead
+ * 
  * @author Sky Swimmer
  *
  */
+@Deprecated
 public class LengthTrackingStream extends InputStream {
 
 	private InputStream delegate;
@@ -0,0 +1,180 @@
+package org.asf.connective.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * File region body holding a multipart/byteranges document, the part headers
+ * are kept in memory and the part contents are sent straight from the file
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class MultipartFileRegion extends FileRegion {
+
+	private FileChannel channel;
+
+	private byte[][] data;
+	private long[] offsets;
+	private long[] lengths;
+	private long length;
+
+	private int segment;
+	private long segmentPosition;
+	private long transferred;
+	private boolean closed;
+
+	/**
+	 * Creates a multipart/byteranges region
+	 *
+	 * @param channel        File channel, closed together with the region
+	 * @param baseOffset     File offset the ranges are relative to
+	 * @param completeLength Complete length of the representation
+	 * @param contentType    Content type of the parts, may be null
+	 * @param boundary       Multipart boundary
+	 * @param starts         First byte of each range
+	 * @param ends           Last byte of each range (inclusive)
+	 */
+	public MultipartFileRegion(FileChannel channel, long baseOffset, long completeLength, String contentType,
+			String boundary, long[] starts, long[] ends) {
+		super(channel, baseOffset, 0);
+		this.channel = channel;
+
+		// Build segments, part headers alternate with file ranges
+		int count = starts.length * 2 + 1;
+		data = new byte[count][];
+		offsets = new long[count];
+		lengths = new long[count];
+		for (int i = 0; i < starts.length; i++) {
+			String head = "\r\n--" + boundary + "\r\n"
+					+ (contentType != null ? "Content-Type: " + contentType + "\r\n" : "") + "Content-Range: bytes "
+					+ starts[i] + "-" + ends[i] + "/" + completeLength + "\r\n\r\n";
+			data[i * 2] = head.getBytes(StandardCharsets.US_ASCII);
+			lengths[i * 2] = data[i * 2].length;
+			offsets[i * 2 + 1] = baseOffset + starts[i];
+			lengths[i * 2 + 1] = ends[i] - starts[i] + 1;
+		}
+		data[count - 1] = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		lengths[count - 1] = data[count - 1].length;
+		for (long l : lengths)
+			length += l;
+	}
+
+	@Override
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public long getTransferred() {
+		return transferred;
+	}
+
+	@Override
+	public long getRemaining() {
+		return length - transferred;
+	}
+
+	@Override
+	public FileRegion slice(long offset, long length) {
+		throw new UnsupportedOperationException("Multipart regions cannot be sliced");
+	}
+
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		if (closed)
+			throw new IOException("Region closed");
+		if (!nextSegment())
+			return 0;
+
+		// Send the current segment
+		long remaining = lengths[segment] - segmentPosition;
+		long res;
+		if (data[segment] != null)
+			res = target.write(ByteBuffer.wrap(data[segment], (int) segmentPosition, (int) remaining));
+		else {
+			long position = offsets[segment] + segmentPosition;
+			res = channel.transferTo(position, remaining, target);
+			if (res == 0 && position >= channel.size())
+				throw new IOException("Unexpected End of File");
+		}
+		advance(res);
+		return res;
+	}
+
+	@Override
+	public InputStream openStream() {
+		return new MultipartInputStream();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		super.close();
+	}
+
+	private boolean nextSegment() {
+		while (segment < lengths.length && segmentPosition == lengths[segment]) {
+			segment++;
+			segmentPosition = 0;
+		}
+		return segment < lengths.length;
+	}
+
+	private void advance(long amount) {
+		segmentPosition += amount;
+		transferred += amount;
+	}
+
+	private class MultipartInputStream extends InputStream {
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			if (read(b, 0, 1) == -1)
+				return -1;
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (closed)
+				throw new IOException("Stream closed");
+			if (len == 0)
+				return 0;
+			if (!nextSegment())
+				return -1;
+
+			// Read from the current segment
+			int amount = (int) Math.min(len, lengths[segment] - segmentPosition);
+			if (data[segment] != null) {
+				System.arraycopy(data[segment], (int) segmentPosition, b, off, amount);
+			} else {
+				amount = channel.read(ByteBuffer.wrap(b, off, amount), offsets[segment] + segmentPosition);
+				if (amount == -1)
+					throw new IOException("Unexpected End of File");
+			}
+			advance(amount);
+			return amount;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, getRemaining());
+		}
+
+		@Override
+		public void close() throws IOException {
+			MultipartFileRegion.this.close();
+		}
+
+	}
+
+}
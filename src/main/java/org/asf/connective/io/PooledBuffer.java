@@ -0,0 +1,73 @@
+package org.asf.connective.io;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ *
+ * Buffer acquired from a {@link BufferPool}, must be released exactly once and
+ * not be used afterwards
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class PooledBuffer implements Closeable {
+
+	private BufferPool pool;
+	private ByteBuffer buffer;
+	BufferPool.LeakTracker tracker;
+
+	PooledBuffer(BufferPool pool, ByteBuffer buffer) {
+		this.pool = pool;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Retrieves the buffer
+	 *
+	 * @return ByteBuffer instance
+	 */
+	public ByteBuffer buffer() {
+		if (buffer == null)
+			throw new IllegalStateException("Buffer has been released");
+		return buffer;
+	}
+
+	/**
+	 * Retrieves the backing array of heap buffers
+	 *
+	 * @return Byte array
+	 */
+	public byte[] array() {
+		ByteBuffer buffer = buffer();
+		if (!buffer.hasArray())
+			throw new UnsupportedOperationException("Direct buffers do not have a backing array");
+		return buffer.array();
+	}
+
+	/**
+	 * Retrieves the buffer capacity
+	 *
+	 * @return Buffer capacity
+	 */
+	public int capacity() {
+		return buffer().capacity();
+	}
+
+	/**
+	 * Returns the buffer to the pool
+	 */
+	public void release() {
+		ByteBuffer buffer = this.buffer;
+		if (buffer == null)
+			return;
+		this.buffer = null;
+		pool.release(this, buffer);
+	}
+
+	@Override
+	public void close() {
+		release();
+	}
+
+}
@@ -10,9 +10,12 @@ import java.util.Arrays;
  * Pre-pended buffer delegating stream, a stream that can push read content back
  * to the buffer
  * 
+ * @deprecated Use {@link ConnectionInputStream} instead
+ * 
  * @author Sky Swimmer
  * 
  */
+@Deprecated
 public class PrependedBufferStream extends InputStream {
 
 	private InputStream delegate;
@@ -0,0 +1,301 @@
+package org.asf.connective.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.zip.Deflater;
+
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+
+/**
+ *
+ * Response compression settings, compresses response bodies with gzip or
+ * deflate depending on the Accept-Encoding header of the request
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ResponseCompression {
+
+	/**
+	 * Bodies up to this size are compressed at once so that they keep a fixed
+	 * length, larger and streamed bodies are compressed while they are sent
+	 */
+	public static final int BUFFERED_LIMIT = 64 * 1024;
+
+	private static final String[] DEFAULT_MIME_TYPES = new String[] { "text/*", "application/json",
+			"application/javascript", "application/xml", "application/xhtml+xml", "application/rss+xml",
+			"application/atom+xml", "application/manifest+json", "image/svg+xml" };
+
+	protected boolean enabled = true;
+	protected long minimumSize = 1024;
+	protected int level = Deflater.DEFAULT_COMPRESSION;
+	protected LinkedHashSet<String> mimeTypes = new LinkedHashSet<String>(Arrays.asList(DEFAULT_MIME_TYPES));
+
+	/**
+	 * Assigns if responses are compressed
+	 *
+	 * @param enabled True to compress responses, false otherwise
+	 * @return Self
+	 */
+	public ResponseCompression setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		return this;
+	}
+
+	/**
+	 * Checks if responses are compressed
+	 *
+	 * @return True if enabled, false otherwise
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Assigns the minimum body length for compression, bodies of unknown length
+	 * are always compressed
+	 *
+	 * @param size Minimum body length in bytes
+	 * @return Self
+	 */
+	public ResponseCompression setMinimumSize(long size) {
+		minimumSize = size;
+		return this;
+	}
+
+	/**
+	 * Retrieves the minimum body length for compression
+	 *
+	 * @return Minimum body length in bytes
+	 */
+	public long getMinimumSize() {
+		return minimumSize;
+	}
+
+	/**
+	 * Assigns the compression level
+	 *
+	 * @param level Compression level, 1 (fastest) to 9 (smallest) or -1 for the
+	 *              default
+	 * @return Self
+	 */
+	public ResponseCompression setLevel(int level) {
+		if ((level < 1 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+			throw new IllegalArgumentException("Compression level must be between 1 and 9");
+		this.level = level;
+		return this;
+	}
+
+	/**
+	 * Retrieves the compression level
+	 *
+	 * @return Compression level
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Replaces the content types that are compressed
+	 *
+	 * @param types Content types, entries such as text/* match all subtypes
+	 * @return Self
+	 */
+	public ResponseCompression setMimeTypes(String... types) {
+		mimeTypes.clear();
+		for (String type : types)
+			addMimeType(type);
+		return this;
+	}
+
+	/**
+	 * Adds content types that are compressed
+	 *
+	 * @param type Content type, entries such as text/* match all subtypes
+	 * @return Self
+	 */
+	public ResponseCompression addMimeType(String type) {
+		type = type.trim().toLowerCase();
+		if (!type.isEmpty())
+			mimeTypes.add(type);
+		return this;
+	}
+
+	/**
+	 * Retrieves the content types that are compressed
+	 *
+	 * @return Array of content types
+	 */
+	public String[] getMimeTypes() {
+		return mimeTypes.toArray(new String[0]);
+	}
+
+	/**
+	 * Checks if a content type is compressed
+	 *
+	 * @param contentType Content type, parameters are ignored
+	 * @return True if compressed, false otherwise
+	 */
+	public boolean isCompressible(String contentType) {
+		if (contentType == null)
+			return false;
+		int parameters = contentType.indexOf(';');
+		if (parameters != -1)
+			contentType = contentType.substring(0, parameters);
+		contentType = contentType.trim().toLowerCase();
+		if (mimeTypes.contains(contentType))
+			return true;
+		int slash = contentType.indexOf('/');
+		return slash != -1 && mimeTypes.contains(contentType.substring(0, slash) + "/*");
+	}
+
+	/**
+	 * Selects the content encoding to use for an Accept-Encoding header
+	 *
+	 * @param acceptEncoding Accept-Encoding header value, may be null
+	 * @return gzip, deflate or null if the client accepts neither
+	 */
+	public static String selectEncoding(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return null;
+
+		// Prefer gzip on equal quality
+		float gzip = getEncodingQuality(acceptEncoding, "gzip");
+		float deflate = getEncodingQuality(acceptEncoding, "deflate");
+		if (gzip > 0 && gzip >= deflate)
+			return "gzip";
+		if (deflate > 0)
+			return "deflate";
+		return null;
+	}
+
+	/**
+	 * Retrieves the quality an Accept-Encoding header assigns to a content coding
+	 *
+	 * @param acceptEncoding Accept-Encoding header value, may be null
+	 * @param coding         Content coding, x-gzip is treated as gzip
+	 * @return Quality value, 0 if the coding is not accepted
+	 */
+	public static float getEncodingQuality(String acceptEncoding, String coding) {
+		if (acceptEncoding == null)
+			return 0;
+		coding = coding.toLowerCase();
+		if (coding.equals("x-gzip"))
+			coding = "gzip";
+
+		// Find the quality value of the coding
+		float result = -1;
+		float any = -1;
+		for (String entry : acceptEncoding.split(",")) {
+			String name = entry;
+			float quality = 1;
+			int parameters = entry.indexOf(';');
+			if (parameters != -1) {
+				name = entry.substring(0, parameters);
+				for (String parameter : entry.substring(parameters + 1).split(";")) {
+					parameter = parameter.trim();
+					if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+						try {
+							quality = Float.parseFloat(parameter.substring(2));
+						} catch (NumberFormatException e) {
+							quality = 0;
+						}
+					}
+				}
+			}
+			name = name.trim().toLowerCase();
+			if (name.equals("x-gzip"))
+				name = "gzip";
+			if (name.equals(coding))
+				result = Math.max(result, quality);
+			else if (name.equals("*"))
+				any = quality;
+		}
+		if (result == -1)
+			result = any;
+		return Math.max(result, 0);
+	}
+
+	/**
+	 * Compresses a response if the request accepts it and the response is
+	 * eligible, adds Vary: Accept-Encoding to eligible responses
+	 *
+	 * @param request  Request that prompted the response
+	 * @param response Response to compress
+	 * @return True if the response was compressed, false otherwise
+	 * @throws IOException If compressing a buffered body fails
+	 */
+	@SuppressWarnings("deprecation")
+	public boolean apply(HttpRequest request, HttpResponse response) throws IOException {
+		// Check eligibility
+		if (!enabled || !response.isCompressible() || !response.hasResponseBody()
+				|| response.getResponseCode() != 200 || response.hasHeader("Content-Encoding")
+				|| response.hasHeader("Content-Range") || !isCompressible(response.getHeaderValue("Content-Type")))
+			return false;
+		if (request.hasHeader("Range") && response.getFileRegion() != null)
+			return false; // Range requests for files are answered from the identity representation
+		long length = response.getBodyLength();
+		if (length == -1 && response.hasHeader("Content-Length")) {
+			try {
+				length = Long.parseLong(response.getHeaderValue("Content-Length"));
+			} catch (NumberFormatException e) {
+			}
+		}
+		if (length != -1 && length < minimumSize)
+			return false;
+
+		// Caches must keep the variants apart
+		addVary(response);
+
+		// Negotiate
+		String encoding = selectEncoding(request.getHeaderValue("Accept-Encoding"));
+		if (encoding == null || request.getRequestMethod().equalsIgnoreCase("HEAD"))
+			return false;
+
+		// Replace the body without closing it
+		InputStream source = response.getBodyStream();
+		response.body = null;
+		InputStream compressed = new CompressingInputStream(source, encoding.equals("gzip"), level);
+		response.removeHeader("Content-Length");
+		if (length != -1 && length <= BUFFERED_LIMIT) {
+			// Compress now to keep a fixed length
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) (length / 2) + 64);
+			try {
+				IoUtil.transfer(compressed, buffer);
+			} finally {
+				compressed.close();
+			}
+			response.setContent(response.getHeaderValue("Content-Type"), buffer.toByteArray());
+		} else
+			response.setContent(response.getHeaderValue("Content-Type"), compressed);
+		response.addHeader("Content-Encoding", encoding);
+		response.removeHeader("Accept-Ranges");
+
+		// Strong validators belong to the uncompressed representation
+		String etag = response.getHeaderValue("ETag");
+		if (etag != null && !etag.startsWith("W/"))
+			response.addHeader("ETag", "W/" + etag);
+		return true;
+	}
+
+	/**
+	 * Adds Accept-Encoding to the Vary header of a response if not yet present
+	 *
+	 * @param response Response to update
+	 */
+	public static void addVary(HttpResponse response) {
+		for (String value : response.getHeaderValues("Vary")) {
+			for (String field : value.split(",")) {
+				field = field.trim();
+				if (field.equals("*") || field.equalsIgnoreCase("Accept-Encoding"))
+					return;
+			}
+		}
+		response.addHeader("Vary", "Accept-Encoding", true);
+	}
+
+}
@@ -90,9 +90,9 @@ public class LambdaPushContext {
 	}
 
 	/**
-	 * Retrieves the request body length
+	 * Retrieves the request body length, -1 if the body is chunked
 	 * 
-	 * @return Request body length
+	 * @return Request body length or -1
 	 */
 	public long getRequestBodyLength() {
 		return getRequest().getBodyLength();
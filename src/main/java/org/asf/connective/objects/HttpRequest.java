@@ -12,7 +12,10 @@ import java.util.Map;
 
 import org.asf.connective.headers.HeaderCollection;
 import org.asf.connective.io.IoUtil;
-import org.asf.connective.io.LengthLimitedStream;
+import org.asf.connective.io.BodyInputStream;
+import org.asf.connective.io.BufferPool;
+import org.asf.connective.io.ChunkedInputStream;
+import org.asf.connective.io.PooledBuffer;
 
 /**
  * 
@@ -49,8 +52,9 @@ public class HttpRequest extends HttpObject {
 	public HttpRequest(InputStream body, long bodyContentLength, HeaderCollection headers, String httpVersion,
 			String requestMethod, String requestResource) throws IllegalArgumentException {
 		this.body = body;
-		if (bodyContentLength > -1)
-			this.body = new LengthLimitedStream(body, false, bodyContentLength);
+		if (body != null && bodyContentLength > -1
+				&& !(body instanceof BodyInputStream && ((BodyInputStream) body).getLength() == bodyContentLength))
+			this.body = new BodyInputStream(body, bodyContentLength, false);
 		this.bodyContentLength = bodyContentLength;
 		this.headers = headers;
 		this.httpVersion = httpVersion;
@@ -172,18 +176,22 @@ public class HttpRequest extends HttpObject {
 		if (body == null)
 			return;
 		if (bodyContentLength > -1) {
-			long len = bodyContentLength;
-			while (len > 0) {
-				int length = len > 20480 ? 20480 : (int) len;
-				byte[] buf = new byte[length];
-				int i = body.read(buf, 0, buf.length);
-				if (i == -1)
-					break;
-				len -= i;
-				output.write(buf, 0, i);
+			PooledBuffer pooled = BufferPool.getDefault().acquire(BufferPool.TRANSFER_BUFFER_SIZE);
+			try {
+				byte[] buf = pooled.array();
+				long len = bodyContentLength;
+				while (len > 0) {
+					int i = body.read(buf, 0, (int) Math.min(buf.length, len));
+					if (i == -1)
+						break;
+					len -= i;
+					output.write(buf, 0, i);
+				}
+			} finally {
+				pooled.release();
 			}
 		} else {
-			// TODO: chunked content support
+			// Chunked body, the stream ends after the last chunk
 			IoUtil.transfer(body, output);
 		}
 		streamTouched = true;
@@ -217,7 +225,8 @@ public class HttpRequest extends HttpObject {
 	}
 
 	/**
-	 * Retrieves the request body length, returns -1 if unset
+	 * Retrieves the request body length, returns -1 if unset or if the body is
+	 * chunked
 	 * 
 	 * @return Request body length or -1
 	 */
@@ -225,6 +234,18 @@ public class HttpRequest extends HttpObject {
 		return bodyContentLength;
 	}
 
+	/**
+	 * Retrieves the trailer headers sent after a chunked request body, trailers
+	 * are only available once the body was fully read
+	 * 
+	 * @return HeaderCollection instance, empty if no trailers were received
+	 */
+	public HeaderCollection getTrailers() {
+		if (body instanceof ChunkedInputStream)
+			return ((ChunkedInputStream) body).getTrailers();
+		return new HeaderCollection();
+	}
+
 	/**
 	 * Retrieves the HTTP version
 	 * 
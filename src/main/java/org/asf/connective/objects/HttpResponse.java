@@ -4,14 +4,15 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.text.SimpleDateFormat;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.asf.connective.RemoteClient;
+import org.asf.connective.headers.HttpDate;
+import org.asf.connective.io.FileRegion;
 
 /**
  * 
@@ -30,12 +31,15 @@ public class HttpResponse extends HttpObject {
 	@Deprecated
 	public InputStream body;
 	private long contentLength = -1;
+	private FileRegion fileRegion;
+	private InputStream fileRegionStream;
 
 	private String httpVersion;
 
 	private boolean statusAssigned = false;
 	private int statusCode = 200;
 	private String statusMessage = "OK";
+	private boolean compressible = true;
 
 	private Consumer<RemoteClient> protocolSwitcher = null;
 	private BiConsumer<String, Consumer<RemoteClient>> protocolSwitchSetup;
@@ -389,15 +393,98 @@ public class HttpResponse extends HttpObject {
 		return this;
 	}
 
+	/**
+	 * Sets the body of the response to a file, transports that support it send
+	 * the file without copying it through user-space buffers
+	 * 
+	 * @param type Content type
+	 * @param file File to send
+	 * @throws IOException If opening the file fails
+	 */
+	public HttpResponse setContent(String type, Path file) throws IOException {
+		return setContent(type, FileRegion.open(file));
+	}
+
+	/**
+	 * Sets the body of the response to a part of a file, transports that support
+	 * it send the file without copying it through user-space buffers
+	 * 
+	 * @param type   Content type
+	 * @param file   File to send
+	 * @param offset File offset
+	 * @param length Amount of bytes to send
+	 * @throws IOException If opening the file fails
+	 */
+	public HttpResponse setContent(String type, Path file, long offset, long length) throws IOException {
+		return setContent(type, FileRegion.open(file, offset, length));
+	}
+
+	/**
+	 * Sets the body of the response to a part of a file, WARNING: the channel gets
+	 * closed when the response is sent.
+	 * 
+	 * @param type    Content type
+	 * @param channel File channel
+	 * @param offset  File offset
+	 * @param length  Amount of bytes to send
+	 */
+	public HttpResponse setContent(String type, FileChannel channel, long offset, long length) {
+		return setContent(type, new FileRegion(channel, offset, length));
+	}
+
+	/**
+	 * Sets the body of the response to a file region, WARNING: the region gets
+	 * closed when the response is sent.
+	 * 
+	 * @param type   Content type
+	 * @param region File region
+	 */
+	public HttpResponse setContent(String type, FileRegion region) {
+		InputStream strm = region.openStream();
+		setContent(type, strm, region.getLength());
+		fileRegion = region;
+		fileRegionStream = strm;
+		return this;
+	}
+
+	/**
+	 * Retrieves the file region backing the response body, returns null if the
+	 * body is not a file region or if the body stream was replaced or read from
+	 * 
+	 * @return FileRegion instance or null
+	 */
+	public FileRegion getFileRegion() {
+		if (fileRegion == null || body != fileRegionStream || fileRegion.getTransferred() != 0)
+			return null;
+		return fileRegion;
+	}
+
+	/**
+	 * Assigns if the server may compress the response body
+	 * 
+	 * @param compressible True to allow compression, false to send the body as-is
+	 */
+	public HttpResponse setCompressible(boolean compressible) {
+		this.compressible = compressible;
+		return this;
+	}
+
+	/**
+	 * Checks if the server may compress the response body
+	 * 
+	 * @return True if compression is allowed, false otherwise
+	 */
+	public boolean isCompressible() {
+		return compressible;
+	}
+
 	/**
 	 * Assigns the Last-Modified header
 	 * 
 	 * @param date Header date to assign
 	 */
 	public HttpResponse setLastModified(Date date) {
-		SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
-		dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-		headers.addHeader("Last-Modified", dateFormat.format(date));
+		headers.addHeader("Last-Modified", HttpDate.format(date));
 		return this;
 	}
 
@@ -0,0 +1,78 @@
+package org.asf.connective.tasks;
+
+/**
+ *
+ * Timeout that fires once no activity was reported for a given amount of time,
+ * reporting activity does not touch the timer wheel
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ActivityTimeout {
+
+	private HashedWheelTimer timer;
+	private long timeout;
+	private Runnable action;
+
+	private volatile long lastActivity;
+	private volatile boolean active;
+	private HashedWheelTimer.Timeout scheduled;
+
+	/**
+	 * Creates a new activity timeout
+	 *
+	 * @param timer         Timer to schedule on
+	 * @param timeoutMillis Inactivity period in milliseconds
+	 * @param action        Action to run once the timeout expires
+	 */
+	public ActivityTimeout(HashedWheelTimer timer, long timeoutMillis, Runnable action) {
+		this.timer = timer;
+		this.timeout = timeoutMillis;
+		this.action = action;
+	}
+
+	/**
+	 * Starts the timeout
+	 */
+	public synchronized void start() {
+		stop();
+		active = true;
+		lastActivity = System.currentTimeMillis();
+		scheduled = timer.schedule(() -> check(), timeout);
+	}
+
+	/**
+	 * Reports activity, pushing the deadline back
+	 */
+	public void touch() {
+		lastActivity = System.currentTimeMillis();
+	}
+
+	/**
+	 * Stops the timeout
+	 */
+	public synchronized void stop() {
+		active = false;
+		if (scheduled != null)
+			scheduled.cancel();
+		scheduled = null;
+	}
+
+	private void check() {
+		synchronized (this) {
+			if (!active)
+				return;
+
+			// Reschedule if there was activity
+			long remaining = lastActivity + timeout - System.currentTimeMillis();
+			if (remaining > 0) {
+				scheduled = timer.schedule(() -> check(), remaining);
+				return;
+			}
+			active = false;
+			scheduled = null;
+		}
+		action.run();
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.asf.connective.tasks;
 
+import java.util.concurrent.CountDownLatch;
+
 /**
  * 
  * Internal async task object
@@ -9,9 +11,9 @@ package org.asf.connective.tasks;
  */
 public class AsyncTask {
 	private Runnable action;
-	private boolean run;
+	private volatile boolean run;
 
-	private Object lock = new Object();
+	private CountDownLatch latch = new CountDownLatch(1);
 
 	public AsyncTask(Runnable action) {
 		this.action = action;
@@ -22,13 +24,15 @@ public class AsyncTask {
 			action.run();
 		} finally {
 			// Release
-			synchronized (lock) {
-				run = true;
-				lock.notifyAll();
-			}
+			run = true;
+			latch.countDown();
 		}
 	}
 
+	void release() {
+		latch.countDown();
+	}
+
 	public boolean hasRun() {
 		return run;
 	}
@@ -36,14 +40,9 @@ public class AsyncTask {
 	public void block() {
 		if (run)
 			return;
-		synchronized (lock) {
-			while (!run) {
-				try {
-					lock.wait();
-				} catch (InterruptedException e) {
-					break;
-				}
-			}
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
 		}
 	}
 
@@ -1,7 +1,13 @@
 package org.asf.connective.tasks;
 
-import java.util.ArrayList;
-import java.util.stream.Stream;
+import java.lang.reflect.Method;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 
@@ -12,47 +18,260 @@ import java.util.stream.Stream;
  */
 public class AsyncTaskManager {
 
-	private static ArrayList<AsyncTaskThreadHandler> threads = new ArrayList<AsyncTaskThreadHandler>();
-	private static ArrayList<AsyncTask> queuedActions = new ArrayList<AsyncTask>();
+	private static Method startVirtualThread;
+	private static boolean useVirtualThreads;
+
+	private static ThreadPoolExecutor executor;
+	private static TaskRejectionPolicy rejectionPolicy;
+	private static AtomicInteger threadNumber = new AtomicInteger();
+
+	// Connection tasks live as long as their connection, they get their own
+	// unbounded pool so that idle connections cannot take up task threads
+	private static AtomicInteger connectionThreadNumber = new AtomicInteger();
+	private static ThreadPoolExecutor connectionExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30,
+			TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), r -> {
+				Thread th = new Thread(r, "Connection thread " + connectionThreadNumber.incrementAndGet());
+				th.setDaemon(true);
+				return th;
+			});
+
+	private static LongAdder submitted = new LongAdder();
+	private static LongAdder completed = new LongAdder();
+	private static LongAdder rejected = new LongAdder();
+	private static LongAdder queueTime = new LongAdder();
+	private static LongAdder runTime = new LongAdder();
+	private static AtomicLong maxQueueTime = new AtomicLong();
+
+	static {
+		// Virtual threads are only present on Java 21+
+		try {
+			startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+		} catch (NoSuchMethodException e) {
+		}
+		useVirtualThreads = System.getProperty("connectiveExecutor", "platform").equalsIgnoreCase("virtual")
+				&& startVirtualThread != null;
+
+		// Create the executor
+		int cpus = Runtime.getRuntime().availableProcessors();
+		int core = Integer.getInteger("connectiveTaskCoreThreads", cpus);
+		int max = Integer.getInteger("connectiveTaskMaxThreads", Math.max(1024, core));
+		int queue = Integer.getInteger("connectiveTaskQueueSize", 65536);
+		TaskRejectionPolicy policy = TaskRejectionPolicy.valueOf(
+				System.getProperty("connectiveTaskRejectionPolicy", "CALLER_RUNS").toUpperCase().replace("-", "_"));
+		configure(core, max, queue, policy);
+	}
+
+	/**
+	 * Reconfigures the task thread pool, tasks already submitted finish on the old
+	 * pool
+	 * 
+	 * @param coreThreads   Amount of threads kept alive while idle
+	 * @param maxThreads    Maximum amount of threads
+	 * @param queueCapacity Amount of tasks that can wait for a thread once all
+	 *                      threads are busy
+	 * @param policy        What to do with tasks submitted while the queue is full
+	 */
+	public static synchronized void configure(int coreThreads, int maxThreads, int queueCapacity,
+			TaskRejectionPolicy policy) {
+		if (coreThreads < 0 || maxThreads < 1 || maxThreads < coreThreads)
+			throw new IllegalArgumentException("Invalid thread pool size: " + coreThreads + "-" + maxThreads);
+		if (queueCapacity < 0)
+			throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+		if (policy == null)
+			throw new IllegalArgumentException("No rejection policy specified");
+
+		// Create pool
+		TaskQueue queue = new TaskQueue(queueCapacity);
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(coreThreads, maxThreads, 30, TimeUnit.SECONDS, queue, r -> {
+			Thread th = new Thread(r, "Async task thread " + threadNumber.incrementAndGet());
+			th.setDaemon(true);
+			return th;
+		}, (r, ex) -> reject(r, ex));
+		queue.setExecutor(pool);
+
+		// Swap
+		ThreadPoolExecutor old = executor;
+		rejectionPolicy = policy;
+		executor = pool;
+		if (old != null)
+			old.shutdown();
+	}
+
+	private static void reject(Runnable r, ThreadPoolExecutor ex) {
+		// The pool may have filled up between the offer and the rejection
+		if (!ex.isShutdown() && ((TaskQueue) ex.getQueue()).force(r))
+			return;
+
+		// Apply policy
+		rejected.increment();
+		QueuedTask task = (QueuedTask) r;
+		if (task.reportRejection) {
+			task.task.release();
+			throw new RejectedExecutionException("Task queue is full");
+		}
+		switch (rejectionPolicy) {
+
+		case CALLER_RUNS: {
+			r.run();
+			break;
+		}
+		case ABORT: {
+			task.task.release();
+			throw new RejectedExecutionException("Task queue is full");
+		}
+		case DISCARD: {
+			task.task.release();
+			break;
+		}
 
-	static AsyncTask obtainNext() {
-		synchronized (queuedActions) {
-			if (queuedActions.size() == 0)
-				return null;
-			return queuedActions.remove(0);
 		}
 	}
 
+	/**
+	 * Retrieves task pool statistics
+	 * 
+	 * @return TaskStatistics instance
+	 */
+	public static TaskStatistics getStatistics() {
+		ThreadPoolExecutor pool = executor;
+		long done = completed.sum();
+		return new TaskStatistics(pool.getQueue().size(), pool.getActiveCount(), pool.getPoolSize(),
+				pool.getLargestPoolSize(), submitted.sum(), done, rejected.sum(),
+				done == 0 ? 0 : queueTime.sum() / done, maxQueueTime.get(), done == 0 ? 0 : runTime.sum() / done);
+	}
+
+	/**
+	 * Checks if virtual threads are supported by the running JVM
+	 * 
+	 * @return True if virtual threads are supported, false otherwise
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return startVirtualThread != null;
+	}
+
+	/**
+	 * Checks if tasks run on virtual threads by default
+	 * 
+	 * @return True if virtual threads are used by default, false otherwise
+	 */
+	public static boolean usesVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * Assigns if tasks should run on virtual threads by default (ignored if the
+	 * JVM does not support them)
+	 * 
+	 * @param virtual True to run tasks on virtual threads, false to use the thread
+	 *                pool
+	 */
+	public static void setUseVirtualThreads(boolean virtual) {
+		useVirtualThreads = virtual && startVirtualThread != null;
+	}
+
 	public static AsyncTask runAsync(Runnable action) {
-		AsyncTask tsk = new AsyncTask(action);
+		return runAsync(action, useVirtualThreads);
+	}
 
-		synchronized (threads) {
-			// Check if a thread is available, if not, start a new one
-			AsyncTaskThreadHandler[] ths = threads.toArray(new AsyncTaskThreadHandler[0]);
-			if (!Stream.of(ths).anyMatch(t -> t.isAvailable())) {
-				// Start new thread
-				AsyncTaskThreadHandler handler = new AsyncTaskThreadHandler();
-				threads.add(handler);
-				Thread th = new Thread(() -> {
-					// Start
-					handler.run();
-
-					// End
-					synchronized (threads) {
-						threads.remove(handler);
-					}
-				}, "Async task thread");
-				th.setDaemon(true);
-				th.start();
+	/**
+	 * Runs a task asynchronously
+	 * 
+	 * @param action  Task to run
+	 * @param virtual True to run the task on its own virtual thread, falls back to
+	 *                the thread pool if virtual threads are not supported
+	 * @return AsyncTask instance
+	 */
+	public static AsyncTask runAsync(Runnable action, boolean virtual) {
+		return submit(action, virtual, false);
+	}
+
+	/**
+	 * Runs a task asynchronously, unlike runAsync the rejection policy is not
+	 * applied, the task is never run on the calling thread
+	 * 
+	 * @param action  Task to run
+	 * @param virtual True to run the task on its own virtual thread, falls back to
+	 *                the thread pool if virtual threads are not supported
+	 * @return AsyncTask instance or null if the task queue is full
+	 */
+	public static AsyncTask tryRunAsync(Runnable action, boolean virtual) {
+		try {
+			return submit(action, virtual, true);
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Runs a connection task, connection tasks run for the lifetime of a
+	 * connection and are therefore not limited by the task pool
+	 * 
+	 * @param action  Task to run
+	 * @param virtual True to run the task on its own virtual thread, falls back to
+	 *                a connection thread if virtual threads are not supported
+	 * @return AsyncTask instance or null if no thread could be started
+	 */
+	public static AsyncTask runConnection(Runnable action, boolean virtual) {
+		AsyncTask tsk = new AsyncTask(action);
+		if (virtual && startVirtualThread != null) {
+			try {
+				startVirtualThread.invoke(null, (Runnable) () -> tsk.run());
+				return tsk;
+			} catch (Exception e) {
+				// Fall back to a connection thread
 			}
+		}
+		try {
+			connectionExecutor.execute(() -> tsk.run());
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+		return tsk;
+	}
 
-			// Add task
-			synchronized (queuedActions) {
-				queuedActions.add(tsk);
+	private static AsyncTask submit(Runnable action, boolean virtual, boolean reportRejection) {
+		AsyncTask tsk = new AsyncTask(action);
+		QueuedTask queued = new QueuedTask(tsk, reportRejection);
+		submitted.increment();
+		if (virtual && startVirtualThread != null) {
+			try {
+				startVirtualThread.invoke(null, queued);
+				return tsk;
+			} catch (Exception e) {
+				// Fall back to the pool
 			}
+		}
+		executor.execute(queued);
+		return tsk;
+	}
 
-			// Return
-			return tsk;
+	private static class QueuedTask implements Runnable {
+		private AsyncTask task;
+		private boolean reportRejection;
+		private long queued = System.nanoTime();
+
+		public QueuedTask(AsyncTask task, boolean reportRejection) {
+			this.task = task;
+			this.reportRejection = reportRejection;
+		}
+
+		@Override
+		public void run() {
+			// Record time spent waiting
+			long start = System.nanoTime();
+			long wait = start - queued;
+			queueTime.add(wait);
+			long max;
+			while (wait > (max = maxQueueTime.get()) && !maxQueueTime.compareAndSet(max, wait))
+				;
+
+			// Run
+			try {
+				task.run();
+			} finally {
+				runTime.add(System.nanoTime() - start);
+				completed.increment();
+			}
 		}
 	}
 
@@ -0,0 +1,284 @@
+package org.asf.connective.tasks;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Hashed wheel timer, schedules and cancels timeouts in constant time at the
+ * cost of tick-sized precision. Timeout tasks run on the timer thread and must
+ * not block.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class HashedWheelTimer {
+
+	private static HashedWheelTimer defaultTimer;
+
+	private final long tickDuration;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Thread thread;
+	private final long startTime;
+	private volatile boolean running = true;
+	private long tick;
+
+	private ConcurrentLinkedQueue<Timeout> pendingAdd = new ConcurrentLinkedQueue<Timeout>();
+	private ConcurrentLinkedQueue<Timeout> pendingCancel = new ConcurrentLinkedQueue<Timeout>();
+	private AtomicInteger pending = new AtomicInteger();
+	private LongAdder fired = new LongAdder();
+
+	/**
+	 * Retrieves the shared timer used for connection timeouts
+	 *
+	 * @return HashedWheelTimer instance
+	 */
+	public static synchronized HashedWheelTimer getDefault() {
+		if (defaultTimer == null)
+			defaultTimer = new HashedWheelTimer("Connective timer", 100, 512);
+		return defaultTimer;
+	}
+
+	/**
+	 * Creates a new timer
+	 *
+	 * @param name          Timer thread name
+	 * @param tickMillis    Tick duration in milliseconds
+	 * @param ticksPerRound Wheel size, rounded up to a power of two
+	 */
+	public HashedWheelTimer(String name, long tickMillis, int ticksPerRound) {
+		if (tickMillis < 1)
+			throw new IllegalArgumentException("Tick duration must be at least 1 millisecond");
+		if (ticksPerRound < 1 || ticksPerRound > (1 << 30))
+			throw new IllegalArgumentException("Invalid wheel size: " + ticksPerRound);
+		int size = 1;
+		while (size < ticksPerRound)
+			size <<= 1;
+		wheel = new Bucket[size];
+		for (int i = 0; i < size; i++)
+			wheel[i] = new Bucket();
+		mask = size - 1;
+		tickDuration = tickMillis;
+		startTime = System.nanoTime();
+
+		thread = new Thread(() -> run(), name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Schedules a task
+	 *
+	 * @param task        Task to run once the delay expires
+	 * @param delayMillis Delay in milliseconds
+	 * @return Timeout instance
+	 */
+	public Timeout schedule(Runnable task, long delayMillis) {
+		if (!running)
+			throw new IllegalStateException("Timer has been stopped");
+		Timeout timeout = new Timeout(this, task, elapsed() + Math.max(0, delayMillis));
+		pending.incrementAndGet();
+		pendingAdd.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Retrieves the amount of timeouts that fired
+	 *
+	 * @return Fired timeout count
+	 */
+	public long getFiredTimeouts() {
+		return fired.sum();
+	}
+
+	/**
+	 * Retrieves the amount of scheduled timeouts that have not fired or been
+	 * cancelled
+	 *
+	 * @return Pending timeout count
+	 */
+	public int getPendingTimeouts() {
+		return pending.get();
+	}
+
+	/**
+	 * Stops the timer, pending timeouts will not fire
+	 */
+	public void stop() {
+		running = false;
+		thread.interrupt();
+	}
+
+	private long elapsed() {
+		return (System.nanoTime() - startTime) / 1000000l;
+	}
+
+	private void run() {
+		while (running) {
+			// Wait for the next tick
+			long deadline = (tick + 1) * tickDuration;
+			long sleep = deadline - elapsed();
+			if (sleep > 0) {
+				try {
+					Thread.sleep(sleep);
+				} catch (InterruptedException e) {
+					continue;
+				}
+			}
+
+			// Process changes
+			processCancelled();
+			processAdded();
+
+			// Expire
+			wheel[(int) (tick & mask)].expire();
+			tick++;
+		}
+	}
+
+	private void processAdded() {
+		Timeout timeout;
+		for (int i = 0; i < 100000 && (timeout = pendingAdd.poll()) != null; i++) {
+			if (timeout.state.get() != Timeout.STATE_PENDING)
+				continue;
+
+			// Find slot
+			long ticks = timeout.deadline / tickDuration;
+			if (ticks < tick)
+				ticks = tick; // Already expired, run on this tick
+			timeout.rounds = (ticks - tick) / wheel.length;
+			wheel[(int) (ticks & mask)].add(timeout);
+		}
+	}
+
+	private void processCancelled() {
+		Timeout timeout;
+		while ((timeout = pendingCancel.poll()) != null) {
+			if (timeout.bucket != null)
+				timeout.bucket.remove(timeout);
+		}
+	}
+
+	/**
+	 *
+	 * Scheduled timeout
+	 *
+	 * @author Sky Swimmer
+	 *
+	 */
+	public static class Timeout {
+
+		private static final int STATE_PENDING = 0;
+		private static final int STATE_CANCELLED = 1;
+		private static final int STATE_EXPIRED = 2;
+
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+		private long rounds;
+		private Bucket bucket;
+		private Timeout next;
+		private Timeout prev;
+
+		private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the timeout
+		 *
+		 * @return True if cancelled, false if it already fired or was cancelled
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(STATE_PENDING, STATE_CANCELLED))
+				return false;
+			timer.pending.decrementAndGet();
+			timer.pendingCancel.add(this);
+			return true;
+		}
+
+		/**
+		 * Checks if the timeout was cancelled
+		 *
+		 * @return True if cancelled, false otherwise
+		 */
+		public boolean isCancelled() {
+			return state.get() == STATE_CANCELLED;
+		}
+
+		/**
+		 * Checks if the timeout fired
+		 *
+		 * @return True if fired, false otherwise
+		 */
+		public boolean isExpired() {
+			return state.get() == STATE_EXPIRED;
+		}
+
+		private void expire() {
+			if (!state.compareAndSet(STATE_PENDING, STATE_EXPIRED))
+				return;
+			timer.pending.decrementAndGet();
+			timer.fired.increment();
+			try {
+				task.run();
+			} catch (Throwable e) {
+			}
+		}
+
+	}
+
+	private static class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		public void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null)
+				head = tail = timeout;
+			else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		public void expire() {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.rounds <= 0) {
+					remove(timeout);
+					timeout.expire();
+				} else if (timeout.isCancelled())
+					remove(timeout);
+				else
+					timeout.rounds--;
+				timeout = next;
+			}
+		}
+
+		public void remove(Timeout timeout) {
+			if (timeout.bucket != this)
+				return;
+			if (timeout.prev != null)
+				timeout.prev.next = timeout.next;
+			if (timeout.next != null)
+				timeout.next.prev = timeout.prev;
+			if (timeout == head)
+				head = timeout.next;
+			if (timeout == tail)
+				tail = timeout.prev;
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+
+}
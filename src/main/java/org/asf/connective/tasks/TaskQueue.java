@@ -0,0 +1,103 @@
+package org.asf.connective.tasks;
+
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * Bounded task queue that hands tasks directly to idle threads and makes the
+ * executor start new threads before queueing
+ * 
+ * @author Sky Swimmer
+ *
+ */
+class TaskQueue extends LinkedTransferQueue<Runnable> {
+
+	private static final long serialVersionUID = 1l;
+
+	private transient ThreadPoolExecutor executor;
+	private final int capacity;
+	private final AtomicInteger count = new AtomicInteger();
+
+	public TaskQueue(int capacity) {
+		this.capacity = capacity;
+	}
+
+	void setExecutor(ThreadPoolExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public boolean offer(Runnable task) {
+		// Hand off to an idle thread
+		count.incrementAndGet();
+		if (tryTransfer(task))
+			return true;
+		count.decrementAndGet();
+
+		// Make the executor start a new thread if allowed
+		if (executor != null && executor.getPoolSize() < executor.getMaximumPoolSize())
+			return false;
+
+		// Queue
+		return force(task);
+	}
+
+	/**
+	 * Queues a task without checking the pool size
+	 * 
+	 * @param task Task to queue
+	 * @return True if queued, false if the queue is full
+	 */
+	boolean force(Runnable task) {
+		if (count.incrementAndGet() > capacity) {
+			count.decrementAndGet();
+			return false;
+		}
+		super.offer(task);
+		return true;
+	}
+
+	@Override
+	public Runnable poll() {
+		return taken(super.poll());
+	}
+
+	@Override
+	public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return taken(super.poll(timeout, unit));
+	}
+
+	@Override
+	public Runnable take() throws InterruptedException {
+		return taken(super.take());
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (super.remove(o)) {
+			count.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	private Runnable taken(Runnable task) {
+		if (task != null)
+			count.decrementAndGet();
+		return task;
+	}
+
+	@Override
+	public int size() {
+		return Math.max(0, count.get());
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Math.max(0, capacity - count.get());
+	}
+
+}
@@ -0,0 +1,27 @@
+package org.asf.connective.tasks;
+
+/**
+ * 
+ * Defines what happens to tasks submitted while the task queue is full
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public enum TaskRejectionPolicy {
+
+	/**
+	 * Runs the task on the submitting thread
+	 */
+	CALLER_RUNS,
+
+	/**
+	 * Throws a {@link java.util.concurrent.RejectedExecutionException}
+	 */
+	ABORT,
+
+	/**
+	 * Silently drops the task
+	 */
+	DISCARD
+
+}
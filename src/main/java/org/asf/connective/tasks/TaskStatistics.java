@@ -0,0 +1,128 @@
+package org.asf.connective.tasks;
+
+/**
+ * 
+ * Snapshot of the task pool statistics
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class TaskStatistics {
+
+	private int queueDepth;
+	private int activeThreads;
+	private int poolSize;
+	private int largestPoolSize;
+	private long submittedTasks;
+	private long completedTasks;
+	private long rejectedTasks;
+	private long averageQueueLatency;
+	private long maxQueueLatency;
+	private long averageRunTime;
+
+	public TaskStatistics(int queueDepth, int activeThreads, int poolSize, int largestPoolSize, long submittedTasks,
+			long completedTasks, long rejectedTasks, long averageQueueLatency, long maxQueueLatency,
+			long averageRunTime) {
+		this.queueDepth = queueDepth;
+		this.activeThreads = activeThreads;
+		this.poolSize = poolSize;
+		this.largestPoolSize = largestPoolSize;
+		this.submittedTasks = submittedTasks;
+		this.completedTasks = completedTasks;
+		this.rejectedTasks = rejectedTasks;
+		this.averageQueueLatency = averageQueueLatency;
+		this.maxQueueLatency = maxQueueLatency;
+		this.averageRunTime = averageRunTime;
+	}
+
+	/**
+	 * Retrieves the amount of tasks waiting for a thread
+	 * 
+	 * @return Queue depth
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * Retrieves the amount of threads currently running tasks
+	 * 
+	 * @return Active thread count
+	 */
+	public int getActiveThreads() {
+		return activeThreads;
+	}
+
+	/**
+	 * Retrieves the current amount of pool threads
+	 * 
+	 * @return Pool size
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Retrieves the largest amount of pool threads that existed at the same time
+	 * 
+	 * @return Largest pool size
+	 */
+	public int getLargestPoolSize() {
+		return largestPoolSize;
+	}
+
+	/**
+	 * Retrieves the amount of submitted tasks
+	 * 
+	 * @return Submitted task count
+	 */
+	public long getSubmittedTasks() {
+		return submittedTasks;
+	}
+
+	/**
+	 * Retrieves the amount of completed tasks
+	 * 
+	 * @return Completed task count
+	 */
+	public long getCompletedTasks() {
+		return completedTasks;
+	}
+
+	/**
+	 * Retrieves the amount of tasks that hit the rejection policy
+	 * 
+	 * @return Rejected task count
+	 */
+	public long getRejectedTasks() {
+		return rejectedTasks;
+	}
+
+	/**
+	 * Retrieves the average time tasks waited before starting, in nanoseconds
+	 * 
+	 * @return Average queue latency
+	 */
+	public long getAverageQueueLatency() {
+		return averageQueueLatency;
+	}
+
+	/**
+	 * Retrieves the longest time a task waited before starting, in nanoseconds
+	 * 
+	 * @return Maximum queue latency
+	 */
+	public long getMaxQueueLatency() {
+		return maxQueueLatency;
+	}
+
+	/**
+	 * Retrieves the average task run time, in nanoseconds
+	 * 
+	 * @return Average run time
+	 */
+	public long getAverageRunTime() {
+		return averageRunTime;
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.asf.connective.headers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.asf.connective.objects.HttpRequest;
+import org.junit.jupiter.api.Test;
+
+public class PreconditionsTest {
+
+	private static final long MODIFIED = 1700000000500l;
+
+	private static HttpRequest request(String method, String... headers) {
+		HeaderCollection collection = new HeaderCollection();
+		for (int i = 0; i < headers.length; i += 2)
+			collection.addHeader(headers[i], headers[i + 1]);
+		return new HttpRequest(null, 0, collection, "HTTP/1.1", method, "/file");
+	}
+
+	@Test
+	public void testEntityTags() {
+		assertTrue(Preconditions.evaluate(request("GET", "If-None-Match", "\"a\", \"b\""), "\"b\"", MODIFIED) == 304);
+		assertTrue(Preconditions.evaluate(request("GET", "If-None-Match", "W/\"b\""), "\"b\"", MODIFIED) == 304);
+		assertTrue(Preconditions.evaluate(request("HEAD", "If-None-Match", "*"), "\"b\"", MODIFIED) == 304);
+		assertTrue(Preconditions.evaluate(request("GET", "If-None-Match", "\"c\""), "\"b\"", MODIFIED) == 0);
+		assertTrue(Preconditions.evaluate(request("PUT", "If-None-Match", "\"b\""), "\"b\"", MODIFIED) == 412);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Match", "W/\"b\""), "\"b\"", MODIFIED) == 412);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Match", "\"b\""), "\"b\"", MODIFIED) == 0);
+	}
+
+	@Test
+	public void testDates() {
+		String same = HttpDate.format(new Date(MODIFIED));
+		String before = HttpDate.format(new Date(MODIFIED - 60000));
+		assertTrue(HttpDate.parse(same).getTime() == MODIFIED / 1000 * 1000);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Modified-Since", same), "\"b\"", MODIFIED) == 304);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Modified-Since", before), "\"b\"", MODIFIED) == 0);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Modified-Since", "garbage"), "\"b\"", MODIFIED) == 0);
+		assertTrue(Preconditions.evaluate(request("GET", "If-Unmodified-Since", before), "\"b\"", MODIFIED) == 412);
+
+		// If-None-Match takes precedence
+		assertTrue(Preconditions.evaluate(request("GET", "If-None-Match", "\"c\"", "If-Modified-Since", same), "\"b\"",
+				MODIFIED) == 0);
+	}
+
+}
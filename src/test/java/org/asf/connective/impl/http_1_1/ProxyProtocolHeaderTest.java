@@ -0,0 +1,63 @@
+package org.asf.connective.impl.http_1_1;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ProxyProtocolHeaderTest {
+
+	@Test
+	public void testVersion1() throws IOException {
+		byte[] data = "PROXY TCP4 203.0.113.9 10.0.0.1 5555 80\r\nGET / HTTP/1.1\r\n\r\n"
+				.getBytes(StandardCharsets.US_ASCII);
+
+		// Incomplete
+		assertTrue(ProxyProtocolHeader.decode(data, 20) == null);
+
+		// Complete
+		ProxyProtocolHeader header = ProxyProtocolHeader.decode(data, data.length);
+		assertTrue(header.getVersion() == 1);
+		assertTrue(header.getSourceAddress().equals("203.0.113.9"));
+		assertTrue(header.getSourcePort() == 5555);
+		assertTrue(header.getDestinationPort() == 80);
+		assertTrue(header.getLength() == 41);
+
+		// Reading consumes only the header
+		ByteArrayInputStream input = new ByteArrayInputStream(data);
+		assertTrue(ProxyProtocolHeader.read(input).getLength() == 41);
+		assertTrue(input.read() == 'G');
+
+		// Health checks carry no address
+		byte[] unknown = "PROXY UNKNOWN\r\n".getBytes(StandardCharsets.US_ASCII);
+		assertTrue(!ProxyProtocolHeader.read(new ByteArrayInputStream(unknown)).hasSourceAddress());
+	}
+
+	@Test
+	public void testVersion2() throws IOException {
+		byte[] data = new byte[] { 0x0d, 0x0a, 0x0d, 0x0a, 0x00, 0x0d, 0x0a, 0x51, 0x55, 0x49, 0x54, 0x0a, 0x21, 0x11,
+				0, 12, (byte) 198, 51, 100, 7, 10, 0, 0, 1, 0x15, (byte) 0xb3, 0, 80, 'G' };
+		assertTrue(ProxyProtocolHeader.decode(data, 20) == null);
+		ProxyProtocolHeader header = ProxyProtocolHeader.decode(data, data.length);
+		assertTrue(header.getVersion() == 2);
+		assertTrue(header.getSourceAddress().equals("198.51.100.7"));
+		assertTrue(header.getSourcePort() == 5555);
+		assertTrue(header.getLength() == 28);
+		ByteArrayInputStream input = new ByteArrayInputStream(data);
+		assertTrue(ProxyProtocolHeader.read(input).getLength() == 28);
+		assertTrue(input.read() == 'G');
+	}
+
+	@Test
+	public void testMalformed() {
+		byte[] http = "GET / HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+		assertThrows(IOException.class, () -> ProxyProtocolHeader.decode(http, http.length));
+		byte[] bad = "PROXY TCP4 ::1 10.0.0.1 1 2\r\n".getBytes(StandardCharsets.US_ASCII);
+		assertThrows(IOException.class, () -> ProxyProtocolHeader.decode(bad, bad.length));
+	}
+
+}
@@ -0,0 +1,58 @@
+package org.asf.connective.impl.http_1_1;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class RequestHeadParserTest {
+
+	@Test
+	public void testParse() throws IOException {
+		// Feed in small pieces to test incremental scanning
+		byte[] data = ("GET /test?a=b HTTP/1.1\r\nHost: localhost\r\nX-Test:  value \r\nhost: ignored\r\n"
+				+ "Content-Length: 4\r\n\r\nbody").getBytes(StandardCharsets.UTF_8);
+		RequestHeadParser parser = new RequestHeadParser(1024);
+		int end = -1;
+		for (int i = 0; i < data.length && end == -1; i += 3) {
+			parser.append(data, i, Math.min(3, data.length - i));
+			end = parser.findHeadEnd();
+		}
+		assertTrue(end != -1);
+		assertTrue(parser.parse(end));
+		assertTrue(parser.getMethod().equals("GET"));
+		assertTrue(parser.getPath().equals("/test?a=b"));
+		assertTrue(parser.getVersion().equals("HTTP/1.1"));
+		assertTrue(parser.getHeaders().getHeaderValue("host").equals("localhost"));
+		assertTrue(parser.getHeaders().getHeaderValue("X-Test").equals("value"));
+		assertTrue(parser.getHeaders().getHeaderValue("Content-Length").equals("4"));
+		assertTrue(new String(parser.takeRemainder(end), StandardCharsets.UTF_8).startsWith("bo"));
+
+		// Bare newlines
+		parser.reset();
+		parser.readFrom(new ByteArrayInputStream("post / HTTP/1.0\nA: b\n\n".getBytes(StandardCharsets.UTF_8)));
+		end = parser.findHeadEnd();
+		assertTrue(parser.parse(end));
+		assertTrue(parser.getMethod().equals("POST"));
+		assertTrue(parser.getHeaders().getHeaderValue("A").equals("b"));
+	}
+
+	@Test
+	public void testMalformed() {
+		String[] heads = new String[] { "\r\n\r\n", "GET /\r\n\r\n", "GET  / HTTP/1.1\r\n\r\n",
+				"GET / HTTP/1.1 x\r\n\r\n", "-GET / HTTP/1.1\r\n\r\n", "GET / HTTP/1.1\r\nNoColon\r\n\r\n",
+				"GET / HTTP/1.1\r\n: value\r\n\r\n", "GET / HTTP/1.1\r\nA: b\r\n c\r\n\r\n" };
+		for (String head : heads) {
+			RequestHeadParser parser = new RequestHeadParser(1024);
+			byte[] data = head.getBytes(StandardCharsets.UTF_8);
+			parser.append(data, 0, data.length);
+			int end = parser.findHeadEnd();
+			assertTrue(end != -1);
+			assertTrue(!parser.parse(end), head);
+		}
+	}
+
+}
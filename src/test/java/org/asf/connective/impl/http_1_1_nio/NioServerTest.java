@@ -0,0 +1,219 @@
+package org.asf.connective.impl.http_1_1_nio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.asf.connective.ConnectiveHttpServer;
+import org.asf.connective.RemoteClient;
+import org.asf.connective.lambda.LambdaPushContext;
+import org.asf.connective.lambda.LambdaRequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NioServerTest {
+
+	private static final byte[] LARGE_BODY = new byte[4 * 1024 * 1024];
+	static {
+		new Random(1).nextBytes(LARGE_BODY);
+	}
+
+	private ConnectiveHttpServer server;
+	private int port;
+	private Set<RemoteClient> clients = ConcurrentHashMap.newKeySet();
+
+	@BeforeEach
+	public void startServer() throws IOException {
+		try (ServerSocket sock = new ServerSocket(0)) {
+			port = sock.getLocalPort();
+		}
+		HashMap<String, String> config = new HashMap<String, String>();
+		config.put("Address", "127.0.0.1");
+		config.put("Port", Integer.toString(port));
+		server = ConnectiveHttpServer.createNetworked("HTTP/1.1-NIO", config);
+		assertTrue(server instanceof ConnectiveHttpServer_1_1_Nio);
+		server.registerHandler("/hello", (LambdaRequestContext ctx) -> {
+			clients.add(ctx.getClient());
+			ctx.setResponseContent("text/plain", "Hello " + ctx.getRequestQuery());
+		}, "GET");
+		server.registerHandler("/echo", (LambdaPushContext ctx) -> {
+			ctx.setResponseContent("application/octet-stream", readAll(ctx.getRequestBody()));
+		}, "POST");
+		server.registerHandler("/large", (LambdaRequestContext ctx) -> {
+			ctx.setResponseContent("application/octet-stream", LARGE_BODY);
+		}, "GET");
+		server.start();
+	}
+
+	@AfterEach
+	public void stopServer() throws IOException {
+		server.stopForced();
+	}
+
+	@Test
+	public void testGet() throws IOException {
+		try (Socket client = connect()) {
+			send(client, "GET /hello?world HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			Response resp = readResponse(client.getInputStream());
+			assertTrue(resp.status.startsWith("HTTP/1.1 200"), resp.status);
+			assertTrue(new String(resp.body, StandardCharsets.UTF_8).equals("Hello world"));
+		}
+
+		// The server accepts connections again after a restart
+		server.stop();
+		server.start();
+		try (Socket client = connect()) {
+			send(client, "GET /hello?again HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			Response resp = readResponse(client.getInputStream());
+			assertTrue(resp.status.startsWith("HTTP/1.1 200"), resp.status);
+			assertTrue(new String(resp.body, StandardCharsets.UTF_8).equals("Hello again"));
+		}
+	}
+
+	@Test
+	public void testKeepAlive() throws IOException {
+		try (Socket client = connect()) {
+			for (int i = 0; i < 3; i++) {
+				send(client, "GET /hello?" + i + " HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n\r\n");
+				Response resp = readResponse(client.getInputStream());
+				assertTrue(resp.status.startsWith("HTTP/1.1 200"), resp.status);
+				assertTrue(new String(resp.body, StandardCharsets.UTF_8).equals("Hello " + i));
+			}
+		}
+
+		// All requests were served by the same connection
+		assertTrue(clients.size() == 1);
+	}
+
+	@Test
+	public void testSplitBody() throws IOException, InterruptedException {
+		byte[] body = new byte[64 * 1024];
+		new Random(2).nextBytes(body);
+		try (Socket client = connect()) {
+			// Send the head and body in several pieces so the server has to wait for
+			// more data between reads
+			OutputStream output = client.getOutputStream();
+			send(client, "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length
+					+ "\r\nConnection: keep-alive\r\n");
+			Thread.sleep(50);
+			send(client, "\r\n");
+			int offset = 0;
+			for (int piece : new int[] { 1, 1000, 20000, body.length - 21001 }) {
+				Thread.sleep(50);
+				output.write(body, offset, piece);
+				output.flush();
+				offset += piece;
+			}
+			Response resp = readResponse(client.getInputStream());
+			assertTrue(resp.status.startsWith("HTTP/1.1 200"), resp.status);
+			assertArrayEquals(body, resp.body);
+
+			// The connection is positioned at the next request
+			send(client, "GET /hello?after HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			resp = readResponse(client.getInputStream());
+			assertTrue(new String(resp.body, StandardCharsets.UTF_8).equals("Hello after"));
+		}
+	}
+
+	@Test
+	public void testLargeResponse() throws IOException, InterruptedException {
+		try (Socket client = new Socket()) {
+			// Keep the receive buffer small and read late so the server has to write
+			// in several parts
+			client.setReceiveBufferSize(8192);
+			client.connect(new InetSocketAddress("127.0.0.1", port));
+			client.setSoTimeout(10000);
+			send(client, "GET /large HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n\r\n");
+			Thread.sleep(200);
+			Response resp = readResponse(client.getInputStream());
+			assertTrue(resp.status.startsWith("HTTP/1.1 200"), resp.status);
+			assertArrayEquals(LARGE_BODY, resp.body);
+
+			// Pending writes were flushed completely before the next response
+			send(client, "GET /hello?after HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			resp = readResponse(client.getInputStream());
+			assertTrue(new String(resp.body, StandardCharsets.UTF_8).equals("Hello after"));
+		}
+	}
+
+	private Socket connect() throws IOException {
+		Socket client = new Socket("127.0.0.1", port);
+		client.setSoTimeout(10000);
+		return client;
+	}
+
+	private static void send(Socket client, String data) throws IOException {
+		client.getOutputStream().write(data.getBytes(StandardCharsets.US_ASCII));
+		client.getOutputStream().flush();
+	}
+
+	private static byte[] readAll(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[16384];
+		while (true) {
+			int read = input.read(buffer);
+			if (read == -1)
+				break;
+			output.write(buffer, 0, read);
+		}
+		return output.toByteArray();
+	}
+
+	private static Response readResponse(InputStream input) throws IOException {
+		// Read head
+		ByteArrayOutputStream head = new ByteArrayOutputStream();
+		while (true) {
+			int b = input.read();
+			if (b == -1)
+				throw new EOFException("Connection closed before the response head was read");
+			head.write(b);
+			byte[] data = head.toByteArray();
+			int len = data.length;
+			if (len >= 4 && data[len - 4] == '\r' && data[len - 3] == '\n' && data[len - 2] == '\r'
+					&& data[len - 1] == '\n')
+				break;
+		}
+
+		// Parse head
+		Response resp = new Response();
+		String[] lines = new String(head.toByteArray(), StandardCharsets.US_ASCII).split("\r\n");
+		resp.status = lines[0];
+		int length = 0;
+		for (int i = 1; i < lines.length; i++) {
+			int colon = lines[i].indexOf(':');
+			if (colon != -1 && lines[i].substring(0, colon).trim().equalsIgnoreCase("Content-Length"))
+				length = Integer.parseInt(lines[i].substring(colon + 1).trim());
+		}
+
+		// Read body
+		resp.body = new byte[length];
+		int read = 0;
+		while (read < length) {
+			int r = input.read(resp.body, read, length - read);
+			if (r == -1)
+				throw new EOFException("Connection closed before the response body was read");
+			read += r;
+		}
+		return resp;
+	}
+
+	private static class Response {
+		public String status;
+		public byte[] body;
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.asf.connective.impl.http_2;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HpackTest {
+
+	@Test
+	public void testHuffman() throws Http2Exception {
+		// RFC 7541 C.4.1
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HpackHuffman.encode("www.example.com".getBytes(StandardCharsets.US_ASCII), out);
+		assertTrue(Arrays.equals(out.toByteArray(), hex("f1e3c2e5f23a6ba0ab90f4ff")));
+		byte[] data = hex("25a849e95bb8e8b4bf");
+		assertTrue(new String(HpackHuffman.decode(data, 0, data.length), StandardCharsets.US_ASCII)
+				.equals("custom-value"));
+
+		// Padding longer than 7 bits is invalid
+		byte[] invalid = hex("ffff");
+		assertThrows(Http2Exception.class, () -> HpackHuffman.decode(invalid, 0, invalid.length));
+	}
+
+	@Test
+	public void testDecodeRequests() throws Http2Exception {
+		// RFC 7541 C.4, the dynamic table carries over between blocks
+		HpackDecoder decoder = new HpackDecoder(4096);
+		List<String[]> headers = decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff");
+		assertTrue(headers.size() == 4);
+		assertTrue(headers.get(3)[0].equals(":authority") && headers.get(3)[1].equals("www.example.com"));
+		assertTrue(decoder.getTableSize() == 57);
+
+		headers = decode(decoder, "828684be5886a8eb10649cbf");
+		assertTrue(headers.get(3)[1].equals("www.example.com"));
+		assertTrue(headers.get(4)[0].equals("cache-control") && headers.get(4)[1].equals("no-cache"));
+		assertTrue(decoder.getTableSize() == 110);
+
+		headers = decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf");
+		assertTrue(headers.get(1)[1].equals("https") && headers.get(2)[1].equals("/index.html"));
+		assertTrue(headers.get(3)[1].equals("www.example.com"));
+		assertTrue(headers.get(4)[0].equals("custom-key") && headers.get(4)[1].equals("custom-value"));
+		assertTrue(decoder.getTableSize() == 164);
+
+		// Index past the end of the table
+		assertThrows(Http2Exception.class, () -> decode(decoder, "ff00"));
+	}
+
+	@Test
+	public void testEncoderRoundTrip() throws Http2Exception {
+		HpackEncoder encoder = new HpackEncoder();
+		HpackDecoder decoder = new HpackDecoder(4096);
+		String[][] headers = new String[][] { { ":status", "200" }, { "content-type", "text/html" },
+				{ "set-cookie", "session=abc" }, { "content-length", "1024" }, { "x-custom", "value" } };
+		for (int i = 0; i < 2; i++) {
+			ByteArrayOutputStream block = new ByteArrayOutputStream();
+			encoder.beginBlock(block);
+			for (String[] header : headers)
+				encoder.encode(header[0], header[1], block);
+			byte[] data = block.toByteArray();
+			List<String[]> decoded = decoder.decode(data, 0, data.length);
+			assertTrue(decoded.size() == headers.length);
+			for (int j = 0; j < headers.length; j++)
+				assertTrue(Arrays.equals(decoded.get(j), headers[j]));
+
+			// Indexed headers take a single byte the second time
+			if (i == 1)
+				assertTrue(data[0] < 0 && data[1] < 0);
+		}
+
+		// Table size reductions are signaled at the start of the next block
+		encoder.setMaxTableSize(0);
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		encoder.beginBlock(block);
+		encoder.encode("x-custom", "value", block);
+		byte[] data = block.toByteArray();
+		assertTrue(data[0] == 0x20);
+		decoder.decode(data, 0, data.length);
+		assertTrue(decoder.getTableSize() == 0);
+	}
+
+	private static List<String[]> decode(HpackDecoder decoder, String block) throws Http2Exception {
+		byte[] data = hex(block);
+		return new ArrayList<String[]>(decoder.decode(data, 0, data.length));
+	}
+
+	private static byte[] hex(String hex) {
+		byte[] data = new byte[hex.length() / 2];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		return data;
+	}
+
+}
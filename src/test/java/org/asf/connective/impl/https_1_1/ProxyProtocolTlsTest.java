@@ -0,0 +1,123 @@
+package org.asf.connective.impl.https_1_1;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.asf.connective.lambda.LambdaRequestContext;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class ProxyProtocolTlsTest {
+
+	@Test
+	public void testFileRegionOverLayeredTls() throws Exception {
+		File dir = Files.createTempDirectory("connective-tls").toFile();
+		File keystore = new File(dir, "keystore.jks");
+		File body = new File(dir, "body.bin");
+		File log = new File(dir, "keytool.log");
+		try {
+			// Generate a self-signed certificate
+			File keytool = new File(System.getProperty("java.home"), "bin/keytool");
+			Assumptions.assumeTrue(keytool.exists() || new File(keytool.getPath() + ".exe").exists());
+			Process proc = new ProcessBuilder(keytool.getPath(), "-genkeypair", "-alias", "test", "-keyalg", "RSA",
+					"-keysize", "2048", "-dname", "CN=localhost", "-validity", "1", "-storetype", "JKS", "-keystore",
+					keystore.getPath(), "-storepass", "password", "-keypass", "password").redirectErrorStream(true).redirectOutput(log).start();
+			assertTrue(proc.waitFor() == 0);
+
+			// File body large enough to be sent in several writes
+			byte[] data = new byte[256 * 1024];
+			new Random(1).nextBytes(data);
+			Files.write(body.toPath(), data);
+
+			// Start a server that expects PROXY headers from loopback
+			int port;
+			try (ServerSocket sock = new ServerSocket(0)) {
+				port = sock.getLocalPort();
+			}
+			ConnectiveHttpsServer_1_1 server = new ConnectiveHttpsServer_1_1();
+			server.setListenPort(port);
+			server.setHttp2Enabled(false);
+			server.setProxyProtocolEnabled(true);
+			server.addAllowedProxySources("127.0.0.1");
+			server.loadTlsContextFrom(keystore, "password".toCharArray());
+			server.registerHandler("/file", (LambdaRequestContext ctx) -> {
+				// Sent as file region
+				ctx.getResponse().setContent("application/octet-stream", body.toPath());
+				assertTrue(ctx.getResponse().getFileRegion() != null);
+			}, "GET");
+			server.start();
+			try {
+				// Send the PROXY header in plain text, then layer TLS
+				Socket plain = new Socket("127.0.0.1", port);
+				plain.getOutputStream()
+						.write(("PROXY TCP4 203.0.113.9 127.0.0.1 5555 " + port + "\r\n")
+								.getBytes(StandardCharsets.US_ASCII));
+				SSLContext context = SSLContext.getInstance("TLS");
+				context.init(null, new TrustManager[] { new TrustAllManager() }, new SecureRandom());
+				try (SSLSocket client = (SSLSocket) context.getSocketFactory().createSocket(plain, "localhost", port,
+						true)) {
+					client.setSoTimeout(10000);
+					client.getOutputStream().write("GET /file HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+							.getBytes(StandardCharsets.US_ASCII));
+
+					// Read the full response
+					ByteArrayOutputStream response = new ByteArrayOutputStream();
+					InputStream input = client.getInputStream();
+					byte[] buffer = new byte[16384];
+					while (true) {
+						int read = input.read(buffer);
+						if (read == -1)
+							break;
+						response.write(buffer, 0, read);
+					}
+					byte[] raw = response.toByteArray();
+					String head = new String(raw, 0, Math.min(raw.length, 12), StandardCharsets.US_ASCII);
+					assertTrue(head.equals("HTTP/1.1 200"), head);
+					assertArrayEquals(data, Arrays.copyOfRange(raw, raw.length - data.length, raw.length));
+				}
+			} finally {
+				server.stopForced();
+			}
+		} finally {
+			keystore.delete();
+			body.delete();
+			log.delete();
+			dir.delete();
+		}
+	}
+
+	private static class TrustAllManager implements X509TrustManager {
+
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AddressPrefixSetTest {
+
+	@Test
+	public void testPrefixes() {
+		AddressPrefixSet set = new AddressPrefixSet();
+		assertTrue(set.isEmpty());
+		set.add("10.0.0.0/8");
+		set.add("192.168.1.5");
+		set.add("fd00::/8");
+
+		// IPv4
+		assertTrue(set.contains("10.1.2.3"));
+		assertTrue(!set.contains("11.0.0.1"));
+		assertTrue(set.contains("192.168.1.5"));
+		assertTrue(!set.contains("192.168.1.6"));
+
+		// IPv6 and mapped IPv4
+		assertTrue(set.contains("fd12:3456::1"));
+		assertTrue(!set.contains("fe80::1"));
+		assertTrue(set.contains("::ffff:10.9.8.7"));
+
+		// Removal
+		set.remove("10.0.0.0/8");
+		assertTrue(!set.contains("10.1.2.3"));
+		assertTrue(set.getEntries().length == 2);
+	}
+
+	@Test
+	public void testNamesAndErrors() {
+		AddressPrefixSet set = new AddressPrefixSet();
+		set.add("");
+		assertTrue(set.isEmpty());
+		set.add("Proxy.Example");
+		assertTrue(set.contains("proxy.example"));
+		assertTrue(!set.contains("10.0.0.1"));
+		set.add("0.0.0.0/0");
+		assertTrue(set.contains("10.0.0.1"));
+		assertThrows(IllegalArgumentException.class, () -> set.add("10.0.0.0/33"));
+		assertThrows(IllegalArgumentException.class, () -> set.add("proxy/8"));
+	}
+
+}
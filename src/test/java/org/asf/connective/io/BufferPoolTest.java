@@ -0,0 +1,58 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BufferPoolTest {
+
+	@Test
+	public void testSizeClassesAndReuse() {
+		BufferPool pool = new BufferPool(false, 64 * 1024, false);
+
+		// Sizes are rounded up to the next class
+		PooledBuffer small = pool.acquire(1);
+		assertTrue(small.capacity() == BufferPool.MIN_BUFFER_SIZE);
+		PooledBuffer medium = pool.acquire(20480);
+		assertTrue(medium.capacity() == 32 * 1024);
+		PooledBuffer large = pool.acquire(BufferPool.MAX_BUFFER_SIZE + 1);
+		assertTrue(large.capacity() == BufferPool.MAX_BUFFER_SIZE + 1);
+
+		// Released buffers are reused, oversized buffers are not pooled
+		byte[] array = medium.array();
+		medium.release();
+		large.release();
+		small.release();
+		assertTrue(pool.getPooledBuffers() == 2);
+		PooledBuffer reused = pool.acquire(30000);
+		assertTrue(reused.array() == array);
+		assertTrue(pool.getReusedBuffers() == 1);
+		reused.release();
+
+		// Releasing twice has no effect
+		reused.release();
+		assertTrue(pool.getPooledBuffers() == 2);
+	}
+
+	@Test
+	public void testRetentionLimit() {
+		BufferPool pool = new BufferPool(false, 8 * 1024, false);
+		PooledBuffer a = pool.acquire(4096);
+		PooledBuffer b = pool.acquire(4096);
+		PooledBuffer c = pool.acquire(4096);
+		a.release();
+		b.release();
+		c.release();
+		assertTrue(pool.getPooledBuffers() == 2);
+	}
+
+	@Test
+	public void testDirectBuffers() {
+		BufferPool pool = new BufferPool(true, 64 * 1024, false);
+		PooledBuffer buffer = pool.acquire(100);
+		assertTrue(buffer.buffer().isDirect());
+		assertTrue(buffer.buffer().remaining() == BufferPool.MIN_BUFFER_SIZE);
+		buffer.release();
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+public class ByteRangesTest {
+
+	@Test
+	public void testParse() {
+		long[][] ranges = ByteRanges.parse("bytes=0-9, 20-, -5", 100);
+		assertTrue(ranges.length == 2);
+		assertTrue(ranges[0][0] == 0 && ranges[0][1] == 9);
+		assertTrue(ranges[1][0] == 20 && ranges[1][1] == 99);
+
+		// Overlapping ranges are merged
+		ranges = ByteRanges.parse("bytes=50-60,0-4,5-9,55-70", 100);
+		assertTrue(ranges.length == 2);
+		assertTrue(ranges[0][0] == 0 && ranges[0][1] == 9);
+		assertTrue(ranges[1][0] == 50 && ranges[1][1] == 70);
+
+		// Unsatisfiable and invalid
+		assertTrue(ByteRanges.parse("bytes=100-", 100).length == 0);
+		assertTrue(ByteRanges.parse("bytes=-0", 100).length == 0);
+		assertTrue(ByteRanges.parse("bytes=9-5", 100) == null);
+		assertTrue(ByteRanges.parse("items=0-5", 100) == null);
+		assertTrue(ByteRanges.parse("bytes=", 100) == null);
+		assertTrue(ByteRanges.parse("bytes=a-b", 100) == null);
+	}
+
+	@Test
+	public void testMultipart() throws IOException {
+		File file = File.createTempFile("ranges", ".txt");
+		try {
+			Files.write(file.toPath(), "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII));
+			HeaderCollection headers = new HeaderCollection();
+			headers.addHeader("Range", "bytes=2-4,-3");
+			HttpRequest request = new HttpRequest(null, 0, headers, "HTTP/1.1", "GET", "/file.txt");
+			HttpResponse response = new HttpResponse("HTTP/1.1", null);
+			response.setContent("text/plain", file.toPath());
+
+			assertTrue(ByteRanges.apply(request, response));
+			assertTrue(response.getResponseCode() == 206);
+			String type = response.getHeaderValue("Content-Type");
+			String boundary = type.substring(type.indexOf("boundary=") + "boundary=".length());
+			String body = new String(IoUtil.readAllBytes(response.getBodyStream()), StandardCharsets.US_ASCII);
+			assertTrue(body.length() == response.getBodyLength());
+			assertTrue(body.equals("\r\n--" + boundary
+					+ "\r\nContent-Type: text/plain\r\nContent-Range: bytes 2-4/20\r\n\r\n234\r\n--" + boundary
+					+ "\r\nContent-Type: text/plain\r\nContent-Range: bytes 17-19/20\r\n\r\nhij\r\n--" + boundary
+					+ "--\r\n"));
+			response.getBodyStream().close();
+		} finally {
+			file.delete();
+		}
+	}
+
+}
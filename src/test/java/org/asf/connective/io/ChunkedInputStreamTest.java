@@ -0,0 +1,63 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkedInputStreamTest {
+
+	@Test
+	public void testDecodeWithTrailers() throws IOException {
+		ConnectionInputStream in = new ConnectionInputStream(new ByteArrayInputStream(
+				"5;ext=1\r\nhello\r\n7\r\n, world\r\n0\r\nChecksum: abc\r\n\r\nNEXT".getBytes(StandardCharsets.UTF_8)));
+		ChunkedInputStream body = new ChunkedInputStream(in, -1, -1, false);
+		assertTrue(new String(IoUtil.readAllBytes(body), StandardCharsets.UTF_8).equals("hello, world"));
+		assertTrue(body.isComplete());
+		assertTrue(body.getBytesRead() == 12);
+		assertTrue(body.getTrailers().getHeaderValue("Checksum").equals("abc"));
+
+		// What follows the body is left in the stream
+		assertTrue(new String(IoUtil.readAllBytes(in), StandardCharsets.UTF_8).equals("NEXT"));
+	}
+
+	@Test
+	public void testSkipRemaining() throws IOException {
+		ConnectionInputStream in = new ConnectionInputStream(
+				new ByteArrayInputStream("3\r\nabc\r\n2\r\nde\r\n0\r\n\r\nNEXT".getBytes(StandardCharsets.UTF_8)));
+		ChunkedInputStream body = new ChunkedInputStream(in, -1, -1, false);
+		assertTrue(body.read() == 'a');
+		body.skipRemaining();
+		assertTrue(body.isComplete());
+		assertTrue(body.read() == -1);
+		assertTrue(new String(IoUtil.readAllBytes(in), StandardCharsets.UTF_8).equals("NEXT"));
+	}
+
+	@Test
+	public void testLimits() throws IOException {
+		// Chunk too large
+		ChunkedInputStream body = new ChunkedInputStream(
+				new ByteArrayInputStream("10\r\n0123456789abcdef\r\n0\r\n\r\n".getBytes(StandardCharsets.UTF_8)), 8,
+				-1, false);
+		assertThrows(IOException.class, () -> body.read());
+		assertTrue(body.isLimitExceeded());
+
+		// Body too large
+		ChunkedInputStream body2 = new ChunkedInputStream(
+				new ByteArrayInputStream("4\r\nabcd\r\n4\r\nefgh\r\n0\r\n\r\n".getBytes(StandardCharsets.UTF_8)), -1, 6,
+				false);
+		assertThrows(IOException.class, () -> IoUtil.readAllBytes(body2));
+		assertTrue(body2.isLimitExceeded());
+
+		// Malformed size
+		ChunkedInputStream body3 = new ChunkedInputStream(
+				new ByteArrayInputStream("zz\r\n".getBytes(StandardCharsets.UTF_8)), -1, -1, false);
+		assertThrows(IOException.class, () -> body3.read());
+		assertTrue(!body3.isLimitExceeded());
+	}
+
+}
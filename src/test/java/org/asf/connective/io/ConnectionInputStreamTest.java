@@ -0,0 +1,42 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ConnectionInputStreamTest {
+
+	@Test
+	public void testPushbackAndLimits() throws IOException {
+		ConnectionInputStream in = new ConnectionInputStream(
+				new ByteArrayInputStream("0123456789abcdefghij".getBytes(StandardCharsets.UTF_8)), 8);
+
+		// Read and push back
+		byte[] buf = new byte[4];
+		assertTrue(in.read(buf, 0, 4) == 4);
+		in.unread(buf, 2, 2);
+		in.unread("xy".getBytes(StandardCharsets.UTF_8));
+		assertTrue(new String(IoUtil.readNBytes(in, 6), StandardCharsets.UTF_8).equals("xy2345"));
+
+		// Limited body
+		BodyInputStream body = new BodyInputStream(in, 6, false);
+		assertTrue(new String(IoUtil.readNBytes(body, 3), StandardCharsets.UTF_8).equals("678"));
+		assertTrue(body.getBytesRead() == 3);
+		body.skipRemaining();
+		assertTrue(body.read() == -1);
+		assertTrue(body.getRemaining() == 0);
+
+		// Rest of the stream is untouched, large reads go straight to the source
+		byte[] rest = new byte[16];
+		int read = in.read(rest, 0, rest.length);
+		assertTrue(new String(rest, 0, read, StandardCharsets.UTF_8).equals("cdef"));
+		read = in.read(rest, 0, rest.length);
+		assertTrue(new String(rest, 0, read, StandardCharsets.UTF_8).equals("ghij"));
+		assertTrue(in.read() == -1);
+	}
+
+}
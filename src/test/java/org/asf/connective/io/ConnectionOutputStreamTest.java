@@ -0,0 +1,52 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ConnectionOutputStreamTest {
+
+	private class CountingStream extends ByteArrayOutputStream {
+		public int writes;
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			writes++;
+			super.write(b, off, len);
+		}
+	}
+
+	@Test
+	public void testCoalescing() throws IOException {
+		CountingStream target = new CountingStream();
+		ConnectionOutputStream out = new ConnectionOutputStream(target, 8);
+
+		// Small writes are combined
+		out.write("ab".getBytes(StandardCharsets.UTF_8));
+		out.write('c');
+		out.write("def".getBytes(StandardCharsets.UTF_8));
+		assertTrue(target.writes == 0);
+		out.flush();
+		assertTrue(target.writes == 1);
+		assertTrue(target.toString("UTF-8").equals("abcdef"));
+
+		// Large writes fill the buffer first
+		target.reset();
+		target.writes = 0;
+		out.write("xyz".getBytes(StandardCharsets.UTF_8));
+		out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+		assertTrue(target.writes == 2);
+		assertTrue(target.toString("UTF-8").equals("xyz0123456789"));
+
+		// Unbuffered writes pass through
+		out.write("12".getBytes(StandardCharsets.UTF_8));
+		out.setBuffered(false);
+		out.write("34".getBytes(StandardCharsets.UTF_8));
+		assertTrue(target.toString("UTF-8").equals("xyz01234567891234"));
+	}
+
+}
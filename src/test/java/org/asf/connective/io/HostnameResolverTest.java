@@ -0,0 +1,93 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class HostnameResolverTest {
+
+	private static class TestResolver extends HostnameResolver {
+		private AtomicInteger calls = new AtomicInteger();
+
+		public TestResolver(int maxEntries, long ttl, long negativeTtl) {
+			super(maxEntries, ttl, negativeTtl);
+		}
+
+		@Override
+		protected String lookup(String address) {
+			calls.incrementAndGet();
+			if (address.startsWith("10."))
+				return address; // No hostname
+			return "host-" + address;
+		}
+	}
+
+	@Test
+	public void testCache() throws InterruptedException {
+		TestResolver resolver = new TestResolver(2, 60000, 50);
+
+		// Positive entries are cached
+		assertTrue(resolver.resolve("192.168.0.1").equals("host-192.168.0.1"));
+		assertTrue(resolver.resolve("192.168.0.1").equals("host-192.168.0.1"));
+		assertTrue(resolver.calls.get() == 1);
+
+		// Negative entries expire sooner
+		assertTrue(resolver.resolve("10.0.0.1").equals("10.0.0.1"));
+		assertTrue(resolver.resolve("10.0.0.1").equals("10.0.0.1"));
+		assertTrue(resolver.calls.get() == 2);
+		Thread.sleep(100);
+		assertTrue(resolver.getCached("10.0.0.1") == null);
+
+		// Bounded
+		resolver.resolve("192.168.0.2");
+		resolver.resolve("192.168.0.3");
+		assertTrue(resolver.getCacheSize() == 2);
+
+		// Non-literals are never looked up
+		int calls = resolver.calls.get();
+		assertTrue(resolver.resolve("_hidden").equals("_hidden"));
+		assertTrue(resolver.resolve("unknown").equals("unknown"));
+		assertTrue(resolver.calls.get() == calls);
+		assertTrue(HostnameResolver.isAddressLiteral("::1"));
+		assertTrue(!HostnameResolver.isAddressLiteral("1.2.3"));
+	}
+
+	@Test
+	public void testAddressLiterals() throws Exception {
+		// Valid literals parse to the same bytes as InetAddress
+		for (String address : new String[] { "0.0.0.0", "255.255.255.255", "010.1.2.3", "::", "::1", "1::",
+				"fe80::1:2", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7::", "::ffff:192.168.0.1", "64:ff9b::1.2.3.4",
+				"2001:DB8::Ab" }) {
+			byte[] bytes = HostnameResolver.parseAddressLiteral(address);
+			byte[] expected = InetAddress.getByName(address).getAddress();
+			assertTrue(bytes != null);
+			if (bytes.length == 16 && expected.length == 4)
+				bytes = Arrays.copyOfRange(bytes, 12, 16); // Mapped IPv4
+			assertTrue(Arrays.equals(bytes, expected));
+		}
+
+		// Anything else is rejected before it can reach the DNS resolver
+		for (String address : new String[] { "256.1.1.1", "1.2.3.999", "1.2.3", "1.2.3.4.5", "1..2.3", "1.2.3.4.",
+				"0x7f.0.0.1", "1234.1.1.1", ":", ":::", "1:::2", "1::2::3", ":1::2", "1::2:", "12345::",
+				"1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8::", "::1.2.3.4:5", "::256.1.1.1", "fe80::1%eth0",
+				"dead:beef", "abc.def.ghi.jkl", "::g", "\uff11.2.3.4" }) {
+			assertTrue(HostnameResolver.parseAddressLiteral(address) == null);
+			assertTrue(!HostnameResolver.isAddressLiteral(address));
+		}
+	}
+
+	@Test
+	public void testAsync() throws InterruptedException {
+		TestResolver resolver = new TestResolver(16, 60000, 60000);
+		resolver.resolveAsync("172.16.0.1");
+		long start = System.currentTimeMillis();
+		while (resolver.getCached("172.16.0.1") == null && System.currentTimeMillis() - start < 5000)
+			Thread.sleep(5);
+		assertTrue("host-172.16.0.1".equals(resolver.getCached("172.16.0.1")));
+	}
+
+}
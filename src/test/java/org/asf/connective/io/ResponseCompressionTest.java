@@ -0,0 +1,63 @@
+package org.asf.connective.io;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.asf.connective.headers.HeaderCollection;
+import org.asf.connective.objects.HttpRequest;
+import org.asf.connective.objects.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+public class ResponseCompressionTest {
+
+	@Test
+	public void testNegotiation() {
+		assertTrue(ResponseCompression.selectEncoding(null) == null);
+		assertTrue(ResponseCompression.selectEncoding("gzip, deflate, br").equals("gzip"));
+		assertTrue(ResponseCompression.selectEncoding("gzip;q=0.5, deflate").equals("deflate"));
+		assertTrue(ResponseCompression.selectEncoding("gzip;q=0, *;q=0.1").equals("deflate"));
+		assertTrue(ResponseCompression.selectEncoding("identity") == null);
+		assertTrue(ResponseCompression.selectEncoding("*").equals("gzip"));
+	}
+
+	@Test
+	public void testCompressFixedLength() throws IOException {
+		HeaderCollection headers = new HeaderCollection();
+		headers.addHeader("Accept-Encoding", "gzip");
+		HttpRequest request = new HttpRequest(null, 0, headers, "HTTP/1.1", "GET", "/data.json");
+		byte[] body = new byte[20000];
+		for (int i = 0; i < body.length; i++)
+			body[i] = (byte) ('a' + i % 7);
+		HttpResponse response = new HttpResponse("HTTP/1.1", null);
+		response.setContent("application/json; charset=utf-8", body);
+
+		// Bodies below the buffered limit keep a fixed length
+		assertTrue(new ResponseCompression().apply(request, response));
+		assertTrue(response.getHeaderValue("Content-Encoding").equals("gzip"));
+		assertTrue(response.getHeaderValue("Vary").equals("Accept-Encoding"));
+		assertTrue(response.getBodyLength() > 0 && response.getBodyLength() < body.length);
+		byte[] decoded = IoUtil.readAllBytes(new GZIPInputStream(response.getBodyStream()));
+		assertTrue(Arrays.equals(decoded, body));
+
+		// Ineligible content type
+		HttpResponse image = new HttpResponse("HTTP/1.1", null);
+		image.setContent("image/png", body);
+		assertTrue(!new ResponseCompression().apply(request, image));
+		assertTrue(!image.hasHeader("Vary"));
+	}
+
+	@Test
+	public void testCompressStream() throws IOException {
+		byte[] body = new byte[300000];
+		for (int i = 0; i < body.length; i++)
+			body[i] = (byte) (i % 251);
+		CompressingInputStream strm = new CompressingInputStream(new ByteArrayInputStream(body), true, 1);
+		byte[] decoded = IoUtil.readAllBytes(new GZIPInputStream(strm));
+		assertTrue(Arrays.equals(decoded, body));
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.asf.connective.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncTaskManagerTest {
+
+	@Test
+	public void testFullPool() throws InterruptedException {
+		AsyncTaskManager.configure(1, 1, 0, TaskRejectionPolicy.CALLER_RUNS);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// Occupy the only task thread
+			CountDownLatch started = new CountDownLatch(1);
+			AsyncTaskManager.runAsync(() -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+			}, false);
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			// Tasks that report rejection must not run on the caller
+			Thread caller = Thread.currentThread();
+			Thread[] ranOn = new Thread[1];
+			AsyncTask rejected = AsyncTaskManager.tryRunAsync(() -> ranOn[0] = Thread.currentThread(), false);
+			assertTrue(rejected == null);
+			assertTrue(ranOn[0] == null);
+
+			// Connection tasks do not use the task pool
+			CountDownLatch connection = new CountDownLatch(1);
+			AsyncTask task = AsyncTaskManager.runConnection(() -> {
+				if (Thread.currentThread() != caller)
+					connection.countDown();
+			}, false);
+			assertTrue(task != null);
+			assertTrue(connection.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			int cpus = Runtime.getRuntime().availableProcessors();
+			AsyncTaskManager.configure(cpus, Math.max(1024, cpus), 65536, TaskRejectionPolicy.CALLER_RUNS);
+		}
+	}
+
+}
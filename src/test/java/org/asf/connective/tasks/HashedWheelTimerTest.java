@@ -0,0 +1,58 @@
+package org.asf.connective.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class HashedWheelTimerTest {
+
+	@Test
+	public void testTimeouts() throws InterruptedException {
+		HashedWheelTimer timer = new HashedWheelTimer("Test timer", 10, 8);
+		try {
+			// Schedule past a full wheel round and cancel one
+			CountDownLatch latch = new CountDownLatch(2);
+			AtomicInteger cancelledRuns = new AtomicInteger();
+			long start = System.currentTimeMillis();
+			timer.schedule(() -> latch.countDown(), 50);
+			timer.schedule(() -> latch.countDown(), 200);
+			HashedWheelTimer.Timeout cancelled = timer.schedule(() -> cancelledRuns.incrementAndGet(), 100);
+			assertTrue(cancelled.cancel());
+			assertTrue(!cancelled.cancel());
+
+			// Wait
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertTrue(System.currentTimeMillis() - start >= 190);
+			Thread.sleep(50);
+			assertTrue(cancelledRuns.get() == 0);
+			assertTrue(timer.getFiredTimeouts() == 2);
+			assertTrue(timer.getPendingTimeouts() == 0);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void testActivityTimeout() throws InterruptedException {
+		HashedWheelTimer timer = new HashedWheelTimer("Test timer", 10, 8);
+		try {
+			// Keep touching the timeout, it should only fire once activity stops
+			CountDownLatch latch = new CountDownLatch(1);
+			ActivityTimeout timeout = new ActivityTimeout(timer, 100, () -> latch.countDown());
+			timeout.start();
+			for (int i = 0; i < 10; i++) {
+				Thread.sleep(30);
+				timeout.touch();
+			}
+			assertTrue(latch.getCount() == 1);
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} finally {
+			timer.stop();
+		}
+	}
+
+}